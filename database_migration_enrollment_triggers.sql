@@ -0,0 +1,70 @@
+-- ===============================================
+-- MIGRATION: TRIGGER ĐẾM SỐ CHỖ KHÔNG CHẠY TRONG LÔ ĐĂNG KÝ
+-- ===============================================
+-- Trigger cũ đếm lại toàn bộ đăng ký của khóa học sau MỖI dòng được thêm/sửa,
+-- nên lúc mở đăng ký chi phí ghi tăng theo số sinh viên đã đăng ký. Lô đăng ký
+-- của server (EnrollmentDAO.processBatch) tự giữ chỗ và đếm lại một lần mỗi
+-- khóa học sau cả lô; nó đặt biến phiên @sms_skip_seat_recount để trigger bỏ
+-- qua. Các thao tác khác (SQL thủ công, quản trị) vẫn được trigger cập nhật.
+-- Khi chưa chạy script này, server vẫn đúng nhưng đăng ký chậm hơn.
+
+USE student_management_system;
+
+-- Đếm số đăng ký của khóa học chỉ đọc index
+ALTER TABLE enrollments
+    DROP INDEX idx_enrollments_course,
+    ADD INDEX idx_enrollments_course (course_id, enrollment_status);
+
+DROP TRIGGER IF EXISTS tr_enrollment_insert;
+DROP TRIGGER IF EXISTS tr_enrollment_update;
+DROP TRIGGER IF EXISTS tr_enrollment_delete;
+
+DELIMITER //
+CREATE TRIGGER tr_enrollment_insert
+AFTER INSERT ON enrollments
+FOR EACH ROW
+BEGIN
+    IF @sms_skip_seat_recount IS NULL THEN
+        UPDATE courses 
+        SET current_students = (
+            SELECT COUNT(*) 
+            FROM enrollments 
+            WHERE course_id = NEW.course_id 
+            AND enrollment_status = 'enrolled'
+        )
+        WHERE course_id = NEW.course_id;
+    END IF;
+END//
+
+CREATE TRIGGER tr_enrollment_update
+AFTER UPDATE ON enrollments
+FOR EACH ROW
+BEGIN
+    IF @sms_skip_seat_recount IS NULL THEN
+        UPDATE courses 
+        SET current_students = (
+            SELECT COUNT(*) 
+            FROM enrollments 
+            WHERE course_id = NEW.course_id 
+            AND enrollment_status = 'enrolled'
+        )
+        WHERE course_id = NEW.course_id;
+    END IF;
+END//
+
+CREATE TRIGGER tr_enrollment_delete
+AFTER DELETE ON enrollments
+FOR EACH ROW
+BEGIN
+    IF @sms_skip_seat_recount IS NULL THEN
+        UPDATE courses 
+        SET current_students = (
+            SELECT COUNT(*) 
+            FROM enrollments 
+            WHERE course_id = OLD.course_id 
+            AND enrollment_status = 'enrolled'
+        )
+        WHERE course_id = OLD.course_id;
+    END IF;
+END//
+DELIMITER ;
@@ -0,0 +1,20 @@
+-- ===============================================
+-- MIGRATION: FULLTEXT INDEX CHO TÌM KIẾM KHÓA HỌC
+-- ===============================================
+-- Áp dụng cho database đã tạo bằng database_setup.sql trước khi có các index này.
+-- Server tự phát hiện: khi chưa có FULLTEXT index, tìm kiếm khóa học dùng
+-- chỉ mục trong bộ nhớ (CourseSearchIndex) thay cho MATCH ... AGAINST.
+--
+-- Parser mặc định của InnoDB bỏ qua từ ngắn hơn innodb_ft_min_token_size (mặc định 3).
+-- Tên tiếng Việt có nhiều âm tiết 2 ký tự ("Lê", "An"): nên đặt
+--     innodb_ft_min_token_size = 2
+-- trong my.cnf và khởi động lại MySQL TRƯỚC khi chạy script này.
+
+USE student_management_system;
+
+ALTER TABLE subjects ADD FULLTEXT INDEX ft_subjects_name (subject_name);
+ALTER TABLE users ADD FULLTEXT INDEX ft_users_full_name (full_name);
+
+-- Kiểm tra
+SHOW INDEX FROM subjects WHERE Index_type = 'FULLTEXT';
+SHOW INDEX FROM users WHERE Index_type = 'FULLTEXT';
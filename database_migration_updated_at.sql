@@ -0,0 +1,50 @@
+-- ===============================================
+-- MIGRATION: CỘT updated_at CHO REVALIDATE CACHE CỦA CLIENT
+-- ===============================================
+-- Server tính phiên bản (ETag) của danh sách sinh viên/khóa học từ COUNT(*) và
+-- MAX(updated_at); client gửi lại ETag và nhận NOT_MODIFIED nếu không có gì đổi.
+-- Độ chính xác micro giây để hai lần ghi trong cùng một giây vẫn đổi phiên bản.
+-- Khi chưa chạy script này, server không gắn ETag (client luôn tải đầy đủ).
+
+USE student_management_system;
+
+ALTER TABLE users
+    MODIFY updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+
+ALTER TABLE students
+    ADD COLUMN updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+
+ALTER TABLE subjects
+    ADD COLUMN updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+
+ALTER TABLE courses
+    ADD COLUMN updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+
+-- MAX(updated_at) đọc từ đầu index thay vì quét bảng
+CREATE INDEX idx_users_updated_at ON users(updated_at);
+CREATE INDEX idx_students_updated_at ON students(updated_at);
+CREATE INDEX idx_subjects_updated_at ON subjects(updated_at);
+CREATE INDEX idx_courses_updated_at ON courses(updated_at);
+
+-- Ghi updated_at với độ chính xác micro giây như cột
+DROP PROCEDURE IF EXISTS UpdateStudentStatus;
+DELIMITER //
+CREATE PROCEDURE UpdateStudentStatus(
+    IN p_student_id INT,
+    IN p_new_status ENUM('active', 'suspended', 'graduated', 'dropped')
+)
+BEGIN
+    -- Cập nhật trạng thái đơn giản
+    UPDATE students 
+    SET student_status = p_new_status,
+        updated_at = CURRENT_TIMESTAMP(6)
+    WHERE student_id = p_student_id;
+    
+    -- Log thay đổi (nếu cần thiết)
+    INSERT INTO student_status_log (student_id, old_status, new_status, changed_at)
+    SELECT p_student_id, 
+           (SELECT student_status FROM students WHERE student_id = p_student_id),
+           p_new_status,
+           CURRENT_TIMESTAMP;
+END//
+DELIMITER ;
@@ -19,7 +19,7 @@ CREATE TABLE users (
     phone VARCHAR(20),
     address TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     is_active BOOLEAN DEFAULT TRUE
 );
 
@@ -72,6 +72,7 @@ CREATE TABLE students (
     emergency_contact VARCHAR(100),
     emergency_phone VARCHAR(20),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
     FOREIGN KEY (class_id) REFERENCES classes(class_id),
     FOREIGN KEY (department_id) REFERENCES departments(department_id)
@@ -90,6 +91,7 @@ CREATE TABLE subjects (
     description TEXT,
     is_required BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     FOREIGN KEY (department_id) REFERENCES departments(department_id),
     FOREIGN KEY (prerequisite_subject_id) REFERENCES subjects(subject_id)
 );
@@ -114,6 +116,7 @@ CREATE TABLE courses (
     start_date DATE,
     end_date DATE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     FOREIGN KEY (subject_id) REFERENCES subjects(subject_id),
     FOREIGN KEY (teacher_id) REFERENCES users(user_id),
     FOREIGN KEY (class_id) REFERENCES classes(class_id)
@@ -220,20 +223,30 @@ CREATE TABLE system_config (
 -- Indexes cho bảng users
 CREATE INDEX idx_users_role ON users(role);
 CREATE INDEX idx_users_email ON users(email);
+CREATE FULLTEXT INDEX ft_users_full_name ON users(full_name);
+CREATE INDEX idx_users_updated_at ON users(updated_at);
 
 -- Indexes cho bảng students
 CREATE INDEX idx_students_code ON students(student_code);
 CREATE INDEX idx_students_class ON students(class_id);
 CREATE INDEX idx_students_status ON students(student_status);
+CREATE INDEX idx_students_department_status ON students(department_id, student_status);
+CREATE INDEX idx_students_updated_at ON students(updated_at);
 
 -- Indexes cho bảng courses
 CREATE INDEX idx_courses_teacher ON courses(teacher_id);
 CREATE INDEX idx_courses_subject ON courses(subject_id);
 CREATE INDEX idx_courses_year_semester ON courses(academic_year, semester);
+CREATE INDEX idx_courses_updated_at ON courses(updated_at);
+CREATE INDEX idx_subjects_updated_at ON subjects(updated_at);
+
+-- Index full-text cho tìm kiếm khóa học (database cũ: chạy database_migration_fulltext.sql)
+CREATE FULLTEXT INDEX ft_subjects_name ON subjects(subject_name);
 
 -- Indexes cho bảng enrollments
 CREATE INDEX idx_enrollments_student ON enrollments(student_id);
-CREATE INDEX idx_enrollments_course ON enrollments(course_id);
+-- Đếm số đăng ký của khóa học chỉ đọc index
+CREATE INDEX idx_enrollments_course ON enrollments(course_id, enrollment_status);
 CREATE INDEX idx_enrollments_status ON enrollments(enrollment_status);
 
 -- Indexes cho bảng grades
@@ -311,48 +324,57 @@ WHERE e.enrollment_status = 'completed';
 -- TRIGGERS ĐỂ TỰ ĐỘNG CẬP NHẬT DỮ LIỆU
 -- ===============================================
 
--- Trigger cập nhật số lượng sinh viên trong khóa học
+-- Trigger cập nhật số lượng sinh viên trong khóa học.
+-- Lô đăng ký của server (EnrollmentDAO.processBatch) tự giữ chỗ và đếm lại một
+-- lần mỗi khóa học sau cả lô, nên đặt @sms_skip_seat_recount để bỏ qua việc
+-- đếm lại theo từng dòng (chi phí tăng theo số đăng ký của khóa học).
 DELIMITER //
 CREATE TRIGGER tr_enrollment_insert
 AFTER INSERT ON enrollments
 FOR EACH ROW
 BEGIN
-    UPDATE courses 
-    SET current_students = (
-        SELECT COUNT(*) 
-        FROM enrollments 
-        WHERE course_id = NEW.course_id 
-        AND enrollment_status = 'enrolled'
-    )
-    WHERE course_id = NEW.course_id;
+    IF @sms_skip_seat_recount IS NULL THEN
+        UPDATE courses 
+        SET current_students = (
+            SELECT COUNT(*) 
+            FROM enrollments 
+            WHERE course_id = NEW.course_id 
+            AND enrollment_status = 'enrolled'
+        )
+        WHERE course_id = NEW.course_id;
+    END IF;
 END//
 
 CREATE TRIGGER tr_enrollment_update
 AFTER UPDATE ON enrollments
 FOR EACH ROW
 BEGIN
-    UPDATE courses 
-    SET current_students = (
-        SELECT COUNT(*) 
-        FROM enrollments 
-        WHERE course_id = NEW.course_id 
-        AND enrollment_status = 'enrolled'
-    )
-    WHERE course_id = NEW.course_id;
+    IF @sms_skip_seat_recount IS NULL THEN
+        UPDATE courses 
+        SET current_students = (
+            SELECT COUNT(*) 
+            FROM enrollments 
+            WHERE course_id = NEW.course_id 
+            AND enrollment_status = 'enrolled'
+        )
+        WHERE course_id = NEW.course_id;
+    END IF;
 END//
 
 CREATE TRIGGER tr_enrollment_delete
 AFTER DELETE ON enrollments
 FOR EACH ROW
 BEGIN
-    UPDATE courses 
-    SET current_students = (
-        SELECT COUNT(*) 
-        FROM enrollments 
-        WHERE course_id = OLD.course_id 
-        AND enrollment_status = 'enrolled'
-    )
-    WHERE course_id = OLD.course_id;
+    IF @sms_skip_seat_recount IS NULL THEN
+        UPDATE courses 
+        SET current_students = (
+            SELECT COUNT(*) 
+            FROM enrollments 
+            WHERE course_id = OLD.course_id 
+            AND enrollment_status = 'enrolled'
+        )
+        WHERE course_id = OLD.course_id;
+    END IF;
 END//
 DELIMITER ;
 
@@ -471,7 +493,7 @@ BEGIN
     -- Cập nhật trạng thái đơn giản
     UPDATE students 
     SET student_status = p_new_status,
-        updated_at = CURRENT_TIMESTAMP
+        updated_at = CURRENT_TIMESTAMP(6)
     WHERE student_id = p_student_id;
     
     -- Log thay đổi (nếu cần thiết)
@@ -2,12 +2,24 @@ package com.university.sms.client;
 
 import com.university.sms.common.Constants;
 import com.university.sms.common.Message;
+import com.university.sms.common.MessageCodec;
+import com.university.sms.common.MessageStream;
+import com.university.sms.common.WireProtocol;
+import com.university.sms.model.Student;
 
 import java.io.*;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -17,14 +29,21 @@ import java.util.logging.Logger;
 public class ServerConnection {
     private static final Logger LOGGER = Logger.getLogger(ServerConnection.class.getName());
     
+    // -Dsms.protocol=object để dùng giao thức ObjectStream cũ (server cũ)
+    private static final String PROTOCOL_PROPERTY = "sms.protocol";
+    // -Dsms.codec=java để chỉ dùng Java serialization trong frame
+    private static final String CODEC_PROPERTY = "sms.codec";
+    
     private Socket socket;
-    private ObjectInputStream inputStream;
-    private ObjectOutputStream outputStream;
-    private boolean isConnected;
+    private MessageStream messageStream;
+    private volatile boolean isConnected;
     
     private String serverHost;
     private int serverPort;
     
+    // Token phiên do server cấp khi đăng nhập, dùng để khôi phục phiên sau khi kết nối lại
+    private volatile String sessionToken;
+    
     // Callback interface for handling server responses
     public interface ResponseHandler {
         void onResponse(Message response);
@@ -32,7 +51,28 @@ public class ServerConnection {
         void onDisconnected();
     }
     
-    private ResponseHandler responseHandler;
+    private volatile ResponseHandler responseHandler;
+    
+    // Các yêu cầu đang chờ phản hồi, theo requestId
+    private final Map<Long, CompletableFuture<Message>> pendingRequests = new ConcurrentHashMap<>();
+    private final AtomicLong nextRequestId = new AtomicLong();
+    // Nơi nhận RESPONSE_CHUNK của các yêu cầu dạng stream, theo requestId
+    private final Map<Long, Consumer<Message>> chunkListeners = new ConcurrentHashMap<>();
+    
+    // Topic (cụ thể hoặc loại topic) -> listener nhận notification, gọi trên thread đọc
+    private final Map<String, Consumer<Message>> topicListeners = new ConcurrentHashMap<>();
+    
+    // Phản hồi đọc dữ liệu có ETag, theo action + tham số yêu cầu (LRU)
+    private static final int RESPONSE_CACHE_SIZE = 256;
+    private final Map<String, Message> responseCache = Collections.synchronizedMap(
+        new LinkedHashMap<String, Message>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Message> eldest) {
+                return size() > RESPONSE_CACHE_SIZE;
+            }
+        });
 
     public ServerConnection(String serverHost, int serverPort) {
         this.serverHost = serverHost;
@@ -47,9 +87,11 @@ public class ServerConnection {
         try {
             socket = new Socket(serverHost, serverPort);
             
+            socket.setTcpNoDelay(true);
+            
             // Initialize streams
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            inputStream = new ObjectInputStream(socket.getInputStream());
+            messageStream = WireProtocol.openClientStream(socket.getInputStream(), socket.getOutputStream(),
+                                                          resolveProtocol(), resolveCodecs());
             
             isConnected = true;
             
@@ -67,6 +109,28 @@ public class ServerConnection {
         }
     }
 
+    /**
+     * Chọn giao thức theo system property (mặc định: framed)
+     */
+    private static WireProtocol.Protocol resolveProtocol() {
+        String value = System.getProperty(PROTOCOL_PROPERTY, "framed");
+        if ("object".equalsIgnoreCase(value)) {
+            return WireProtocol.Protocol.OBJECT_STREAM;
+        }
+        return WireProtocol.Protocol.FRAMED;
+    }
+
+    /**
+     * Danh sách codec đề nghị với server, theo thứ tự ưu tiên (mặc định: binary rồi java)
+     */
+    private static MessageCodec[] resolveCodecs() {
+        String value = System.getProperty(CODEC_PROPERTY, "binary");
+        if ("java".equalsIgnoreCase(value)) {
+            return new MessageCodec[] { WireProtocol.JAVA_CODEC };
+        }
+        return new MessageCodec[] { WireProtocol.BINARY_CODEC, WireProtocol.JAVA_CODEC };
+    }
+
     /**
      * Ngắt kết nối khỏi server
      */
@@ -74,11 +138,8 @@ public class ServerConnection {
         isConnected = false;
         
         try {
-            if (inputStream != null) {
-                inputStream.close();
-            }
-            if (outputStream != null) {
-                outputStream.close();
+            if (messageStream != null) {
+                messageStream.close();
             }
             if (socket != null && !socket.isClosed()) {
                 socket.close();
@@ -89,6 +150,8 @@ public class ServerConnection {
         
         LOGGER.info("Disconnected from server");
         
+        failPendingRequests("Connection lost");
+        
         // Notify handler about disconnection
         if (responseHandler != null) {
             responseHandler.onDisconnected();
@@ -99,14 +162,13 @@ public class ServerConnection {
      * Gửi yêu cầu đến server
      */
     public boolean sendRequest(Message request) {
-        if (!isConnected || outputStream == null) {
+        if (!isConnected || messageStream == null) {
             LOGGER.warning("Cannot send request: Not connected to server");
             return false;
         }
 
         try {
-            outputStream.writeObject(request);
-            outputStream.flush();
+            messageStream.writeMessage(request);
             
             LOGGER.info("Request sent: " + request.getAction());
             return true;
@@ -122,45 +184,123 @@ public class ServerConnection {
      * Gửi yêu cầu và chờ phản hồi (synchronous)
      */
     public Message sendRequestAndWait(Message request, long timeoutSeconds) {
+        try {
+            return sendRequestAsync(request, timeoutSeconds).get();
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error waiting for response", e);
+            return Message.createErrorResponse(request.getAction(), "Timeout or error waiting for response");
+        }
+    }
+
+    /**
+     * Gửi yêu cầu không chờ: phản hồi được ghép với yêu cầu qua requestId, nên
+     * nhiều yêu cầu (kể cả cùng action) có thể cùng chờ trên một kết nối.
+     * Future luôn hoàn thành bằng một Message (lỗi/timeout là error response).
+     * Gọi cancel() trên future để báo server bỏ yêu cầu (CANCEL_REQUEST).
+     */
+    public CompletableFuture<Message> sendRequestAsync(Message request, long timeoutSeconds) {
+        return sendRequestAsync(request, nextRequestId.incrementAndGet(), timeoutSeconds);
+    }
+
+    private CompletableFuture<Message> sendRequestAsync(Message request, long requestId, long timeoutSeconds) {
+        request.setRequestId(requestId);
+        
+        CompletableFuture<Message> future = new CompletableFuture<>();
+        pendingRequests.put(requestId, future);
+        
         if (!sendRequest(request)) {
-            return Message.createErrorResponse(request.getAction(), "Failed to send request");
+            pendingRequests.remove(requestId);
+            future.complete(Message.createErrorResponse(request.getAction(), "Failed to send request"));
+            return future;
         }
+        
+        CompletableFuture<Message> result = future
+            .completeOnTimeout(Message.createErrorResponse(request.getAction(),
+                               "Timeout or error waiting for response"), timeoutSeconds, TimeUnit.SECONDS)
+            .whenComplete((response, error) -> pendingRequests.remove(requestId));
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                cancelOnServer(request.getAction(), requestId);
+            }
+        });
+        return result;
+    }
 
-        try {
-            // Wait for response with timeout
-            CompletableFuture<Message> future = new CompletableFuture<>();
-            
-            // Temporary handler for this request
-            ResponseHandler originalHandler = responseHandler;
-            responseHandler = new ResponseHandler() {
-                @Override
-                public void onResponse(Message response) {
-                    if (response.getAction().equals(request.getAction())) {
-                        future.complete(response);
-                        responseHandler = originalHandler; // Restore original handler
-                    } else if (originalHandler != null) {
-                        originalHandler.onResponse(response);
-                    }
-                }
+    /**
+     * Bỏ yêu cầu đang chờ và báo server hủy nó; phản hồi đến sau bị bỏ qua
+     */
+    private void cancelOnServer(String action, long requestId) {
+        CompletableFuture<Message> pending = pendingRequests.remove(requestId);
+        if (pending == null) {
+            return;
+        }
+        pending.complete(Message.createErrorResponse(action, Constants.MSG_REQUEST_CANCELLED));
+        
+        Message cancel = Message.createRequest(Constants.ACTION_CANCEL_REQUEST);
+        cancel.setRequestId(nextRequestId.incrementAndGet());
+        cancel.addData(Constants.KEY_TARGET_REQUEST_ID, requestId);
+        sendRequest(cancel);
+    }
 
-                @Override
-                public void onError(String error) {
-                    future.complete(Message.createErrorResponse(request.getAction(), error));
-                    responseHandler = originalHandler;
-                }
+    /**
+     * Gửi yêu cầu đọc có điều kiện: nếu đã có phản hồi cùng action và tham số
+     * trong cache, gửi kèm ETag của nó; server trả NOT_MODIFIED (không kèm dữ
+     * liệu) khi dữ liệu chưa đổi và phản hồi trong cache được dùng lại.
+     */
+    private Message sendCachedRequest(Message request, long timeoutSeconds) {
+        String key = cacheKey(request);
+        Message cached = responseCache.get(key);
+        if (cached != null) {
+            request.addData(Constants.KEY_IF_NONE_MATCH, cached.getData(Constants.KEY_ETAG));
+        }
+        
+        Message response = sendRequestAndWait(request, timeoutSeconds);
+        if (!response.isSuccess()) {
+            return response;
+        }
+        if (cached != null && Boolean.TRUE.equals(response.getData(Constants.KEY_NOT_MODIFIED))) {
+            return cached;
+        }
+        if (response.getData(Constants.KEY_ETAG) != null) {
+            responseCache.put(key, response);
+        } else {
+            responseCache.remove(key);
+        }
+        return response;
+    }
 
-                @Override
-                public void onDisconnected() {
-                    future.complete(Message.createErrorResponse(request.getAction(), "Connection lost"));
-                    responseHandler = originalHandler;
-                }
-            };
-            
-            return future.get(timeoutSeconds, TimeUnit.SECONDS);
-            
+    private static String cacheKey(Message request) {
+        return request.getAction() + new TreeMap<>(request.getData());
+    }
+
+    /**
+     * Gửi yêu cầu dạng stream: mỗi RESPONSE_CHUNK được giao cho onChunk trên
+     * thread lắng nghe (theo thứ tự server gửi), rồi trả về RESPONSE cuối.
+     * onChunk chạy chậm thì server cũng gửi chậm lại theo.
+     */
+    public Message sendStreamingRequest(Message request, Consumer<Message> onChunk, long timeoutSeconds) {
+        long requestId = nextRequestId.incrementAndGet();
+        chunkListeners.put(requestId, onChunk);
+        try {
+            // Đăng ký listener trước khi gửi để không lỡ khối đầu tiên
+            return sendRequestAsync(request, requestId, timeoutSeconds).get();
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error waiting for response", e);
+            LOGGER.log(Level.SEVERE, "Error waiting for streamed response", e);
             return Message.createErrorResponse(request.getAction(), "Timeout or error waiting for response");
+        } finally {
+            chunkListeners.remove(requestId);
+        }
+    }
+
+    /**
+     * Hoàn thành mọi yêu cầu đang chờ bằng lỗi (mất kết nối)
+     */
+    private void failPendingRequests(String error) {
+        for (Long requestId : pendingRequests.keySet()) {
+            CompletableFuture<Message> future = pendingRequests.remove(requestId);
+            if (future != null) {
+                future.complete(Message.createErrorResponse("ERROR", error));
+            }
         }
     }
 
@@ -172,17 +312,123 @@ public class ServerConnection {
         request.addData(Constants.KEY_USERNAME, username);
         request.addData(Constants.KEY_PASSWORD, password);
         
+        // Dữ liệu trong cache thuộc phiên của người dùng trước
+        responseCache.clear();
+        Message response = sendRequestAndWait(request, 60);
+        if (response.isSuccess()) {
+            sessionToken = response.getData(Constants.KEY_SESSION_TOKEN, String.class);
+        }
+        return response;
+    }
+
+    /**
+     * Khôi phục phiên đăng nhập trên kết nối mới bằng token đã nhận khi đăng nhập
+     */
+    public Message resumeSession(String token) {
+        Message request = Message.createRequest(Constants.ACTION_RESUME_SESSION);
+        request.addData(Constants.KEY_SESSION_TOKEN, token);
+        
         return sendRequestAndWait(request, 60);
     }
 
+    /**
+     * Sau khi tự kết nối lại: khôi phục phiên và đăng ký lại các topic. Phiên
+     * hết hạn thì báo lỗi để giao diện yêu cầu đăng nhập lại.
+     */
+    private void restoreSession() {
+        String token = sessionToken;
+        if (token == null) {
+            return;
+        }
+        
+        Message response = resumeSession(token);
+        if (!response.isSuccess()) {
+            sessionToken = null;
+            topicListeners.clear();
+            if (responseHandler != null) {
+                responseHandler.onError(Constants.MSG_SESSION_EXPIRED);
+            }
+            return;
+        }
+        
+        LOGGER.info("Session resumed after reconnect");
+        for (String topic : topicListeners.keySet()) {
+            Message subscribe = Message.createRequest(Constants.ACTION_SUBSCRIBE);
+            subscribe.addData(Constants.KEY_TOPIC, topic);
+            sendRequestAsync(subscribe, 60);
+        }
+    }
+
     /**
      * Đăng xuất
      */
     public Message logout() {
         Message request = Message.createRequest(Constants.ACTION_LOGOUT);
+        sessionToken = null;
+        responseCache.clear();
+        // Server bỏ mọi đăng ký topic khi đăng xuất
+        topicListeners.clear();
         return sendRequestAndWait(request, 60);
     }
 
+    /**
+     * Đăng ký nhận thay đổi của topic (ví dụ "course.seats:12", hoặc
+     * "course.seats" cho mọi khóa học). listener chạy trên thread đọc của
+     * kết nối, code giao diện cần chuyển sang EDT.
+     */
+    public Message subscribe(String topic, Consumer<Message> listener) {
+        Message request = Message.createRequest(Constants.ACTION_SUBSCRIBE);
+        request.addData(Constants.KEY_TOPIC, topic);
+        
+        // Gắn trước khi gửi để không lỡ notification đến ngay sau phản hồi
+        topicListeners.put(topic, listener);
+        Message response = sendRequestAndWait(request, 60);
+        if (!response.isSuccess()) {
+            topicListeners.remove(topic, listener);
+        }
+        return response;
+    }
+
+    /**
+     * Hủy đăng ký topic
+     */
+    public Message unsubscribe(String topic) {
+        Message request = Message.createRequest(Constants.ACTION_UNSUBSCRIBE);
+        request.addData(Constants.KEY_TOPIC, topic);
+        
+        topicListeners.remove(topic);
+        return sendRequestAndWait(request, 60);
+    }
+
+    /**
+     * Chuyển notification có topic cho listener của topic và của loại topic;
+     * trả về false nếu không có listener nào
+     */
+    private boolean dispatchTopicNotification(Message notification) {
+        String topic = notification.getData(Constants.KEY_TOPIC, String.class);
+        if (topic == null) {
+            return false;
+        }
+        int separator = topic.indexOf(Constants.TOPIC_SEPARATOR);
+        Consumer<Message> exact = topicListeners.get(topic);
+        Consumer<Message> byType = separator < 0 ? null : topicListeners.get(topic.substring(0, separator));
+        
+        notifyListener(exact, notification);
+        notifyListener(byType, notification);
+        return exact != null || byType != null;
+    }
+
+    private static void notifyListener(Consumer<Message> listener, Message notification) {
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.accept(notification);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error handling notification", e);
+        }
+    }
+
     /**
      * Lấy thông tin sinh viên
      */
@@ -192,7 +438,7 @@ public class ServerConnection {
             request.addData(Constants.KEY_STUDENT_ID, studentId);
         }
         
-        return sendRequestAndWait(request, 60);
+        return sendCachedRequest(request, 60);
     }
 
     /**
@@ -200,7 +446,32 @@ public class ServerConnection {
      */
     public Message getAllStudents() {
         Message request = Message.createRequest(Constants.ACTION_GET_ALL_STUDENTS);
-        return sendRequestAndWait(request, 120); // Tăng lên 2 phút
+        return sendCachedRequest(request, 120); // Tăng lên 2 phút
+    }
+
+    /**
+     * Lấy một trang sinh viên sau cursor (null = trang đầu)
+     */
+    public Message getStudentsPage(String cursor, int pageSize) {
+        Message request = Message.createRequest(Constants.ACTION_GET_STUDENTS_PAGE);
+        request.addData(Constants.KEY_CURSOR, cursor);
+        request.addData(Constants.KEY_PAGE_SIZE, pageSize);
+        
+        return sendRequestAndWait(request, 60);
+    }
+
+    /**
+     * Xuất toàn bộ sinh viên dạng stream; onChunk nhận từng khối danh sách sinh viên
+     */
+    public Message exportStudents(Consumer<List<Student>> onChunk) {
+        Message request = Message.createRequest(Constants.ACTION_EXPORT_STUDENTS);
+        request.addData(Constants.KEY_CHUNK_SIZE, Constants.DEFAULT_CHUNK_SIZE);
+        
+        return sendStreamingRequest(request, chunk -> {
+            @SuppressWarnings("unchecked")
+            List<Student> students = (List<Student>) chunk.getData(Constants.KEY_STUDENTS);
+            onChunk.accept(students);
+        }, 600);
     }
 
     /**
@@ -213,12 +484,77 @@ public class ServerConnection {
         return sendRequestAndWait(request, 60);
     }
 
+    /**
+     * Tìm kiếm sinh viên không chờ; cancel() future khi từ khóa đã cũ
+     */
+    public CompletableFuture<Message> searchStudentsAsync(String keyword) {
+        Message request = Message.createRequest(Constants.ACTION_SEARCH_STUDENTS);
+        request.addData(Constants.KEY_SEARCH_KEYWORD, keyword);
+        
+        return sendRequestAsync(request, 60);
+    }
+
     /**
      * Lấy tất cả khóa học
      */
     public Message getAllCourses() {
         Message request = Message.createRequest(Constants.ACTION_GET_ALL_COURSES);
-        return sendRequestAndWait(request, 120);
+        return sendCachedRequest(request, 120);
+    }
+
+    /**
+     * Lấy một trang khóa học sau cursor (null = trang đầu)
+     */
+    public Message getCoursesPage(String cursor, int pageSize) {
+        Message request = Message.createRequest(Constants.ACTION_GET_COURSES_PAGE);
+        request.addData(Constants.KEY_CURSOR, cursor);
+        request.addData(Constants.KEY_PAGE_SIZE, pageSize);
+        
+        return sendRequestAndWait(request, 60);
+    }
+
+    /**
+     * Lấy cửa sổ sinh viên [offset, offset + pageSize) đã sắp xếp/lọc ở server.
+     * sortField là tên StudentDAO.SortField, statusFilter là tên Student.StudentStatus (null = tất cả).
+     */
+    public Message getStudentsWindow(int offset, int pageSize, String sortField, boolean ascending,
+                                     String statusFilter) {
+        Message request = Message.createRequest(Constants.ACTION_GET_STUDENTS_WINDOW);
+        request.addData(Constants.KEY_OFFSET, offset);
+        request.addData(Constants.KEY_PAGE_SIZE, pageSize);
+        request.addData(Constants.KEY_SORT_FIELD, sortField);
+        request.addData(Constants.KEY_SORT_ASCENDING, ascending);
+        request.addData(Constants.KEY_STATUS_FILTER, statusFilter);
+        
+        return sendCachedRequest(request, 60);
+    }
+
+    /**
+     * Lấy cửa sổ khóa học [offset, offset + pageSize) đã sắp xếp/lọc ở server.
+     * sortField là tên CourseDAO.SortField, statusFilter là tên Course.CourseStatus (null = tất cả).
+     */
+    public Message getCoursesWindow(int offset, int pageSize, String sortField, boolean ascending,
+                                    String statusFilter) {
+        Message request = Message.createRequest(Constants.ACTION_GET_COURSES_WINDOW);
+        request.addData(Constants.KEY_OFFSET, offset);
+        request.addData(Constants.KEY_PAGE_SIZE, pageSize);
+        request.addData(Constants.KEY_SORT_FIELD, sortField);
+        request.addData(Constants.KEY_SORT_ASCENDING, ascending);
+        request.addData(Constants.KEY_STATUS_FILTER, statusFilter);
+        
+        return sendCachedRequest(request, 60);
+    }
+
+    /**
+     * Tìm kiếm khóa học theo độ liên quan (cursor = null để lấy trang đầu)
+     */
+    public Message searchCourses(String keyword, String cursor, int pageSize) {
+        Message request = Message.createRequest(Constants.ACTION_SEARCH_COURSES);
+        request.addData(Constants.KEY_SEARCH_KEYWORD, keyword);
+        request.addData(Constants.KEY_CURSOR, cursor);
+        request.addData(Constants.KEY_PAGE_SIZE, pageSize);
+        
+        return sendRequestAndWait(request, 60);
     }
 
     /**
@@ -226,7 +562,7 @@ public class ServerConnection {
      */
     public Message getCourses() {
         Message request = Message.createRequest(Constants.ACTION_GET_COURSES);
-        return sendRequestAndWait(request, 60);
+        return sendCachedRequest(request, 60);
     }
 
     /**
@@ -236,6 +572,63 @@ public class ServerConnection {
         Message request = Message.createRequest(Constants.ACTION_GET_COURSE_INFO);
         request.addData(Constants.KEY_COURSE_ID, courseId);
         
+        return sendCachedRequest(request, 60);
+    }
+
+    /**
+     * Đăng ký học phần (sinh viên đăng ký cho chính mình)
+     */
+    public Message enrollCourse(int courseId) {
+        Message request = Message.createRequest(Constants.ACTION_ENROLL_COURSE);
+        request.addData(Constants.KEY_COURSE_ID, courseId);
+        
+        return sendRequestAndWait(request, 60);
+    }
+
+    /**
+     * Hủy đăng ký học phần
+     */
+    public Message dropCourse(int courseId) {
+        Message request = Message.createRequest(Constants.ACTION_DROP_COURSE);
+        request.addData(Constants.KEY_COURSE_ID, courseId);
+        
+        return sendRequestAndWait(request, 60);
+    }
+
+    /**
+     * Danh sách khoa
+     */
+    public Message getDepartments() {
+        Message request = Message.createRequest(Constants.ACTION_GET_DEPARTMENTS);
+        return sendRequestAndWait(request, 60);
+    }
+
+    /**
+     * Thống kê sinh viên theo khoa
+     */
+    public Message getDepartmentReport(int departmentId) {
+        Message request = Message.createRequest(Constants.ACTION_GET_DEPARTMENT_REPORT);
+        request.addData(Constants.KEY_DEPARTMENT_ID, departmentId);
+        
+        return sendRequestAndWait(request, 60);
+    }
+
+    /**
+     * Thống kê khóa học theo năm học và học kỳ
+     */
+    public Message getSemesterReport(String academicYear, int semester) {
+        Message request = Message.createRequest(Constants.ACTION_GET_SEMESTER_REPORT);
+        request.addData(Constants.KEY_ACADEMIC_YEAR, academicYear);
+        request.addData(Constants.KEY_SEMESTER, semester);
+        
+        return sendRequestAndWait(request, 60);
+    }
+
+    /**
+     * Xóa cache danh mục khóa học trên server (admin)
+     */
+    public Message flushCourseCache() {
+        Message request = Message.createRequest(Constants.ACTION_FLUSH_COURSE_CACHE);
         return sendRequestAndWait(request, 60);
     }
 
@@ -256,25 +649,55 @@ public class ServerConnection {
         Thread listenerThread = new Thread(() -> {
             while (isConnected && !socket.isClosed()) {
                 try {
-                    Message message = (Message) inputStream.readObject();
+                    Message message = messageStream.readMessage();
                     
                     LOGGER.info("Received message: " + message.getType() + " - " + message.getAction());
                     
+                    // Một khối của phản hồi dạng stream
+                    if (message.getType() == Message.MessageType.RESPONSE_CHUNK) {
+                        Consumer<Message> listener = chunkListeners.get(message.getRequestId());
+                        if (listener != null) {
+                            try {
+                                listener.accept(message);
+                            } catch (RuntimeException e) {
+                                LOGGER.log(Level.WARNING, "Error handling streamed chunk", e);
+                            }
+                        }
+                        continue;
+                    }
+                    
+                    // Phản hồi cho một yêu cầu đang chờ
+                    if (message.getType() == Message.MessageType.RESPONSE && message.getRequestId() != 0) {
+                        CompletableFuture<Message> future = pendingRequests.remove(message.getRequestId());
+                        if (future != null) {
+                            future.complete(message);
+                            continue;
+                        }
+                    }
+                    
+                    // Thay đổi dữ liệu của topic đã đăng ký
+                    if (message.getType() == Message.MessageType.NOTIFICATION && dispatchTopicNotification(message)) {
+                        continue;
+                    }
+                    
                     // Handle message based on type
-                    if (responseHandler != null) {
+                    ResponseHandler handler = responseHandler;
+                    if (handler != null) {
                         if (message.getType() == Message.MessageType.RESPONSE) {
-                            responseHandler.onResponse(message);
+                            handler.onResponse(message);
                         } else if (message.getType() == Message.MessageType.NOTIFICATION) {
                             // Handle notifications
-                            responseHandler.onResponse(message);
+                            handler.onResponse(message);
                         }
                     }
                     
                 } catch (SocketException e) {
                     LOGGER.info("Server connection closed");
+                    reconnectIfUnexpected();
                     break;
                 } catch (EOFException e) {
                     LOGGER.info("Server disconnected");
+                    reconnectIfUnexpected();
                     break;
                 } catch (IOException | ClassNotFoundException e) {
                     LOGGER.log(Level.SEVERE, "Error reading message from server", e);
@@ -282,6 +705,9 @@ public class ServerConnection {
                     break;
                 }
             }
+            
+            // Không còn ai đọc phản hồi: giải phóng các yêu cầu đang chờ
+            failPendingRequests("Connection lost");
         });
         
         listenerThread.setDaemon(true);
@@ -289,11 +715,22 @@ public class ServerConnection {
         listenerThread.start();
     }
 
+    /**
+     * Kết nối bị đóng mà không phải do disconnect() (mạng chập chờn, server
+     * khởi động lại): kết nối lại và khôi phục phiên
+     */
+    private void reconnectIfUnexpected() {
+        if (isConnected) {
+            handleConnectionError();
+        }
+    }
+
     /**
      * Xử lý lỗi kết nối
      */
     private void handleConnectionError() {
         isConnected = false;
+        failPendingRequests("Connection error occurred");
         
         if (responseHandler != null) {
             responseHandler.onError("Connection error occurred");
@@ -305,7 +742,9 @@ public class ServerConnection {
                 Thread.sleep(5000); // Wait 5 seconds
                 if (!isConnected) {
                     LOGGER.info("Attempting to reconnect...");
-                    connect();
+                    if (connect()) {
+                        restoreSession();
+                    }
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -1,6 +1,7 @@
 package com.university.sms.client.gui;
 
 import com.university.sms.client.ServerConnection;
+import com.university.sms.common.Message;
 import com.university.sms.model.User;
 
 import javax.swing.*;
@@ -25,11 +26,39 @@ public class AdminPanel extends JPanel {
     private void initializeComponents() {
         setLayout(new BorderLayout());
         
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton flushCacheButton = new JButton("Xóa cache khóa học");
+        flushCacheButton.addActionListener(e -> flushCourseCache());
+        topPanel.add(flushCacheButton);
+        add(topPanel, BorderLayout.NORTH);
+        
         JLabel label = new JLabel("Chức năng quản trị hệ thống sẽ được phát triển trong phiên bản sau", JLabel.CENTER);
         label.setFont(new Font("Arial", Font.PLAIN, 16));
         add(label, BorderLayout.CENTER);
     }
 
+    private void flushCourseCache() {
+        SwingWorker<Message, Void> worker = new SwingWorker<Message, Void>() {
+            @Override
+            protected Message doInBackground() throws Exception {
+                return serverConnection.flushCourseCache();
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    Message response = get();
+                    int messageType = response.isSuccess() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.ERROR_MESSAGE;
+                    JOptionPane.showMessageDialog(AdminPanel.this, response.getMessage(), "Thông báo", messageType);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(AdminPanel.this, "Lỗi: " + e.getMessage(), "Lỗi", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        
+        worker.execute();
+    }
+
     public void refreshData() {
         // Implementation will be added later
     }
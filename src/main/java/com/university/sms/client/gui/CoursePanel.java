@@ -7,10 +7,11 @@ import com.university.sms.model.Course;
 import com.university.sms.model.User;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.List;
 
 /**
@@ -24,8 +25,14 @@ public class CoursePanel extends JPanel {
     private boolean isReadOnly;
     
     private JTable courseTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<Course> tableModel;
     private JButton refreshButton;
+    private JComboBox<String> statusFilterBox;
+    private JButton enrollButton;
+    private JButton dropButton;
+    
+    // Tên Course.CourseStatus đang lọc, null = tất cả; đọc từ thread tải trang
+    private volatile String statusFilter;
 
     public CoursePanel(User currentUser, ServerConnection serverConnection, boolean isReadOnly) {
         this.currentUser = currentUser;
@@ -36,15 +43,52 @@ public class CoursePanel extends JPanel {
         setupLayout();
         setupEventListeners();
         loadInitialData();
+        subscribeSeatUpdates();
     }
 
     private void initializeComponents() {
         // Create table
         String[] columnNames = {"Mã khóa học", "Tên môn học", "Giáo viên", "Năm học", "Học kỳ", "Phòng", "Lịch học", "SV hiện tại/Tối đa"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
+        tableModel = new PagedTableModel<Course>(columnNames, this::showErrorMessage) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected Message fetchWindow(int offset, int limit, String sortField, boolean ascending) {
+                return serverConnection.getCoursesWindow(offset, limit, sortField, ascending, statusFilter);
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            protected List<Course> extractRows(Message response) {
+                return (List<Course>) response.getData(Constants.KEY_COURSES);
+            }
+            
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+            protected Object getColumnValue(Course course, int column) {
+                switch (column) {
+                    case 0: return course.getCourseCode();
+                    case 1: return course.getSubjectName();
+                    case 2: return course.getTeacherName();
+                    case 3: return course.getAcademicYear();
+                    case 4: return course.getSemester();
+                    case 5: return course.getRoom();
+                    case 6: return course.getScheduleDay() + " " + course.getScheduleTime();
+                    default: return course.getCurrentStudents() + "/" + course.getMaxStudents();
+                }
+            }
+            
+            @Override
+            protected String getSortField(int column) {
+                switch (column) {
+                    case 0: return "COURSE_CODE";
+                    case 1: return "SUBJECT_NAME";
+                    case 2: return "TEACHER_NAME";
+                    case 3: return "ACADEMIC_YEAR";
+                    case 4: return "SEMESTER";
+                    case 5: return "ROOM";
+                    case 7: return "CURRENT_STUDENTS";
+                    default: return null;
+                }
             }
         };
         courseTable = new JTable(tableModel);
@@ -52,6 +96,18 @@ public class CoursePanel extends JPanel {
         courseTable.setRowHeight(25);
         
         refreshButton = new JButton("Làm mới");
+        statusFilterBox = new JComboBox<>();
+        statusFilterBox.addItem("Tất cả");
+        for (Course.CourseStatus status : Course.CourseStatus.values()) {
+            statusFilterBox.addItem(status.name());
+        }
+        
+        // Chỉ sinh viên tự đăng ký/hủy đăng ký học phần
+        enrollButton = new JButton("Đăng ký");
+        dropButton = new JButton("Hủy đăng ký");
+        boolean canEnroll = currentUser.getRole() == User.UserRole.STUDENT && !isReadOnly;
+        enrollButton.setVisible(canEnroll);
+        dropButton.setVisible(canEnroll);
     }
 
     private void setupLayout() {
@@ -60,6 +116,10 @@ public class CoursePanel extends JPanel {
         // Top panel with buttons
         JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         topPanel.add(refreshButton);
+        topPanel.add(new JLabel("Trạng thái:"));
+        topPanel.add(statusFilterBox);
+        topPanel.add(enrollButton);
+        topPanel.add(dropButton);
         add(topPanel, BorderLayout.NORTH);
         
         // Center with table
@@ -74,33 +134,83 @@ public class CoursePanel extends JPanel {
                 refreshData();
             }
         });
+        
+        // Status filter (lọc ở server)
+        statusFilterBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int index = statusFilterBox.getSelectedIndex();
+                statusFilter = index > 0 ? (String) statusFilterBox.getSelectedItem() : null;
+                refreshData();
+            }
+        });
+        
+        // Click header to sort (sắp xếp ở server)
+        courseTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = courseTable.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    tableModel.sortByColumn(courseTable.convertColumnIndexToModel(column));
+                }
+            }
+        });
+        
+        enrollButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                changeEnrollment(true);
+            }
+        });
+        
+        dropButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                changeEnrollment(false);
+            }
+        });
     }
 
-    private void loadInitialData() {
-        // Don't call refreshData() here - it will be called by setServerConnection()
-        // This prevents double loading
-    }
-
-    public void refreshData() {
+    /**
+     * Đăng ký (enroll = true) hoặc hủy đăng ký khóa học đang chọn
+     */
+    private void changeEnrollment(boolean enroll) {
+        int selectedRow = courseTable.getSelectedRow();
+        if (selectedRow < 0) {
+            JOptionPane.showMessageDialog(this, "Vui lòng chọn khóa học.",
+                                         "Thông báo", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        Course course = tableModel.getRow(selectedRow);
+        if (course == null) {
+            // Trang chứa dòng này chưa tải xong
+            return;
+        }
+        int courseId = course.getCourseId();
+        enrollButton.setEnabled(false);
+        dropButton.setEnabled(false);
+        
         SwingWorker<Message, Void> worker = new SwingWorker<Message, Void>() {
             @Override
             protected Message doInBackground() throws Exception {
-                return serverConnection.getAllCourses();
+                return enroll ? serverConnection.enrollCourse(courseId) : serverConnection.dropCourse(courseId);
             }
             
             @Override
             protected void done() {
+                enrollButton.setEnabled(true);
+                dropButton.setEnabled(true);
                 try {
                     Message response = get();
                     if (response.isSuccess()) {
-                        @SuppressWarnings("unchecked")
-                        List<Course> courses = (List<Course>) response.getData(Constants.KEY_COURSES);
-                        updateCourseTable(courses);
+                        // Số chỗ trong bảng được cập nhật qua notification, không cần tải lại
+                        JOptionPane.showMessageDialog(CoursePanel.this, response.getMessage(),
+                                                     "Thông báo", JOptionPane.INFORMATION_MESSAGE);
                     } else {
-                        showErrorMessage("Không thể tải danh sách khóa học: " + response.getMessage());
+                        showErrorMessage(response.getMessage());
                     }
                 } catch (Exception e) {
-                    showErrorMessage("Lỗi khi tải dữ liệu: " + e.getMessage());
+                    showErrorMessage("Lỗi: " + e.getMessage());
                 }
             }
         };
@@ -108,24 +218,40 @@ public class CoursePanel extends JPanel {
         worker.execute();
     }
 
-    private void updateCourseTable(List<Course> courses) {
-        tableModel.setRowCount(0);
-        
-        if (courses != null) {
-            for (Course course : courses) {
-                Object[] rowData = {
-                    course.getCourseCode(),
-                    course.getSubjectName(),
-                    course.getTeacherName(),
-                    course.getAcademicYear(),
-                    course.getSemester(),
-                    course.getRoom(),
-                    course.getScheduleDay() + " " + course.getScheduleTime(),
-                    course.getCurrentStudents() + "/" + course.getMaxStudents()
-                };
-                tableModel.addRow(rowData);
+    /**
+     * Theo dõi số chỗ của mọi khóa học: server đẩy số chỗ mới khi có đăng ký
+     * hoặc hủy đăng ký, bảng cập nhật các dòng đang hiển thị thay vì tải lại
+     */
+    private void subscribeSeatUpdates() {
+        SwingWorker<Message, Void> worker = new SwingWorker<Message, Void>() {
+            @Override
+            protected Message doInBackground() throws Exception {
+                return serverConnection.subscribe(Constants.TOPIC_COURSE_SEATS, notification ->
+                    SwingUtilities.invokeLater(() -> onSeatsChanged(notification)));
             }
+        };
+        
+        worker.execute();
+    }
+
+    private void onSeatsChanged(Message notification) {
+        Integer courseId = notification.getData(Constants.KEY_COURSE_ID, Integer.class);
+        Integer currentStudents = notification.getData(Constants.KEY_CURRENT_STUDENTS, Integer.class);
+        if (courseId == null || currentStudents == null) {
+            return;
         }
+        tableModel.updateRows(course -> course.getCourseId() == courseId,
+                              course -> course.setCurrentStudents(currentStudents));
+    }
+
+    private void loadInitialData() {
+        // Don't call refreshData() here - it will be called by setServerConnection()
+        // This prevents double loading
+    }
+
+    public void refreshData() {
+        // Bảng chỉ tải các trang đang hiển thị
+        tableModel.reload();
     }
 
     private void showErrorMessage(String message) {
@@ -0,0 +1,253 @@
+package com.university.sms.client.gui;
+
+import com.university.sms.common.Constants;
+import com.university.sms.common.Message;
+
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Table model cuộn ảo: chỉ giữ các trang dòng đang (hoặc vừa) hiển thị.
+ *
+ * Số dòng lấy từ tổng số server trả về cùng trang đầu; khi JTable vẽ một dòng
+ * thuộc trang chưa tải, model trả về ô trống và tải trang đó ở nền, xong thì
+ * báo JTable vẽ lại. Tối đa MAX_CACHED_PAGES trang được giữ (LRU), nên bộ nhớ
+ * client không phụ thuộc kích thước danh sách. Sắp xếp và lọc do server làm:
+ * đổi cột sắp xếp hoặc bộ lọc thì bỏ mọi trang và tải lại từ đầu.
+ *
+ * Ngoài chế độ phân trang, showRows() hiển thị một danh sách cố định (kết quả
+ * tìm kiếm). Mọi phương thức chạy trên EDT.
+ */
+public abstract class PagedTableModel<T> extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 25;
+
+    private final String[] columnNames;
+    private final Consumer<String> errorHandler;
+
+    // Số trang -> các dòng của trang, thứ tự truy cập để bỏ trang ít dùng nhất
+    private final Map<Integer, List<T>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    // Trang đang tải (hoặc tải lỗi, chờ reload) để không gửi trùng yêu cầu
+    private final Set<Integer> requestedPages = new HashSet<>();
+    private List<T> fixedRows;
+    private int rowCount;
+    // Tăng mỗi lần reload: phản hồi của lần tải cũ bị bỏ qua
+    private int generation;
+    private boolean errorReported;
+
+    private String sortField;
+    private boolean sortAscending = true;
+
+    protected PagedTableModel(String[] columnNames, Consumer<String> errorHandler) {
+        this.columnNames = columnNames;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Tải cửa sổ [offset, offset + limit) từ server; chạy trên thread nền
+     */
+    protected abstract Message fetchWindow(int offset, int limit, String sortField, boolean ascending);
+
+    /**
+     * Lấy các dòng trong phản hồi của fetchWindow
+     */
+    protected abstract List<T> extractRows(Message response);
+
+    protected abstract Object getColumnValue(T row, int column);
+
+    /**
+     * Tên trường sắp xếp ở server của cột, null nếu cột không sắp xếp được
+     */
+    protected String getSortField(int column) {
+        return null;
+    }
+
+    /**
+     * Bỏ dữ liệu đã tải và tải lại từ trang đầu (chế độ phân trang)
+     */
+    public void reload() {
+        generation++;
+        fixedRows = null;
+        pages.clear();
+        requestedPages.clear();
+        errorReported = false;
+        rowCount = 0;
+        fireTableDataChanged();
+        loadPage(0);
+    }
+
+    /**
+     * Hiển thị một danh sách cố định thay cho dữ liệu phân trang
+     */
+    public void showRows(List<T> rows) {
+        generation++;
+        fixedRows = List.copyOf(rows);
+        pages.clear();
+        requestedPages.clear();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Sắp xếp theo cột (bấm lần nữa để đảo chiều); chỉ áp dụng cho chế độ phân trang
+     */
+    public void sortByColumn(int column) {
+        String field = getSortField(column);
+        if (field == null || fixedRows != null) {
+            return;
+        }
+        if (field.equals(sortField)) {
+            sortAscending = !sortAscending;
+        } else {
+            sortField = field;
+            sortAscending = true;
+        }
+        reload();
+    }
+
+    /**
+     * Dòng tại vị trí row, null nếu trang chứa nó chưa được tải
+     */
+    public T getRow(int row) {
+        if (fixedRows != null) {
+            return row < fixedRows.size() ? fixedRows.get(row) : null;
+        }
+        List<T> page = pages.get(row / PAGE_SIZE);
+        if (page == null) {
+            return null;
+        }
+        int index = row % PAGE_SIZE;
+        return index < page.size() ? page.get(index) : null;
+    }
+
+    /**
+     * Cập nhật tại chỗ các dòng đã tải khớp matcher (ví dụ theo notification
+     * từ server) và vẽ lại chúng, không tải lại trang
+     */
+    public void updateRows(Predicate<T> matcher, Consumer<T> update) {
+        if (fixedRows != null) {
+            for (int i = 0; i < fixedRows.size(); i++) {
+                updateRow(i, fixedRows.get(i), matcher, update);
+            }
+            return;
+        }
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+            int first = entry.getKey() * PAGE_SIZE;
+            List<T> page = entry.getValue();
+            for (int i = 0; i < page.size() && first + i < rowCount; i++) {
+                updateRow(first + i, page.get(i), matcher, update);
+            }
+        }
+    }
+
+    private void updateRow(int row, T item, Predicate<T> matcher, Consumer<T> update) {
+        if (matcher.test(item)) {
+            update.accept(item);
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return fixedRows != null ? fixedRows.size() : rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        T item = getRow(row);
+        if (item == null) {
+            // Trang đã tải mà thiếu dòng (dữ liệu bị xóa sau khi đếm): không tải lại
+            if (fixedRows == null && !pages.containsKey(row / PAGE_SIZE)) {
+                loadPage(row / PAGE_SIZE);
+            }
+            return null;
+        }
+        return getColumnValue(item, column);
+    }
+
+    private void loadPage(int pageIndex) {
+        if (!requestedPages.add(pageIndex)) {
+            return;
+        }
+        int loadGeneration = generation;
+        String field = sortField;
+        boolean ascending = sortAscending;
+
+        SwingWorker<Message, Void> worker = new SwingWorker<Message, Void>() {
+            @Override
+            protected Message doInBackground() throws Exception {
+                return fetchWindow(pageIndex * PAGE_SIZE, PAGE_SIZE, field, ascending);
+            }
+
+            @Override
+            protected void done() {
+                if (loadGeneration != generation) {
+                    return;
+                }
+                Message response;
+                try {
+                    response = get();
+                } catch (Exception e) {
+                    reportError("Lỗi khi tải dữ liệu: " + e.getMessage());
+                    return;
+                }
+                if (!response.isSuccess()) {
+                    // Giữ trang trong requestedPages: không thử lại cho tới lần reload sau
+                    reportError("Không thể tải dữ liệu: " + response.getMessage());
+                    return;
+                }
+                pageLoaded(pageIndex, extractRows(response), response.getData(Constants.KEY_TOTAL_COUNT, Integer.class));
+            }
+        };
+
+        worker.execute();
+    }
+
+    private void pageLoaded(int pageIndex, List<T> rows, Integer totalCount) {
+        requestedPages.remove(pageIndex);
+        pages.put(pageIndex, rows != null ? rows : List.of());
+
+        if (totalCount != null && totalCount != rowCount) {
+            rowCount = totalCount;
+            fireTableDataChanged();
+            return;
+        }
+        int first = pageIndex * PAGE_SIZE;
+        int last = Math.min(first + PAGE_SIZE, rowCount) - 1;
+        if (last >= first) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    private void reportError(String message) {
+        if (!errorReported) {
+            errorReported = true;
+            errorHandler.accept(message);
+        }
+    }
+}
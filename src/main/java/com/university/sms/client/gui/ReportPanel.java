@@ -1,38 +1,256 @@
 package com.university.sms.client.gui;
 
 import com.university.sms.client.ServerConnection;
+import com.university.sms.common.Constants;
+import com.university.sms.common.Message;
+import com.university.sms.model.Department;
 import com.university.sms.model.User;
 
 import javax.swing.*;
 import java.awt.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Panel báo cáo và thống kê
+ * Panel báo cáo và thống kê: số sinh viên của một khoa theo trạng thái và số
+ * khóa học/đăng ký của một học kỳ.
+ *
+ * Server trả thống kê từ snapshot trong bộ nhớ (StatisticsService) nên panel
+ * tự làm mới định kỳ trong lúc đang hiển thị mà không tạo truy vấn MySQL.
  */
 public class ReportPanel extends JPanel {
     private static final long serialVersionUID = 1L;
-    
+
+    private static final int AUTO_REFRESH_MILLIS = 10_000;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
     private User currentUser;
     private ServerConnection serverConnection;
 
+    private JComboBox<Department> departmentBox;
+    private JTextField academicYearField;
+    private JComboBox<Integer> semesterBox;
+    private JButton refreshButton;
+    private JCheckBox autoRefreshBox;
+    private JLabel statusLabel;
+
+    // Tên trường trong KEY_STATISTICS -> nhãn hiển thị giá trị
+    private final Map<String, JLabel> departmentValues = new LinkedHashMap<>();
+    private final Map<String, JLabel> semesterValues = new LinkedHashMap<>();
+
+    private Timer autoRefreshTimer;
+    private boolean loading;
+
     public ReportPanel(User currentUser, ServerConnection serverConnection) {
         this.currentUser = currentUser;
         this.serverConnection = serverConnection;
-        
+
         initializeComponents();
     }
 
     private void initializeComponents() {
         setLayout(new BorderLayout());
-        
-        JLabel label = new JLabel("Chức năng báo cáo và thống kê sẽ được phát triển trong phiên bản sau", JLabel.CENTER);
-        label.setFont(new Font("Arial", Font.PLAIN, 16));
-        add(label, BorderLayout.CENTER);
+
+        departmentBox = new JComboBox<>();
+        departmentBox.setRenderer(new DefaultListCellRenderer() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                Object text = value instanceof Department ? ((Department) value).getDepartmentName() : value;
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        academicYearField = new JTextField(defaultAcademicYear(), 9);
+        semesterBox = new JComboBox<>(new Integer[] {1, 2, 3});
+        refreshButton = new JButton("Làm mới");
+        autoRefreshBox = new JCheckBox("Tự động cập nhật (" + AUTO_REFRESH_MILLIS / 1000 + " giây)", true);
+        statusLabel = new JLabel(" ");
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(new JLabel("Khoa:"));
+        topPanel.add(departmentBox);
+        topPanel.add(new JLabel("Năm học:"));
+        topPanel.add(academicYearField);
+        topPanel.add(new JLabel("Học kỳ:"));
+        topPanel.add(semesterBox);
+        topPanel.add(refreshButton);
+        topPanel.add(autoRefreshBox);
+        add(topPanel, BorderLayout.NORTH);
+
+        JPanel centerPanel = new JPanel(new GridLayout(1, 2, 10, 0));
+        centerPanel.add(createStatisticsPanel("Sinh viên của khoa", departmentValues, new String[][] {
+            {"totalStudents", "Tổng số sinh viên"},
+            {"activeStudents", "Đang học"},
+            {"graduatedStudents", "Đã tốt nghiệp"},
+            {"suspendedStudents", "Bảo lưu"},
+            {"droppedStudents", "Thôi học"}}));
+        centerPanel.add(createStatisticsPanel("Khóa học của học kỳ", semesterValues, new String[][] {
+            {"totalCourses", "Tổng số khóa học"},
+            {"planningCourses", "Đang lên kế hoạch"},
+            {"ongoingCourses", "Đang diễn ra"},
+            {"completedCourses", "Đã kết thúc"},
+            {"cancelledCourses", "Đã hủy"},
+            {"totalEnrollments", "Lượt đăng ký"}}));
+        JPanel centerWrapper = new JPanel(new BorderLayout());
+        centerWrapper.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        centerWrapper.add(centerPanel, BorderLayout.NORTH);
+        add(centerWrapper, BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        bottomPanel.add(statusLabel);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        refreshButton.addActionListener(e -> refreshData());
+        departmentBox.addActionListener(e -> loadStatistics());
+        semesterBox.addActionListener(e -> loadStatistics());
+        academicYearField.addActionListener(e -> loadStatistics());
+
+        // Chỉ làm mới khi panel đang hiển thị (tab đang được chọn)
+        autoRefreshTimer = new Timer(AUTO_REFRESH_MILLIS, e -> {
+            if (autoRefreshBox.isSelected() && isShowing()) {
+                loadStatistics();
+            }
+        });
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        autoRefreshTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        // Cửa sổ bị đóng (đăng xuất): dừng làm mới
+        autoRefreshTimer.stop();
+        super.removeNotify();
+    }
+
+    private static JPanel createStatisticsPanel(String title, Map<String, JLabel> values, String[][] rows) {
+        JPanel panel = new JPanel(new GridLayout(rows.length, 2, 5, 8));
+        panel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createTitledBorder(title), BorderFactory.createEmptyBorder(5, 10, 5, 10)));
+        for (String[] row : rows) {
+            JLabel value = new JLabel("-", JLabel.RIGHT);
+            value.setFont(new Font("Arial", Font.BOLD, 16));
+            values.put(row[0], value);
+            panel.add(new JLabel(row[1]));
+            panel.add(value);
+        }
+        return panel;
+    }
+
+    /**
+     * Năm học hiện tại dạng "2024-2025" (năm học bắt đầu từ tháng 8)
+     */
+    private static String defaultAcademicYear() {
+        LocalDate today = LocalDate.now();
+        int startYear = today.getMonthValue() >= 8 ? today.getYear() : today.getYear() - 1;
+        return startYear + "-" + (startYear + 1);
     }
 
     public void refreshData() {
-        // Implementation will be added later
+        if (departmentBox.getItemCount() == 0) {
+            loadDepartments();
+        } else {
+            loadStatistics();
+        }
+    }
+
+    private void loadDepartments() {
+        SwingWorker<Message, Void> worker = new SwingWorker<Message, Void>() {
+            @Override
+            protected Message doInBackground() throws Exception {
+                return serverConnection.getDepartments();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            protected void done() {
+                try {
+                    Message response = get();
+                    if (response == null || !response.isSuccess()) {
+                        showStatus(response != null ? response.getMessage() : "Không nhận được phản hồi từ server");
+                        return;
+                    }
+                    List<Department> departments = (List<Department>) response.getData(Constants.KEY_DEPARTMENTS);
+                    if (departments != null) {
+                        // addItem đầu tiên chọn khoa và kích hoạt loadStatistics
+                        for (Department department : departments) {
+                            departmentBox.addItem(department);
+                        }
+                    }
+                } catch (Exception e) {
+                    showStatus("Lỗi: " + e.getMessage());
+                }
+            }
+        };
+
+        worker.execute();
     }
-}
 
+    private void loadStatistics() {
+        Department department = (Department) departmentBox.getSelectedItem();
+        String academicYear = academicYearField.getText().trim();
+        Integer semester = (Integer) semesterBox.getSelectedItem();
+        if (department == null || academicYear.isEmpty() || semester == null || loading) {
+            return;
+        }
+        loading = true;
 
+        SwingWorker<Message[], Void> worker = new SwingWorker<Message[], Void>() {
+            @Override
+            protected Message[] doInBackground() throws Exception {
+                return new Message[] {
+                    serverConnection.getDepartmentReport(department.getDepartmentId()),
+                    serverConnection.getSemesterReport(academicYear, semester)
+                };
+            }
+
+            @Override
+            protected void done() {
+                loading = false;
+                try {
+                    Message[] responses = get();
+                    String error = showValues(responses[0], departmentValues);
+                    String semesterError = showValues(responses[1], semesterValues);
+                    if (error == null) {
+                        error = semesterError;
+                    }
+                    showStatus(error != null ? error : "Cập nhật lúc " + LocalTime.now().format(TIME_FORMAT));
+                } catch (Exception e) {
+                    showStatus("Lỗi: " + e.getMessage());
+                }
+            }
+        };
+
+        worker.execute();
+    }
+
+    /**
+     * Hiển thị KEY_STATISTICS của phản hồi; trả về thông báo lỗi nếu thất bại
+     */
+    @SuppressWarnings("unchecked")
+    private static String showValues(Message response, Map<String, JLabel> labels) {
+        if (response == null || !response.isSuccess()) {
+            labels.values().forEach(label -> label.setText("-"));
+            return response != null ? response.getMessage() : "Không nhận được phản hồi từ server";
+        }
+        Map<String, Integer> values = (Map<String, Integer>) response.getData(Constants.KEY_STATISTICS);
+        labels.forEach((key, label) -> {
+            Integer value = values != null ? values.get(key) : null;
+            label.setText(value != null ? String.valueOf(value) : "-");
+        });
+        return null;
+    }
+
+    private void showStatus(String text) {
+        statusLabel.setText(text);
+    }
+}
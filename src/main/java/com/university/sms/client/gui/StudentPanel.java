@@ -7,10 +7,18 @@ import com.university.sms.model.Student;
 import com.university.sms.model.User;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 
 /**
@@ -24,13 +32,15 @@ public class StudentPanel extends JPanel {
     private boolean isReadOnly;
     
     private JTable studentTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<Student> tableModel;
     private JTextField searchField;
     private JButton searchButton;
     private JButton refreshButton;
+    private JComboBox<String> statusFilterBox;
     private JButton addButton;
     private JButton editButton;
     private JButton deleteButton;
+    private JButton exportButton;
     
     private JPanel studentInfoPanel;
     private JTextField studentCodeField;
@@ -42,6 +52,11 @@ public class StudentPanel extends JPanel {
     private JTextField gpaField;
     private JTextField creditsField;
     private JTextField statusField;
+    
+    // Tên Student.StudentStatus đang lọc, null = tất cả; đọc từ thread tải trang
+    private volatile String statusFilter;
+    
+    private StudentSearchController searchController;
 
     public StudentPanel(User currentUser, ServerConnection serverConnection, boolean isReadOnly) {
         this.currentUser = currentUser;
@@ -57,10 +72,45 @@ public class StudentPanel extends JPanel {
     private void initializeComponents() {
         // Create table
         String[] columnNames = {"Mã SV", "Họ tên", "Email", "Khoa", "Lớp", "GPA", "Tín chỉ", "Trạng thái"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
+        tableModel = new PagedTableModel<Student>(columnNames, this::showErrorMessage) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected Message fetchWindow(int offset, int limit, String sortField, boolean ascending) {
+                return serverConnection.getStudentsWindow(offset, limit, sortField, ascending, statusFilter);
+            }
+            
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+            @SuppressWarnings("unchecked")
+            protected List<Student> extractRows(Message response) {
+                return (List<Student>) response.getData(Constants.KEY_STUDENTS);
+            }
+            
+            @Override
+            protected Object getColumnValue(Student student, int column) {
+                switch (column) {
+                    case 0: return student.getStudentCode();
+                    case 1: return student.getFullName();
+                    case 2: return student.getEmail();
+                    case 3: return "N/A"; // Department name
+                    case 4: return "N/A"; // Class name
+                    case 5: return student.getGpa();
+                    case 6: return student.getTotalCredits();
+                    default: return student.getStudentStatus();
+                }
+            }
+            
+            @Override
+            protected String getSortField(int column) {
+                switch (column) {
+                    case 0: return "STUDENT_CODE";
+                    case 1: return "FULL_NAME";
+                    case 2: return "EMAIL";
+                    case 5: return "GPA";
+                    case 6: return "TOTAL_CREDITS";
+                    case 7: return "STATUS";
+                    default: return null;
+                }
             }
         };
         studentTable = new JTable(tableModel);
@@ -70,12 +120,20 @@ public class StudentPanel extends JPanel {
         // Create search components
         searchField = new JTextField(20);
         searchButton = new JButton("Tìm kiếm");
+        searchController = new StudentSearchController(serverConnection, this::showSearchResults,
+            error -> showErrorMessage("Tìm kiếm thất bại: " + error));
         refreshButton = new JButton("Làm mới");
+        statusFilterBox = new JComboBox<>();
+        statusFilterBox.addItem("Tất cả");
+        for (Student.StudentStatus status : Student.StudentStatus.values()) {
+            statusFilterBox.addItem(status.name());
+        }
         
         // Create action buttons
         addButton = new JButton("Thêm");
         editButton = new JButton("Sửa");
         deleteButton = new JButton("Xóa");
+        exportButton = new JButton("Xuất CSV");
         
         // Create student info panel
         createStudentInfoPanel();
@@ -178,6 +236,8 @@ public class StudentPanel extends JPanel {
         searchPanel.add(searchField);
         searchPanel.add(searchButton);
         searchPanel.add(refreshButton);
+        searchPanel.add(new JLabel("Trạng thái:"));
+        searchPanel.add(statusFilterBox);
         topPanel.add(searchPanel, BorderLayout.WEST);
         
         // Button panel
@@ -185,6 +245,7 @@ public class StudentPanel extends JPanel {
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
+        buttonPanel.add(exportButton);
         topPanel.add(buttonPanel, BorderLayout.EAST);
         
         add(topPanel, BorderLayout.NORTH);
@@ -221,6 +282,27 @@ public class StudentPanel extends JPanel {
             }
         });
         
+        // Status filter (lọc ở server)
+        statusFilterBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int index = statusFilterBox.getSelectedIndex();
+                statusFilter = index > 0 ? (String) statusFilterBox.getSelectedItem() : null;
+                refreshData();
+            }
+        });
+        
+        // Click header to sort (sắp xếp ở server)
+        studentTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = studentTable.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    tableModel.sortByColumn(studentTable.convertColumnIndexToModel(column));
+                }
+            }
+        });
+        
         // Add button
         addButton.addActionListener(new ActionListener() {
             @Override
@@ -245,6 +327,14 @@ public class StudentPanel extends JPanel {
             }
         });
         
+        // Export button
+        exportButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                exportStudentsToCsv();
+            }
+        });
+        
         // Table selection listener
         studentTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
@@ -259,9 +349,33 @@ public class StudentPanel extends JPanel {
                 performSearch();
             }
         });
+        
+        // Search as you type
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                onSearchTextChanged();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                onSearchTextChanged();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                onSearchTextChanged();
+            }
+        });
     }
 
     private void setupButtonStates() {
+        // Xuất danh sách chỉ đọc dữ liệu, không phụ thuộc chế độ read-only
+        exportButton.setEnabled(currentUser.getRole() == User.UserRole.ADMIN
+                                || currentUser.getRole() == User.UserRole.TEACHER);
+        // Sinh viên chỉ xem thông tin của chính mình
+        statusFilterBox.setEnabled(currentUser.getRole() != User.UserRole.STUDENT);
+        
         if (isReadOnly) {
             addButton.setEnabled(false);
             editButton.setEnabled(false);
@@ -310,18 +424,7 @@ public class StudentPanel extends JPanel {
 
     private void displaySingleStudent(Student student) {
         // Clear table and add single student
-        tableModel.setRowCount(0);
-        Object[] rowData = {
-            student.getStudentCode(),
-            student.getFullName(),
-            student.getEmail(),
-            "N/A", // Department name would need to be fetched
-            "N/A", // Class name would need to be fetched
-            student.getGpa(),
-            student.getTotalCredits(),
-            student.getStudentStatus()
-        };
-        tableModel.addRow(rowData);
+        tableModel.showRows(List.of(student));
         
         // Select the row and display info
         studentTable.setRowSelectionInterval(0, 0);
@@ -329,92 +432,48 @@ public class StudentPanel extends JPanel {
     }
 
     public void refreshData() {
+        // Dữ liệu có thể đã thay đổi: kết quả tìm kiếm cũ không còn dùng được
+        searchController.clearCache();
+        
         if (currentUser.getRole() == User.UserRole.STUDENT) {
             loadStudentOwnInfo();
             return;
         }
         
-        SwingWorker<Message, Void> worker = new SwingWorker<Message, Void>() {
-            @Override
-            protected Message doInBackground() throws Exception {
-                // Get all students
-                return serverConnection.getAllStudents();
-            }
-            
-            @Override
-            protected void done() {
-                try {
-                    Message response = get();
-                    if (response.isSuccess()) {
-                        @SuppressWarnings("unchecked")
-                        List<Student> students = (List<Student>) response.getData(Constants.KEY_STUDENTS);
-                        updateStudentTable(students);
-                    } else {
-                        showErrorMessage("Không thể tải danh sách sinh viên: " + response.getMessage());
-                    }
-                } catch (Exception e) {
-                    showErrorMessage("Lỗi khi tải dữ liệu: " + e.getMessage());
-                }
-            }
-        };
-        
-        worker.execute();
+        // Bảng chỉ tải các trang đang hiển thị
+        tableModel.reload();
     }
 
     private void performSearch() {
         String keyword = searchField.getText().trim();
         if (keyword.isEmpty()) {
+            searchController.cancel();
             refreshData();
             return;
         }
         
-        SwingWorker<Message, Void> worker = new SwingWorker<Message, Void>() {
-            @Override
-            protected Message doInBackground() throws Exception {
-                return serverConnection.searchStudents(keyword);
-            }
-            
-            @Override
-            protected void done() {
-                try {
-                    Message response = get();
-                    if (response.isSuccess()) {
-                        @SuppressWarnings("unchecked")
-                        List<Student> students = (List<Student>) response.getData(Constants.KEY_STUDENTS);
-                        updateStudentTable(students);
-                    } else {
-                        showErrorMessage("Tìm kiếm thất bại: " + response.getMessage());
-                    }
-                } catch (Exception e) {
-                    showErrorMessage("Lỗi khi tìm kiếm: " + e.getMessage());
-                }
-            }
-        };
-        
-        worker.execute();
+        searchController.searchNow(keyword);
     }
 
-    private void updateStudentTable(List<Student> students) {
-        tableModel.setRowCount(0);
-        
-        for (Student student : students) {
-            Object[] rowData = {
-                student.getStudentCode(),
-                student.getFullName(),
-                student.getEmail(),
-                "N/A", // Department name
-                "N/A", // Class name
-                student.getGpa(),
-                student.getTotalCredits(),
-                student.getStudentStatus()
-            };
-            tableModel.addRow(rowData);
+    private void onSearchTextChanged() {
+        String keyword = searchField.getText().trim();
+        if (keyword.isEmpty()) {
+            searchController.cancel();
+            refreshData();
+            return;
         }
+        
+        searchController.keywordChanged(keyword);
+    }
+
+    private void showSearchResults(List<Student> students) {
+        // Kết quả tìm kiếm trả về đầy đủ, không phân trang
+        tableModel.showRows(students);
     }
 
     private void displaySelectedStudentInfo() {
         int selectedRow = studentTable.getSelectedRow();
-        if (selectedRow >= 0) {
+        if (selectedRow >= 0 && tableModel.getRow(selectedRow) != null) {
             // Get student code from table
             String studentCode = (String) tableModel.getValueAt(selectedRow, 0);
             
@@ -472,6 +531,87 @@ public class StudentPanel extends JPanel {
         }
     }
 
+    /**
+     * Xuất toàn bộ sinh viên ra file CSV. Dữ liệu được server gửi theo từng
+     * khối và ghi thẳng ra file, không nạp cả danh sách vào bộ nhớ.
+     */
+    private void exportStudentsToCsv() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setSelectedFile(new File("students.csv"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        exportButton.setEnabled(false);
+        
+        SwingWorker<Message, Void> worker = new SwingWorker<Message, Void>() {
+            @Override
+            protected Message doInBackground() throws Exception {
+                try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                    writer.write("student_code,full_name,email,phone,gpa,total_credits,status");
+                    writer.newLine();
+                    
+                    // Lỗi ghi file xảy ra trên thread nhận dữ liệu, báo lại sau khi stream kết thúc
+                    IOException[] writeError = new IOException[1];
+                    Message response = serverConnection.exportStudents(students -> {
+                        if (writeError[0] != null) {
+                            return;
+                        }
+                        try {
+                            for (Student student : students) {
+                                writer.write(String.join(",",
+                                    csvField(student.getStudentCode()),
+                                    csvField(student.getFullName()),
+                                    csvField(student.getEmail()),
+                                    csvField(student.getPhone()),
+                                    csvField(student.getGpa()),
+                                    csvField(student.getTotalCredits()),
+                                    csvField(student.getStudentStatus())));
+                                writer.newLine();
+                            }
+                        } catch (IOException e) {
+                            writeError[0] = e;
+                        }
+                    });
+                    if (writeError[0] != null) {
+                        throw writeError[0];
+                    }
+                    return response;
+                }
+            }
+            
+            @Override
+            protected void done() {
+                exportButton.setEnabled(true);
+                try {
+                    Message response = get();
+                    if (response.isSuccess()) {
+                        JOptionPane.showMessageDialog(StudentPanel.this,
+                            "Đã xuất " + response.getData(Constants.KEY_TOTAL_COUNT) + " sinh viên ra " + file.getName(),
+                            "Thông báo", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        showErrorMessage("Xuất danh sách thất bại: " + response.getMessage());
+                    }
+                } catch (Exception e) {
+                    showErrorMessage("Lỗi khi xuất danh sách: " + e.getMessage());
+                }
+            }
+        };
+        
+        worker.execute();
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
     private void setFieldsReadOnly(boolean readOnly) {
         studentCodeField.setEditable(!readOnly);
         fullNameField.setEditable(!readOnly);
@@ -0,0 +1,181 @@
+package com.university.sms.client.gui;
+
+import com.university.sms.client.ServerConnection;
+import com.university.sms.common.Constants;
+import com.university.sms.common.Message;
+import com.university.sms.common.SearchText;
+import com.university.sms.model.Student;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Tìm kiếm sinh viên khi đang gõ cho StudentPanel.
+ *
+ * - Debounce: chỉ gửi yêu cầu khi người dùng ngừng gõ DEBOUNCE_MILLIS
+ * - Hủy: từ khóa mới hủy yêu cầu cũ đang chờ (server nhận CANCEL_REQUEST)
+ * - Cache tiền tố: từ khóa mới chứa một từ khóa đã có kết quả đầy đủ thì
+ *   lọc cục bộ kết quả đó thay vì hỏi lại server
+ *
+ * Mọi phương thức chạy trên EDT.
+ */
+class StudentSearchController {
+    private static final int DEBOUNCE_MILLIS = 300;
+    private static final int CACHE_SIZE = 32;
+
+    private final ServerConnection serverConnection;
+    private final Consumer<List<Student>> onResults;
+    private final Consumer<String> onError;
+    private final Timer debounceTimer;
+
+    private String pendingKeyword;
+    private CompletableFuture<Message> inFlight;
+    // Từ khóa đã chuẩn hóa -> kết quả, thứ tự truy cập để bỏ mục ít dùng nhất
+    private final Map<String, CachedResult> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static class CachedResult {
+        final List<Student> students;
+        // Server giới hạn số kết quả: chỉ kết quả chưa bị cắt mới lọc cục bộ được
+        final boolean complete;
+
+        CachedResult(List<Student> students, boolean complete) {
+            this.students = students;
+            this.complete = complete;
+        }
+    }
+
+    StudentSearchController(ServerConnection serverConnection, Consumer<List<Student>> onResults,
+                            Consumer<String> onError) {
+        this.serverConnection = serverConnection;
+        this.onResults = onResults;
+        this.onError = onError;
+        this.debounceTimer = new Timer(DEBOUNCE_MILLIS, e -> search(pendingKeyword));
+        this.debounceTimer.setRepeats(false);
+    }
+
+    /**
+     * Nội dung ô tìm kiếm thay đổi: tìm sau khi ngừng gõ
+     */
+    void keywordChanged(String keyword) {
+        pendingKeyword = keyword;
+        debounceTimer.restart();
+    }
+
+    /**
+     * Tìm ngay (Enter hoặc nút Tìm kiếm)
+     */
+    void searchNow(String keyword) {
+        debounceTimer.stop();
+        search(keyword);
+    }
+
+    /**
+     * Hủy lần tìm đang chờ (ví dụ khi ô tìm kiếm bị xóa trắng)
+     */
+    void cancel() {
+        debounceTimer.stop();
+        cancelInFlight();
+    }
+
+    /**
+     * Xóa cache khi dữ liệu sinh viên có thể đã thay đổi
+     */
+    void clearCache() {
+        cache.clear();
+    }
+
+    private void search(String keyword) {
+        cancelInFlight();
+        String query = SearchText.normalize(keyword);
+        if (query.isEmpty()) {
+            return;
+        }
+
+        CachedResult cached = cache.get(query);
+        if (cached != null) {
+            onResults.accept(cached.students);
+            return;
+        }
+
+        CachedResult narrower = findNarrowableResult(query);
+        if (narrower != null) {
+            List<Student> filtered = filter(narrower.students, query);
+            cache.put(query, new CachedResult(filtered, true));
+            onResults.accept(filtered);
+            return;
+        }
+
+        CompletableFuture<Message> request = serverConnection.searchStudentsAsync(keyword.trim());
+        inFlight = request;
+        request.thenAccept(response -> SwingUtilities.invokeLater(() -> {
+            if (inFlight != request) {
+                // Kết quả của từ khóa cũ
+                return;
+            }
+            inFlight = null;
+            handleResponse(query, response);
+        }));
+    }
+
+    private void handleResponse(String query, Message response) {
+        if (!response.isSuccess()) {
+            onError.accept(response.getMessage());
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Student> students = (List<Student>) response.getData(Constants.KEY_STUDENTS);
+        if (students == null) {
+            students = List.of();
+        }
+        cache.put(query, new CachedResult(students, students.size() < Constants.MAX_PAGE_SIZE));
+        onResults.accept(students);
+    }
+
+    private void cancelInFlight() {
+        if (inFlight != null) {
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+    }
+
+    /**
+     * Kết quả đầy đủ của từ khóa dài nhất mà query chứa trong nó. Sinh viên khớp
+     * query chắc chắn khớp từ khóa đó, nên lọc kết quả cũ là đủ.
+     */
+    private CachedResult findNarrowableResult(String query) {
+        String bestKey = null;
+        for (Map.Entry<String, CachedResult> entry : cache.entrySet()) {
+            String key = entry.getKey();
+            if (entry.getValue().complete && query.contains(key)
+                    && (bestKey == null || key.length() > bestKey.length())) {
+                bestKey = key;
+            }
+        }
+        return bestKey != null ? cache.get(bestKey) : null;
+    }
+
+    private static List<Student> filter(List<Student> students, String query) {
+        List<Student> filtered = new ArrayList<>();
+        for (Student student : students) {
+            if (SearchText.normalize(student.getStudentCode()).contains(query)
+                    || SearchText.normalize(student.getFullName()).contains(query)
+                    || SearchText.normalize(student.getEmail()).contains(query)) {
+                filtered.add(student);
+            }
+        }
+        return filtered;
+    }
+}
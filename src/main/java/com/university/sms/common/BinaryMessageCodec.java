@@ -0,0 +1,775 @@
+package com.university.sms.common;
+
+import com.university.sms.model.Course;
+import com.university.sms.model.Department;
+import com.university.sms.model.Enrollment;
+import com.university.sms.model.Student;
+import com.university.sms.model.Subject;
+import com.university.sms.model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec nhị phân gọn cho Message.
+ *
+ * - action và key của data được ghi bằng mã số theo bảng cố định
+ * - số nguyên dùng varint, chuỗi là UTF-8 có tiền tố độ dài
+ * - các model (Student, Course, ...) được ghi theo schema, không có class descriptor
+ * - kiểu không biết trước được ghi bằng Java serialization cho riêng giá trị đó
+ *
+ * Bảng ACTIONS/KEYS, thứ tự field của model và thứ tự enum là một phần của
+ * định dạng: chỉ được thêm vào cuối.
+ */
+public class BinaryMessageCodec implements MessageCodec {
+    public static final byte ID = 2;
+
+    // Bảng action (chỉ thêm vào cuối)
+    private static final String[] ACTIONS = {
+        Constants.ACTION_LOGIN, Constants.ACTION_LOGOUT, Constants.ACTION_REGISTER,
+        Constants.ACTION_CHANGE_PASSWORD, Constants.ACTION_GET_STUDENT_INFO, Constants.ACTION_UPDATE_STUDENT,
+        Constants.ACTION_GET_ALL_STUDENTS, Constants.ACTION_SEARCH_STUDENTS, Constants.ACTION_GET_STUDENTS_BY_CLASS,
+        Constants.ACTION_ADD_STUDENT, Constants.ACTION_GET_ALL_COURSES, Constants.ACTION_GET_COURSES,
+        Constants.ACTION_GET_COURSE_INFO, Constants.ACTION_ADD_COURSE, Constants.ACTION_UPDATE_COURSE,
+        Constants.ACTION_DELETE_COURSE, Constants.ACTION_ENROLL_COURSE, Constants.ACTION_DROP_COURSE,
+        Constants.ACTION_GET_ENROLLMENTS, Constants.ACTION_GET_STUDENT_GRADES, Constants.ACTION_ADD_GRADE,
+        Constants.ACTION_UPDATE_GRADE, Constants.ACTION_GET_GRADES, Constants.ACTION_CALCULATE_FINAL_GRADE,
+        Constants.ACTION_MARK_ATTENDANCE, Constants.ACTION_GET_ATTENDANCE, Constants.ACTION_UPDATE_ATTENDANCE,
+        Constants.ACTION_GET_DEPARTMENTS, Constants.ACTION_ADD_DEPARTMENT, Constants.ACTION_UPDATE_DEPARTMENT,
+        Constants.ACTION_GET_SUBJECTS, Constants.ACTION_ADD_SUBJECT, Constants.ACTION_UPDATE_SUBJECT,
+        Constants.ACTION_GET_CLASSES, Constants.ACTION_ADD_CLASS, Constants.ACTION_UPDATE_CLASS,
+        Constants.ACTION_GET_STUDENT_TRANSCRIPT, Constants.ACTION_GET_CLASS_REPORT,
+        Constants.ACTION_GET_DEPARTMENT_REPORT, Constants.ACTION_GET_NOTIFICATIONS,
+        Constants.ACTION_SEND_NOTIFICATION, Constants.ACTION_MARK_NOTIFICATION_READ,
+        Constants.ACTION_GET_SYSTEM_CONFIG, Constants.ACTION_UPDATE_SYSTEM_CONFIG,
+        Constants.ACTION_BACKUP_DATABASE, Constants.ACTION_GET_LOGIN_HISTORY,
+        "ERROR", Constants.ACTION_GET_STUDENTS_PAGE, Constants.ACTION_GET_COURSES_PAGE,
+        Constants.ACTION_EXPORT_STUDENTS, Constants.ACTION_FLUSH_COURSE_CACHE, Constants.ACTION_GET_SEMESTER_REPORT,
+        Constants.ACTION_SEARCH_COURSES, Constants.ACTION_CANCEL_REQUEST,
+        Constants.ACTION_GET_STUDENTS_WINDOW, Constants.ACTION_GET_COURSES_WINDOW,
+        Constants.ACTION_SUBSCRIBE, Constants.ACTION_UNSUBSCRIBE, Constants.ACTION_ENTITY_CHANGED,
+        Constants.ACTION_BROADCAST, Constants.ACTION_RESUME_SESSION
+    };
+
+    // Bảng key của data (chỉ thêm vào cuối)
+    private static final String[] KEYS = {
+        Constants.KEY_USER, Constants.KEY_STUDENT, Constants.KEY_COURSE, Constants.KEY_ENROLLMENT,
+        Constants.KEY_GRADE, Constants.KEY_ATTENDANCE, Constants.KEY_DEPARTMENT, Constants.KEY_SUBJECT,
+        Constants.KEY_CLASS, Constants.KEY_NOTIFICATION, Constants.KEY_USERNAME, Constants.KEY_PASSWORD,
+        Constants.KEY_USER_ID, Constants.KEY_STUDENT_ID, Constants.KEY_COURSE_ID, Constants.KEY_SEARCH_KEYWORD,
+        Constants.KEY_CLASS_ID, Constants.KEY_DEPARTMENT_ID, Constants.KEY_ACADEMIC_YEAR, Constants.KEY_SEMESTER,
+        Constants.KEY_STUDENTS, Constants.KEY_COURSES, Constants.KEY_ENROLLMENTS, Constants.KEY_GRADES,
+        Constants.KEY_ATTENDANCES, Constants.KEY_DEPARTMENTS, Constants.KEY_SUBJECTS, Constants.KEY_CLASSES,
+        Constants.KEY_NOTIFICATIONS, Constants.KEY_PAGE_SIZE, Constants.KEY_CURSOR, Constants.KEY_NEXT_CURSOR,
+        Constants.KEY_HAS_MORE, Constants.KEY_CHUNK_SIZE, Constants.KEY_TOTAL_COUNT, Constants.KEY_STATISTICS,
+        Constants.KEY_TARGET_REQUEST_ID, Constants.KEY_OFFSET, Constants.KEY_SORT_FIELD,
+        Constants.KEY_SORT_ASCENDING, Constants.KEY_STATUS_FILTER, Constants.KEY_ETAG,
+        Constants.KEY_IF_NONE_MATCH, Constants.KEY_NOT_MODIFIED, Constants.KEY_TOPIC,
+        Constants.KEY_CURRENT_STUDENTS, Constants.KEY_MAX_STUDENTS, Constants.KEY_CHANGE,
+        Constants.KEY_SESSION_TOKEN, Constants.KEY_RETRY_AFTER
+    };
+
+    private static final Map<String, Integer> ACTION_CODES = indexOf(ACTIONS);
+    private static final Map<String, Integer> KEY_CODES = indexOf(KEYS);
+
+    // Tag kiểu giá trị
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_INT = 2;
+    private static final int TAG_LONG = 3;
+    private static final int TAG_BOOLEAN = 4;
+    private static final int TAG_DOUBLE = 5;
+    private static final int TAG_DECIMAL = 6;
+    private static final int TAG_DATE = 7;
+    private static final int TAG_TIMESTAMP = 8;
+    private static final int TAG_LIST = 9;
+    private static final int TAG_MAP = 10;
+    private static final int TAG_USER = 11;
+    private static final int TAG_STUDENT = 12;
+    private static final int TAG_COURSE = 13;
+    private static final int TAG_ENROLLMENT = 14;
+    private static final int TAG_DEPARTMENT = 15;
+    private static final int TAG_SUBJECT = 16;
+    private static final int TAG_SERIALIZED = 127;
+
+    private static final Message.MessageType[] MESSAGE_TYPES = Message.MessageType.values();
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    public byte[] encode(Message message) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(buffer);
+
+        writeEnum(out, message.getType());
+        writeVarLong(out, message.getRequestId());
+        writeInterned(out, message.getAction(), ACTION_CODES);
+        out.writeBoolean(message.isSuccess());
+        writeString(out, message.getMessage());
+        out.writeLong(message.getTimestamp());
+
+        Map<String, Object> data = message.getData();
+        writeVarInt(out, data.size());
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            writeInterned(out, entry.getKey(), KEY_CODES);
+            writeValue(out, entry.getValue());
+        }
+
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public Message decode(byte[] payload) throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+
+        Message message = new Message();
+        message.setType(readEnum(in, MESSAGE_TYPES));
+        message.setRequestId(readVarLong(in));
+        message.setAction(readInterned(in, ACTIONS));
+        message.setSuccess(in.readBoolean());
+        message.setMessage(readString(in));
+        message.setTimestamp(in.readLong());
+
+        int size = readLength(in);
+        Map<String, Object> data = new HashMap<>(Math.max(16, size * 2));
+        for (int i = 0; i < size; i++) {
+            String key = readInterned(in, KEYS);
+            data.put(key, readValue(in));
+        }
+        message.setData(data);
+        return message;
+    }
+
+    // ==================== Giá trị có tag ====================
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TAG_INT);
+            writeVarInt(out, zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            writeVarLong(out, zigZag((Long) value));
+        } else if (value instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(TAG_DECIMAL);
+            writeDecimal(out, (BigDecimal) value);
+        } else if (value instanceof Timestamp) {
+            out.writeByte(TAG_TIMESTAMP);
+            writeTimestamp(out, (Timestamp) value);
+        } else if (value instanceof Date) {
+            out.writeByte(TAG_DATE);
+            writeDate(out, (Date) value);
+        } else if (value instanceof Collection) {
+            Collection<?> list = (Collection<?>) value;
+            out.writeByte(TAG_LIST);
+            writeVarInt(out, list.size());
+            for (Object item : list) {
+                writeValue(out, item);
+            }
+        } else if (value instanceof Map && hasStringKeys((Map<?, ?>) value)) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(TAG_MAP);
+            writeVarInt(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, (String) entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof User) {
+            out.writeByte(TAG_USER);
+            writeUser(out, (User) value);
+        } else if (value instanceof Student) {
+            out.writeByte(TAG_STUDENT);
+            writeStudent(out, (Student) value);
+        } else if (value instanceof Course) {
+            out.writeByte(TAG_COURSE);
+            writeCourse(out, (Course) value);
+        } else if (value instanceof Enrollment) {
+            out.writeByte(TAG_ENROLLMENT);
+            writeEnrollment(out, (Enrollment) value);
+        } else if (value instanceof Department) {
+            out.writeByte(TAG_DEPARTMENT);
+            writeDepartment(out, (Department) value);
+        } else if (value instanceof Subject) {
+            out.writeByte(TAG_SUBJECT);
+            writeSubject(out, (Subject) value);
+        } else {
+            out.writeByte(TAG_SERIALIZED);
+            writeSerialized(out, value);
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString(in);
+            case TAG_INT:
+                return unZigZag(readVarInt(in));
+            case TAG_LONG:
+                return unZigZag(readVarLong(in));
+            case TAG_BOOLEAN:
+                return in.readBoolean();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_DECIMAL:
+                return readDecimal(in);
+            case TAG_DATE:
+                return readDate(in);
+            case TAG_TIMESTAMP:
+                return readTimestamp(in);
+            case TAG_LIST: {
+                int size = readLength(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case TAG_MAP: {
+                int size = readLength(in);
+                Map<String, Object> map = new LinkedHashMap<>(Math.max(16, size * 2));
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    map.put(key, readValue(in));
+                }
+                return map;
+            }
+            case TAG_USER:
+                return readUser(in);
+            case TAG_STUDENT:
+                return readStudent(in);
+            case TAG_COURSE:
+                return readCourse(in);
+            case TAG_ENROLLMENT:
+                return readEnrollment(in);
+            case TAG_DEPARTMENT:
+                return readDepartment(in);
+            case TAG_SUBJECT:
+                return readSubject(in);
+            case TAG_SERIALIZED:
+                return readSerialized(in);
+            default:
+                throw new StreamCorruptedException("Unknown value tag: " + tag);
+        }
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeSerialized(DataOutputStream out, Object value) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream output = new ObjectOutputStream(buffer)) {
+            output.writeObject(value);
+        }
+        writeVarInt(out, buffer.size());
+        buffer.writeTo(out);
+    }
+
+    private Object readSerialized(DataInputStream in) throws IOException, ClassNotFoundException {
+        byte[] bytes = new byte[readLength(in)];
+        in.readFully(bytes);
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return input.readObject();
+        }
+    }
+
+    // ==================== Model (theo schema) ====================
+
+    private void writeUser(DataOutputStream out, User user) throws IOException {
+        writeVarInt(out, user.getUserId());
+        writeString(out, user.getUsername());
+        writeString(out, user.getPassword());
+        writeString(out, user.getEmail());
+        writeString(out, user.getFullName());
+        writeEnum(out, user.getRole());
+        writeString(out, user.getPhone());
+        writeString(out, user.getAddress());
+        writeNullableTimestamp(out, user.getCreatedAt());
+        writeNullableTimestamp(out, user.getUpdatedAt());
+        out.writeBoolean(user.isActive());
+    }
+
+    private User readUser(DataInputStream in) throws IOException {
+        User user = new User();
+        user.setUserId(readVarInt(in));
+        user.setUsername(readString(in));
+        user.setPassword(readString(in));
+        user.setEmail(readString(in));
+        user.setFullName(readString(in));
+        user.setRole(readEnum(in, User.UserRole.values()));
+        user.setPhone(readString(in));
+        user.setAddress(readString(in));
+        user.setCreatedAt(readNullableTimestamp(in));
+        user.setUpdatedAt(readNullableTimestamp(in));
+        user.setActive(in.readBoolean());
+        return user;
+    }
+
+    private void writeStudent(DataOutputStream out, Student student) throws IOException {
+        writeVarInt(out, student.getStudentId());
+        writeVarInt(out, student.getUserId());
+        writeString(out, student.getStudentCode());
+        writeNullableInt(out, student.getClassId());
+        writeVarInt(out, student.getDepartmentId());
+        writeVarInt(out, student.getAdmissionYear());
+        writeEnum(out, student.getStudentStatus());
+        writeNullableDecimal(out, student.getGpa());
+        writeVarInt(out, student.getTotalCredits());
+        writeNullableDate(out, student.getBirthDate());
+        writeEnum(out, student.getGender());
+        writeString(out, student.getCitizenId());
+        writeString(out, student.getEmergencyContact());
+        writeString(out, student.getEmergencyPhone());
+        writeNullableTimestamp(out, student.getCreatedAt());
+        writeString(out, student.getFullName());
+        writeString(out, student.getEmail());
+        writeString(out, student.getPhone());
+        writeString(out, student.getAddress());
+    }
+
+    private Student readStudent(DataInputStream in) throws IOException {
+        Student student = new Student();
+        student.setStudentId(readVarInt(in));
+        student.setUserId(readVarInt(in));
+        student.setStudentCode(readString(in));
+        student.setClassId(readNullableInt(in));
+        student.setDepartmentId(readVarInt(in));
+        student.setAdmissionYear(readVarInt(in));
+        student.setStudentStatus(readEnum(in, Student.StudentStatus.values()));
+        student.setGpa(readNullableDecimal(in));
+        student.setTotalCredits(readVarInt(in));
+        student.setBirthDate(readNullableDate(in));
+        student.setGender(readEnum(in, Student.Gender.values()));
+        student.setCitizenId(readString(in));
+        student.setEmergencyContact(readString(in));
+        student.setEmergencyPhone(readString(in));
+        student.setCreatedAt(readNullableTimestamp(in));
+        student.setFullName(readString(in));
+        student.setEmail(readString(in));
+        student.setPhone(readString(in));
+        student.setAddress(readString(in));
+        return student;
+    }
+
+    private void writeCourse(DataOutputStream out, Course course) throws IOException {
+        writeVarInt(out, course.getCourseId());
+        writeString(out, course.getCourseCode());
+        writeVarInt(out, course.getSubjectId());
+        writeVarInt(out, course.getTeacherId());
+        writeNullableInt(out, course.getClassId());
+        writeString(out, course.getAcademicYear());
+        writeVarInt(out, course.getSemester());
+        writeString(out, course.getScheduleDay());
+        writeString(out, course.getScheduleTime());
+        writeString(out, course.getRoom());
+        writeVarInt(out, course.getMaxStudents());
+        writeVarInt(out, course.getCurrentStudents());
+        writeEnum(out, course.getCourseStatus());
+        writeNullableDate(out, course.getStartDate());
+        writeNullableDate(out, course.getEndDate());
+        writeNullableTimestamp(out, course.getCreatedAt());
+        writeString(out, course.getSubjectName());
+        writeString(out, course.getSubjectCode());
+        writeVarInt(out, course.getCredits());
+        writeString(out, course.getTeacherName());
+        writeString(out, course.getClassName());
+    }
+
+    private Course readCourse(DataInputStream in) throws IOException {
+        Course course = new Course();
+        course.setCourseId(readVarInt(in));
+        course.setCourseCode(readString(in));
+        course.setSubjectId(readVarInt(in));
+        course.setTeacherId(readVarInt(in));
+        course.setClassId(readNullableInt(in));
+        course.setAcademicYear(readString(in));
+        course.setSemester(readVarInt(in));
+        course.setScheduleDay(readString(in));
+        course.setScheduleTime(readString(in));
+        course.setRoom(readString(in));
+        course.setMaxStudents(readVarInt(in));
+        course.setCurrentStudents(readVarInt(in));
+        course.setCourseStatus(readEnum(in, Course.CourseStatus.values()));
+        course.setStartDate(readNullableDate(in));
+        course.setEndDate(readNullableDate(in));
+        course.setCreatedAt(readNullableTimestamp(in));
+        course.setSubjectName(readString(in));
+        course.setSubjectCode(readString(in));
+        course.setCredits(readVarInt(in));
+        course.setTeacherName(readString(in));
+        course.setClassName(readString(in));
+        return course;
+    }
+
+    private void writeEnrollment(DataOutputStream out, Enrollment enrollment) throws IOException {
+        writeVarInt(out, enrollment.getEnrollmentId());
+        writeVarInt(out, enrollment.getStudentId());
+        writeVarInt(out, enrollment.getCourseId());
+        writeNullableTimestamp(out, enrollment.getEnrollmentDate());
+        writeEnum(out, enrollment.getEnrollmentStatus());
+        writeNullableDecimal(out, enrollment.getFinalGrade());
+        writeString(out, enrollment.getLetterGrade());
+        writeNullableDecimal(out, enrollment.getGradePoints());
+        writeNullableDecimal(out, enrollment.getAttendanceRate());
+        writeString(out, enrollment.getStudentCode());
+        writeString(out, enrollment.getStudentName());
+        writeString(out, enrollment.getCourseCode());
+        writeString(out, enrollment.getSubjectName());
+        writeVarInt(out, enrollment.getCredits());
+    }
+
+    private Enrollment readEnrollment(DataInputStream in) throws IOException {
+        Enrollment enrollment = new Enrollment();
+        enrollment.setEnrollmentId(readVarInt(in));
+        enrollment.setStudentId(readVarInt(in));
+        enrollment.setCourseId(readVarInt(in));
+        enrollment.setEnrollmentDate(readNullableTimestamp(in));
+        enrollment.setEnrollmentStatus(readEnum(in, Enrollment.EnrollmentStatus.values()));
+        enrollment.setFinalGrade(readNullableDecimal(in));
+        enrollment.setLetterGrade(readString(in));
+        enrollment.setGradePoints(readNullableDecimal(in));
+        enrollment.setAttendanceRate(readNullableDecimal(in));
+        enrollment.setStudentCode(readString(in));
+        enrollment.setStudentName(readString(in));
+        enrollment.setCourseCode(readString(in));
+        enrollment.setSubjectName(readString(in));
+        enrollment.setCredits(readVarInt(in));
+        return enrollment;
+    }
+
+    private void writeDepartment(DataOutputStream out, Department department) throws IOException {
+        writeVarInt(out, department.getDepartmentId());
+        writeString(out, department.getDepartmentCode());
+        writeString(out, department.getDepartmentName());
+        writeString(out, department.getDescription());
+        writeNullableInt(out, department.getHeadTeacherId());
+        writeNullableTimestamp(out, department.getCreatedAt());
+        writeString(out, department.getHeadTeacherName());
+    }
+
+    private Department readDepartment(DataInputStream in) throws IOException {
+        Department department = new Department();
+        department.setDepartmentId(readVarInt(in));
+        department.setDepartmentCode(readString(in));
+        department.setDepartmentName(readString(in));
+        department.setDescription(readString(in));
+        department.setHeadTeacherId(readNullableInt(in));
+        department.setCreatedAt(readNullableTimestamp(in));
+        department.setHeadTeacherName(readString(in));
+        return department;
+    }
+
+    private void writeSubject(DataOutputStream out, Subject subject) throws IOException {
+        writeVarInt(out, subject.getSubjectId());
+        writeString(out, subject.getSubjectCode());
+        writeString(out, subject.getSubjectName());
+        writeVarInt(out, subject.getCredits());
+        writeVarInt(out, subject.getDepartmentId());
+        writeNullableInt(out, subject.getPrerequisiteSubjectId());
+        writeString(out, subject.getDescription());
+        out.writeBoolean(subject.isRequired());
+        writeNullableTimestamp(out, subject.getCreatedAt());
+        writeString(out, subject.getDepartmentName());
+        writeString(out, subject.getPrerequisiteSubjectName());
+    }
+
+    private Subject readSubject(DataInputStream in) throws IOException {
+        Subject subject = new Subject();
+        subject.setSubjectId(readVarInt(in));
+        subject.setSubjectCode(readString(in));
+        subject.setSubjectName(readString(in));
+        subject.setCredits(readVarInt(in));
+        subject.setDepartmentId(readVarInt(in));
+        subject.setPrerequisiteSubjectId(readNullableInt(in));
+        subject.setDescription(readString(in));
+        subject.setRequired(in.readBoolean());
+        subject.setCreatedAt(readNullableTimestamp(in));
+        subject.setDepartmentName(readString(in));
+        subject.setPrerequisiteSubjectName(readString(in));
+        return subject;
+    }
+
+    // ==================== Kiểu cơ bản ====================
+
+    private static Map<String, Integer> indexOf(String[] table) {
+        Map<String, Integer> codes = new HashMap<>();
+        for (int i = 0; i < table.length; i++) {
+            codes.put(table[i], i);
+        }
+        return codes;
+    }
+
+    /**
+     * 0 = null, 1 = chuỗi ghi trực tiếp, n + 2 = phần tử thứ n của bảng
+     */
+    private static void writeInterned(DataOutputStream out, String value, Map<String, Integer> codes) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            writeVarInt(out, code + 2);
+        } else {
+            writeVarInt(out, 1);
+            writeString(out, value);
+        }
+    }
+
+    private static String readInterned(DataInputStream in, String[] table) throws IOException {
+        int code = readVarInt(in);
+        if (code == 0) {
+            return null;
+        }
+        if (code == 1) {
+            return readString(in);
+        }
+        if (code < 0 || code - 2 >= table.length) {
+            throw new StreamCorruptedException("Unknown interned code: " + code);
+        }
+        return table[code - 2];
+    }
+
+    /**
+     * Độ dài/số phần tử đọc từ payload: mỗi byte, phần tử list hay entry map
+     * chiếm ít nhất một byte, nên giá trị âm hoặc lớn hơn số byte còn lại là
+     * payload hỏng. Kiểm tra trước khi cấp phát để một frame nhỏ không thể
+     * đòi mảng hàng GB.
+     */
+    private static int readLength(DataInputStream in) throws IOException {
+        return checkLength(in, readVarInt(in));
+    }
+
+    private static int checkLength(DataInputStream in, int length) throws IOException {
+        if (length < 0 || length > in.available()) {
+            throw new StreamCorruptedException("Invalid length: " + length);
+        }
+        return length;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[checkLength(in, length - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        writeVarInt(out, value == null ? 0 : value.ordinal() + 1);
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInputStream in, E[] values) throws IOException {
+        int code = readVarInt(in);
+        if (code == 0) {
+            return null;
+        }
+        if (code < 0 || code > values.length) {
+            throw new StreamCorruptedException("Unknown enum ordinal: " + (code - 1));
+        }
+        return values[code - 1];
+    }
+
+    private static void writeNullableInt(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeVarInt(out, zigZag(value));
+        }
+    }
+
+    private static Integer readNullableInt(DataInputStream in) throws IOException {
+        return in.readBoolean() ? unZigZag(readVarInt(in)) : null;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        writeVarInt(out, zigZag(value.scale()));
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        writeVarInt(out, unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int scale = unZigZag(readVarInt(in));
+        byte[] unscaled = new byte[readLength(in)];
+        if (unscaled.length == 0) {
+            throw new StreamCorruptedException("Empty decimal");
+        }
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeNullableDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeDecimal(out, value);
+        }
+    }
+
+    private static BigDecimal readNullableDecimal(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readDecimal(in) : null;
+    }
+
+    private static void writeDate(DataOutputStream out, Date value) throws IOException {
+        writeVarLong(out, zigZag(value.toLocalDate().toEpochDay()));
+    }
+
+    private static Date readDate(DataInputStream in) throws IOException {
+        long epochDay = unZigZag(readVarLong(in));
+        try {
+            return Date.valueOf(LocalDate.ofEpochDay(epochDay));
+        } catch (DateTimeException e) {
+            throw new StreamCorruptedException("Invalid date: " + epochDay);
+        }
+    }
+
+    private static void writeNullableDate(DataOutputStream out, Date value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeDate(out, value);
+        }
+    }
+
+    private static Date readNullableDate(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readDate(in) : null;
+    }
+
+    private static void writeTimestamp(DataOutputStream out, Timestamp value) throws IOException {
+        writeVarLong(out, zigZag(value.getTime()));
+        writeVarInt(out, value.getNanos());
+    }
+
+    private static Timestamp readTimestamp(DataInputStream in) throws IOException {
+        Timestamp timestamp = new Timestamp(unZigZag(readVarLong(in)));
+        int nanos = readVarInt(in);
+        if (nanos < 0 || nanos > 999_999_999) {
+            throw new StreamCorruptedException("Invalid timestamp nanos: " + nanos);
+        }
+        timestamp.setNanos(nanos);
+        return timestamp;
+    }
+
+    private static void writeNullableTimestamp(DataOutputStream out, Timestamp value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeTimestamp(out, value);
+        }
+    }
+
+    private static Timestamp readNullableTimestamp(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readTimestamp(in) : null;
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varlong");
+    }
+}
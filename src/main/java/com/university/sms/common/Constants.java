@@ -10,6 +10,7 @@ public class Constants {
     public static final String ACTION_LOGOUT = "LOGOUT";
     public static final String ACTION_REGISTER = "REGISTER";
     public static final String ACTION_CHANGE_PASSWORD = "CHANGE_PASSWORD";
+    public static final String ACTION_RESUME_SESSION = "RESUME_SESSION";
     
     // Student Actions
     public static final String ACTION_GET_STUDENT_INFO = "GET_STUDENT_INFO";
@@ -18,6 +19,8 @@ public class Constants {
     public static final String ACTION_SEARCH_STUDENTS = "SEARCH_STUDENTS";
     public static final String ACTION_GET_STUDENTS_BY_CLASS = "GET_STUDENTS_BY_CLASS";
     public static final String ACTION_ADD_STUDENT = "ADD_STUDENT";
+    public static final String ACTION_GET_STUDENTS_PAGE = "GET_STUDENTS_PAGE";
+    public static final String ACTION_EXPORT_STUDENTS = "EXPORT_STUDENTS";
     
     // Course Actions
     public static final String ACTION_GET_ALL_COURSES = "GET_ALL_COURSES";
@@ -26,6 +29,11 @@ public class Constants {
     public static final String ACTION_ADD_COURSE = "ADD_COURSE";
     public static final String ACTION_UPDATE_COURSE = "UPDATE_COURSE";
     public static final String ACTION_DELETE_COURSE = "DELETE_COURSE";
+    public static final String ACTION_GET_COURSES_PAGE = "GET_COURSES_PAGE";
+    public static final String ACTION_SEARCH_COURSES = "SEARCH_COURSES";
+    public static final String ACTION_CANCEL_REQUEST = "CANCEL_REQUEST";
+    public static final String ACTION_GET_STUDENTS_WINDOW = "GET_STUDENTS_WINDOW";
+    public static final String ACTION_GET_COURSES_WINDOW = "GET_COURSES_WINDOW";
     
     // Enrollment Actions
     public static final String ACTION_ENROLL_COURSE = "ENROLL_COURSE";
@@ -63,17 +71,30 @@ public class Constants {
     public static final String ACTION_GET_STUDENT_TRANSCRIPT = "GET_STUDENT_TRANSCRIPT";
     public static final String ACTION_GET_CLASS_REPORT = "GET_CLASS_REPORT";
     public static final String ACTION_GET_DEPARTMENT_REPORT = "GET_DEPARTMENT_REPORT";
+    public static final String ACTION_GET_SEMESTER_REPORT = "GET_SEMESTER_REPORT";
     
     // Notification Actions
     public static final String ACTION_GET_NOTIFICATIONS = "GET_NOTIFICATIONS";
     public static final String ACTION_SEND_NOTIFICATION = "SEND_NOTIFICATION";
     public static final String ACTION_MARK_NOTIFICATION_READ = "MARK_NOTIFICATION_READ";
+    public static final String ACTION_SUBSCRIBE = "SUBSCRIBE";
+    public static final String ACTION_UNSUBSCRIBE = "UNSUBSCRIBE";
+    public static final String ACTION_ENTITY_CHANGED = "ENTITY_CHANGED";
+    public static final String ACTION_BROADCAST = "BROADCAST";
+    
+    // Topic của kênh publish/subscribe. Topic cụ thể có dạng "<loại>:<id>";
+    // đăng ký theo loại (không có id) nhận thay đổi của mọi id
+    public static final String TOPIC_COURSE_SEATS = "course.seats";
+    public static final String TOPIC_DEPARTMENT_STUDENTS = "department.students";
+    public static final String TOPIC_STUDENT_GRADES = "student.grades";
+    public static final String TOPIC_SEPARATOR = ":";
     
     // System Actions
     public static final String ACTION_GET_SYSTEM_CONFIG = "GET_SYSTEM_CONFIG";
     public static final String ACTION_UPDATE_SYSTEM_CONFIG = "UPDATE_SYSTEM_CONFIG";
     public static final String ACTION_BACKUP_DATABASE = "BACKUP_DATABASE";
     public static final String ACTION_GET_LOGIN_HISTORY = "GET_LOGIN_HISTORY";
+    public static final String ACTION_FLUSH_COURSE_CACHE = "FLUSH_COURSE_CACHE";
     
     // Data Keys
     public static final String KEY_USER = "user";
@@ -98,6 +119,29 @@ public class Constants {
     public static final String KEY_ACADEMIC_YEAR = "academicYear";
     public static final String KEY_SEMESTER = "semester";
     
+    // Paging
+    public static final String KEY_PAGE_SIZE = "pageSize";
+    public static final String KEY_CURSOR = "cursor";
+    public static final String KEY_NEXT_CURSOR = "nextCursor";
+    public static final String KEY_HAS_MORE = "hasMore";
+    public static final String KEY_CHUNK_SIZE = "chunkSize";
+    public static final String KEY_TOTAL_COUNT = "totalCount";
+    public static final String KEY_STATISTICS = "statistics";
+    public static final String KEY_TARGET_REQUEST_ID = "targetRequestId";
+    public static final String KEY_OFFSET = "offset";
+    public static final String KEY_SORT_FIELD = "sortField";
+    public static final String KEY_SORT_ASCENDING = "sortAscending";
+    public static final String KEY_STATUS_FILTER = "statusFilter";
+    public static final String KEY_ETAG = "etag";
+    public static final String KEY_IF_NONE_MATCH = "ifNoneMatch";
+    public static final String KEY_NOT_MODIFIED = "notModified";
+    public static final String KEY_TOPIC = "topic";
+    public static final String KEY_CURRENT_STUDENTS = "currentStudents";
+    public static final String KEY_MAX_STUDENTS = "maxStudents";
+    public static final String KEY_CHANGE = "change";
+    public static final String KEY_SESSION_TOKEN = "sessionToken";
+    public static final String KEY_RETRY_AFTER = "retryAfter";
+    
     // Lists
     public static final String KEY_STUDENTS = "students";
     public static final String KEY_COURSES = "courses";
@@ -123,12 +167,23 @@ public class Constants {
     public static final String MSG_DATABASE_ERROR = "Lỗi cơ sở dữ liệu";
     public static final String MSG_INVALID_DATA = "Dữ liệu không hợp lệ";
     public static final String MSG_DUPLICATE_DATA = "Dữ liệu đã tồn tại";
+    public static final String MSG_SERVER_BUSY = "Server đang bận, vui lòng thử lại sau";
+    public static final String MSG_COURSE_FULL = "Khóa học đã hết chỗ hoặc không mở đăng ký";
+    public static final String MSG_ALREADY_ENROLLED = "Sinh viên đã đăng ký khóa học này";
+    public static final String MSG_NOT_ENROLLED = "Sinh viên chưa đăng ký khóa học này";
+    public static final String MSG_REQUEST_CANCELLED = "Yêu cầu đã bị hủy";
+    public static final String MSG_TOO_MANY_SUBSCRIPTIONS = "Đã đăng ký quá nhiều topic";
+    public static final String MSG_SESSION_EXPIRED = "Phiên đăng nhập đã hết hạn, vui lòng đăng nhập lại";
+    public static final String MSG_TOO_MANY_LOGIN_ATTEMPTS = "Thử đăng nhập quá nhiều lần, vui lòng thử lại sau ít phút";
     
     // Default Values
     public static final int DEFAULT_SERVER_PORT = 8888;
     public static final String DEFAULT_SERVER_HOST = "localhost";
     public static final int DEFAULT_SESSION_TIMEOUT = 3600000; // 1 hour in milliseconds
     public static final int DEFAULT_MAX_CONNECTIONS = 100;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int DEFAULT_CHUNK_SIZE = 500;
     
     // File Paths
     public static final String CONFIG_FILE = "database.properties";
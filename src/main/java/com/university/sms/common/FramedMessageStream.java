@@ -0,0 +1,67 @@
+package com.university.sms.common;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MessageStream dùng frame có tiền tố độ dài: [int length][payload].
+ * Payload được mã hóa bằng codec đã thỏa thuận lúc handshake.
+ */
+public class FramedMessageStream implements MessageStream {
+    private final DataInputStream inputStream;
+    private final DataOutputStream outputStream;
+    private final MessageCodec codec;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile long bytesWritten;
+
+    public FramedMessageStream(DataInputStream inputStream, DataOutputStream outputStream, MessageCodec codec) {
+        this.inputStream = inputStream;
+        this.outputStream = outputStream;
+        this.codec = codec;
+    }
+
+    public MessageCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public Message readMessage() throws IOException, ClassNotFoundException {
+        int length = inputStream.readInt();
+        WireProtocol.checkFrameLength(length);
+
+        byte[] payload = new byte[length];
+        inputStream.readFully(payload);
+        return codec.decode(payload);
+    }
+
+    @Override
+    public void writeMessage(Message message) throws IOException {
+        byte[] payload = codec.encode(message);
+
+        writeLock.lock();
+        try {
+            outputStream.writeInt(payload.length);
+            outputStream.write(payload);
+            outputStream.flush();
+            bytesWritten += WireProtocol.FRAME_HEADER_LENGTH + payload.length;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            inputStream.close();
+        } finally {
+            outputStream.close();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.university.sms.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Codec dùng Java serialization cho từng message (codec dự phòng)
+ */
+public class JavaMessageCodec implements MessageCodec {
+    public static final byte ID = 1;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return "java";
+    }
+
+    @Override
+    public byte[] encode(Message message) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        try (ObjectOutputStream output = new ObjectOutputStream(buffer)) {
+            output.writeObject(message);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public Message decode(byte[] payload) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (Message) input.readObject();
+        }
+    }
+}
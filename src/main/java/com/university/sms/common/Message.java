@@ -11,6 +11,7 @@ public class Message implements Serializable {
     private static final long serialVersionUID = 1L;
     
     private MessageType type;
+    private long requestId;  // 0 = không gắn với yêu cầu nào
     private String action;
     private Map<String, Object> data;
     private boolean success;
@@ -20,7 +21,8 @@ public class Message implements Serializable {
     public enum MessageType {
         REQUEST,    // Yêu cầu từ client
         RESPONSE,   // Phản hồi từ server
-        NOTIFICATION // Thông báo từ server
+        NOTIFICATION, // Thông báo từ server
+        RESPONSE_CHUNK // Một phần của phản hồi dạng stream, kết thúc bằng RESPONSE
     }
 
     // Constructors
@@ -50,6 +52,14 @@ public class Message implements Serializable {
         this.type = type;
     }
 
+    public long getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(long requestId) {
+        this.requestId = requestId;
+    }
+
     public String getAction() {
         return action;
     }
@@ -124,6 +134,10 @@ public class Message implements Serializable {
         return new Message(MessageType.RESPONSE, action, false, message);
     }
 
+    public static Message createChunk(String action) {
+        return new Message(MessageType.RESPONSE_CHUNK, action, true, null);
+    }
+
     public static Message createNotification(String action, String message) {
         return new Message(MessageType.NOTIFICATION, action, true, message);
     }
@@ -132,6 +146,7 @@ public class Message implements Serializable {
     public String toString() {
         return "Message{" +
                 "type=" + type +
+                ", requestId=" + requestId +
                 ", action='" + action + '\'' +
                 ", success=" + success +
                 ", message='" + message + '\'' +
@@ -0,0 +1,24 @@
+package com.university.sms.common;
+
+import java.io.IOException;
+
+/**
+ * Chuyển Message thành payload của một frame và ngược lại.
+ * Client và server thỏa thuận codec lúc handshake (xem WireProtocol).
+ */
+public interface MessageCodec {
+
+    /**
+     * Mã codec gửi trong handshake
+     */
+    byte getId();
+
+    /**
+     * Tên codec (dùng cho log)
+     */
+    String getName();
+
+    byte[] encode(Message message) throws IOException;
+
+    Message decode(byte[] payload) throws IOException, ClassNotFoundException;
+}
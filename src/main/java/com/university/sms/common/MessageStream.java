@@ -0,0 +1,37 @@
+package com.university.sms.common;
+
+import java.io.IOException;
+
+/**
+ * Kênh đọc/ghi Message giữa client và server, không phụ thuộc định dạng trên đường truyền
+ */
+public interface MessageStream {
+
+    /**
+     * Đọc message tiếp theo (blocking)
+     */
+    Message readMessage() throws IOException, ClassNotFoundException;
+
+    /**
+     * Ghi một message. An toàn khi gọi từ nhiều thread.
+     */
+    void writeMessage(Message message) throws IOException;
+
+    /**
+     * Tổng số byte đã ghi ra kênh
+     */
+    long getBytesWritten();
+
+    /**
+     * Số byte mà bộ nhớ serialization của phiên còn giữ tham chiếu (0 nếu
+     * mỗi message được serialize độc lập)
+     */
+    default long getRetainedBytes() {
+        return 0;
+    }
+
+    /**
+     * Đóng kênh
+     */
+    void close() throws IOException;
+}
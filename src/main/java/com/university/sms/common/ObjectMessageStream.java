@@ -0,0 +1,152 @@
+package com.university.sms.common;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MessageStream dùng Java serialization liên tục trên socket (giao thức cũ).
+ *
+ * ObjectOutputStream giữ tham chiếu tới mọi object đã ghi (handle table) cho
+ * đến khi reset(). Stream được reset theo ResetPolicy để một phiên dài không
+ * giữ lại mọi danh sách Student/Course đã gửi. reset() cũng xóa handle table
+ * của ObjectInputStream phía bên kia.
+ */
+public class ObjectMessageStream implements MessageStream {
+    private final ObjectInputStream inputStream;
+    private final ObjectOutputStream outputStream;
+    private final CountingOutputStream countingOutput;
+    private final ResetPolicy resetPolicy;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    
+    // Được bảo vệ bởi writeLock
+    private int messagesSinceReset;
+    private long bytesAtLastReset;
+    private volatile long resetCount;
+
+    /**
+     * Tạo stream trên socket: ObjectOutputStream được tạo (và flush header)
+     * trước ObjectInputStream để hai đầu không chờ nhau.
+     */
+    public ObjectMessageStream(InputStream rawInput, OutputStream rawOutput, ResetPolicy resetPolicy) throws IOException {
+        this.resetPolicy = resetPolicy;
+        this.countingOutput = new CountingOutputStream(rawOutput);
+        this.outputStream = new ObjectOutputStream(countingOutput);
+        this.outputStream.flush();
+        this.inputStream = new ObjectInputStream(rawInput);
+        this.bytesAtLastReset = countingOutput.getCount();
+    }
+
+    @Override
+    public Message readMessage() throws IOException, ClassNotFoundException {
+        return (Message) inputStream.readObject();
+    }
+
+    @Override
+    public void writeMessage(Message message) throws IOException {
+        writeLock.lock();
+        try {
+            outputStream.writeObject(message);
+            messagesSinceReset++;
+            
+            if (resetPolicy.shouldReset(messagesSinceReset, countingOutput.getCount() - bytesAtLastReset)) {
+                outputStream.reset();
+                messagesSinceReset = 0;
+                bytesAtLastReset = countingOutput.getCount();
+                resetCount++;
+            }
+            outputStream.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return countingOutput.getCount();
+    }
+
+    /**
+     * Số byte đã ghi kể từ lần reset gần nhất: giới hạn trên của lượng dữ liệu
+     * mà handle table của hai đầu còn giữ
+     */
+    @Override
+    public long getRetainedBytes() {
+        return countingOutput.getCount() - bytesAtLastReset;
+    }
+
+    public long getResetCount() {
+        return resetCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            inputStream.close();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Chính sách reset ObjectOutputStream: sau N message hoặc sau N byte, tùy
+     * điều kiện nào đến trước
+     */
+    public static class ResetPolicy {
+        public static final ResetPolicy DEFAULT = new ResetPolicy(32, 512 * 1024);
+        
+        private final int maxMessages;
+        private final long maxBytes;
+
+        public ResetPolicy(int maxMessages, long maxBytes) {
+            if (maxMessages <= 0 || maxBytes <= 0) {
+                throw new IllegalArgumentException("Reset thresholds must be positive");
+            }
+            this.maxMessages = maxMessages;
+            this.maxBytes = maxBytes;
+        }
+
+        public boolean shouldReset(int messagesSinceReset, long bytesSinceReset) {
+            return messagesSinceReset >= maxMessages || bytesSinceReset >= maxBytes;
+        }
+
+        public int getMaxMessages() {
+            return maxMessages;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+    }
+
+    /**
+     * Đếm số byte đi qua stream
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private volatile long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
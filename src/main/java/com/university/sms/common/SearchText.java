@@ -0,0 +1,28 @@
+package com.university.sms.common;
+
+import java.text.Normalizer;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa chuỗi cho tìm kiếm, dùng chung cho chỉ mục ở server và bộ lọc
+ * cục bộ ở client để hai bên khớp từ khóa giống nhau.
+ */
+public final class SearchText {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SearchText() {
+    }
+
+    /**
+     * Chữ thường, bỏ dấu tiếng Việt (đ -> d), gộp khoảng trắng
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.trim().toLowerCase(), Normalizer.Form.NFD);
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("").replace('đ', 'd');
+        return WHITESPACE.matcher(folded).replaceAll(" ");
+    }
+}
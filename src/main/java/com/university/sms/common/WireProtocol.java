@@ -0,0 +1,157 @@
+package com.university.sms.common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+
+/**
+ * Giao thức truyền Message giữa client và server.
+ *
+ * Có hai định dạng:
+ * - OBJECT_STREAM: một ObjectOutputStream liên tục cho cả phiên (giao thức cũ)
+ * - FRAMED: mỗi message là một frame [int length][payload], cho phép server
+ *   NIO tách message mà không cần một thread đọc riêng cho mỗi socket
+ *
+ * Client luôn nói trước. Client FRAMED gửi MAGIC + VERSION + danh sách codec
+ * theo thứ tự ưu tiên, server trả lại MAGIC + VERSION + codec đã chọn (Java
+ * serialization nếu không có codec chung). Server blocking nhận biết client
+ * cũ qua header của ObjectOutputStream (0xACED0005).
+ */
+public final class WireProtocol {
+
+    public enum Protocol {
+        OBJECT_STREAM,
+        FRAMED
+    }
+
+    public static final int MAGIC = 0x534D5331; // "SMS1"
+    public static final int VERSION = 2;
+    // MAGIC + VERSION + số codec (sau đó là danh sách mã codec)
+    public static final int HANDSHAKE_LENGTH = 6;
+    public static final int FRAME_HEADER_LENGTH = 4;
+    public static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    public static final MessageCodec JAVA_CODEC = new JavaMessageCodec();
+    public static final MessageCodec BINARY_CODEC = new BinaryMessageCodec();
+
+    // Codec server hỗ trợ
+    private static final MessageCodec[] SUPPORTED_CODECS = { BINARY_CODEC, JAVA_CODEC };
+
+    private WireProtocol() {
+        // Utility class
+    }
+
+    /**
+     * Mở MessageStream phía server: tự nhận biết client FRAMED hay OBJECT_STREAM
+     */
+    public static MessageStream openServerStream(InputStream rawInput, OutputStream rawOutput) throws IOException {
+        BufferedInputStream input = new BufferedInputStream(rawInput);
+        input.mark(HANDSHAKE_LENGTH);
+        DataInputStream dataInput = new DataInputStream(input);
+
+        if (dataInput.readInt() == MAGIC) {
+            readVersion(dataInput);
+            byte[] offered = new byte[dataInput.readUnsignedByte()];
+            dataInput.readFully(offered);
+            
+            MessageCodec codec = selectCodec(offered);
+            DataOutputStream dataOutput = new DataOutputStream(new BufferedOutputStream(rawOutput));
+            dataOutput.write(handshakeReplyBytes(codec));
+            dataOutput.flush();
+            return new FramedMessageStream(dataInput, dataOutput, codec);
+        }
+
+        // Client cũ: trả lại các byte header cho ObjectInputStream
+        input.reset();
+        return new ObjectMessageStream(input, rawOutput, ObjectMessageStream.ResetPolicy.DEFAULT);
+    }
+
+    /**
+     * Mở MessageStream phía client theo giao thức và danh sách codec (theo thứ tự ưu tiên)
+     */
+    public static MessageStream openClientStream(InputStream rawInput, OutputStream rawOutput,
+                                                 Protocol protocol, MessageCodec... codecs) throws IOException {
+        if (protocol == Protocol.OBJECT_STREAM) {
+            return new ObjectMessageStream(rawInput, rawOutput, ObjectMessageStream.ResetPolicy.DEFAULT);
+        }
+
+        if (codecs.length == 0) {
+            codecs = new MessageCodec[] { JAVA_CODEC };
+        }
+
+        DataOutputStream dataOutput = new DataOutputStream(new BufferedOutputStream(rawOutput));
+        writeHandshake(dataOutput, codecs);
+
+        DataInputStream dataInput = new DataInputStream(new BufferedInputStream(rawInput));
+        if (dataInput.readInt() != MAGIC) {
+            throw new StreamCorruptedException("Server does not support framed protocol");
+        }
+        readVersion(dataInput);
+        
+        byte selected = dataInput.readByte();
+        for (MessageCodec codec : codecs) {
+            if (codec.getId() == selected) {
+                return new FramedMessageStream(dataInput, dataOutput, codec);
+            }
+        }
+        throw new StreamCorruptedException("Server selected unknown codec: " + selected);
+    }
+
+    /**
+     * Ghi MAGIC + VERSION + danh sách codec
+     */
+    public static void writeHandshake(DataOutputStream output, MessageCodec... codecs) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeByte(codecs.length);
+        for (MessageCodec codec : codecs) {
+            output.writeByte(codec.getId());
+        }
+        output.flush();
+    }
+
+    /**
+     * Bytes trả lời handshake (MAGIC + VERSION + codec đã chọn)
+     */
+    public static byte[] handshakeReplyBytes(MessageCodec codec) {
+        return new byte[] {
+            (byte) (MAGIC >>> 24), (byte) (MAGIC >>> 16), (byte) (MAGIC >>> 8), (byte) MAGIC,
+            (byte) VERSION, codec.getId()
+        };
+    }
+
+    /**
+     * Chọn codec đầu tiên trong danh sách của client mà server hỗ trợ
+     */
+    public static MessageCodec selectCodec(byte[] offered) {
+        for (byte id : offered) {
+            for (MessageCodec codec : SUPPORTED_CODECS) {
+                if (codec.getId() == id) {
+                    return codec;
+                }
+            }
+        }
+        return JAVA_CODEC;
+    }
+
+    private static void readVersion(DataInputStream input) throws IOException {
+        int version = input.readUnsignedByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported protocol version: " + version);
+        }
+    }
+
+    /**
+     * Kiểm tra độ dài frame hợp lệ
+     */
+    public static void checkFrameLength(int length) throws IOException {
+        if (length <= 0 || length > MAX_FRAME_SIZE) {
+            throw new StreamCorruptedException("Invalid frame length: " + length);
+        }
+    }
+}
@@ -5,7 +5,9 @@ import com.university.sms.util.DatabaseConnection;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,6 +17,8 @@ import java.util.logging.Logger;
 public class CourseDAO {
     private static final Logger LOGGER = Logger.getLogger(CourseDAO.class.getName());
 
+    private static volatile boolean versionAvailable = true;
+
     /**
      * Lấy tất cả khóa học
      */
@@ -54,6 +58,181 @@ public class CourseDAO {
         return courses;
     }
 
+    /**
+     * Phiên bản dữ liệu khóa học (xem StudentDAO.getDataVersion). Dòng khóa học
+     * còn chứa tên môn học và tên giảng viên nên subjects/users cũng được tính.
+     */
+    public String getDataVersion() {
+        if (!versionAvailable) {
+            return null;
+        }
+        
+        String sql = "SELECT COUNT(*) AS total, " +
+                    "(SELECT MAX(updated_at) FROM courses) AS courses_updated, " +
+                    "(SELECT MAX(updated_at) FROM subjects) AS subjects_updated, " +
+                    "(SELECT MAX(updated_at) FROM users) AS users_updated " +
+                    "FROM courses";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            if (rs.next()) {
+                return "C" + rs.getInt("total") +
+                       "-" + StudentDAO.toMicros(rs.getTimestamp("courses_updated")) +
+                       "-" + StudentDAO.toMicros(rs.getTimestamp("subjects_updated")) +
+                       "-" + StudentDAO.toMicros(rs.getTimestamp("users_updated"));
+            }
+            
+        } catch (SQLException e) {
+            if (e.getErrorCode() == StudentDAO.ER_BAD_FIELD_ERROR) {
+                versionAvailable = false;
+                LOGGER.warning("Column updated_at not found, course responses are sent without ETag. " +
+                               "Run database_migration_updated_at.sql to enable revalidation.");
+            } else {
+                LOGGER.log(Level.WARNING, "Cannot compute course data version", e);
+            }
+        }
+        
+        return null;
+    }
+
+    /**
+     * Cột được phép sắp xếp khi lấy cửa sổ dữ liệu (tên enum được gửi từ client)
+     */
+    public enum SortField {
+        COURSE_CODE("c.course_code"),
+        SUBJECT_NAME("sub.subject_name"),
+        TEACHER_NAME("u.full_name"),
+        ACADEMIC_YEAR("c.academic_year"),
+        SEMESTER("c.semester"),
+        ROOM("c.room"),
+        CURRENT_STUDENTS("c.current_students");
+
+        private final String column;
+
+        SortField(String column) {
+            this.column = column;
+        }
+    }
+
+    /**
+     * Lấy limit khóa học bắt đầu từ vị trí offset theo thứ tự sắp xếp cho trước,
+     * lọc theo trạng thái nếu status khác null (xem StudentDAO.findWindow)
+     */
+    public List<Course> findWindow(int offset, int limit, SortField sortField, boolean ascending,
+                                   Course.CourseStatus status) {
+        String direction = ascending ? "ASC" : "DESC";
+        String sql = "SELECT c.*, sub.subject_name, sub.subject_code, sub.credits, " +
+                    "u.full_name AS teacher_name, cl.class_name " +
+                    "FROM courses c " +
+                    "JOIN subjects sub ON c.subject_id = sub.subject_id " +
+                    "JOIN users u ON c.teacher_id = u.user_id " +
+                    "LEFT JOIN classes cl ON c.class_id = cl.class_id " +
+                    (status != null ? "WHERE c.course_status = ? " : "") +
+                    "ORDER BY " + sortField.column + " " + direction + ", c.course_id " + direction + " " +
+                    "LIMIT ? OFFSET ?";
+        
+        List<Course> courses = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            if (status != null) {
+                stmt.setString(index++, status.name().toLowerCase());
+            }
+            stmt.setInt(index++, limit);
+            stmt.setInt(index, offset);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    courses.add(mapResultSetToCourse(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding course window at offset: " + offset, e);
+        }
+        
+        return courses;
+    }
+
+    /**
+     * Đếm khóa học, lọc theo trạng thái nếu status khác null
+     */
+    public int countCourses(Course.CourseStatus status) {
+        String sql = "SELECT COUNT(*) FROM courses" + (status != null ? " WHERE course_status = ?" : "");
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            if (status != null) {
+                stmt.setString(1, status.name().toLowerCase());
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error counting courses", e);
+        }
+        
+        return 0;
+    }
+
+    /**
+     * Lấy một trang khóa học theo mã khóa học (keyset pagination).
+     * afterCode = null để lấy trang đầu.
+     *
+     * Trang được cắt trên bảng courses (theo index course_code) trước khi
+     * join, như StudentDAO.findPage.
+     */
+    public Page<Course> findPage(String afterCode, int pageSize) {
+        String sql = "SELECT c.*, sub.subject_name, sub.subject_code, sub.credits, " +
+                    "u.full_name AS teacher_name, cl.class_name " +
+                    "FROM (SELECT * FROM courses " +
+                    (afterCode != null ? "WHERE course_code > ? " : "") +
+                    "ORDER BY course_code LIMIT ?) c " +
+                    "JOIN subjects sub ON c.subject_id = sub.subject_id " +
+                    "JOIN users u ON c.teacher_id = u.user_id " +
+                    "LEFT JOIN classes cl ON c.class_id = cl.class_id " +
+                    "ORDER BY c.course_code";
+        
+        List<Course> courses = new ArrayList<>();
+        boolean hasMore = false;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            if (afterCode != null) {
+                stmt.setString(index++, afterCode);
+            }
+            // Lấy thừa một dòng để biết còn trang sau hay không
+            stmt.setInt(index, pageSize + 1);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (courses.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    courses.add(mapResultSetToCourse(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding course page after: " + afterCode, e);
+        }
+        
+        String nextCursor = courses.isEmpty() ? afterCode : courses.get(courses.size() - 1).getCourseCode();
+        return new Page<>(courses, nextCursor, hasMore);
+    }
+
     /**
      * Tìm khóa học theo ID
      */
@@ -179,6 +358,56 @@ public class CourseDAO {
         return courses;
     }
 
+    /**
+     * Số khóa học và tổng số sinh viên hiện tại của một trạng thái
+     */
+    public static class StatusSummary {
+        private final int courseCount;
+        private final int currentStudents;
+
+        public StatusSummary(int courseCount, int currentStudents) {
+            this.courseCount = courseCount;
+            this.currentStudents = currentStudents;
+        }
+
+        public int getCourseCount() { return courseCount; }
+        public int getCurrentStudents() { return currentStudents; }
+    }
+
+    /**
+     * Tổng hợp khóa học của một học kỳ theo trạng thái bằng GROUP BY,
+     * kèm SUM(current_students); chỉ trả về vài dòng thay vì mọi khóa học.
+     * Lỗi database được ném ra (xem StudentDAO.countByStatus).
+     */
+    public Map<Course.CourseStatus, StatusSummary> summarizeByStatus(String academicYear, int semester)
+            throws SQLException {
+        String sql = "SELECT course_status, COUNT(*) AS total, " +
+                    "COALESCE(SUM(current_students), 0) AS students " +
+                    "FROM courses WHERE academic_year = ? AND semester = ? " +
+                    "GROUP BY course_status";
+        
+        Map<Course.CourseStatus, StatusSummary> summary = new EnumMap<>(Course.CourseStatus.class);
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, academicYear);
+            stmt.setInt(2, semester);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String status = rs.getString("course_status");
+                    if (status != null) {
+                        summary.put(Course.CourseStatus.valueOf(status.toUpperCase()),
+                                    new StatusSummary(rs.getInt("total"), rs.getInt("students")));
+                    }
+                }
+            }
+        }
+        
+        return summary;
+    }
+
     /**
      * Tìm khóa học theo môn học
      */
@@ -405,6 +634,70 @@ public class CourseDAO {
         return courses;
     }
 
+    /**
+     * Tìm kiếm khóa học bằng FULLTEXT index trên tên môn học và tên giảng viên,
+     * cộng với khớp tiền tố mã khóa học. Kết quả xếp theo độ liên quan và phân
+     * trang theo offset (cursor là offset của trang tiếp theo).
+     * Ném SQLException (mã 1191) nếu chưa chạy database_migration_fulltext.sql.
+     *
+     * @param booleanQuery truy vấn MATCH ... AGAINST dạng BOOLEAN MODE
+     * @param codePrefix tiền tố mã khóa học (không chứa ký tự đại diện)
+     */
+    public Page<Course> fullTextSearchPage(String booleanQuery, String codePrefix, int offset, int pageSize)
+            throws SQLException {
+        String sql = "SELECT c.*, sub.subject_name, sub.subject_code, sub.credits, " +
+                    "u.full_name AS teacher_name, cl.class_name " +
+                    "FROM (" +
+                    "  SELECT hits.course_id, SUM(hits.score) AS relevance FROM (" +
+                    "    SELECT course_id, 10 AS score FROM courses WHERE course_code LIKE ? " +
+                    "    UNION ALL " +
+                    "    SELECT cs.course_id, 2 * MATCH(s.subject_name) AGAINST (? IN BOOLEAN MODE) " +
+                    "    FROM subjects s JOIN courses cs ON cs.subject_id = s.subject_id " +
+                    "    WHERE MATCH(s.subject_name) AGAINST (? IN BOOLEAN MODE) " +
+                    "    UNION ALL " +
+                    "    SELECT ct.course_id, MATCH(t.full_name) AGAINST (? IN BOOLEAN MODE) " +
+                    "    FROM users t JOIN courses ct ON ct.teacher_id = t.user_id " +
+                    "    WHERE MATCH(t.full_name) AGAINST (? IN BOOLEAN MODE)" +
+                    "  ) hits " +
+                    "  GROUP BY hits.course_id " +
+                    "  ORDER BY relevance DESC, hits.course_id " +
+                    "  LIMIT ? OFFSET ?" +
+                    ") ranked " +
+                    "JOIN courses c ON c.course_id = ranked.course_id " +
+                    "JOIN subjects sub ON c.subject_id = sub.subject_id " +
+                    "JOIN users u ON c.teacher_id = u.user_id " +
+                    "LEFT JOIN classes cl ON c.class_id = cl.class_id " +
+                    "ORDER BY ranked.relevance DESC, c.course_id";
+        
+        List<Course> courses = new ArrayList<>();
+        boolean hasMore = false;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, codePrefix + "%");
+            stmt.setString(2, booleanQuery);
+            stmt.setString(3, booleanQuery);
+            stmt.setString(4, booleanQuery);
+            stmt.setString(5, booleanQuery);
+            // Lấy thừa một dòng để biết còn trang sau hay không
+            stmt.setInt(6, pageSize + 1);
+            stmt.setInt(7, offset);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (courses.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    courses.add(mapResultSetToCourse(rs));
+                }
+            }
+        }
+        
+        return new Page<>(courses, String.valueOf(offset + courses.size()), hasMore);
+    }
+
     /**
      * Map ResultSet to Course object
      */
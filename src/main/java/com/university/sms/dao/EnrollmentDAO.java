@@ -6,7 +6,11 @@ import com.university.sms.util.DatabaseConnection;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,6 +20,417 @@ import java.util.logging.Logger;
 public class EnrollmentDAO {
     private static final Logger LOGGER = Logger.getLogger(EnrollmentDAO.class.getName());
 
+    // Mã lỗi MySQL tạm thời: chạy lại transaction thường thành công
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int ER_LOCK_DEADLOCK = 1213;
+
+    // Biến phiên: khác NULL thì trigger trên enrollments không đếm lại current_students
+    private static final String SKIP_SEAT_RECOUNT = "@sms_skip_seat_recount";
+
+    private static final String STATUS_DROPPED = "dropped";
+
+    /**
+     * Kết quả đăng ký học phần
+     */
+    public enum EnrollResult {
+        ENROLLED,         // Đăng ký thành công
+        COURSE_FULL,      // Hết chỗ hoặc khóa học không mở đăng ký
+        ALREADY_ENROLLED, // Đã có bản ghi đăng ký cho khóa học này
+        DROPPED,          // Hủy đăng ký thành công
+        NOT_ENROLLED,     // Không có đăng ký đang hiệu lực để hủy
+        INVALID_DATA,     // Sinh viên không tồn tại
+        BUSY,             // Hàng đợi đăng ký đầy
+        ERROR             // Lỗi cơ sở dữ liệu
+    }
+
+    /**
+     * Một thao tác đăng ký/hủy đăng ký trong lô
+     */
+    public static class EnrollmentOperation {
+        public enum Type { ENROLL, DROP }
+
+        private final Type type;
+        private final int studentId;
+        private final int courseId;
+
+        public EnrollmentOperation(Type type, int studentId, int courseId) {
+            this.type = type;
+            this.studentId = studentId;
+            this.courseId = courseId;
+        }
+
+        public Type getType() { return type; }
+        public int getStudentId() { return studentId; }
+        public int getCourseId() { return courseId; }
+
+        long pairKey() {
+            return EnrollmentDAO.pairKey(studentId, courseId);
+        }
+    }
+
+    /**
+     * Kết quả của một lô: kết quả từng thao tác (theo thứ tự của ops) và số
+     * chỗ đã commit (current_students) của các khóa học bị thay đổi
+     */
+    public static class BatchResult {
+        private final EnrollResult[] results;
+        private final Map<Integer, Integer> seatCounts;
+
+        BatchResult(EnrollResult[] results, Map<Integer, Integer> seatCounts) {
+            this.results = results;
+            this.seatCounts = seatCounts;
+        }
+
+        public EnrollResult[] getResults() { return results; }
+        public Map<Integer, Integer> getSeatCounts() { return seatCounts; }
+    }
+
+    private static long pairKey(int studentId, int courseId) {
+        return ((long) studentId << 32) | (courseId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Xử lý một lô đăng ký/hủy đăng ký, kết quả theo đúng thứ tự của ops.
+     *
+     * Cả lô chạy trong một transaction (executeTransaction); lỗi tạm thời
+     * (deadlock, hết thời gian chờ khóa) thì chạy lại lô một lần. Nếu lô vẫn
+     * lỗi, từng thao tác được chạy lại trong transaction riêng, để một thao
+     * tác lỗi chỉ làm hỏng kết quả của chính nó chứ không phải cả lô.
+     */
+    public BatchResult processBatch(List<EnrollmentOperation> ops) {
+        try {
+            return executeWithRetry(ops);
+        } catch (SQLException e) {
+            if (ops.size() == 1) {
+                LOGGER.log(Level.SEVERE, "Error processing enrollment operation", e);
+                return new BatchResult(new EnrollResult[] {EnrollResult.ERROR}, Map.of());
+            }
+            LOGGER.log(Level.WARNING, "Enrollment batch of " + ops.size() + " failed, retrying operations one by one", e);
+        }
+        
+        EnrollResult[] results = new EnrollResult[ops.size()];
+        Map<Integer, Integer> seatCounts = new HashMap<>();
+        for (int i = 0; i < ops.size(); i++) {
+            EnrollmentOperation op = ops.get(i);
+            try {
+                BatchResult single = executeWithRetry(List.of(op));
+                results[i] = single.getResults()[0];
+                // Transaction sau commit sau nên số chỗ của nó mới hơn
+                seatCounts.putAll(single.getSeatCounts());
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error processing enrollment: Student " + op.getStudentId() +
+                           " -> Course " + op.getCourseId(), e);
+                results[i] = EnrollResult.ERROR;
+            }
+        }
+        return new BatchResult(results, seatCounts);
+    }
+
+    private BatchResult executeWithRetry(List<EnrollmentOperation> ops) throws SQLException {
+        try {
+            return executeTransaction(ops);
+        } catch (SQLException e) {
+            if (!isTransient(e)) {
+                throw e;
+            }
+            LOGGER.fine("Transient error in enrollment batch, retrying: " + e.getMessage());
+            return executeTransaction(ops);
+        }
+    }
+
+    /**
+     * Deadlock/hết thời gian chờ khóa (kể cả khi nằm trong BatchUpdateException)
+     */
+    private static boolean isTransient(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                SQLException sql = (SQLException) t;
+                if (sql.getErrorCode() == ER_LOCK_DEADLOCK || sql.getErrorCode() == ER_LOCK_WAIT_TIMEOUT
+                        || "40001".equals(sql.getSQLState())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Chạy các thao tác trong một transaction, mỗi loại câu lệnh một lần
+     * executeBatch. Lỗi SQL thì rollback và ném ra.
+     *
+     * Thứ tự trong transaction:
+     * 1. Hủy đăng ký (giải phóng chỗ trước khi xét đăng ký mới).
+     * 2. Loại đăng ký của sinh viên không tồn tại (INVALID_DATA) và đăng ký
+     *    trùng (đã có bản ghi chưa hủy trong DB hoặc lặp trong lô), mỗi loại
+     *    một truy vấn. Bản ghi 'dropped' vẫn được đăng ký lại.
+     * 3. Giữ chỗ bằng UPDATE có điều kiện (current_students < max_students);
+     *    UPDATE khóa dòng khóa học tới khi commit nên không thể đăng ký vượt
+     *    số chỗ; update count = 0 là hết chỗ.
+     * 4. Kích hoạt lại bản ghi 'dropped' (khóa unique_enrollment không cho
+     *    thêm dòng thứ hai) và INSERT IGNORE các đăng ký mới đã giữ chỗ.
+     * 5. Tính lại current_students cho các khóa học bị ảnh hưởng, để số đếm
+     *    đúng kể cả khi schema không có trigger hoặc có dòng bị IGNORE, rồi
+     *    đọc lại số đó (dòng vẫn bị khóa nên đây là giá trị được commit).
+     *
+     * Vì bước 5 đếm lại một lần mỗi khóa học, transaction đặt biến phiên
+     * SKIP_SEAT_RECOUNT để trigger trên enrollments không đếm lại sau từng
+     * dòng (xem database_migration_enrollment_triggers.sql).
+     *
+     * Không bật rewriteBatchedStatements: cần update count của từng câu lệnh.
+     */
+    private BatchResult executeTransaction(List<EnrollmentOperation> ops) throws SQLException {
+        EnrollResult[] results = new EnrollResult[ops.size()];
+        Map<Integer, Integer> seatCounts = new HashMap<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            setSkipSeatRecount(conn, true);
+            conn.setAutoCommit(false);
+            try {
+                Set<Integer> touchedCourses = new HashSet<>();
+                
+                List<Integer> drops = new ArrayList<>();
+                List<Integer> enrolls = new ArrayList<>();
+                for (int i = 0; i < ops.size(); i++) {
+                    (ops.get(i).getType() == EnrollmentOperation.Type.DROP ? drops : enrolls).add(i);
+                }
+                
+                // 1. Hủy đăng ký
+                if (!drops.isEmpty()) {
+                    int[] counts = executeBatch(conn,
+                        "UPDATE enrollments SET enrollment_status = 'dropped' " +
+                        "WHERE student_id = ? AND course_id = ? AND enrollment_status = 'enrolled'",
+                        ops, drops);
+                    for (int j = 0; j < drops.size(); j++) {
+                        int index = drops.get(j);
+                        if (counts[j] > 0) {
+                            results[index] = EnrollResult.DROPPED;
+                            touchedCourses.add(ops.get(index).getCourseId());
+                        } else {
+                            results[index] = EnrollResult.NOT_ENROLLED;
+                        }
+                    }
+                }
+                
+                // 2. Sinh viên không tồn tại, đăng ký trùng; bản ghi đã hủy
+                //    được đăng ký lại
+                Set<Integer> students = findExistingStudents(conn, ops, enrolls);
+                Map<Long, String> statuses = findEnrollmentStatuses(conn, ops, enrolls);
+                Set<Long> seen = new HashSet<>();
+                List<Integer> candidates = new ArrayList<>();
+                for (int index : enrolls) {
+                    long pair = ops.get(index).pairKey();
+                    String status = statuses.get(pair);
+                    if (!students.contains(ops.get(index).getStudentId())) {
+                        results[index] = EnrollResult.INVALID_DATA;
+                    } else if (!seen.add(pair) || (status != null && !STATUS_DROPPED.equals(status))) {
+                        results[index] = EnrollResult.ALREADY_ENROLLED;
+                    } else {
+                        candidates.add(index);
+                    }
+                }
+                
+                // 3. Giữ chỗ
+                List<Integer> reserved = new ArrayList<>();
+                if (!candidates.isEmpty()) {
+                    int[] counts = executeBatch(conn,
+                        "UPDATE courses SET current_students = current_students + 1 " +
+                        "WHERE course_id = ? AND current_students < max_students " +
+                        "AND course_status IN ('planning', 'ongoing')",
+                        ops, candidates, true);
+                    for (int j = 0; j < candidates.size(); j++) {
+                        int index = candidates.get(j);
+                        if (counts[j] > 0) {
+                            reserved.add(index);
+                            touchedCourses.add(ops.get(index).getCourseId());
+                        } else {
+                            results[index] = EnrollResult.COURSE_FULL;
+                        }
+                    }
+                }
+                
+                // 4. Ghi đăng ký: bản ghi đã hủy thì kích hoạt lại, chưa có thì thêm
+                List<Integer> reactivations = new ArrayList<>();
+                List<Integer> inserts = new ArrayList<>();
+                for (int index : reserved) {
+                    (statuses.containsKey(ops.get(index).pairKey()) ? reactivations : inserts).add(index);
+                }
+                if (!reactivations.isEmpty()) {
+                    int[] counts = executeBatch(conn,
+                        "UPDATE enrollments SET enrollment_status = 'enrolled' " +
+                        "WHERE student_id = ? AND course_id = ? AND enrollment_status = 'dropped'",
+                        ops, reactivations);
+                    for (int j = 0; j < reactivations.size(); j++) {
+                        results[reactivations.get(j)] = counts[j] > 0 ? EnrollResult.ENROLLED : EnrollResult.ALREADY_ENROLLED;
+                    }
+                }
+                if (!inserts.isEmpty()) {
+                    int[] counts = executeBatch(conn,
+                        "INSERT IGNORE INTO enrollments (student_id, course_id) VALUES (?, ?)",
+                        ops, inserts);
+                    for (int j = 0; j < inserts.size(); j++) {
+                        results[inserts.get(j)] = counts[j] > 0 ? EnrollResult.ENROLLED : EnrollResult.ALREADY_ENROLLED;
+                    }
+                }
+                
+                // 5. Đồng bộ số chỗ
+                if (!touchedCourses.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "UPDATE courses SET current_students = (" +
+                            "SELECT COUNT(*) FROM enrollments " +
+                            "WHERE course_id = ? AND enrollment_status = 'enrolled') " +
+                            "WHERE course_id = ?")) {
+                        for (int courseId : touchedCourses) {
+                            stmt.setInt(1, courseId);
+                            stmt.setInt(2, courseId);
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                    seatCounts = findSeatCounts(conn, touchedCourses);
+                }
+                
+                conn.commit();
+                
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                // Connection trở lại pool: các thao tác khác vẫn cần trigger
+                try {
+                    setSkipSeatRecount(conn, false);
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Error clearing " + SKIP_SEAT_RECOUNT, e);
+                }
+            }
+        }
+        
+        return new BatchResult(results, seatCounts);
+    }
+
+    private static void setSkipSeatRecount(Connection conn, boolean skip) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET " + SKIP_SEAT_RECOUNT + (skip ? " = 1" : " = NULL"));
+        }
+    }
+
+    /**
+     * current_students của các khóa học, trong một truy vấn
+     */
+    private static Map<Integer, Integer> findSeatCounts(Connection conn, Set<Integer> courseIds) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT course_id, current_students FROM courses WHERE course_id IN (");
+        for (int i = 0; i < courseIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        
+        Map<Integer, Integer> seatCounts = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int param = 1;
+            for (int courseId : courseIds) {
+                stmt.setInt(param++, courseId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    seatCounts.put(rs.getInt("course_id"), rs.getInt("current_students"));
+                }
+            }
+        }
+        return seatCounts;
+    }
+
+    private static int[] executeBatch(Connection conn, String sql, List<EnrollmentOperation> ops,
+                                      List<Integer> indexes) throws SQLException {
+        return executeBatch(conn, sql, ops, indexes, false);
+    }
+
+    private static int[] executeBatch(Connection conn, String sql, List<EnrollmentOperation> ops,
+                                      List<Integer> indexes, boolean courseOnly) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int index : indexes) {
+                EnrollmentOperation op = ops.get(index);
+                if (courseOnly) {
+                    stmt.setInt(1, op.getCourseId());
+                } else {
+                    stmt.setInt(1, op.getStudentId());
+                    stmt.setInt(2, op.getCourseId());
+                }
+                stmt.addBatch();
+            }
+            return stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Các student_id của ops[indexes] có trong bảng students, trong một truy vấn
+     */
+    private static Set<Integer> findExistingStudents(Connection conn, List<EnrollmentOperation> ops,
+                                                     List<Integer> indexes) throws SQLException {
+        Set<Integer> requested = new HashSet<>();
+        for (int index : indexes) {
+            requested.add(ops.get(index).getStudentId());
+        }
+        Set<Integer> existing = new HashSet<>();
+        if (requested.isEmpty()) {
+            return existing;
+        }
+        
+        StringBuilder sql = new StringBuilder("SELECT student_id FROM students WHERE student_id IN (");
+        for (int i = 0; i < requested.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int param = 1;
+            for (int studentId : requested) {
+                stmt.setInt(param++, studentId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getInt("student_id"));
+                }
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Trạng thái bản ghi đăng ký đã có của các cặp (student_id, course_id),
+     * trong một truy vấn
+     */
+    private static Map<Long, String> findEnrollmentStatuses(Connection conn, List<EnrollmentOperation> ops,
+                                                           List<Integer> indexes) throws SQLException {
+        Map<Long, String> existing = new HashMap<>();
+        if (indexes.isEmpty()) {
+            return existing;
+        }
+        
+        StringBuilder sql = new StringBuilder("SELECT student_id, course_id, enrollment_status FROM enrollments " +
+                                              "WHERE (student_id, course_id) IN (");
+        for (int i = 0; i < indexes.size(); i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        sql.append(")");
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int param = 1;
+            for (int index : indexes) {
+                stmt.setInt(param++, ops.get(index).getStudentId());
+                stmt.setInt(param++, ops.get(index).getCourseId());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.put(pairKey(rs.getInt("student_id"), rs.getInt("course_id")),
+                                 rs.getString("enrollment_status"));
+                }
+            }
+        }
+        return existing;
+    }
+
     /**
      * Thêm đăng ký mới
      */
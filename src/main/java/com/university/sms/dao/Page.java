@@ -0,0 +1,31 @@
+package com.university.sms.dao;
+
+import java.util.List;
+
+/**
+ * Một trang kết quả phân trang theo keyset.
+ * nextCursor là khóa của phần tử cuối trang, dùng cho lần lấy trang tiếp theo.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+    private final boolean hasMore;
+
+    public Page(List<T> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
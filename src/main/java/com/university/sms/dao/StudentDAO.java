@@ -6,7 +6,12 @@ import com.university.sms.util.DatabaseConnection;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,6 +21,10 @@ import java.util.logging.Logger;
 public class StudentDAO {
     private static final Logger LOGGER = Logger.getLogger(StudentDAO.class.getName());
 
+    // Mã lỗi MySQL khi truy vấn cột không tồn tại
+    static final int ER_BAD_FIELD_ERROR = 1054;
+    private static volatile boolean versionAvailable = true;
+
     /**
      * Thêm sinh viên mới
      */
@@ -213,6 +222,35 @@ public class StudentDAO {
         return students;
     }
 
+    /**
+     * Đếm sinh viên của một khoa theo trạng thái (GROUP BY trên server, không
+     * tải từng sinh viên). Trạng thái không có sinh viên nào không có trong map.
+     * Lỗi database được ném ra để nơi gọi không nhầm với khoa không có sinh viên.
+     */
+    public Map<Student.StudentStatus, Integer> countByStatus(int departmentId) throws SQLException {
+        String sql = "SELECT student_status, COUNT(*) AS total FROM students " +
+                    "WHERE department_id = ? GROUP BY student_status";
+        
+        Map<Student.StudentStatus, Integer> counts = new EnumMap<>(Student.StudentStatus.class);
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, departmentId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String status = rs.getString("student_status");
+                    if (status != null) {
+                        counts.put(Student.StudentStatus.valueOf(status.toUpperCase()), rs.getInt("total"));
+                    }
+                }
+            }
+        }
+        
+        return counts;
+    }
+
     /**
      * Lấy tất cả sinh viên
      */
@@ -242,6 +280,237 @@ public class StudentDAO {
         return students;
     }
 
+    /**
+     * Đọc toàn bộ sinh viên theo thứ tự mã và giao cho consumer từng khối
+     * chunkSize dòng, không giữ cả danh sách trong bộ nhớ. ResultSet là
+     * forward-only, read-only với fetch size Integer.MIN_VALUE: Connector/J
+     * đọc từng dòng từ socket thay vì nạp cả kết quả, chỉ cho truy vấn này.
+     * Connection bị giữ tới khi đọc xong nên consumer chậm (client đọc chậm)
+     * giữ một connection của pool; nơi gọi từ client phải giới hạn số lượt
+     * đồng thời (xem StudentService.exportStudents).
+     * Consumer trả về false để dừng sớm (ví dụ client đã ngắt kết nối).
+     *
+     * @return số sinh viên đã giao cho consumer
+     */
+    public int streamAll(int chunkSize, Predicate<List<Student>> chunkConsumer) throws SQLException {
+        String sql = "SELECT s.*, u.full_name, u.email, u.phone, u.address, d.department_name, c.class_name " +
+                    "FROM students s " +
+                    "JOIN users u ON s.user_id = u.user_id " +
+                    "JOIN departments d ON s.department_id = d.department_id " +
+                    "LEFT JOIN classes c ON s.class_id = c.class_id " +
+                    "ORDER BY s.student_code";
+        
+        int total = 0;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                                                            ResultSet.CONCUR_READ_ONLY)) {
+            
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Student> chunk = new ArrayList<>(chunkSize);
+                while (rs.next()) {
+                    chunk.add(mapResultSetToStudent(rs));
+                    if (chunk.size() == chunkSize) {
+                        total += chunk.size();
+                        if (!chunkConsumer.test(chunk)) {
+                            return total;
+                        }
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    total += chunk.size();
+                    chunkConsumer.test(chunk);
+                }
+            }
+        }
+        
+        return total;
+    }
+
+    /**
+     * Lấy một trang sinh viên theo mã sinh viên (keyset pagination).
+     * afterCode = null để lấy trang đầu.
+     *
+     * Trang được cắt trên bảng students (theo index student_code) trước khi
+     * join: nếu để LIMIT ở truy vấn ngoài, optimizer có thể join departments
+     * bằng join buffer rồi sắp xếp toàn bộ kết quả trước khi lấy trang.
+     */
+    public Page<Student> findPage(String afterCode, int pageSize) {
+        String sql = "SELECT s.*, u.full_name, u.email, u.phone, u.address, d.department_name, c.class_name " +
+                    "FROM (SELECT * FROM students " +
+                    (afterCode != null ? "WHERE student_code > ? " : "") +
+                    "ORDER BY student_code LIMIT ?) s " +
+                    "JOIN users u ON s.user_id = u.user_id " +
+                    "JOIN departments d ON s.department_id = d.department_id " +
+                    "LEFT JOIN classes c ON s.class_id = c.class_id " +
+                    "ORDER BY s.student_code";
+        
+        List<Student> students = new ArrayList<>();
+        boolean hasMore = false;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            if (afterCode != null) {
+                stmt.setString(index++, afterCode);
+            }
+            // Lấy thừa một dòng để biết còn trang sau hay không
+            stmt.setInt(index, pageSize + 1);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (students.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    students.add(mapResultSetToStudent(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding student page after: " + afterCode, e);
+        }
+        
+        String nextCursor = students.isEmpty() ? afterCode : students.get(students.size() - 1).getStudentCode();
+        return new Page<>(students, nextCursor, hasMore);
+    }
+
+    /**
+     * Cột được phép sắp xếp khi lấy cửa sổ dữ liệu (tên enum được gửi từ client)
+     */
+    public enum SortField {
+        STUDENT_CODE("s.student_code"),
+        FULL_NAME("u.full_name"),
+        EMAIL("u.email"),
+        GPA("s.gpa"),
+        TOTAL_CREDITS("s.total_credits"),
+        STATUS("s.student_status");
+
+        private final String column;
+
+        SortField(String column) {
+            this.column = column;
+        }
+    }
+
+    /**
+     * Lấy limit sinh viên bắt đầu từ vị trí offset theo thứ tự sắp xếp cho trước,
+     * lọc theo trạng thái nếu status khác null. Dùng cho bảng cuộn ảo ở client,
+     * nơi cần truy cập ngẫu nhiên theo số dòng nên phân trang theo offset.
+     */
+    public List<Student> findWindow(int offset, int limit, SortField sortField, boolean ascending,
+                                    Student.StudentStatus status) {
+        String direction = ascending ? "ASC" : "DESC";
+        String sql = "SELECT s.*, u.full_name, u.email, u.phone, u.address, d.department_name, c.class_name " +
+                    "FROM students s " +
+                    "JOIN users u ON s.user_id = u.user_id " +
+                    "JOIN departments d ON s.department_id = d.department_id " +
+                    "LEFT JOIN classes c ON s.class_id = c.class_id " +
+                    (status != null ? "WHERE s.student_status = ? " : "") +
+                    "ORDER BY " + sortField.column + " " + direction + ", s.student_id " + direction + " " +
+                    "LIMIT ? OFFSET ?";
+        
+        List<Student> students = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            if (status != null) {
+                stmt.setString(index++, status.name().toLowerCase());
+            }
+            stmt.setInt(index++, limit);
+            stmt.setInt(index, offset);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    students.add(mapResultSetToStudent(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding student window at offset: " + offset, e);
+        }
+        
+        return students;
+    }
+
+    /**
+     * Đếm sinh viên, lọc theo trạng thái nếu status khác null
+     */
+    public int countStudents(Student.StudentStatus status) {
+        String sql = "SELECT COUNT(*) FROM students" + (status != null ? " WHERE student_status = ?" : "");
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            if (status != null) {
+                stmt.setString(1, status.name().toLowerCase());
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error counting students", e);
+        }
+        
+        return 0;
+    }
+
+    /**
+     * Phiên bản dữ liệu sinh viên, đổi khi có sinh viên được thêm/xóa hoặc một
+     * dòng students/users được cập nhật. Trả về null nếu database chưa có cột
+     * updated_at (chưa chạy database_migration_updated_at.sql); khi đó lần
+     * gọi đầu tiên ghi nhận và các lần sau không truy vấn nữa.
+     */
+    public String getDataVersion() {
+        if (!versionAvailable) {
+            return null;
+        }
+        
+        String sql = "SELECT COUNT(*) AS total, " +
+                    "(SELECT MAX(updated_at) FROM students) AS students_updated, " +
+                    "(SELECT MAX(updated_at) FROM users) AS users_updated " +
+                    "FROM students";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            if (rs.next()) {
+                return "S" + rs.getInt("total") +
+                       "-" + toMicros(rs.getTimestamp("students_updated")) +
+                       "-" + toMicros(rs.getTimestamp("users_updated"));
+            }
+            
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ER_BAD_FIELD_ERROR) {
+                versionAvailable = false;
+                LOGGER.warning("Column updated_at not found, student responses are sent without ETag. " +
+                               "Run database_migration_updated_at.sql to enable revalidation.");
+            } else {
+                LOGGER.log(Level.WARNING, "Cannot compute student data version", e);
+            }
+        }
+        
+        return null;
+    }
+
+    static long toMicros(Timestamp timestamp) {
+        if (timestamp == null) {
+            return 0;
+        }
+        return timestamp.getTime() / 1000 * 1_000_000 + timestamp.getNanos() / 1000;
+    }
+
     /**
      * Tìm kiếm sinh viên theo từ khóa
      */
@@ -277,6 +546,52 @@ public class StudentDAO {
         return students;
     }
 
+    /**
+     * Lấy danh sách sinh viên theo danh sách ID, giữ nguyên thứ tự của studentIds
+     */
+    public List<Student> findByIds(List<Integer> studentIds) {
+        List<Student> students = new ArrayList<>();
+        if (studentIds.isEmpty()) {
+            return students;
+        }
+        
+        String placeholders = String.join(",", Collections.nCopies(studentIds.size(), "?"));
+        String sql = "SELECT s.*, u.full_name, u.email, u.phone, u.address, d.department_name, c.class_name " +
+                    "FROM students s " +
+                    "JOIN users u ON s.user_id = u.user_id " +
+                    "JOIN departments d ON s.department_id = d.department_id " +
+                    "LEFT JOIN classes c ON s.class_id = c.class_id " +
+                    "WHERE s.student_id IN (" + placeholders + ")";
+        
+        Map<Integer, Student> byId = new HashMap<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            for (int i = 0; i < studentIds.size(); i++) {
+                stmt.setInt(i + 1, studentIds.get(i));
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Student student = mapResultSetToStudent(rs);
+                    byId.put(student.getStudentId(), student);
+                }
+            }
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding students by IDs", e);
+        }
+        
+        for (Integer studentId : studentIds) {
+            Student student = byId.get(studentId);
+            if (student != null) {
+                students.add(student);
+            }
+        }
+        return students;
+    }
+
     /**
      * Cập nhật thông tin sinh viên
      */
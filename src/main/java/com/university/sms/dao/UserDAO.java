@@ -26,7 +26,7 @@ public class UserDAO {
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setString(1, user.getUsername());
-            stmt.setString(2, user.getPassword()); // Lưu plain text cho dễ test
+            stmt.setString(2, user.getPassword()); // Đã băm bcrypt ở AuthenticationService
             stmt.setString(3, user.getEmail());
             stmt.setString(4, user.getFullName());
             stmt.setString(5, user.getRole().name().toLowerCase());
@@ -53,9 +53,10 @@ public class UserDAO {
     }
 
     /**
-     * Tìm user theo username và password
+     * Tìm user đang hoạt động theo username, kèm mật khẩu đã lưu để
+     * AuthenticationService kiểm tra (bcrypt chạy ngoài DAO)
      */
-    public User authenticate(String username, String password) {
+    public User findActiveByUsername(String username) {
         String sql = "SELECT * FROM users WHERE username = ? AND is_active = TRUE";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -65,22 +66,40 @@ public class UserDAO {
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    String storedPassword = rs.getString("password");
-                    if (password.equals(storedPassword)) { // So sánh plain text
-                        User user = mapResultSetToUser(rs);
-                        LOGGER.info("User authenticated successfully: " + username);
-                        return user;
-                    }
+                    return mapResultSetToUser(rs);
                 }
             }
             
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error authenticating user: " + username, e);
+            LOGGER.log(Level.SEVERE, "Error finding active user: " + username, e);
         }
         
         return null;
     }
 
+    /**
+     * Thay mật khẩu cũ (plain text) bằng bcrypt hash. Chỉ cập nhật nếu cột
+     * password vẫn là oldStored, để không ghi đè mật khẩu vừa được đổi.
+     */
+    public boolean upgradePassword(int userId, String oldStored, String newHash) {
+        String sql = "UPDATE users SET password = ? WHERE user_id = ? AND password = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, newHash);
+            stmt.setInt(2, userId);
+            stmt.setString(3, oldStored);
+            
+            return stmt.executeUpdate() > 0;
+            
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error upgrading password for user ID: " + userId, e);
+        }
+        
+        return false;
+    }
+
     /**
      * Tìm user theo ID
      */
@@ -158,7 +177,7 @@ public class UserDAO {
      * Cập nhật thông tin user
      */
     public boolean updateUser(User user) {
-        String sql = "UPDATE users SET email = ?, full_name = ?, phone = ?, address = ?, updated_at = CURRENT_TIMESTAMP WHERE user_id = ?";
+        String sql = "UPDATE users SET email = ?, full_name = ?, phone = ?, address = ?, updated_at = CURRENT_TIMESTAMP(6) WHERE user_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -187,12 +206,12 @@ public class UserDAO {
      * Thay đổi mật khẩu
      */
     public boolean changePassword(int userId, String newPassword) {
-        String sql = "UPDATE users SET password = ?, updated_at = CURRENT_TIMESTAMP WHERE user_id = ?";
+        String sql = "UPDATE users SET password = ?, updated_at = CURRENT_TIMESTAMP(6) WHERE user_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, newPassword); // Lưu plain text
+            stmt.setString(1, newPassword); // Đã băm bcrypt ở AuthenticationService
             stmt.setInt(2, userId);
             
             int result = stmt.executeUpdate();
@@ -213,7 +232,7 @@ public class UserDAO {
      * Vô hiệu hóa user
      */
     public boolean deactivateUser(int userId) {
-        String sql = "UPDATE users SET is_active = FALSE, updated_at = CURRENT_TIMESTAMP WHERE user_id = ?";
+        String sql = "UPDATE users SET is_active = FALSE, updated_at = CURRENT_TIMESTAMP(6) WHERE user_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -255,6 +274,88 @@ public class UserDAO {
         }
     }
 
+    /**
+     * Một lần đăng nhập cần ghi vào login_history. Đăng nhập thất bại chỉ có
+     * username: user_id được tra trong câu INSERT ... SELECT lúc ghi.
+     */
+    public static class LoginRecord {
+        private final int userId;
+        private final String username;
+        private final Timestamp loginTime;
+        private final String ipAddress;
+        private final String userAgent;
+        private final String status;
+
+        private LoginRecord(int userId, String username, String ipAddress, String userAgent, String status) {
+            this.userId = userId;
+            this.username = username;
+            this.loginTime = new Timestamp(System.currentTimeMillis());
+            this.ipAddress = ipAddress;
+            this.userAgent = userAgent;
+            this.status = status;
+        }
+
+        public static LoginRecord forUser(int userId, String ipAddress, String userAgent, String status) {
+            return new LoginRecord(userId, null, ipAddress, userAgent, status);
+        }
+
+        public static LoginRecord forUsername(String username, String ipAddress, String userAgent, String status) {
+            return new LoginRecord(0, username, ipAddress, userAgent, status);
+        }
+    }
+
+    /**
+     * Ghi một lô log đăng nhập trong một transaction. Thời điểm đăng nhập lấy
+     * từ lúc tạo LoginRecord, không phải lúc ghi. Bản ghi theo username không
+     * khớp user nào bị bỏ qua (giống logLogin trước đây).
+     */
+    public void logLoginBatch(List<LoginRecord> records) throws SQLException {
+        String byIdSql = "INSERT INTO login_history (user_id, login_time, ip_address, user_agent, login_status) " +
+                         "VALUES (?, ?, ?, ?, ?)";
+        String byUsernameSql = "INSERT INTO login_history (user_id, login_time, ip_address, user_agent, login_status) " +
+                               "SELECT user_id, ?, ?, ?, ? FROM users WHERE username = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement byId = conn.prepareStatement(byIdSql);
+                 PreparedStatement byUsername = conn.prepareStatement(byUsernameSql)) {
+                
+                int byIdCount = 0;
+                int byUsernameCount = 0;
+                for (LoginRecord record : records) {
+                    if (record.username == null) {
+                        byId.setInt(1, record.userId);
+                        byId.setTimestamp(2, record.loginTime);
+                        byId.setString(3, record.ipAddress);
+                        byId.setString(4, record.userAgent);
+                        byId.setString(5, record.status);
+                        byId.addBatch();
+                        byIdCount++;
+                    } else {
+                        byUsername.setTimestamp(1, record.loginTime);
+                        byUsername.setString(2, record.ipAddress);
+                        byUsername.setString(3, record.userAgent);
+                        byUsername.setString(4, record.status);
+                        byUsername.setString(5, record.username);
+                        byUsername.addBatch();
+                        byUsernameCount++;
+                    }
+                }
+                if (byIdCount > 0) {
+                    byId.executeBatch();
+                }
+                if (byUsernameCount > 0) {
+                    byUsername.executeBatch();
+                }
+                conn.commit();
+                
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
     /**
      * Map ResultSet to User object
      */
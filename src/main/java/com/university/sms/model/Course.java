@@ -52,6 +52,34 @@ public class Course implements java.io.Serializable {
         this.semester = semester;
     }
 
+    /**
+     * Bản sao nông (Date/Timestamp dùng chung); CourseService dùng để đổi số
+     * chỗ mà không sửa object đang nằm trong cache
+     */
+    public Course(Course source) {
+        this.courseId = source.courseId;
+        this.courseCode = source.courseCode;
+        this.subjectId = source.subjectId;
+        this.teacherId = source.teacherId;
+        this.classId = source.classId;
+        this.academicYear = source.academicYear;
+        this.semester = source.semester;
+        this.scheduleDay = source.scheduleDay;
+        this.scheduleTime = source.scheduleTime;
+        this.room = source.room;
+        this.maxStudents = source.maxStudents;
+        this.currentStudents = source.currentStudents;
+        this.courseStatus = source.courseStatus;
+        this.startDate = source.startDate;
+        this.endDate = source.endDate;
+        this.createdAt = source.createdAt;
+        this.subjectName = source.subjectName;
+        this.subjectCode = source.subjectCode;
+        this.credits = source.credits;
+        this.teacherName = source.teacherName;
+        this.className = source.className;
+    }
+
     // Getters and Setters
     public int getCourseId() {
         return courseId;
@@ -0,0 +1,208 @@
+package com.university.sms.server;
+
+import com.university.sms.common.Constants;
+import com.university.sms.common.Message;
+import com.university.sms.model.User;
+import com.university.sms.util.DatabaseConnection;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Kiểm soát tải của server: giới hạn số phiên đồng thời và số yêu cầu đang
+ * xử lý (kể cả đang chờ worker), có ưu tiên.
+ *
+ * Quá giới hạn thì trả lời ngay MSG_SERVER_BUSY kèm KEY_RETRY_AFTER thay vì
+ * xếp hàng không giới hạn, nên khi quá tải độ trễ của yêu cầu được nhận vẫn
+ * ổn định và client biết khi nào thử lại. Mỗi mức ưu tiên chỉ được dùng một
+ * phần giới hạn yêu cầu: sinh viên xem dữ liệu bị từ chối trước, phần còn lại
+ * để dành cho giáo viên/quản trị nhập điểm, điểm danh.
+ *
+ * Cấu hình trong database.properties (server.admission.*).
+ */
+class AdmissionController {
+    private static final Logger LOGGER = Logger.getLogger(AdmissionController.class.getName());
+
+    /**
+     * Mức ưu tiên của yêu cầu
+     */
+    enum Priority {
+        /** Giáo viên/quản trị nhập điểm, điểm danh; đăng xuất */
+        HIGH,
+        /** Thao tác khác của giáo viên/quản trị, đăng nhập, đăng ký học phần */
+        NORMAL,
+        /** Sinh viên và client chưa đăng nhập xem dữ liệu */
+        LOW
+    }
+
+    // Nhập điểm/điểm danh: không bị bỏ khi sinh viên đổ vào xem kết quả
+    private static final Set<String> STAFF_ENTRY_ACTIONS = Set.of(
+        Constants.ACTION_ADD_GRADE, Constants.ACTION_UPDATE_GRADE, Constants.ACTION_CALCULATE_FINAL_GRADE,
+        Constants.ACTION_MARK_ATTENDANCE, Constants.ACTION_UPDATE_ATTENDANCE);
+
+    private static final Set<String> SESSION_ACTIONS = Set.of(
+        Constants.ACTION_LOGIN, Constants.ACTION_RESUME_SESSION, Constants.ACTION_CHANGE_PASSWORD,
+        Constants.ACTION_ENROLL_COURSE, Constants.ACTION_DROP_COURSE);
+
+    /**
+     * Cấu hình kiểm soát tải
+     */
+    static class Config {
+        private int maxSessions = 2000;
+        private int maxRequests = 64;
+        private double normalShare = 0.8;
+        private double lowShare = 0.6;
+        private long retryAfterMillis = 1000;
+
+        int getMaxSessions() { return maxSessions; }
+        void setMaxSessions(int maxSessions) { this.maxSessions = maxSessions; }
+
+        int getMaxRequests() { return maxRequests; }
+        void setMaxRequests(int maxRequests) { this.maxRequests = maxRequests; }
+
+        double getNormalShare() { return normalShare; }
+        void setNormalShare(double normalShare) { this.normalShare = normalShare; }
+
+        double getLowShare() { return lowShare; }
+        void setLowShare(double lowShare) { this.lowShare = lowShare; }
+
+        long getRetryAfterMillis() { return retryAfterMillis; }
+        void setRetryAfterMillis(long retryAfterMillis) { this.retryAfterMillis = retryAfterMillis; }
+
+        /**
+         * Đọc cấu hình; giá trị mặc định theo giới hạn của transport
+         */
+        static Config fromSettings(int defaultMaxSessions, int defaultMaxRequests) {
+            Config config = new Config();
+            config.setMaxSessions(Integer.parseInt(DatabaseConnection.getSetting(
+                "server.admission.max.sessions", String.valueOf(defaultMaxSessions))));
+            config.setMaxRequests(Integer.parseInt(DatabaseConnection.getSetting(
+                "server.admission.max.requests", String.valueOf(defaultMaxRequests))));
+            config.setNormalShare(Double.parseDouble(DatabaseConnection.getSetting("server.admission.normal.share", "0.8")));
+            config.setLowShare(Double.parseDouble(DatabaseConnection.getSetting("server.admission.low.share", "0.6")));
+            config.setRetryAfterMillis(Long.parseLong(DatabaseConnection.getSetting("server.admission.retry.after", "1000")));
+            return config;
+        }
+    }
+
+    private final Config config;
+    private final int[] requestLimits = new int[Priority.values().length];
+
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicLong shedSessions = new AtomicLong();
+    private final AtomicLong[] shedRequests = new AtomicLong[Priority.values().length];
+
+    AdmissionController(Config config) {
+        this.config = config;
+        requestLimits[Priority.HIGH.ordinal()] = config.getMaxRequests();
+        requestLimits[Priority.NORMAL.ordinal()] = Math.max(1, (int) (config.getMaxRequests() * config.getNormalShare()));
+        requestLimits[Priority.LOW.ordinal()] = Math.max(1, (int) (config.getMaxRequests() * config.getLowShare()));
+        for (int i = 0; i < shedRequests.length; i++) {
+            shedRequests[i] = new AtomicLong();
+        }
+        LOGGER.info("Admission control: " + config.getMaxSessions() + " sessions, " + config.getMaxRequests()
+                    + " requests in flight");
+    }
+
+    /**
+     * Nhận một phiên mới; false nếu đã đủ số phiên
+     */
+    boolean tryAcquireSession() {
+        if (tryIncrement(sessions, config.getMaxSessions())) {
+            return true;
+        }
+        if (shedSessions.incrementAndGet() % 1000 == 1) {
+            LOGGER.warning("Session limit reached, rejecting connections (rejected so far: " + shedSessions.get() + ")");
+        }
+        return false;
+    }
+
+    void releaseSession() {
+        sessions.decrementAndGet();
+    }
+
+    /**
+     * Nhận một yêu cầu để xử lý; false nếu số yêu cầu đang xử lý đã chạm
+     * giới hạn của mức ưu tiên
+     */
+    boolean tryAcquireRequest(Priority priority) {
+        if (tryIncrement(requests, requestLimits[priority.ordinal()])) {
+            return true;
+        }
+        shedRequests[priority.ordinal()].incrementAndGet();
+        return false;
+    }
+
+    void releaseRequest() {
+        requests.decrementAndGet();
+    }
+
+    private static boolean tryIncrement(AtomicInteger counter, int limit) {
+        while (true) {
+            int current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Mức ưu tiên của yêu cầu theo vai trò người gửi và action
+     */
+    static Priority classify(User user, String action) {
+        if (Constants.ACTION_LOGOUT.equals(action)) {
+            return Priority.HIGH;
+        }
+        boolean staff = user != null
+            && (user.getRole() == User.UserRole.ADMIN || user.getRole() == User.UserRole.TEACHER);
+        if (staff) {
+            return STAFF_ENTRY_ACTIONS.contains(action) ? Priority.HIGH : Priority.NORMAL;
+        }
+        return SESSION_ACTIONS.contains(action) ? Priority.NORMAL : Priority.LOW;
+    }
+
+    /**
+     * Phản hồi "server bận" kèm thời gian nên chờ trước khi thử lại. Thời gian
+     * được cộng ngẫu nhiên để các client bị từ chối cùng lúc không thử lại
+     * cùng lúc.
+     */
+    Message busyResponse(Message request) {
+        Message response = Message.createErrorResponse(request.getAction(), Constants.MSG_SERVER_BUSY);
+        response.setRequestId(request.getRequestId());
+        long base = config.getRetryAfterMillis();
+        response.addData(Constants.KEY_RETRY_AFTER, base + ThreadLocalRandom.current().nextLong(base + 1));
+        return response;
+    }
+
+    int getActiveSessions() {
+        return sessions.get();
+    }
+
+    int getActiveRequests() {
+        return requests.get();
+    }
+
+    long getShedSessionCount() {
+        return shedSessions.get();
+    }
+
+    long getShedRequestCount(Priority priority) {
+        return shedRequests[priority.ordinal()].get();
+    }
+
+    /**
+     * Tải hiện tại và số lần từ chối, dạng chuỗi cho màn hình quản trị
+     */
+    String getMetrics() {
+        return String.format("sessions %d/%d, requests %d/%d, shed sessions %d, shed requests high %d, normal %d, low %d",
+            sessions.get(), config.getMaxSessions(), requests.get(), config.getMaxRequests(), shedSessions.get(),
+            getShedRequestCount(Priority.HIGH), getShedRequestCount(Priority.NORMAL), getShedRequestCount(Priority.LOW));
+    }
+}
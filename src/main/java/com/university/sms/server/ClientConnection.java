@@ -0,0 +1,41 @@
+package com.university.sms.server;
+
+import com.university.sms.model.User;
+
+/**
+ * Kết nối của một client tới server, dùng chung cho chế độ blocking và NIO
+ */
+public interface ClientConnection {
+
+    /**
+     * Địa chỉ của client
+     */
+    String getRemoteAddress();
+
+    /**
+     * Người dùng đã đăng nhập trên kết nối này (null nếu chưa đăng nhập)
+     */
+    User getCurrentUser();
+
+    /**
+     * Kiểm tra kết nối còn mở không
+     */
+    boolean isConnected();
+
+    /**
+     * Tổng số byte đã gửi cho client
+     */
+    long getBytesSent();
+
+    /**
+     * Số byte bộ nhớ serialization của phiên còn giữ tham chiếu
+     */
+    default long getRetainedSerializationBytes() {
+        return 0;
+    }
+
+    /**
+     * Ngắt kết nối client
+     */
+    void disconnect();
+}
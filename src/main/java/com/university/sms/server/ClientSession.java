@@ -0,0 +1,904 @@
+package com.university.sms.server;
+
+import com.university.sms.common.Constants;
+import com.university.sms.common.Message;
+import com.university.sms.dao.EnrollmentDAO;
+import com.university.sms.dao.Page;
+import com.university.sms.model.Course;
+import com.university.sms.model.Student;
+import com.university.sms.model.User;
+import com.university.sms.service.AuthenticationService;
+import com.university.sms.service.StudentService;
+import com.university.sms.service.CourseService;
+import com.university.sms.service.DepartmentService;
+import com.university.sms.service.EnrollmentService;
+import com.university.sms.service.NotificationHub;
+import com.university.sms.service.SessionStore;
+import com.university.sms.service.LoginThrottle;
+import com.university.sms.service.StatisticsService;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Phiên làm việc của một client: trạng thái đăng nhập và xử lý yêu cầu.
+ * Không phụ thuộc cách truyền tải (blocking socket hay NIO).
+ */
+public class ClientSession {
+    private static final Logger LOGGER = Logger.getLogger(ClientSession.class.getName());
+    
+    private final String remoteAddress;
+    private volatile User currentUser;
+    // Token phiên trong SessionStore của người dùng đang đăng nhập
+    private volatile String sessionToken;
+    // Hàng đợi notification của kết nối (null nếu transport không hỗ trợ push)
+    private volatile NotificationOutbox outbox;
+    
+    /**
+     * Nơi nhận các RESPONSE_CHUNK của một phản hồi dạng stream. send() chặn
+     * cho tới khi kết nối nhận thêm được dữ liệu (backpressure) và trả về
+     * false khi client đã ngắt kết nối.
+     */
+    public interface ChunkSink {
+        boolean send(Message chunk);
+    }
+    
+    // Services
+    private AuthenticationService authService;
+    private StudentService studentService;
+    private CourseService courseService;
+    private EnrollmentService enrollmentService;
+
+    public ClientSession(String remoteAddress) {
+        this.remoteAddress = remoteAddress;
+        
+        // Initialize services
+        this.authService = new AuthenticationService();
+        this.studentService = new StudentService();
+        this.courseService = new CourseService();
+        this.enrollmentService = new EnrollmentService();
+    }
+
+    /**
+     * Cho phép phiên nhận notification; sender ghi một notification ra kết nối
+     * (được phép block theo backpressure) và trả về false khi kết nối đã đóng
+     */
+    void attachNotifications(Predicate<Message> sender) {
+        this.outbox = new NotificationOutbox(sender);
+    }
+
+    /**
+     * Giải phóng tài nguyên của phiên khi kết nối đóng
+     */
+    void close() {
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    /**
+     * Xử lý yêu cầu từ client. Phản hồi mang cùng requestId với yêu cầu.
+     * Yêu cầu dạng stream gửi dữ liệu qua chunkSink trước khi trả về phản hồi cuối.
+     */
+    public Message processRequest(Message request, ChunkSink chunkSink) {
+        String token = sessionToken;
+        if (token != null) {
+            SessionStore.getInstance().touch(token);
+        }
+        Message response = dispatchConditional(request, chunkSink);
+        response.setRequestId(request.getRequestId());
+        return response;
+    }
+
+    /**
+     * Yêu cầu đọc sinh viên/khóa học được gắn ETag là phiên bản dữ liệu tại thời
+     * điểm trước khi đọc. Client gửi lại ETag trong KEY_IF_NONE_MATCH; nếu phiên
+     * bản chưa đổi thì trả về phản hồi NOT_MODIFIED không kèm dữ liệu. Quyền
+     * đọc được kiểm tra trước: người không có quyền đi thẳng vào handler và
+     * nhận UNAUTHORIZED dù gửi ETag đúng.
+     */
+    private Message dispatchConditional(Message request, ChunkSink chunkSink) {
+        String action = request.getAction();
+        String version = isAuthenticated() && canRead(action) ? currentDataVersion(action) : null;
+        if (version == null) {
+            return dispatch(request, chunkSink);
+        }
+        
+        if (version.equals(request.getData(Constants.KEY_IF_NONE_MATCH, String.class))) {
+            Message response = Message.createSuccessResponse(request.getAction(), "Dữ liệu không thay đổi");
+            response.addData(Constants.KEY_NOT_MODIFIED, true);
+            response.addData(Constants.KEY_ETAG, version);
+            return response;
+        }
+        
+        Message response = dispatch(request, chunkSink);
+        if (response.isSuccess()) {
+            response.addData(Constants.KEY_ETAG, version);
+        }
+        return response;
+    }
+
+    /**
+     * Người dùng hiện tại có được đọc dữ liệu của action không; cùng điều kiện
+     * với handler tương ứng
+     */
+    private boolean canRead(String action) {
+        switch (action) {
+            case Constants.ACTION_GET_ALL_STUDENTS:
+            case Constants.ACTION_GET_STUDENTS_WINDOW:
+                // Chỉ admin và giáo viên mới có quyền xem danh sách sinh viên
+                return currentUser.getRole() == User.UserRole.ADMIN || currentUser.getRole() == User.UserRole.TEACHER;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Phiên bản dữ liệu mà action đọc; null nếu action không hỗ trợ revalidate
+     */
+    private String currentDataVersion(String action) {
+        switch (action) {
+            case Constants.ACTION_GET_STUDENT_INFO:
+            case Constants.ACTION_GET_ALL_STUDENTS:
+            case Constants.ACTION_GET_STUDENTS_WINDOW:
+                return studentService.getDataVersion();
+            case Constants.ACTION_GET_ALL_COURSES:
+            case Constants.ACTION_GET_COURSES:
+            case Constants.ACTION_GET_COURSES_WINDOW:
+            case Constants.ACTION_GET_COURSE_INFO:
+                return courseService.getDataVersion();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Chuyển yêu cầu tới handler theo action
+     */
+    private Message dispatch(Message request, ChunkSink chunkSink) {
+        String action = request.getAction();
+        
+        try {
+            // Authentication required actions
+            if (!isAuthenticated() && !isPublicAction(action)) {
+                return Message.createErrorResponse(action, Constants.MSG_UNAUTHORIZED);
+            }
+            
+            switch (action) {
+                // Authentication actions
+                case Constants.ACTION_LOGIN:
+                    return handleLogin(request);
+                case Constants.ACTION_RESUME_SESSION:
+                    return handleResumeSession(request);
+                case Constants.ACTION_LOGOUT:
+                    return handleLogout(request);
+                case Constants.ACTION_CHANGE_PASSWORD:
+                    return handleChangePassword(request);
+                
+                // Student actions
+                case Constants.ACTION_GET_STUDENT_INFO:
+                    return handleGetStudentInfo(request);
+                case Constants.ACTION_GET_ALL_STUDENTS:
+                    return handleGetAllStudents(request);
+                case Constants.ACTION_GET_STUDENTS_PAGE:
+                    return handleGetStudentsPage(request);
+                case Constants.ACTION_GET_STUDENTS_WINDOW:
+                    return handleGetStudentsWindow(request);
+                case Constants.ACTION_EXPORT_STUDENTS:
+                    return handleExportStudents(request, chunkSink);
+                case Constants.ACTION_SEARCH_STUDENTS:
+                    return handleSearchStudents(request);
+                case Constants.ACTION_ADD_STUDENT:
+                    return handleAddStudent(request);
+                case Constants.ACTION_UPDATE_STUDENT:
+                    return handleUpdateStudent(request);
+                
+                // Course actions
+                case Constants.ACTION_GET_ALL_COURSES:
+                    return handleGetAllCourses(request);
+                case Constants.ACTION_GET_COURSES:
+                    return handleGetAllCourses(request); // Use same handler
+                case Constants.ACTION_GET_COURSES_PAGE:
+                    return handleGetCoursesPage(request);
+                case Constants.ACTION_GET_COURSES_WINDOW:
+                    return handleGetCoursesWindow(request);
+                case Constants.ACTION_GET_COURSE_INFO:
+                    return handleGetCourseInfo(request);
+                case Constants.ACTION_SEARCH_COURSES:
+                    return handleSearchCourses(request);
+                
+                // Enrollment actions
+                case Constants.ACTION_ENROLL_COURSE:
+                    return handleEnrollCourse(request);
+                case Constants.ACTION_DROP_COURSE:
+                    return handleDropCourse(request);
+                case Constants.ACTION_GET_ENROLLMENTS:
+                    return handleGetEnrollments(request);
+                case Constants.ACTION_GET_STUDENT_GRADES:
+                    return handleGetStudentGrades(request);
+                
+                // Department actions
+                case Constants.ACTION_GET_DEPARTMENTS:
+                    return handleGetDepartments(request);
+                
+                // Report actions
+                case Constants.ACTION_GET_DEPARTMENT_REPORT:
+                    return handleGetDepartmentReport(request);
+                case Constants.ACTION_GET_SEMESTER_REPORT:
+                    return handleGetSemesterReport(request);
+                
+                // System actions
+                case Constants.ACTION_FLUSH_COURSE_CACHE:
+                    return handleFlushCourseCache(request);
+                
+                // Publish/subscribe
+                case Constants.ACTION_SUBSCRIBE:
+                    return handleSubscribe(request);
+                case Constants.ACTION_UNSUBSCRIBE:
+                    return handleUnsubscribe(request);
+                
+                default:
+                    return Message.createErrorResponse(action, "Unknown action: " + action);
+            }
+            
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error processing action: " + action, e);
+            return Message.createErrorResponse(action, Constants.MSG_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Xử lý đăng nhập
+     */
+    private Message handleLogin(Message request) {
+        String username = request.getData(Constants.KEY_USERNAME, String.class);
+        String password = request.getData(Constants.KEY_PASSWORD, String.class);
+        
+        if (username == null || password == null) {
+            return Message.createErrorResponse(Constants.ACTION_LOGIN, Constants.MSG_INVALID_DATA);
+        }
+        
+        // Chặn trước mọi truy vấn DB; lần bị chặn không ghi login_history
+        if (!LoginThrottle.getInstance().tryAttempt(remoteAddress, username)) {
+            return Message.createErrorResponse(Constants.ACTION_LOGIN, Constants.MSG_TOO_MANY_LOGIN_ATTEMPTS);
+        }
+        
+        AuthenticationService.AuthResult result = authService.authenticate(username, password);
+        if (result.getStatus() == AuthenticationService.AuthResult.Status.BUSY) {
+            // Chưa kiểm tra được mật khẩu: không tính là đăng nhập thất bại
+            return Message.createErrorResponse(Constants.ACTION_LOGIN, Constants.MSG_SERVER_BUSY);
+        }
+        User user = result.getUser();
+        if (user != null) {
+            this.currentUser = user;
+            SessionStore.getInstance().invalidate(sessionToken);
+            sessionToken = SessionStore.getInstance().create(user);
+            
+            // Log login
+            authService.logLogin(user.getUserId(), remoteAddress, "Java Client", "success");
+            
+            Message response = Message.createSuccessResponse(Constants.ACTION_LOGIN, Constants.MSG_LOGIN_SUCCESS);
+            response.addData(Constants.KEY_USER, user);
+            response.addData(Constants.KEY_SESSION_TOKEN, sessionToken);
+            
+            LOGGER.info("User logged in successfully: " + username);
+            return response;
+        } else {
+            // Log failed login attempt
+            LoginThrottle.getInstance().recordFailure(remoteAddress, username);
+            authService.logFailedLogin(username, remoteAddress);
+            
+            return Message.createErrorResponse(Constants.ACTION_LOGIN, Constants.MSG_INVALID_CREDENTIALS);
+        }
+    }
+
+    /**
+     * Khôi phục phiên đăng nhập bằng token sau khi kết nối lại. Không truy vấn
+     * bảng users và không ghi login_history.
+     */
+    private Message handleResumeSession(Message request) {
+        String token = request.getData(Constants.KEY_SESSION_TOKEN, String.class);
+        User user = SessionStore.getInstance().resume(token);
+        if (user == null) {
+            return Message.createErrorResponse(Constants.ACTION_RESUME_SESSION, Constants.MSG_SESSION_EXPIRED);
+        }
+        
+        this.currentUser = user;
+        this.sessionToken = token;
+        
+        Message response = Message.createSuccessResponse(Constants.ACTION_RESUME_SESSION, Constants.MSG_LOGIN_SUCCESS);
+        response.addData(Constants.KEY_USER, user);
+        response.addData(Constants.KEY_SESSION_TOKEN, token);
+        
+        LOGGER.info("Session resumed: " + user.getUsername() + " from " + remoteAddress);
+        return response;
+    }
+
+    /**
+     * Xử lý đăng xuất
+     */
+    private Message handleLogout(Message request) {
+        if (currentUser != null) {
+            LOGGER.info("User logged out: " + currentUser.getUsername());
+            currentUser = null;
+        }
+        SessionStore.getInstance().invalidate(sessionToken);
+        sessionToken = null;
+        // Quyền đăng ký topic gắn với người dùng đã đăng xuất
+        if (outbox != null) {
+            outbox.unsubscribeAll();
+        }
+        return Message.createSuccessResponse(Constants.ACTION_LOGOUT, Constants.MSG_LOGOUT_SUCCESS);
+    }
+
+    /**
+     * Xử lý đổi mật khẩu
+     */
+    private Message handleChangePassword(Message request) {
+        String newPassword = request.getData(Constants.KEY_PASSWORD, String.class);
+        
+        if (newPassword == null || newPassword.trim().isEmpty()) {
+            return Message.createErrorResponse(Constants.ACTION_CHANGE_PASSWORD, Constants.MSG_INVALID_DATA);
+        }
+        
+        boolean success = authService.changePassword(currentUser.getUserId(), newPassword);
+        if (success) {
+            // Phiên ở các máy khác được tạo bằng mật khẩu cũ
+            SessionStore.getInstance().invalidateUser(currentUser.getUserId(), sessionToken);
+            return Message.createSuccessResponse(Constants.ACTION_CHANGE_PASSWORD, "Đổi mật khẩu thành công");
+        } else {
+            return Message.createErrorResponse(Constants.ACTION_CHANGE_PASSWORD, "Đổi mật khẩu thất bại");
+        }
+    }
+
+    /**
+     * Xử lý lấy thông tin sinh viên
+     */
+    private Message handleGetStudentInfo(Message request) {
+        Integer studentId = request.getData(Constants.KEY_STUDENT_ID, Integer.class);
+        
+        if (currentUser.getRole() == User.UserRole.STUDENT) {
+            // Sinh viên chỉ có thể xem thông tin của mình
+            var student = studentService.getStudentByUserId(currentUser.getUserId());
+            if (student != null) {
+                Message response = Message.createSuccessResponse(Constants.ACTION_GET_STUDENT_INFO, "Lấy thông tin thành công");
+                response.addData(Constants.KEY_STUDENT, student);
+                return response;
+            }
+        } else if (studentId != null && (currentUser.getRole() == User.UserRole.ADMIN || 
+                                      currentUser.getRole() == User.UserRole.TEACHER)) {
+            // Admin và giáo viên có thể xem thông tin sinh viên theo ID
+            var student = studentService.getStudentById(studentId);
+            if (student != null) {
+                Message response = Message.createSuccessResponse(Constants.ACTION_GET_STUDENT_INFO, "Lấy thông tin thành công");
+                response.addData(Constants.KEY_STUDENT, student);
+                return response;
+            }
+        }
+        
+        return Message.createErrorResponse(Constants.ACTION_GET_STUDENT_INFO, Constants.MSG_STUDENT_NOT_FOUND);
+    }
+
+    /**
+     * Lấy tất cả sinh viên
+     */
+    private Message handleGetAllStudents(Message request) {
+        if (!canRead(Constants.ACTION_GET_ALL_STUDENTS)) {
+            return Message.createErrorResponse(Constants.ACTION_GET_ALL_STUDENTS, Constants.MSG_UNAUTHORIZED);
+        }
+        
+        try {
+            var students = studentService.getAllStudents();
+            String responseAction = request.getAction();
+            Message response = Message.createSuccessResponse(responseAction, "Lấy danh sách thành công");
+            response.addData(Constants.KEY_STUDENTS, students);
+            return response;
+        } catch (Exception e) {
+            LOGGER.severe("Error getting all students: " + e.getMessage());
+            e.printStackTrace();
+            return Message.createErrorResponse(request.getAction(), "Lỗi server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Xử lý lấy một trang danh sách sinh viên
+     */
+    private Message handleGetStudentsPage(Message request) {
+        // Chỉ admin và giáo viên mới có quyền xem danh sách sinh viên
+        if (currentUser.getRole() != User.UserRole.ADMIN && currentUser.getRole() != User.UserRole.TEACHER) {
+            return Message.createErrorResponse(Constants.ACTION_GET_STUDENTS_PAGE, Constants.MSG_UNAUTHORIZED);
+        }
+        
+        String cursor = request.getData(Constants.KEY_CURSOR, String.class);
+        Integer pageSize = request.getData(Constants.KEY_PAGE_SIZE, Integer.class);
+        
+        Page<Student> page = studentService.getStudentsPage(cursor, pageSize != null ? pageSize : 0);
+        Message response = Message.createSuccessResponse(Constants.ACTION_GET_STUDENTS_PAGE, "Lấy danh sách thành công");
+        response.addData(Constants.KEY_STUDENTS, page.getItems());
+        response.addData(Constants.KEY_NEXT_CURSOR, page.getNextCursor());
+        response.addData(Constants.KEY_HAS_MORE, page.hasMore());
+        return response;
+    }
+
+    /**
+     * Xử lý lấy cửa sổ sinh viên theo offset cho bảng cuộn ảo. Trang đầu
+     * (offset = 0) kèm tổng số dòng để client biết kích thước bảng.
+     */
+    private Message handleGetStudentsWindow(Message request) {
+        if (!canRead(Constants.ACTION_GET_STUDENTS_WINDOW)) {
+            return Message.createErrorResponse(Constants.ACTION_GET_STUDENTS_WINDOW, Constants.MSG_UNAUTHORIZED);
+        }
+        
+        Integer offset = request.getData(Constants.KEY_OFFSET, Integer.class);
+        Integer pageSize = request.getData(Constants.KEY_PAGE_SIZE, Integer.class);
+        String sortField = request.getData(Constants.KEY_SORT_FIELD, String.class);
+        Boolean ascending = request.getData(Constants.KEY_SORT_ASCENDING, Boolean.class);
+        Student.StudentStatus status;
+        try {
+            status = parseStatusFilter(request, Student.StudentStatus.class);
+        } catch (IllegalArgumentException e) {
+            return Message.createErrorResponse(Constants.ACTION_GET_STUDENTS_WINDOW, Constants.MSG_INVALID_DATA);
+        }
+        
+        int start = offset != null ? offset : 0;
+        List<Student> students = studentService.getStudentsWindow(start, pageSize != null ? pageSize : 0,
+                                                                  sortField, !Boolean.FALSE.equals(ascending), status);
+        Message response = Message.createSuccessResponse(Constants.ACTION_GET_STUDENTS_WINDOW, "Lấy danh sách thành công");
+        response.addData(Constants.KEY_STUDENTS, students);
+        if (start == 0) {
+            response.addData(Constants.KEY_TOTAL_COUNT, studentService.countStudents(status));
+        }
+        return response;
+    }
+
+    /**
+     * Đọc KEY_STATUS_FILTER (tên enum, null = không lọc)
+     */
+    private static <E extends Enum<E>> E parseStatusFilter(Message request, Class<E> type) {
+        String value = request.getData(Constants.KEY_STATUS_FILTER, String.class);
+        return value != null ? Enum.valueOf(type, value) : null;
+    }
+
+    /**
+     * Xử lý xuất toàn bộ sinh viên: gửi từng khối RESPONSE_CHUNK trong lúc đọc
+     * ResultSet, cuối cùng trả về RESPONSE chứa tổng số dòng.
+     */
+    private Message handleExportStudents(Message request, ChunkSink chunkSink) {
+        // Chỉ admin và giáo viên mới có quyền xem danh sách sinh viên
+        if (currentUser.getRole() != User.UserRole.ADMIN && currentUser.getRole() != User.UserRole.TEACHER) {
+            return Message.createErrorResponse(Constants.ACTION_EXPORT_STUDENTS, Constants.MSG_UNAUTHORIZED);
+        }
+        
+        Integer chunkSize = request.getData(Constants.KEY_CHUNK_SIZE, Integer.class);
+        
+        try {
+            int total = studentService.exportStudents(chunkSize != null ? chunkSize : Constants.DEFAULT_CHUNK_SIZE,
+                chunk -> {
+                    Message message = Message.createChunk(Constants.ACTION_EXPORT_STUDENTS);
+                    message.setRequestId(request.getRequestId());
+                    message.addData(Constants.KEY_STUDENTS, chunk);
+                    return chunkSink.send(message);
+                });
+            if (total < 0) {
+                return Message.createErrorResponse(Constants.ACTION_EXPORT_STUDENTS, Constants.MSG_SERVER_BUSY);
+            }
+            
+            Message response = Message.createSuccessResponse(Constants.ACTION_EXPORT_STUDENTS, "Xuất danh sách thành công");
+            response.addData(Constants.KEY_TOTAL_COUNT, total);
+            return response;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error exporting students", e);
+            return Message.createErrorResponse(Constants.ACTION_EXPORT_STUDENTS, Constants.MSG_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Xử lý tìm kiếm sinh viên
+     */
+    private Message handleSearchStudents(Message request) {
+        // Chỉ admin và giáo viên mới có quyền tìm kiếm sinh viên
+        if (currentUser.getRole() != User.UserRole.ADMIN && currentUser.getRole() != User.UserRole.TEACHER) {
+            return Message.createErrorResponse(Constants.ACTION_SEARCH_STUDENTS, Constants.MSG_UNAUTHORIZED);
+        }
+        
+        String keyword = request.getData(Constants.KEY_SEARCH_KEYWORD, String.class);
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return Message.createErrorResponse(Constants.ACTION_SEARCH_STUDENTS, Constants.MSG_INVALID_DATA);
+        }
+        
+        var students = studentService.searchStudents(keyword);
+        Message response = Message.createSuccessResponse(Constants.ACTION_SEARCH_STUDENTS, "Tìm kiếm thành công");
+        response.addData(Constants.KEY_STUDENTS, students);
+        return response;
+    }
+
+    /**
+     * Xử lý thêm sinh viên mới
+     */
+    private Message handleAddStudent(Message request) {
+        // Chỉ admin mới có quyền thêm sinh viên
+        if (currentUser.getRole() != User.UserRole.ADMIN) {
+            return Message.createErrorResponse(Constants.ACTION_ADD_STUDENT, Constants.MSG_UNAUTHORIZED);
+        }
+        
+        // Implementation sẽ được thêm sau
+        return Message.createErrorResponse(Constants.ACTION_ADD_STUDENT, "Chức năng đang phát triển");
+    }
+
+    /**
+     * Xử lý cập nhật thông tin sinh viên
+     */
+    private Message handleUpdateStudent(Message request) {
+        // Implementation sẽ được thêm sau
+        return Message.createErrorResponse(Constants.ACTION_UPDATE_STUDENT, "Chức năng đang phát triển");
+    }
+
+    /**
+     * Lấy tất cả khóa học
+     */
+    private Message handleGetAllCourses(Message request) {
+        try {
+            LOGGER.info("Getting all courses...");
+            var courses = courseService.getAllCourses();
+            LOGGER.info("Found " + courses.size() + " courses");
+            // Use the same action as request for proper response matching
+            String responseAction = request.getAction(); 
+            Message response = Message.createSuccessResponse(responseAction, "Lấy danh sách khóa học thành công");
+            response.addData(Constants.KEY_COURSES, courses);
+            return response;
+        } catch (Exception e) {
+            LOGGER.severe("Error getting all courses: " + e.getMessage());
+            e.printStackTrace();
+            return Message.createErrorResponse(request.getAction(), "Lỗi server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Xử lý lấy một trang danh sách khóa học
+     */
+    private Message handleGetCoursesPage(Message request) {
+        String cursor = request.getData(Constants.KEY_CURSOR, String.class);
+        Integer pageSize = request.getData(Constants.KEY_PAGE_SIZE, Integer.class);
+        
+        Page<Course> page = courseService.getCoursesPage(cursor, pageSize != null ? pageSize : 0);
+        Message response = Message.createSuccessResponse(Constants.ACTION_GET_COURSES_PAGE, "Lấy danh sách khóa học thành công");
+        response.addData(Constants.KEY_COURSES, page.getItems());
+        response.addData(Constants.KEY_NEXT_CURSOR, page.getNextCursor());
+        response.addData(Constants.KEY_HAS_MORE, page.hasMore());
+        return response;
+    }
+
+    /**
+     * Xử lý lấy cửa sổ khóa học theo offset cho bảng cuộn ảo (xem handleGetStudentsWindow)
+     */
+    private Message handleGetCoursesWindow(Message request) {
+        Integer offset = request.getData(Constants.KEY_OFFSET, Integer.class);
+        Integer pageSize = request.getData(Constants.KEY_PAGE_SIZE, Integer.class);
+        String sortField = request.getData(Constants.KEY_SORT_FIELD, String.class);
+        Boolean ascending = request.getData(Constants.KEY_SORT_ASCENDING, Boolean.class);
+        Course.CourseStatus status;
+        try {
+            status = parseStatusFilter(request, Course.CourseStatus.class);
+        } catch (IllegalArgumentException e) {
+            return Message.createErrorResponse(Constants.ACTION_GET_COURSES_WINDOW, Constants.MSG_INVALID_DATA);
+        }
+        
+        int start = offset != null ? offset : 0;
+        List<Course> courses = courseService.getCoursesWindow(start, pageSize != null ? pageSize : 0,
+                                                              sortField, !Boolean.FALSE.equals(ascending), status);
+        Message response = Message.createSuccessResponse(Constants.ACTION_GET_COURSES_WINDOW, "Lấy danh sách khóa học thành công");
+        response.addData(Constants.KEY_COURSES, courses);
+        if (start == 0) {
+            response.addData(Constants.KEY_TOTAL_COUNT, courseService.countCourses(status));
+        }
+        return response;
+    }
+
+    /**
+     * Xử lý tìm kiếm khóa học (xếp theo độ liên quan, phân trang)
+     */
+    private Message handleSearchCourses(Message request) {
+        String keyword = request.getData(Constants.KEY_SEARCH_KEYWORD, String.class);
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return Message.createErrorResponse(Constants.ACTION_SEARCH_COURSES, Constants.MSG_INVALID_DATA);
+        }
+        String cursor = request.getData(Constants.KEY_CURSOR, String.class);
+        Integer pageSize = request.getData(Constants.KEY_PAGE_SIZE, Integer.class);
+        
+        Page<Course> page = courseService.searchCoursesPage(keyword, cursor, pageSize != null ? pageSize : 0);
+        Message response = Message.createSuccessResponse(Constants.ACTION_SEARCH_COURSES, "Tìm kiếm thành công");
+        response.addData(Constants.KEY_COURSES, page.getItems());
+        response.addData(Constants.KEY_NEXT_CURSOR, page.getNextCursor());
+        response.addData(Constants.KEY_HAS_MORE, page.hasMore());
+        return response;
+    }
+
+    /**
+     * Xử lý lấy danh sách khoa
+     */
+    private Message handleGetDepartments(Message request) {
+        if (currentUser.getRole() != User.UserRole.ADMIN && currentUser.getRole() != User.UserRole.TEACHER) {
+            return Message.createErrorResponse(Constants.ACTION_GET_DEPARTMENTS, Constants.MSG_UNAUTHORIZED);
+        }
+        
+        Message response = Message.createSuccessResponse(Constants.ACTION_GET_DEPARTMENTS, "Lấy danh sách khoa thành công");
+        response.addData(Constants.KEY_DEPARTMENTS, new DepartmentService().getAllDepartments());
+        return response;
+    }
+
+    /**
+     * Xử lý thống kê sinh viên theo khoa (đọc từ snapshot trong bộ nhớ)
+     */
+    private Message handleGetDepartmentReport(Message request) {
+        if (currentUser.getRole() != User.UserRole.ADMIN && currentUser.getRole() != User.UserRole.TEACHER) {
+            return Message.createErrorResponse(Constants.ACTION_GET_DEPARTMENT_REPORT, Constants.MSG_UNAUTHORIZED);
+        }
+        
+        Integer departmentId = request.getData(Constants.KEY_DEPARTMENT_ID, Integer.class);
+        if (departmentId == null) {
+            return Message.createErrorResponse(Constants.ACTION_GET_DEPARTMENT_REPORT, Constants.MSG_INVALID_DATA);
+        }
+        
+        StudentService.StudentStatistics stats = StatisticsService.getInstance().getStudentStatistics(departmentId);
+        if (stats == null) {
+            return Message.createErrorResponse(Constants.ACTION_GET_DEPARTMENT_REPORT, Constants.MSG_SERVER_ERROR);
+        }
+        Map<String, Integer> values = new LinkedHashMap<>();
+        values.put("totalStudents", stats.getTotalStudents());
+        values.put("activeStudents", stats.getActiveStudents());
+        values.put("graduatedStudents", stats.getGraduatedStudents());
+        values.put("suspendedStudents", stats.getSuspendedStudents());
+        values.put("droppedStudents", stats.getDroppedStudents());
+        
+        Message response = Message.createSuccessResponse(Constants.ACTION_GET_DEPARTMENT_REPORT, "Lấy thống kê thành công");
+        response.addData(Constants.KEY_STATISTICS, values);
+        return response;
+    }
+
+    /**
+     * Xử lý thống kê khóa học theo năm học và học kỳ (đọc từ snapshot trong bộ nhớ)
+     */
+    private Message handleGetSemesterReport(Message request) {
+        if (currentUser.getRole() != User.UserRole.ADMIN && currentUser.getRole() != User.UserRole.TEACHER) {
+            return Message.createErrorResponse(Constants.ACTION_GET_SEMESTER_REPORT, Constants.MSG_UNAUTHORIZED);
+        }
+        
+        String academicYear = request.getData(Constants.KEY_ACADEMIC_YEAR, String.class);
+        Integer semester = request.getData(Constants.KEY_SEMESTER, Integer.class);
+        if (academicYear == null || semester == null) {
+            return Message.createErrorResponse(Constants.ACTION_GET_SEMESTER_REPORT, Constants.MSG_INVALID_DATA);
+        }
+        
+        CourseService.CourseStatistics stats = StatisticsService.getInstance().getCourseStatistics(academicYear, semester);
+        if (stats == null) {
+            return Message.createErrorResponse(Constants.ACTION_GET_SEMESTER_REPORT, Constants.MSG_SERVER_ERROR);
+        }
+        Map<String, Integer> values = new LinkedHashMap<>();
+        values.put("totalCourses", stats.getTotalCourses());
+        values.put("planningCourses", stats.getPlanningCourses());
+        values.put("ongoingCourses", stats.getOngoingCourses());
+        values.put("completedCourses", stats.getCompletedCourses());
+        values.put("cancelledCourses", stats.getCancelledCourses());
+        values.put("totalEnrollments", stats.getTotalEnrollments());
+        
+        Message response = Message.createSuccessResponse(Constants.ACTION_GET_SEMESTER_REPORT, "Lấy thống kê thành công");
+        response.addData(Constants.KEY_STATISTICS, values);
+        return response;
+    }
+
+    /**
+     * Xử lý xóa cache danh mục khóa học (chỉ admin)
+     */
+    private Message handleFlushCourseCache(Message request) {
+        if (currentUser.getRole() != User.UserRole.ADMIN) {
+            return Message.createErrorResponse(Constants.ACTION_FLUSH_COURSE_CACHE, Constants.MSG_UNAUTHORIZED);
+        }
+        
+        CourseService.flushCache();
+        LOGGER.info("Course cache flushed by " + currentUser.getUsername());
+        return Message.createSuccessResponse(Constants.ACTION_FLUSH_COURSE_CACHE, "Đã xóa cache khóa học");
+    }
+
+    /**
+     * Xử lý đăng ký nhận thay đổi của một topic
+     */
+    private Message handleSubscribe(Message request) {
+        String topic = request.getData(Constants.KEY_TOPIC, String.class);
+        if (outbox == null || topic == null || !isKnownTopic(topic)) {
+            return Message.createErrorResponse(Constants.ACTION_SUBSCRIBE, Constants.MSG_INVALID_DATA);
+        }
+        if (!canSubscribe(topic)) {
+            return Message.createErrorResponse(Constants.ACTION_SUBSCRIBE, Constants.MSG_UNAUTHORIZED);
+        }
+        if (!outbox.subscribe(topic)) {
+            return Message.createErrorResponse(Constants.ACTION_SUBSCRIBE, Constants.MSG_TOO_MANY_SUBSCRIPTIONS);
+        }
+        
+        Message response = Message.createSuccessResponse(Constants.ACTION_SUBSCRIBE, "Đăng ký topic thành công");
+        response.addData(Constants.KEY_TOPIC, topic);
+        return response;
+    }
+
+    /**
+     * Xử lý hủy đăng ký topic
+     */
+    private Message handleUnsubscribe(Message request) {
+        String topic = request.getData(Constants.KEY_TOPIC, String.class);
+        if (outbox == null || topic == null) {
+            return Message.createErrorResponse(Constants.ACTION_UNSUBSCRIBE, Constants.MSG_INVALID_DATA);
+        }
+        
+        outbox.unsubscribe(topic);
+        Message response = Message.createSuccessResponse(Constants.ACTION_UNSUBSCRIBE, "Hủy đăng ký topic thành công");
+        response.addData(Constants.KEY_TOPIC, topic);
+        return response;
+    }
+
+    /**
+     * Topic có dạng "<loại>" hoặc "<loại>:<id>" với loại được hỗ trợ
+     */
+    private static boolean isKnownTopic(String topic) {
+        String type = NotificationHub.topicType(topic);
+        if (!type.equals(Constants.TOPIC_COURSE_SEATS) && !type.equals(Constants.TOPIC_DEPARTMENT_STUDENTS)
+                && !type.equals(Constants.TOPIC_STUDENT_GRADES)) {
+            return false;
+        }
+        return type.equals(topic) || topicId(topic) != null;
+    }
+
+    private static Integer topicId(String topic) {
+        try {
+            return Integer.valueOf(topic.substring(topic.indexOf(Constants.TOPIC_SEPARATOR) + 1));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Mọi người dùng xem được số chỗ khóa học; sinh viên của khoa chỉ dành cho
+     * admin và giáo viên; sinh viên chỉ theo dõi được điểm của chính mình
+     */
+    private boolean canSubscribe(String topic) {
+        String type = NotificationHub.topicType(topic);
+        if (type.equals(Constants.TOPIC_COURSE_SEATS)) {
+            return true;
+        }
+        if (currentUser.getRole() == User.UserRole.ADMIN || currentUser.getRole() == User.UserRole.TEACHER) {
+            return true;
+        }
+        if (type.equals(Constants.TOPIC_STUDENT_GRADES) && !type.equals(topic)) {
+            var student = studentService.getStudentByUserId(currentUser.getUserId());
+            return student != null && topicId(topic) == student.getStudentId();
+        }
+        return false;
+    }
+
+    // Removed handleGetCourses - using handleGetAllCourses for both actions
+
+    /**
+     * Xử lý lấy thông tin khóa học
+     */
+    private Message handleGetCourseInfo(Message request) {
+        Integer courseId = request.getData(Constants.KEY_COURSE_ID, Integer.class);
+        if (courseId == null) {
+            return Message.createErrorResponse(Constants.ACTION_GET_COURSE_INFO, Constants.MSG_INVALID_DATA);
+        }
+        
+        var course = courseService.getCourseById(courseId);
+        if (course != null) {
+            Message response = Message.createSuccessResponse(Constants.ACTION_GET_COURSE_INFO, "Lấy thông tin khóa học thành công");
+            response.addData(Constants.KEY_COURSE, course);
+            return response;
+        }
+        
+        return Message.createErrorResponse(Constants.ACTION_GET_COURSE_INFO, Constants.MSG_COURSE_NOT_FOUND);
+    }
+
+    /**
+     * Xử lý đăng ký học phần. Sinh viên đăng ký cho chính mình, admin đăng ký
+     * hộ theo studentId.
+     */
+    private Message handleEnrollCourse(Message request) {
+        Integer courseId = request.getData(Constants.KEY_COURSE_ID, Integer.class);
+        Integer studentId = resolveEnrollmentStudentId(request);
+        if (courseId == null || studentId == null) {
+            return Message.createErrorResponse(Constants.ACTION_ENROLL_COURSE, Constants.MSG_INVALID_DATA);
+        }
+        
+        EnrollmentDAO.EnrollResult result = enrollmentService.enroll(studentId, courseId);
+        return toEnrollmentResponse(Constants.ACTION_ENROLL_COURSE, result);
+    }
+
+    /**
+     * Xử lý hủy đăng ký học phần
+     */
+    private Message handleDropCourse(Message request) {
+        Integer courseId = request.getData(Constants.KEY_COURSE_ID, Integer.class);
+        Integer studentId = resolveEnrollmentStudentId(request);
+        if (courseId == null || studentId == null) {
+            return Message.createErrorResponse(Constants.ACTION_DROP_COURSE, Constants.MSG_INVALID_DATA);
+        }
+        
+        EnrollmentDAO.EnrollResult result = enrollmentService.drop(studentId, courseId);
+        return toEnrollmentResponse(Constants.ACTION_DROP_COURSE, result);
+    }
+
+    /**
+     * Sinh viên thao tác cho chính mình; admin theo studentId trong yêu cầu
+     */
+    private Integer resolveEnrollmentStudentId(Message request) {
+        if (currentUser.getRole() == User.UserRole.STUDENT) {
+            var student = studentService.getStudentByUserId(currentUser.getUserId());
+            return student != null ? student.getStudentId() : null;
+        }
+        if (currentUser.getRole() == User.UserRole.ADMIN) {
+            return request.getData(Constants.KEY_STUDENT_ID, Integer.class);
+        }
+        return null;
+    }
+
+    private static Message toEnrollmentResponse(String action, EnrollmentDAO.EnrollResult result) {
+        switch (result) {
+            case ENROLLED:
+                return Message.createSuccessResponse(action, "Đăng ký học phần thành công");
+            case DROPPED:
+                return Message.createSuccessResponse(action, "Hủy đăng ký học phần thành công");
+            case COURSE_FULL:
+                return Message.createErrorResponse(action, Constants.MSG_COURSE_FULL);
+            case ALREADY_ENROLLED:
+                return Message.createErrorResponse(action, Constants.MSG_ALREADY_ENROLLED);
+            case NOT_ENROLLED:
+                return Message.createErrorResponse(action, Constants.MSG_NOT_ENROLLED);
+            case INVALID_DATA:
+                return Message.createErrorResponse(action, Constants.MSG_INVALID_DATA);
+            case BUSY:
+                return Message.createErrorResponse(action, Constants.MSG_SERVER_BUSY);
+            default:
+                return Message.createErrorResponse(action, Constants.MSG_DATABASE_ERROR);
+        }
+    }
+
+    /**
+     * Xử lý lấy danh sách đăng ký
+     */
+    private Message handleGetEnrollments(Message request) {
+        // Implementation sẽ được thêm sau
+        return Message.createErrorResponse(Constants.ACTION_GET_ENROLLMENTS, "Chức năng đang phát triển");
+    }
+
+    /**
+     * Xử lý lấy điểm sinh viên
+     */
+    private Message handleGetStudentGrades(Message request) {
+        // Implementation sẽ được thêm sau
+        return Message.createErrorResponse(Constants.ACTION_GET_STUDENT_GRADES, "Chức năng đang phát triển");
+    }
+
+    /**
+     * Kiểm tra xem action có cần xác thực không
+     */
+    private boolean isPublicAction(String action) {
+        return Constants.ACTION_LOGIN.equals(action) || Constants.ACTION_RESUME_SESSION.equals(action);
+    }
+
+    /**
+     * Kiểm tra xem người dùng đã đăng nhập chưa
+     */
+    private boolean isAuthenticated() {
+        return currentUser != null;
+    }
+
+    // Getters
+    public User getCurrentUser() {
+        return currentUser;
+    }
+
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+}
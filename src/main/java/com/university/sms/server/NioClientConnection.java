@@ -0,0 +1,337 @@
+package com.university.sms.server;
+
+import com.university.sms.common.Message;
+import com.university.sms.common.MessageCodec;
+import com.university.sms.common.WireProtocol;
+import com.university.sms.model.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Kết nối của một client ở chế độ NIO.
+ *
+ * Đọc/ghi socket chạy trên NioEventLoop; yêu cầu được xử lý trên worker pool
+ * qua RequestPipeline.
+ */
+public class NioClientConnection implements ClientConnection {
+    private static final Logger LOGGER = Logger.getLogger(NioClientConnection.class.getName());
+    
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    // Phản hồi dạng stream chờ khi số byte chưa ghi ra socket vượt ngưỡng này
+    private static final long MAX_PENDING_WRITE_BYTES = 1024 * 1024;
+    private static final long WRITABLE_WAIT_MILLIS = 100;
+    
+    private final SocketChannel channel;
+    private final NioEventLoop eventLoop;
+    private final Consumer<NioClientConnection> closeListener;
+    private final ClientSession session;
+    private final RequestPipeline pipeline;
+    private final AdmissionController admission;
+    // false: kết nối vượt giới hạn phiên, chỉ trả lời "server bận" rồi đóng
+    private final boolean admitted;
+    
+    // Chỉ truy cập trên thread của event loop
+    private SelectionKey key;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private boolean handshakeDone;
+    private boolean rejectionSent;
+    // Đóng kết nối khi write queue đã ghi hết (kết nối bị từ chối)
+    private volatile boolean closeAfterFlush;
+    
+    // Codec đã thỏa thuận, gán một lần lúc handshake
+    private volatile MessageCodec codec = WireProtocol.JAVA_CODEC;
+    
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong pendingWriteBytes = new AtomicLong();
+    
+    // Thread xử lý chờ write queue vơi bớt (xem sendChunk)
+    private final ReentrantLock writableLock = new ReentrantLock();
+    private final Condition writable = writableLock.newCondition();
+    private final AtomicInteger writableWaiters = new AtomicInteger();
+
+    public NioClientConnection(SocketChannel channel, NioEventLoop eventLoop, ExecutorService workerPool,
+                               AdmissionController admission, boolean admitted,
+                               Consumer<NioClientConnection> closeListener) throws IOException {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.admission = admission;
+        this.admitted = admitted;
+        this.closeListener = closeListener;
+        this.session = new ClientSession(channel.getRemoteAddress().toString());
+        this.pipeline = new RequestPipeline(session, workerPool, admission, this::send, this::sendChunk);
+    }
+
+    boolean isAdmitted() {
+        return admitted;
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    void attachKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Đọc dữ liệu và tách frame (thread event loop)
+     */
+    void handleRead() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read == -1) {
+            LOGGER.info("Client connection ended: " + getRemoteAddress());
+            disconnect();
+            return;
+        }
+        
+        int needed = 0;
+        readBuffer.flip();
+        try {
+            if (!handshakeDone) {
+                if (readBuffer.remaining() < WireProtocol.HANDSHAKE_LENGTH) {
+                    return;
+                }
+                int start = readBuffer.position();
+                int magic = readBuffer.getInt(start);
+                int version = readBuffer.get(start + 4) & 0xFF;
+                if (magic != WireProtocol.MAGIC || version != WireProtocol.VERSION) {
+                    LOGGER.warning("Unsupported client protocol from " + getRemoteAddress());
+                    disconnect();
+                    return;
+                }
+                int codecCount = readBuffer.get(start + 5) & 0xFF;
+                if (readBuffer.remaining() < WireProtocol.HANDSHAKE_LENGTH + codecCount) {
+                    return;
+                }
+                
+                readBuffer.position(start + WireProtocol.HANDSHAKE_LENGTH);
+                byte[] offered = new byte[codecCount];
+                readBuffer.get(offered);
+                codec = WireProtocol.selectCodec(offered);
+                
+                handshakeDone = true;
+                enqueueWrite(ByteBuffer.wrap(WireProtocol.handshakeReplyBytes(codec)));
+                // Chỉ nhận notification khi đã chốt codec
+                if (admitted) {
+                    session.attachNotifications(this::sendChunk);
+                }
+                LOGGER.info("Client connected: " + getRemoteAddress() + " (codec: " + codec.getName() + ")");
+            }
+            
+            while (readBuffer.remaining() >= WireProtocol.FRAME_HEADER_LENGTH) {
+                int length = readBuffer.getInt(readBuffer.position());
+                WireProtocol.checkFrameLength(length);
+                
+                if (readBuffer.remaining() < WireProtocol.FRAME_HEADER_LENGTH + length) {
+                    needed = WireProtocol.FRAME_HEADER_LENGTH + length;
+                    break;
+                }
+                
+                readBuffer.getInt();
+                byte[] payload = new byte[length];
+                readBuffer.get(payload);
+                onFrame(payload);
+            }
+        } finally {
+            readBuffer.compact();
+        }
+        
+        if (needed > readBuffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(needed, readBuffer.capacity() * 2));
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        }
+    }
+
+    /**
+     * Ghi dữ liệu đang chờ ra socket (thread event loop)
+     */
+    void handleWrite() throws IOException {
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        
+        ByteBuffer buffer;
+        while ((buffer = writeQueue.peek()) != null) {
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                // Socket buffer đầy, chờ OP_WRITE
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+            writeQueue.poll();
+            if (pendingWriteBytes.addAndGet(-buffer.limit()) <= MAX_PENDING_WRITE_BYTES) {
+                signalWritable();
+            }
+        }
+        if (closeAfterFlush) {
+            disconnect();
+            return;
+        }
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+    }
+
+    private void signalWritable() {
+        if (writableWaiters.get() == 0) {
+            return;
+        }
+        writableLock.lock();
+        try {
+            writable.signalAll();
+        } finally {
+            writableLock.unlock();
+        }
+    }
+
+    /**
+     * Giải mã frame và chuyển cho pipeline. Yêu cầu thường rất nhỏ nên được
+     * giải mã ngay trên event loop; phần xử lý chạy trên worker pool.
+     */
+    private void onFrame(byte[] payload) {
+        Message request;
+        try {
+            request = codec.decode(payload);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // ClassCastException: JavaMessageCodec nhận một object không phải Message
+            LOGGER.log(Level.SEVERE, "Error decoding client request", e);
+            send(Message.createErrorResponse("ERROR", "Server error occurred"));
+            return;
+        }
+        
+        if (!admitted) {
+            if (!rejectionSent) {
+                rejectionSent = true;
+                closeAfterFlush = true;
+                send(admission.busyResponse(request));
+            }
+            return;
+        }
+        
+        User currentUser = session.getCurrentUser();
+        LOGGER.info("Received request: " + request.getAction() + " from " +
+                   (currentUser != null ? currentUser.getUsername() : "anonymous"));
+        pipeline.submit(request);
+    }
+
+    /**
+     * Gửi message cho client (gọi được từ bất kỳ thread nào)
+     */
+    public void send(Message message) {
+        if (closed.get()) {
+            return;
+        }
+        try {
+            byte[] payload = codec.encode(message);
+            ByteBuffer buffer = ByteBuffer.allocate(WireProtocol.FRAME_HEADER_LENGTH + payload.length);
+            buffer.putInt(payload.length).put(payload).flip();
+            bytesSent.addAndGet(buffer.remaining());
+            enqueueWrite(buffer);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error encoding response to client", e);
+        }
+    }
+
+    /**
+     * Gửi một khối của phản hồi dạng stream hoặc một notification (thread
+     * worker/thread gửi notification). Chờ tới khi write queue vơi xuống dưới
+     * ngưỡng để client đọc chậm không làm server giữ cả kết quả trong bộ nhớ.
+     * Trả về false nếu kết nối đã đóng.
+     */
+    private boolean sendChunk(Message chunk) {
+        writableWaiters.incrementAndGet();
+        writableLock.lock();
+        try {
+            while (pendingWriteBytes.get() > MAX_PENDING_WRITE_BYTES && !closed.get()) {
+                writable.await(WRITABLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            writableLock.unlock();
+            writableWaiters.decrementAndGet();
+        }
+        
+        send(chunk);
+        return !closed.get();
+    }
+
+    private void enqueueWrite(ByteBuffer buffer) {
+        pendingWriteBytes.addAndGet(buffer.remaining());
+        writeQueue.add(buffer);
+        if (flushScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(() -> {
+                flushScheduled.set(false);
+                try {
+                    handleWrite();
+                } catch (IOException e) {
+                    disconnect();
+                }
+            });
+        }
+    }
+
+    /**
+     * Ngắt kết nối client
+     */
+    @Override
+    public void disconnect() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error closing client connection", e);
+        }
+        writeQueue.clear();
+        signalWritable();
+        session.close();
+        
+        User currentUser = session.getCurrentUser();
+        if (currentUser != null) {
+            LOGGER.info("Client disconnected: " + currentUser.getUsername());
+        }
+        closeListener.accept(this);
+    }
+
+    @Override
+    public User getCurrentUser() {
+        return session.getCurrentUser();
+    }
+
+    @Override
+    public String getRemoteAddress() {
+        return session.getRemoteAddress();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !closed.get() && channel.isOpen();
+    }
+}
@@ -0,0 +1,150 @@
+package com.university.sms.server;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Một vòng lặp sự kiện NIO: một thread và một Selector quản lý nhiều socket.
+ * Mọi thao tác trên SelectionKey đều được thực hiện trên thread của vòng lặp.
+ */
+public class NioEventLoop implements Runnable {
+    private static final Logger LOGGER = Logger.getLogger(NioEventLoop.class.getName());
+    
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running;
+
+    public NioEventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Chạy task trên thread của vòng lặp
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Đăng ký kết nối mới vào selector của vòng lặp
+     */
+    public void register(NioClientConnection connection) {
+        execute(() -> {
+            try {
+                SelectionKey key = connection.getChannel().register(selector, SelectionKey.OP_READ, connection);
+                connection.attachKey(key);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error registering client channel", e);
+                connection.disconnect();
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                // Còn task đang chờ thì không được block trong select()
+                if (tasks.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.selectNow();
+                }
+                
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    processKey(key);
+                }
+                
+                runTasks();
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Event loop select failed", e);
+            } catch (RuntimeException e) {
+                // Lỗi ngoài dự kiến không được làm chết thread: mọi socket của
+                // selector sẽ treo. Vòng lặp chỉ dừng khi shutdown()
+                LOGGER.log(Level.SEVERE, "Unexpected error in event loop", e);
+            }
+        }
+        
+        closeAll();
+    }
+
+    private void processKey(SelectionKey key) {
+        NioClientConnection connection = (NioClientConnection) key.attachment();
+        try {
+            if (key.isValid() && key.isReadable()) {
+                connection.handleRead();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.handleWrite();
+            }
+        } catch (IOException | CancelledKeyException e) {
+            connection.disconnect();
+        } catch (RuntimeException | StackOverflowError e) {
+            // Frame độc hại hoặc lỗi xử lý của một kết nối: chỉ đóng kết nối đó
+            LOGGER.log(Level.WARNING, "Error handling client connection, disconnecting", e);
+            connection.disconnect();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Error running event loop task", e);
+            }
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioClientConnection) {
+                ((NioClientConnection) key.attachment()).disconnect();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error closing selector", e);
+        }
+    }
+
+    /**
+     * Dừng vòng lặp và đóng toàn bộ kết nối của nó
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getConnectionCount() {
+        return Math.max(0, selector.keys().size());
+    }
+}
@@ -0,0 +1,202 @@
+package com.university.sms.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Server NIO: một thread accept, vài event loop giữ toàn bộ socket và một
+ * worker pool có giới hạn để xử lý yêu cầu. Số kết nối chỉ bị giới hạn bởi
+ * file descriptor, không phải số thread.
+ */
+public class NioServer {
+    private static final Logger LOGGER = Logger.getLogger(NioServer.class.getName());
+    
+    private static final int ACCEPT_BACKLOG = 1024;
+    
+    /**
+     * Nhận thông báo khi kết nối được mở/đóng
+     */
+    public interface ConnectionListener {
+        void onConnected(NioClientConnection connection);
+        void onDisconnected(NioClientConnection connection);
+    }
+    
+    private final int port;
+    private final NioEventLoop[] eventLoops;
+    private final ThreadPoolExecutor workerPool;
+    private final ConnectionListener listener;
+    private final AdmissionController admission;
+    
+    private ServerSocketChannel serverChannel;
+    private Selector acceptSelector;
+    private volatile boolean running;
+    private int nextLoop;
+
+    public NioServer(int port, int ioThreads, int workerThreads, int workerQueueCapacity,
+                     AdmissionController admission, ConnectionListener listener) throws IOException {
+        this.port = port;
+        this.admission = admission;
+        this.listener = listener;
+        
+        this.eventLoops = new NioEventLoop[Math.max(1, ioThreads)];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new NioEventLoop("NioEventLoop-" + i);
+        }
+        
+        AtomicInteger workerIndex = new AtomicInteger();
+        this.workerPool = new PriorityWorkerPool(workerThreads, workerQueueCapacity, r -> {
+            Thread thread = new Thread(r, "NioWorker-" + workerIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Mở cổng và chạy vòng lặp accept trên thread hiện tại cho đến khi stop()
+     */
+    public void run() throws IOException {
+        acceptSelector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+        
+        for (NioEventLoop loop : eventLoops) {
+            loop.start();
+        }
+        running = true;
+        
+        LOGGER.info("NIO transport started with " + eventLoops.length + " event loops and " +
+                   workerPool.getMaximumPoolSize() + " workers");
+        
+        while (running) {
+            acceptSelector.select();
+            if (!running) {
+                break;
+            }
+            
+            Iterator<SelectionKey> keys = acceptSelector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid() && key.isAcceptable()) {
+                    acceptPending();
+                }
+            }
+        }
+    }
+
+    private void acceptPending() {
+        while (running) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException e) {
+                // Ví dụ: hết file descriptor. Bỏ qua lượt này, thử lại ở lần select sau
+                LOGGER.log(Level.SEVERE, "Error accepting client connection", e);
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            
+            // Vượt giới hạn phiên: kết nối chỉ nhận phản hồi "server bận" rồi bị đóng
+            boolean admitted = admission.tryAcquireSession();
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                
+                NioEventLoop loop = eventLoops[nextLoop];
+                nextLoop = (nextLoop + 1) % eventLoops.length;
+                
+                NioClientConnection connection = new NioClientConnection(channel, loop, workerPool, admission,
+                    admitted, this::onClosed);
+                if (admitted) {
+                    listener.onConnected(connection);
+                }
+                loop.register(connection);
+            } catch (IOException e) {
+                if (admitted) {
+                    admission.releaseSession();
+                }
+                LOGGER.log(Level.WARNING, "Error setting up client connection", e);
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Already failing
+                }
+            }
+        }
+    }
+
+    private void onClosed(NioClientConnection connection) {
+        if (connection.isAdmitted()) {
+            admission.releaseSession();
+            listener.onDisconnected(connection);
+        }
+    }
+
+    /**
+     * Dừng server NIO
+     */
+    public void stop() {
+        if (!running && serverChannel == null) {
+            return;
+        }
+        running = false;
+        
+        if (acceptSelector != null) {
+            acceptSelector.wakeup();
+        }
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+            if (acceptSelector != null) {
+                acceptSelector.close();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error closing server channel", e);
+        }
+        
+        for (NioEventLoop loop : eventLoops) {
+            loop.shutdown();
+        }
+        
+        workerPool.shutdown();
+        try {
+            if (!workerPool.awaitTermination(5, TimeUnit.SECONDS)) {
+                workerPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workerPool.shutdownNow();
+        }
+    }
+
+    public boolean isRunning() {
+        return running && serverChannel != null && serverChannel.isOpen();
+    }
+
+    public int getEventLoopCount() {
+        return eventLoops.length;
+    }
+
+    public int getActiveWorkers() {
+        return workerPool.getActiveCount();
+    }
+
+    public int getQueuedRequests() {
+        return workerPool.getQueue().size();
+    }
+}
@@ -0,0 +1,163 @@
+package com.university.sms.server;
+
+import com.university.sms.common.Message;
+import com.university.sms.service.NotificationHub;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Hàng đợi notification gửi đi của một kết nối.
+ *
+ * Notification được gộp theo topic: nếu topic đã có notification chưa gửi thì
+ * bản mới thay bản cũ (giữ nguyên vị trí trong hàng), nên client đọc chậm chỉ
+ * nhận trạng thái mới nhất thay vì mọi bước trung gian. Hàng đợi giới hạn
+ * MAX_PENDING topic; vượt quá thì bỏ topic cũ nhất.
+ *
+ * Việc ghi chạy trên một virtual thread riêng của kết nối (chỉ một lúc một
+ * thread), chịu backpressure của kết nối như phản hồi dạng stream: kết nối
+ * chậm chỉ làm chậm hàng đợi của chính nó, không chặn publish hay kết nối khác.
+ */
+class NotificationOutbox implements NotificationHub.Subscriber {
+    private static final Logger LOGGER = Logger.getLogger(NotificationOutbox.class.getName());
+
+    private static final int MAX_PENDING = 1024;
+    private static final int MAX_SUBSCRIPTIONS = 256;
+
+    private static final ExecutorService DELIVERY_EXECUTOR = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("NotificationDelivery-", 0).factory());
+
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final AtomicLong COALESCED = new AtomicLong();
+
+    // Gửi một notification; trả về false khi kết nối đã đóng
+    private final Predicate<Message> sender;
+    private final Set<String> topics = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Được bảo vệ bởi lock
+    private final Map<String, Message> pending = new LinkedHashMap<>();
+    private boolean draining;
+    private boolean closed;
+
+    NotificationOutbox(Predicate<Message> sender) {
+        this.sender = sender;
+        NotificationHub.getInstance().register(this);
+    }
+
+    /**
+     * Đăng ký topic; trả về false nếu kết nối đã đăng ký quá nhiều topic
+     */
+    boolean subscribe(String topic) {
+        if (!topics.contains(topic) && topics.size() >= MAX_SUBSCRIPTIONS) {
+            return false;
+        }
+        topics.add(topic);
+        NotificationHub.getInstance().subscribe(topic, this);
+        return true;
+    }
+
+    void unsubscribe(String topic) {
+        if (topics.remove(topic)) {
+            NotificationHub.getInstance().unsubscribe(topic, this);
+        }
+    }
+
+    /**
+     * Bỏ mọi topic (khi đăng xuất), vẫn nhận broadcast
+     */
+    void unsubscribeAll() {
+        for (String topic : topics) {
+            unsubscribe(topic);
+        }
+    }
+
+    @Override
+    public void deliver(String coalesceKey, Message notification) {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (pending.put(coalesceKey, notification) != null) {
+                COALESCED.incrementAndGet();
+            } else if (pending.size() > MAX_PENDING) {
+                Iterator<String> eldest = pending.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                DROPPED.incrementAndGet();
+            }
+            if (!draining) {
+                draining = true;
+                DELIVERY_EXECUTOR.execute(this::drain);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Message next;
+            lock.lock();
+            try {
+                Iterator<Message> iterator = pending.values().iterator();
+                if (closed || !iterator.hasNext()) {
+                    draining = false;
+                    return;
+                }
+                next = iterator.next();
+                iterator.remove();
+            } finally {
+                lock.unlock();
+            }
+
+            if (!sender.test(next)) {
+                close();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Ngừng nhận notification (kết nối đóng)
+     */
+    void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.clear();
+        } finally {
+            lock.unlock();
+        }
+        NotificationHub.getInstance().unregister(this, topics);
+        topics.clear();
+        LOGGER.fine("Notification outbox closed");
+    }
+
+    /**
+     * Số notification bị bỏ vì hàng đợi đầy (mọi kết nối)
+     */
+    static long getDroppedCount() {
+        return DROPPED.get();
+    }
+
+    /**
+     * Số notification được gộp vào bản chưa gửi cùng topic (mọi kết nối)
+     */
+    static long getCoalescedCount() {
+        return COALESCED.get();
+    }
+}
@@ -0,0 +1,76 @@
+package com.university.sms.server;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Worker pool xử lý yêu cầu, lấy việc theo mức ưu tiên của AdmissionController
+ * rồi theo thứ tự đến.
+ *
+ * AdmissionController chỉ quyết định nhận hay bỏ yêu cầu; với hàng đợi FIFO,
+ * yêu cầu HIGH đã được nhận vẫn phải chờ sau mọi yêu cầu LOW/NORMAL đến trước
+ * nó. Ở đây HIGH luôn được lấy trước, nên khi sinh viên đổ vào xem kết quả,
+ * nhập điểm/điểm danh chỉ chờ worker rảnh đầu tiên. LOW có thể phải chờ lâu
+ * khi HIGH đến liên tục, nhưng số yêu cầu LOW đang chờ bị AdmissionController
+ * giới hạn.
+ *
+ * Việc không gắn mức ưu tiên (execute/submit thông thường) được tính là NORMAL.
+ */
+class PriorityWorkerPool extends ThreadPoolExecutor {
+    // Thứ tự đến, để các việc cùng mức ưu tiên chạy FIFO
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final int queueCapacity;
+
+    /**
+     * Việc có mức ưu tiên
+     */
+    static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final AdmissionController.Priority priority;
+        private final long sequence;
+        private final Runnable task;
+
+        PrioritizedTask(AdmissionController.Priority priority, Runnable task) {
+            this.priority = priority;
+            this.sequence = SEQUENCE.getAndIncrement();
+            this.task = task;
+        }
+
+        AdmissionController.Priority getPriority() {
+            return priority;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * @param queueCapacity số việc tối đa được chờ; vượt quá thì execute ném
+     *                      RejectedExecutionException như hàng đợi có giới hạn
+     */
+    PriorityWorkerPool(int threads, int queueCapacity, ThreadFactory threadFactory) {
+        super(threads, threads, 60, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), threadFactory);
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (getQueue().size() >= queueCapacity) {
+            throw new RejectedExecutionException("Worker queue full");
+        }
+        super.execute(command instanceof PrioritizedTask
+            ? command : new PrioritizedTask(AdmissionController.Priority.NORMAL, command));
+    }
+}
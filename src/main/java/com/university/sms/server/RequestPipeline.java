@@ -0,0 +1,221 @@
+package com.university.sms.server;
+
+import com.university.sms.common.Constants;
+import com.university.sms.common.Message;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lập lịch xử lý yêu cầu của một kết nối trên worker pool.
+ *
+ * Các yêu cầu độc lập (có requestId) chạy song song và có thể trả lời không
+ * theo thứ tự; client ghép phản hồi qua requestId. Yêu cầu thay đổi trạng thái
+ * phiên (LOGIN, RESUME_SESSION, LOGOUT, CHANGE_PASSWORD) và yêu cầu không có requestId (client
+ * cũ ghép phản hồi theo action) là rào chắn: chờ mọi yêu cầu trước xong, chạy
+ * một mình, rồi mới cho yêu cầu sau chạy.
+ *
+ * Mỗi yêu cầu đưa lên worker pool phải qua AdmissionController (giới hạn số
+ * yêu cầu đang xử lý của cả server, theo mức ưu tiên); bị từ chối thì trả lời
+ * "server bận" kèm thời gian thử lại ngay, không xếp hàng. Yêu cầu được nhận
+ * mang mức ưu tiên đó lên worker pool (xem PriorityWorkerPool).
+ *
+ * CANCEL_REQUEST được xử lý ngay khi nhận, không xếp hàng: yêu cầu đích còn
+ * chờ thì bị bỏ khỏi hàng đợi; đang chạy thì kết quả được thay bằng phản hồi
+ * "đã hủy" nhỏ gọn thay vì gửi dữ liệu client không còn cần.
+ */
+public class RequestPipeline {
+    private static final Logger LOGGER = Logger.getLogger(RequestPipeline.class.getName());
+
+    // Số yêu cầu song song tối đa của một kết nối
+    private static final int MAX_IN_FLIGHT = 8;
+    // Số yêu cầu tối đa được xếp hàng chờ của một kết nối
+    private static final int MAX_WAITING = 256;
+
+    private final ClientSession session;
+    private final Executor executor;
+    private final AdmissionController admission;
+    private final Consumer<Message> responder;
+    private final ClientSession.ChunkSink chunkSink;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Được bảo vệ bởi lock
+    private final Deque<Message> waiting = new ArrayDeque<>();
+    private final Set<Long> running = new HashSet<>();
+    private final Set<Long> cancelled = new HashSet<>();
+    private int inFlight;
+    private boolean barrierRunning;
+
+    public RequestPipeline(ClientSession session, Executor executor, AdmissionController admission,
+                           Consumer<Message> responder, ClientSession.ChunkSink chunkSink) {
+        this.session = session;
+        this.executor = executor;
+        this.admission = admission;
+        this.responder = responder;
+        this.chunkSink = chunkSink;
+    }
+
+    /**
+     * Nhận một yêu cầu từ client (không block)
+     */
+    public void submit(Message request) {
+        lock.lock();
+        try {
+            if (Constants.ACTION_CANCEL_REQUEST.equals(request.getAction())) {
+                cancel(request);
+                return;
+            }
+            if (waiting.size() >= MAX_WAITING) {
+                rejectBusy(request);
+                return;
+            }
+            waiting.add(request);
+            drain();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hủy yêu cầu có requestId = KEY_TARGET_REQUEST_ID (không có phản hồi riêng)
+     */
+    private void cancel(Message request) {
+        Long target = request.getData(Constants.KEY_TARGET_REQUEST_ID, Long.class);
+        if (target == null || target == 0) {
+            return;
+        }
+
+        Iterator<Message> iterator = waiting.iterator();
+        while (iterator.hasNext()) {
+            Message queued = iterator.next();
+            if (queued.getRequestId() == target) {
+                iterator.remove();
+                responder.accept(cancelledResponse(queued));
+                return;
+            }
+        }
+        if (running.contains(target)) {
+            cancelled.add(target);
+        }
+    }
+
+    private static Message cancelledResponse(Message request) {
+        Message response = Message.createErrorResponse(request.getAction(), Constants.MSG_REQUEST_CANCELLED);
+        response.setRequestId(request.getRequestId());
+        return response;
+    }
+
+    /**
+     * Chạy các yêu cầu đang chờ theo thứ tự đến, dừng ở rào chắn chưa chạy được
+     */
+    private void drain() {
+        while (!waiting.isEmpty() && !barrierRunning) {
+            Message next = waiting.peek();
+
+            if (isBarrier(next)) {
+                if (inFlight > 0) {
+                    return;
+                }
+                waiting.poll();
+                barrierRunning = dispatch(next, true);
+            } else {
+                if (inFlight >= MAX_IN_FLIGHT) {
+                    return;
+                }
+                waiting.poll();
+                if (dispatch(next, false)) {
+                    inFlight++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Đưa yêu cầu lên worker pool; server quá tải hoặc pool đầy thì trả lời
+     * "server bận" ngay
+     */
+    private boolean dispatch(Message request, boolean barrier) {
+        AdmissionController.Priority priority =
+            AdmissionController.classify(session.getCurrentUser(), request.getAction());
+        if (!admission.tryAcquireRequest(priority)) {
+            rejectBusy(request);
+            return false;
+        }
+        try {
+            executor.execute(new PriorityWorkerPool.PrioritizedTask(priority, () -> process(request, barrier)));
+            running.add(request.getRequestId());
+            return true;
+        } catch (RejectedExecutionException e) {
+            admission.releaseRequest();
+            rejectBusy(request);
+            return false;
+        }
+    }
+
+    private void rejectBusy(Message request) {
+        responder.accept(admission.busyResponse(request));
+    }
+
+    private void process(Message request, boolean barrier) {
+        try {
+            Message response;
+            try {
+                response = session.processRequest(request, chunkSink);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error processing client request", e);
+                response = Message.createErrorResponse(request.getAction(), Constants.MSG_SERVER_ERROR);
+                response.setRequestId(request.getRequestId());
+            }
+            lock.lock();
+            try {
+                running.remove(request.getRequestId());
+                if (cancelled.remove(request.getRequestId())) {
+                    response = cancelledResponse(request);
+                }
+            } finally {
+                lock.unlock();
+            }
+            responder.accept(response);
+        } finally {
+            admission.releaseRequest();
+            lock.lock();
+            try {
+                complete(barrier);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void complete(boolean barrier) {
+        if (barrier) {
+            barrierRunning = false;
+        } else {
+            inFlight--;
+        }
+        drain();
+    }
+
+    /**
+     * Yêu cầu phải chạy một mình theo đúng thứ tự
+     */
+    private static boolean isBarrier(Message request) {
+        if (request.getRequestId() == 0) {
+            return true;
+        }
+        String action = request.getAction();
+        return Constants.ACTION_LOGIN.equals(action)
+            || Constants.ACTION_RESUME_SESSION.equals(action)
+            || Constants.ACTION_LOGOUT.equals(action)
+            || Constants.ACTION_CHANGE_PASSWORD.equals(action);
+    }
+}
@@ -1,5 +1,14 @@
 package com.university.sms.server;
 
+import com.university.sms.service.CourseService;
+import com.university.sms.service.StatisticsService;
+import com.university.sms.service.LoginAuditWriter;
+import com.university.sms.service.NotificationHub;
+import com.university.sms.service.SessionStore;
+import com.university.sms.service.LoginThrottle;
+import com.university.sms.service.PasswordHasher;
+import com.university.sms.service.StudentSearchIndex;
+import com.university.sms.util.ConnectionPool;
 import com.university.sms.util.DatabaseConnection;
 
 import java.util.Scanner;
@@ -21,9 +30,10 @@ public class ServerMain {
         
         // Parse command line arguments
         int port = parsePort(args);
+        StudentManagementServer.TransportMode transportMode = parseTransportMode(args);
         
         // Create and start server
-        server = new StudentManagementServer(port);
+        server = new StudentManagementServer(port, transportMode);
         
         // Add shutdown hook
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -79,6 +89,23 @@ public class ServerMain {
         return 8888;
     }
 
+    /**
+     * Parse transport mode (blocking | nio) from command line arguments
+     */
+    private static StudentManagementServer.TransportMode parseTransportMode(String[] args) {
+        if (args.length > 1) {
+            try {
+                StudentManagementServer.TransportMode mode =
+                    StudentManagementServer.TransportMode.valueOf(args[1].trim().toUpperCase());
+                LOGGER.info("Using transport from command line: " + mode);
+                return mode;
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Invalid transport mode. Using default transport BLOCKING");
+            }
+        }
+        return StudentManagementServer.TransportMode.BLOCKING;
+    }
+
     /**
      * Print server information
      */
@@ -88,6 +115,7 @@ public class ServerMain {
         System.out.println("=".repeat(60));
         System.out.println("Server Status: " + (server.isRunning() ? "RUNNING" : "STOPPED"));
         System.out.println("Port: " + server.getPort());
+        System.out.println("Transport: " + server.getTransportMode());
         System.out.println("Database Status: " + (DatabaseConnection.testConnection() ? "CONNECTED" : "DISCONNECTED"));
         System.out.println("Connected Clients: " + server.getConnectedClientCount());
         System.out.println("=".repeat(60));
@@ -155,6 +183,7 @@ public class ServerMain {
         System.out.println("\n--- Server Status ---");
         System.out.println("Running: " + server.isRunning());
         System.out.println("Port: " + server.getPort());
+        System.out.println("Transport: " + server.getTransportMode());
         System.out.println("Connected Clients: " + server.getConnectedClientCount());
         System.out.println("Database: " + (DatabaseConnection.testConnection() ? "Connected" : "Disconnected"));
         System.out.println("Memory Usage: " + getMemoryUsage());
@@ -190,7 +219,25 @@ public class ServerMain {
         System.out.println("  - Teacher Clients: " + stats.getTeacherClients());
         System.out.println("  - Student Clients: " + stats.getStudentClients());
         System.out.println("Server Port: " + stats.getPort());
+        System.out.println("Transport: " + stats.getTransportMode());
+        System.out.println(String.format("Serialization retained: %.1f KB",
+                           stats.getRetainedSerializationBytes() / 1024.0));
         System.out.println("Server Status: " + (stats.isRunning() ? "Running" : "Stopped"));
+        System.out.println("Admission: " + server.getAdmissionMetrics());
+        System.out.println("DB Pool: " + DatabaseConnection.getPoolStatistics());
+        System.out.println("Course cache (by id): " + CourseService.getCourseCacheStatistics());
+        System.out.println("Course cache (list): " + CourseService.getCourseListCacheStatistics());
+        System.out.println("Student search index: " + StudentSearchIndex.getInstance().size() + " students");
+        System.out.println("Statistics snapshots: " + StatisticsService.getInstance().getMetrics());
+        System.out.println("Login audit: " + LoginAuditWriter.getInstance().getMetrics());
+        System.out.println("Resumable sessions: " + SessionStore.getInstance().size());
+        System.out.println("Password hashing: " + PasswordHasher.getInstance().getMetrics());
+        System.out.println("Login throttling: " + LoginThrottle.getInstance().getMetrics());
+        NotificationHub hub = NotificationHub.getInstance();
+        System.out.println("Notifications: " + hub.getTopicCount() + " topics, published " + hub.getPublishedCount()
+                           + ", delivered " + hub.getDeliveredCount()
+                           + ", coalesced " + NotificationOutbox.getCoalescedCount()
+                           + ", dropped " + NotificationOutbox.getDroppedCount());
         System.out.println("JVM Memory: " + getMemoryUsage());
         System.out.println();
     }
@@ -259,6 +306,15 @@ public class ServerMain {
             if (connected) {
                 System.out.println("✓ Database connection successful");
                 DatabaseConnection.printDatabaseInfo();
+                
+                ConnectionPool.PoolStatistics poolStats = DatabaseConnection.getPoolStatistics();
+                System.out.println("Pool: active=" + poolStats.getActiveConnections() +
+                                   ", idle=" + poolStats.getIdleConnections() +
+                                   ", waiting=" + poolStats.getWaitingThreads() +
+                                   ", total=" + poolStats.getTotalConnections() + "/" + poolStats.getMaxSize());
+                System.out.println(String.format("Acquire latency: avg %.2f ms, max %.2f ms, timeouts %d",
+                                   poolStats.getAverageAcquireMillis(), poolStats.getMaxAcquireMillis(),
+                                   poolStats.getTimeoutCount()));
             } else {
                 System.out.println("✗ Database connection failed");
             }
@@ -1,5 +1,8 @@
 package com.university.sms.server;
 
+import com.university.sms.service.LoginAuditWriter;
+import com.university.sms.service.NotificationHub;
+import com.university.sms.service.StudentSearchIndex;
 import com.university.sms.util.DatabaseConnection;
 
 import java.io.IOException;
@@ -8,6 +11,8 @@ import java.net.Socket;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,21 +25,74 @@ public class StudentManagementServer {
     private static final int DEFAULT_PORT = 8888;
     private static final int MAX_THREADS = 100;
     
+    // Giới hạn số phiên đồng thời ở chế độ virtual thread và NIO (thay cho giới hạn thread)
+    private static final int MAX_VIRTUAL_SESSIONS = 10000;
+    
+    // Số kết nối bị từ chối được chờ để trả lời "server bận" cùng lúc; vượt quá thì đóng ngay
+    private static final int MAX_PENDING_REJECTIONS = 256;
+    
+    // Cấu hình chế độ NIO
+    private static final int NIO_IO_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    
+    // Worker pool xử lý yêu cầu (chế độ BLOCKING và NIO)
+    private static final int REQUEST_WORKER_THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int REQUEST_QUEUE_CAPACITY = 1000;
+    
+    /**
+     * Cách server xử lý kết nối client
+     */
+    public enum TransportMode {
+        /** Một thread cho mỗi socket (mặc định) */
+        BLOCKING,
+        /** Một virtual thread cho mỗi socket, giới hạn bằng số phiên thay vì số thread */
+        VIRTUAL,
+        /** Selector: vài event loop giữ toàn bộ socket, worker pool xử lý yêu cầu */
+        NIO
+    }
+    
     private ServerSocket serverSocket;
+    private NioServer nioServer;
     private ExecutorService threadPool;
-    private boolean isRunning;
+    private ExecutorService requestExecutor;
+    private final AdmissionController admission;
+    private final Semaphore rejectionPermits = new Semaphore(MAX_PENDING_REJECTIONS);
+    private volatile boolean isRunning;
     private int port;
+    private final TransportMode transportMode;
     
     // Quản lý các client đang kết nối
-    private ConcurrentHashMap<String, ClientHandler> connectedClients;
+    private ConcurrentHashMap<String, ClientConnection> connectedClients;
 
     public StudentManagementServer() {
         this(DEFAULT_PORT);
     }
 
     public StudentManagementServer(int port) {
+        this(port, TransportMode.BLOCKING);
+    }
+
+    public StudentManagementServer(int port, TransportMode transportMode) {
         this.port = port;
-        this.threadPool = Executors.newFixedThreadPool(MAX_THREADS);
+        this.transportMode = transportMode;
+        int maxSessions = MAX_VIRTUAL_SESSIONS;
+        if (transportMode == TransportMode.BLOCKING) {
+            // Mỗi phiên giữ một thread của pool: giới hạn phiên không vượt số thread
+            // để phiên mới không phải xếp hàng trong pool
+            maxSessions = MAX_THREADS;
+            this.threadPool = Executors.newFixedThreadPool(MAX_THREADS);
+            this.requestExecutor = new PriorityWorkerPool(REQUEST_WORKER_THREADS, REQUEST_QUEUE_CAPACITY,
+                Executors.defaultThreadFactory());
+        } else if (transportMode == TransportMode.VIRTUAL) {
+            this.threadPool = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("ClientHandler-", 0).factory());
+            this.requestExecutor = threadPool;
+        }
+        AdmissionController.Config config = AdmissionController.Config.fromSettings(maxSessions,
+            REQUEST_WORKER_THREADS * 4);
+        if (transportMode == TransportMode.BLOCKING) {
+            config.setMaxSessions(Math.min(config.getMaxSessions(), MAX_THREADS));
+        }
+        this.admission = new AdmissionController(config);
         this.connectedClients = new ConcurrentHashMap<>();
         this.isRunning = false;
     }
@@ -50,43 +108,13 @@ public class StudentManagementServer {
                 return;
             }
             
-            serverSocket = new ServerSocket(port);
-            isRunning = true;
-            
-            LOGGER.info("Student Management Server started on port " + port);
-            LOGGER.info("Waiting for client connections...");
+            // Nạp chỉ mục tìm kiếm sinh viên trước khi nhận client
+            StudentSearchIndex.getInstance().rebuild();
             
-            // Accept client connections
-            while (isRunning && !serverSocket.isClosed()) {
-                try {
-                    Socket clientSocket = serverSocket.accept();
-                    
-                    // Create client handler
-                    ClientHandler clientHandler = new ClientHandler(clientSocket);
-                    String clientId = clientSocket.getRemoteSocketAddress().toString();
-                    
-                    // Store client handler
-                    connectedClients.put(clientId, clientHandler);
-                    
-                    // Handle client in separate thread
-                    threadPool.execute(() -> {
-                        try {
-                            clientHandler.run();
-                        } finally {
-                            // Remove client when disconnected
-                            connectedClients.remove(clientId);
-                            LOGGER.info("Client removed: " + clientId);
-                        }
-                    });
-                    
-                    LOGGER.info("New client connected: " + clientId + 
-                               " (Total clients: " + connectedClients.size() + ")");
-                    
-                } catch (IOException e) {
-                    if (isRunning) {
-                        LOGGER.log(Level.SEVERE, "Error accepting client connection", e);
-                    }
-                }
+            if (transportMode == TransportMode.NIO) {
+                startNio();
+            } else {
+                startBlocking();
             }
             
         } catch (IOException e) {
@@ -96,6 +124,107 @@ public class StudentManagementServer {
         }
     }
 
+    /**
+     * Vòng lặp accept của chế độ blocking và virtual thread
+     */
+    private void startBlocking() throws IOException {
+        serverSocket = new ServerSocket(port);
+        isRunning = true;
+        
+        LOGGER.info("Student Management Server started on port " + port + " (" + transportMode + ")");
+        LOGGER.info("Waiting for client connections...");
+        
+        // Accept client connections
+        while (isRunning && !serverSocket.isClosed()) {
+            try {
+                Socket clientSocket = serverSocket.accept();
+                
+                // Đủ số phiên thì trả lời "server bận" ngay thay vì để client chờ
+                if (!admission.tryAcquireSession()) {
+                    rejectSession(clientSocket);
+                    continue;
+                }
+                
+                // Create client handler
+                ClientHandler clientHandler = new ClientHandler(clientSocket, requestExecutor, admission);
+                String clientId = clientSocket.getRemoteSocketAddress().toString();
+                
+                // Store client handler
+                connectedClients.put(clientId, clientHandler);
+                
+                // Handle client in separate thread
+                threadPool.execute(() -> {
+                    try {
+                        clientHandler.run();
+                    } finally {
+                        // Remove client when disconnected
+                        connectedClients.remove(clientId);
+                        admission.releaseSession();
+                        LOGGER.info("Client removed: " + clientId);
+                    }
+                });
+                
+                LOGGER.info("New client connected: " + clientId + 
+                           " (Total clients: " + connectedClients.size() + ")");
+                
+            } catch (IOException e) {
+                if (isRunning) {
+                    LOGGER.log(Level.SEVERE, "Error accepting client connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Trả lời "server bận" cho kết nối vượt giới hạn phiên trên một virtual
+     * thread ngắn hạn (không chiếm thread của pool phiên)
+     */
+    private void rejectSession(Socket clientSocket) {
+        if (!rejectionPermits.tryAcquire()) {
+            try {
+                clientSocket.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Error closing rejected connection", e);
+            }
+            return;
+        }
+        Thread.ofVirtual().name("SessionReject").start(() -> {
+            try {
+                ClientHandler.rejectSession(clientSocket, admission);
+            } finally {
+                rejectionPermits.release();
+            }
+        });
+    }
+
+    /**
+     * Chạy server ở chế độ NIO (block cho đến khi server dừng)
+     */
+    private void startNio() throws IOException {
+        nioServer = new NioServer(port, NIO_IO_THREADS, REQUEST_WORKER_THREADS, REQUEST_QUEUE_CAPACITY, admission,
+            new NioServer.ConnectionListener() {
+                @Override
+                public void onConnected(NioClientConnection connection) {
+                    String clientId = connection.getRemoteAddress();
+                    connectedClients.put(clientId, connection);
+                    LOGGER.info("New client connected: " + clientId +
+                               " (Total clients: " + connectedClients.size() + ")");
+                }
+
+                @Override
+                public void onDisconnected(NioClientConnection connection) {
+                    connectedClients.remove(connection.getRemoteAddress());
+                    LOGGER.info("Client removed: " + connection.getRemoteAddress());
+                }
+            });
+        isRunning = true;
+        
+        LOGGER.info("Student Management Server started on port " + port + " (NIO)");
+        LOGGER.info("Waiting for client connections...");
+        
+        nioServer.run();
+    }
+
     /**
      * Dừng server
      */
@@ -105,14 +234,24 @@ public class StudentManagementServer {
         isRunning = false;
         
         // Disconnect all clients
-        connectedClients.values().forEach(ClientHandler::disconnect);
+        connectedClients.values().forEach(ClientConnection::disconnect);
         connectedClients.clear();
         
+        // Stop NIO transport
+        if (nioServer != null) {
+            nioServer.stop();
+        }
+        
+        // Shutdown request workers
+        if (requestExecutor != null && requestExecutor != threadPool && !requestExecutor.isShutdown()) {
+            requestExecutor.shutdownNow();
+        }
+        
         // Shutdown thread pool
         if (threadPool != null && !threadPool.isShutdown()) {
             threadPool.shutdown();
             try {
-                if (!threadPool.awaitTermination(5, java.util.concurrent.TimeUnit.SECONDS)) {
+                if (!threadPool.awaitTermination(5, TimeUnit.SECONDS)) {
                     threadPool.shutdownNow();
                 }
             } catch (InterruptedException e) {
@@ -129,6 +268,12 @@ public class StudentManagementServer {
             }
         }
         
+        // Ghi nốt log đăng nhập trước khi đóng pool
+        LoginAuditWriter.getInstance().shutdown();
+        
+        // Close database connection pool
+        DatabaseConnection.shutdown();
+        
         LOGGER.info("Student Management Server stopped");
     }
 
@@ -146,10 +291,11 @@ public class StudentManagementServer {
         return connectedClients.entrySet().stream()
             .map(entry -> {
                 String clientId = entry.getKey();
-                ClientHandler handler = entry.getValue();
+                ClientConnection handler = entry.getValue();
                 String username = handler.getCurrentUser() != null ? 
                     handler.getCurrentUser().getUsername() : "Anonymous";
-                return clientId + " (" + username + ")";
+                return String.format("%s (%s) - sent %.1f KB, retained %.1f KB", clientId, username,
+                    handler.getBytesSent() / 1024.0, handler.getRetainedSerializationBytes() / 1024.0);
             })
             .toArray(String[]::new);
     }
@@ -158,6 +304,9 @@ public class StudentManagementServer {
      * Kiểm tra xem server có đang chạy không
      */
     public boolean isRunning() {
+        if (transportMode == TransportMode.NIO) {
+            return isRunning && nioServer != null && nioServer.isRunning();
+        }
         return isRunning && serverSocket != null && !serverSocket.isClosed();
     }
 
@@ -169,19 +318,26 @@ public class StudentManagementServer {
     }
 
     /**
-     * Broadcast message to all connected clients
+     * Tải hiện tại và số lần từ chối của admission control
+     */
+    public String getAdmissionMetrics() {
+        return admission.getMetrics();
+    }
+
+    /**
+     * Lấy chế độ transport đang dùng
+     */
+    public TransportMode getTransportMode() {
+        return transportMode;
+    }
+
+    /**
+     * Broadcast message to all connected clients. Message được đưa vào hàng đợi
+     * notification của từng kết nối và gửi bất đồng bộ.
      */
     public void broadcastMessage(String message) {
-        LOGGER.info("Broadcasting message to " + connectedClients.size() + " clients: " + message);
-        
-        connectedClients.values().forEach(client -> {
-            try {
-                // Implementation for broadcasting will be added if needed
-                // client.sendNotification(message);
-            } catch (Exception e) {
-                LOGGER.log(Level.WARNING, "Error broadcasting message to client", e);
-            }
-        });
+        int count = NotificationHub.getInstance().broadcast(message);
+        LOGGER.info("Broadcasting message to " + count + " clients: " + message);
     }
 
     /**
@@ -192,7 +348,15 @@ public class StudentManagementServer {
         stats.setConnectedClients(connectedClients.size());
         stats.setIsRunning(isRunning);
         stats.setPort(port);
+        stats.setTransportMode(transportMode.name());
+        stats.setRetainedSerializationBytes(connectedClients.values().stream()
+            .mapToLong(ClientConnection::getRetainedSerializationBytes)
+            .sum());
         stats.setUptime(System.currentTimeMillis()); // Simple implementation
+        stats.setShedSessions(admission.getShedSessionCount());
+        stats.setShedRequests(admission.getShedRequestCount(AdmissionController.Priority.HIGH)
+            + admission.getShedRequestCount(AdmissionController.Priority.NORMAL)
+            + admission.getShedRequestCount(AdmissionController.Priority.LOW));
         
         // Count clients by role
         long adminCount = connectedClients.values().stream()
@@ -233,10 +397,14 @@ public class StudentManagementServer {
         private int connectedClients;
         private boolean isRunning;
         private int port;
+        private String transportMode;
+        private long retainedSerializationBytes;
         private long uptime;
         private int adminClients;
         private int teacherClients;
         private int studentClients;
+        private long shedSessions;
+        private long shedRequests;
 
         // Getters and setters
         public int getConnectedClients() { return connectedClients; }
@@ -248,6 +416,12 @@ public class StudentManagementServer {
         public int getPort() { return port; }
         public void setPort(int port) { this.port = port; }
         
+        public String getTransportMode() { return transportMode; }
+        public void setTransportMode(String transportMode) { this.transportMode = transportMode; }
+        
+        public long getRetainedSerializationBytes() { return retainedSerializationBytes; }
+        public void setRetainedSerializationBytes(long bytes) { this.retainedSerializationBytes = bytes; }
+        
         public long getUptime() { return uptime; }
         public void setUptime(long uptime) { this.uptime = uptime; }
         
@@ -259,6 +433,12 @@ public class StudentManagementServer {
         
         public int getStudentClients() { return studentClients; }
         public void setStudentClients(int studentClients) { this.studentClients = studentClients; }
+        
+        public long getShedSessions() { return shedSessions; }
+        public void setShedSessions(long shedSessions) { this.shedSessions = shedSessions; }
+        
+        public long getShedRequests() { return shedRequests; }
+        public void setShedRequests(long shedRequests) { this.shedRequests = shedRequests; }
     }
 }
 
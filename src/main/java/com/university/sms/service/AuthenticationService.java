@@ -18,29 +18,84 @@ public class AuthenticationService {
     }
 
     /**
-     * Xác thực người dùng
+     * Kết quả xác thực
      */
-    public User authenticate(String username, String password) {
+    public static class AuthResult {
+        public enum Status {
+            SUCCESS,
+            INVALID_CREDENTIALS,
+            /** Pool băm mật khẩu bận, chưa kiểm tra được */
+            BUSY
+        }
+
+        private static final AuthResult INVALID = new AuthResult(Status.INVALID_CREDENTIALS, null);
+        private static final AuthResult BUSY = new AuthResult(Status.BUSY, null);
+
+        private final Status status;
+        private final User user;
+
+        private AuthResult(Status status, User user) {
+            this.status = status;
+            this.user = user;
+        }
+
+        public Status getStatus() { return status; }
+        public User getUser() { return user; }
+    }
+
+    /**
+     * Xác thực người dùng. bcrypt chạy trên PasswordHasher; mật khẩu cũ lưu
+     * plain text được nâng cấp lên bcrypt (bất đồng bộ) sau khi khớp.
+     */
+    public AuthResult authenticate(String username, String password) {
         if (username == null || password == null || username.trim().isEmpty() || password.trim().isEmpty()) {
             LOGGER.warning("Authentication failed: Empty username or password");
-            return null;
+            return AuthResult.INVALID;
         }
 
         try {
-            User user = userDAO.authenticate(username, password);
-            if (user != null) {
-                LOGGER.info("User authenticated successfully: " + username);
-                return user;
-            } else {
+            User user = userDAO.findActiveByUsername(username);
+            if (user == null) {
                 LOGGER.warning("Authentication failed for user: " + username);
-                return null;
+                return AuthResult.INVALID;
+            }
+
+            String stored = user.getPassword();
+            switch (PasswordHasher.getInstance().verify(password, stored)) {
+                case MATCH:
+                    if (!PasswordHasher.isHashed(stored)) {
+                        upgradeLegacyPassword(user.getUserId(), stored, password);
+                    }
+                    user.setPassword(null);
+                    LOGGER.info("User authenticated successfully: " + username);
+                    return new AuthResult(AuthResult.Status.SUCCESS, user);
+                case BUSY:
+                    LOGGER.warning("Authentication deferred, password hasher busy: " + username);
+                    return AuthResult.BUSY;
+                default:
+                    LOGGER.warning("Authentication failed for user: " + username);
+                    return AuthResult.INVALID;
             }
         } catch (Exception e) {
             LOGGER.severe("Error during authentication: " + e.getMessage());
-            return null;
+            return AuthResult.INVALID;
         }
     }
 
+    /**
+     * Băm lại mật khẩu plain text cũ trên pool, không làm chậm đăng nhập.
+     * Pool bận thì bỏ qua; lần đăng nhập sau sẽ thử lại.
+     */
+    private void upgradeLegacyPassword(int userId, String oldStored, String password) {
+        PasswordHasher.getInstance().hashAsync(password).whenComplete((hash, error) -> {
+            if (error != null) {
+                LOGGER.warning("Password upgrade failed for user ID " + userId + ": " + error.getMessage());
+            } else if (hash != null && userDAO.upgradePassword(userId, oldStored, hash)) {
+                LOGGER.info("Upgraded stored password to bcrypt for user ID: " + userId);
+            }
+        });
+    }
+
     /**
      * Tạo tài khoản người dùng mới
      */
@@ -67,6 +122,13 @@ public class AuthenticationService {
             return false;
         }
 
+        String hash = PasswordHasher.getInstance().hash(user.getPassword());
+        if (hash == null) {
+            LOGGER.warning("Cannot create user: Password hasher busy - " + user.getUsername());
+            return false;
+        }
+        user.setPassword(hash);
+
         try {
             boolean success = userDAO.addUser(user);
             if (success) {
@@ -119,6 +181,9 @@ public class AuthenticationService {
             boolean success = userDAO.updateUser(user);
             if (success) {
                 LOGGER.info("User updated successfully: " + user.getUserId());
+                // Họ tên/email xuất hiện trong dữ liệu sinh viên và tên giảng viên của khóa học
+                StudentService.invalidateDataVersion();
+                CourseService.flushCache();
             }
             return success;
         } catch (Exception e) {
@@ -142,8 +207,14 @@ public class AuthenticationService {
             return false;
         }
 
+        String hash = PasswordHasher.getInstance().hash(newPassword);
+        if (hash == null) {
+            LOGGER.warning("Cannot change password: Password hasher busy");
+            return false;
+        }
+
         try {
-            boolean success = userDAO.changePassword(userId, newPassword);
+            boolean success = userDAO.changePassword(userId, hash);
             if (success) {
                 LOGGER.info("Password changed successfully for user ID: " + userId);
             }
@@ -166,6 +237,7 @@ public class AuthenticationService {
             boolean success = userDAO.deactivateUser(userId);
             if (success) {
                 LOGGER.info("User deactivated successfully: " + userId);
+                SessionStore.getInstance().invalidateUser(userId, null);
             }
             return success;
         } catch (Exception e) {
@@ -175,29 +247,18 @@ public class AuthenticationService {
     }
 
     /**
-     * Ghi log đăng nhập thành công
+     * Ghi log đăng nhập thành công (bất đồng bộ qua LoginAuditWriter)
      */
     public void logLogin(int userId, String ipAddress, String userAgent, String status) {
-        try {
-            userDAO.logLogin(userId, ipAddress, userAgent, status);
-        } catch (Exception e) {
-            LOGGER.warning("Error logging user login: " + e.getMessage());
-        }
+        LoginAuditWriter.getInstance().submit(UserDAO.LoginRecord.forUser(userId, ipAddress, userAgent, status));
     }
 
     /**
-     * Ghi log đăng nhập thất bại
+     * Ghi log đăng nhập thất bại (bất đồng bộ). user_id được tra theo username
+     * lúc ghi lô, không tốn thêm truy vấn trên đường đăng nhập.
      */
     public void logFailedLogin(String username, String ipAddress) {
-        try {
-            // Try to find user ID for logging
-            User user = userDAO.findByUsername(username);
-            if (user != null) {
-                userDAO.logLogin(user.getUserId(), ipAddress, "Java Client", "failed");
-            }
-        } catch (Exception e) {
-            LOGGER.warning("Error logging failed login: " + e.getMessage());
-        }
+        LoginAuditWriter.getInstance().submit(UserDAO.LoginRecord.forUsername(username, ipAddress, "Java Client", "failed"));
     }
 
     /**
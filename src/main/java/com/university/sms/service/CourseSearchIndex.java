@@ -0,0 +1,157 @@
+package com.university.sms.service;
+
+import com.university.sms.common.SearchText;
+import com.university.sms.dao.Page;
+import com.university.sms.model.Course;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Chỉ mục đảo (inverted index) trong bộ nhớ cho tìm kiếm khóa học, dùng khi
+ * database chưa có FULLTEXT index (database cũ chưa chạy migration).
+ *
+ * Mỗi từ (đã chuẩn hóa bằng SearchText) trong mã khóa học, tên môn học
+ * và tên giảng viên trỏ tới các khóa học chứa nó kèm trọng số theo trường.
+ * Từ trong truy vấn khớp theo tiền tố (giống toán tử * của BOOLEAN MODE) và
+ * điểm được cộng dồn; kết quả giống thứ tự của CourseDAO.fullTextSearchPage.
+ *
+ * Chỉ mục được dựng từ danh sách khóa học trong cache của CourseService và
+ * dựng lại khi cache trả về danh sách mới (sau khi danh mục thay đổi). Danh
+ * sách mới chỉ khác số chỗ (CourseService.applySeatCounts) thì giữ nguyên
+ * các từ, chỉ thay object khóa học trả về.
+ */
+public class CourseSearchIndex {
+    private static final int CODE_WEIGHT = 10;
+    private static final int SUBJECT_WEIGHT = 2;
+    private static final int TEACHER_WEIGHT = 1;
+
+    private static final CourseSearchIndex INSTANCE = new CourseSearchIndex();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Được bảo vệ bởi lock
+    private List<Course> indexedCourses;
+    private Map<Integer, Course> coursesById = new HashMap<>();
+    private NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+
+    private CourseSearchIndex() {
+    }
+
+    public static CourseSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Tìm một trang khóa học theo độ liên quan giảm dần
+     *
+     * @param catalogue danh mục khóa học hiện tại (danh sách không đổi từ cache)
+     */
+    public Page<Course> search(List<Course> catalogue, String keyword, int offset, int pageSize) {
+        List<String> terms = tokenize(keyword);
+        if (terms.isEmpty()) {
+            return new Page<>(List.of(), String.valueOf(offset), false);
+        }
+
+        Map<Integer, Integer> scores = new HashMap<>();
+        List<Course> ranked = new ArrayList<>();
+        lock.lock();
+        try {
+            if (catalogue != indexedCourses) {
+                if (sameIndexedText(catalogue)) {
+                    refreshCourses(catalogue);
+                } else {
+                    rebuild(catalogue);
+                }
+            }
+            for (String term : terms) {
+                // Khớp tiền tố: mọi từ bắt đầu bằng term
+                for (Map<Integer, Integer> posting : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                    posting.forEach((courseId, weight) -> scores.merge(courseId, weight, Integer::sum));
+                }
+            }
+            for (Integer courseId : scores.keySet()) {
+                ranked.add(coursesById.get(courseId));
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        ranked.sort((a, b) -> {
+            int byScore = Integer.compare(scores.get(b.getCourseId()), scores.get(a.getCourseId()));
+            return byScore != 0 ? byScore : Integer.compare(a.getCourseId(), b.getCourseId());
+        });
+
+        int from = Math.min(offset, ranked.size());
+        int to = Math.min(from + pageSize, ranked.size());
+        return new Page<>(new ArrayList<>(ranked.subList(from, to)), String.valueOf(to), to < ranked.size());
+    }
+
+    private void rebuild(List<Course> catalogue) {
+        Map<Integer, Course> newCoursesById = new HashMap<>();
+        NavigableMap<String, Map<Integer, Integer>> newPostings = new TreeMap<>();
+        for (Course course : catalogue) {
+            newCoursesById.put(course.getCourseId(), course);
+            addTerms(newPostings, course.getCourseId(), course.getCourseCode(), CODE_WEIGHT);
+            addTerms(newPostings, course.getCourseId(), course.getSubjectName(), SUBJECT_WEIGHT);
+            addTerms(newPostings, course.getCourseId(), course.getTeacherName(), TEACHER_WEIGHT);
+        }
+        indexedCourses = catalogue;
+        coursesById = newCoursesById;
+        postings = newPostings;
+    }
+
+    /**
+     * Danh sách có đúng các khóa học đã đánh chỉ mục với cùng mã, tên môn học
+     * và tên giảng viên (thường chỉ khác số chỗ)
+     */
+    private boolean sameIndexedText(List<Course> catalogue) {
+        if (indexedCourses == null || catalogue.size() != indexedCourses.size()) {
+            return false;
+        }
+        for (Course course : catalogue) {
+            Course indexed = coursesById.get(course.getCourseId());
+            if (indexed == null
+                    || !Objects.equals(indexed.getCourseCode(), course.getCourseCode())
+                    || !Objects.equals(indexed.getSubjectName(), course.getSubjectName())
+                    || !Objects.equals(indexed.getTeacherName(), course.getTeacherName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void refreshCourses(List<Course> catalogue) {
+        Map<Integer, Course> newCoursesById = new HashMap<>();
+        for (Course course : catalogue) {
+            newCoursesById.put(course.getCourseId(), course);
+        }
+        indexedCourses = catalogue;
+        coursesById = newCoursesById;
+    }
+
+    private static void addTerms(NavigableMap<String, Map<Integer, Integer>> target, int courseId,
+                                 String text, int weight) {
+        for (String term : tokenize(text)) {
+            target.computeIfAbsent(term, k -> new HashMap<>()).merge(courseId, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * Tách chuỗi thành các từ đã chuẩn hóa (bỏ dấu, chữ thường)
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String term : SearchText.normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
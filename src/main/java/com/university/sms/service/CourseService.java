@@ -1,9 +1,17 @@
 package com.university.sms.service;
 
+import com.university.sms.common.Constants;
 import com.university.sms.dao.CourseDAO;
+import com.university.sms.dao.Page;
 import com.university.sms.model.Course;
+import com.university.sms.util.LruCache;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -12,6 +20,27 @@ import java.util.logging.Logger;
 public class CourseService {
     private static final Logger LOGGER = Logger.getLogger(CourseService.class.getName());
     
+    // Cache danh mục khóa học dùng chung cho mọi phiên; danh mục hiếm khi đổi
+    // nên TTL chỉ là lưới an toàn cho thay đổi ngoài server (sửa trực tiếp DB)
+    private static final int COURSE_CACHE_SIZE = 2000;
+    private static final long COURSE_CACHE_TTL_MILLIS = 5 * 60 * 1000;
+    private static final String ALL_COURSES_KEY = "all";
+    private static final LruCache<Integer, Course> COURSES_BY_ID =
+        new LruCache<>(COURSE_CACHE_SIZE, COURSE_CACHE_TTL_MILLIS);
+    private static final LruCache<String, List<Course>> COURSE_LISTS =
+        new LruCache<>(1, COURSE_CACHE_TTL_MILLIS);
+    
+    // ETag khóa học = phiên bản SQL + generation. Generation tăng sau mọi thao
+    // tác ghi qua server nên không phải truy vấn database ở mỗi lần đọc; phiên
+    // bản SQL chỉ đọc lại theo TTL của cache để nhận thay đổi sửa thẳng DB
+    private static final AtomicLong CATALOGUE_GENERATION = new AtomicLong();
+    private static final LruCache<String, String> DATA_VERSIONS =
+        new LruCache<>(1, COURSE_CACHE_TTL_MILLIS);
+    
+    // Mã lỗi MySQL khi MATCH không tìm thấy FULLTEXT index tương ứng
+    private static final int ER_FT_MATCHING_KEY_NOT_FOUND = 1191;
+    private static volatile boolean fullTextAvailable = true;
+    
     private CourseDAO courseDAO;
 
     public CourseService() {
@@ -23,13 +52,91 @@ public class CourseService {
      */
     public List<Course> getAllCourses() {
         try {
-            return courseDAO.findAll();
+            List<Course> courses = COURSE_LISTS.get(ALL_COURSES_KEY, key -> {
+                // DAO trả về danh sách rỗng khi lỗi SQL: không cache kết quả đó
+                List<Course> loaded = courseDAO.findAll();
+                return loaded.isEmpty() ? null : List.copyOf(loaded);
+            });
+            return courses != null ? courses : List.of();
         } catch (Exception e) {
             LOGGER.severe("Error getting all courses: " + e.getMessage());
             return List.of();
         }
     }
 
+    /**
+     * Lấy một trang khóa học sau mã khóa học cursor (null = trang đầu)
+     */
+    public Page<Course> getCoursesPage(String cursor, int pageSize) {
+        try {
+            return courseDAO.findPage(cursor, clampPageSize(pageSize));
+        } catch (Exception e) {
+            LOGGER.severe("Error getting course page: " + e.getMessage());
+            return new Page<>(List.of(), cursor, false);
+        }
+    }
+
+    /**
+     * Lấy cửa sổ khóa học [offset, offset + limit) đã sắp xếp và lọc ở server.
+     * sortField là tên CourseDAO.SortField; không hợp lệ thì sắp theo mã khóa học.
+     */
+    public List<Course> getCoursesWindow(int offset, int limit, String sortField, boolean ascending,
+                                         Course.CourseStatus status) {
+        try {
+            return courseDAO.findWindow(Math.max(0, offset), clampPageSize(limit),
+                                        parseSortField(sortField), ascending, status);
+        } catch (Exception e) {
+            LOGGER.severe("Error getting course window: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Phiên bản hiện tại của dữ liệu khóa học (null = không xác định được).
+     * Generation được đọc trước dữ liệu: ghi xen giữa chỉ làm ETag cũ hơn dữ
+     * liệu, client nhận lại đầy đủ ở lần sau.
+     */
+    public String getDataVersion() {
+        try {
+            long generation = CATALOGUE_GENERATION.get();
+            String stored = DATA_VERSIONS.get(ALL_COURSES_KEY, key -> courseDAO.getDataVersion());
+            return stored != null ? stored + "." + generation : null;
+        } catch (Exception e) {
+            LOGGER.severe("Error getting course data version: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Đếm khóa học theo trạng thái (null = tất cả)
+     */
+    public int countCourses(Course.CourseStatus status) {
+        try {
+            return courseDAO.countCourses(status);
+        } catch (Exception e) {
+            LOGGER.severe("Error counting courses: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static CourseDAO.SortField parseSortField(String sortField) {
+        if (sortField != null) {
+            try {
+                return CourseDAO.SortField.valueOf(sortField);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Unknown course sort field: " + sortField);
+            }
+        }
+        return CourseDAO.SortField.COURSE_CODE;
+    }
+
+    private static int clampPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            return Constants.DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(pageSize, Constants.MAX_PAGE_SIZE);
+    }
+
     /**
      * Lấy khóa học theo ID
      */
@@ -39,7 +146,7 @@ public class CourseService {
         }
 
         try {
-            return courseDAO.findById(courseId);
+            return COURSES_BY_ID.get(courseId, courseDAO::findById);
         } catch (Exception e) {
             LOGGER.severe("Error getting course by ID: " + e.getMessage());
             return null;
@@ -141,6 +248,7 @@ public class CourseService {
             boolean success = courseDAO.addCourse(course);
             if (success) {
                 LOGGER.info("Course added successfully: " + course.getCourseCode());
+                onCatalogueChanged();
             }
             return success;
         } catch (Exception e) {
@@ -162,6 +270,7 @@ public class CourseService {
             boolean success = courseDAO.updateCourse(course);
             if (success) {
                 LOGGER.info("Course updated successfully: " + course.getCourseCode());
+                onCatalogueChanged();
             }
             return success;
         } catch (Exception e) {
@@ -183,6 +292,7 @@ public class CourseService {
             boolean success = courseDAO.updateCourseStatus(courseId, status);
             if (success) {
                 LOGGER.info("Course status updated successfully: " + courseId + " -> " + status);
+                onCatalogueChanged();
             }
             return success;
         } catch (Exception e) {
@@ -216,6 +326,7 @@ public class CourseService {
             boolean success = courseDAO.deleteCourse(courseId);
             if (success) {
                 LOGGER.info("Course deleted successfully: " + courseId);
+                onCatalogueChanged();
             }
             return success;
         } catch (Exception e) {
@@ -233,13 +344,79 @@ public class CourseService {
         }
 
         try {
-            return courseDAO.searchCourses(keyword.trim());
+            return searchCoursesPage(keyword, null, Constants.MAX_PAGE_SIZE).getItems();
         } catch (Exception e) {
             LOGGER.severe("Error searching courses: " + e.getMessage());
             return List.of();
         }
     }
 
+    /**
+     * Tìm kiếm khóa học theo độ liên quan, phân trang theo offset.
+     * Dùng FULLTEXT index của MySQL; nếu database chưa có index (chưa chạy
+     * database_migration_fulltext.sql) thì chuyển hẳn sang CourseSearchIndex.
+     *
+     * @param cursor offset của trang cần lấy (null = trang đầu)
+     */
+    public Page<Course> searchCoursesPage(String keyword, String cursor, int pageSize) {
+        int offset = parseOffset(cursor);
+        int size = clampPageSize(pageSize);
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return new Page<>(List.of(), String.valueOf(offset), false);
+        }
+
+        if (fullTextAvailable) {
+            String booleanQuery = toBooleanQuery(keyword);
+            try {
+                if (!booleanQuery.isEmpty()) {
+                    return courseDAO.fullTextSearchPage(booleanQuery, escapeLike(keyword.trim()), offset, size);
+                }
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ER_FT_MATCHING_KEY_NOT_FOUND) {
+                    LOGGER.log(Level.SEVERE, "Error searching courses with keyword: " + keyword, e);
+                    return new Page<>(List.of(), String.valueOf(offset), false);
+                }
+                fullTextAvailable = false;
+                LOGGER.warning("FULLTEXT indexes not found, using in-memory course search index. " +
+                               "Run database_migration_fulltext.sql to enable full-text search.");
+            }
+        }
+
+        return CourseSearchIndex.getInstance().search(getAllCourses(), keyword, offset, size);
+    }
+
+    private static int parseOffset(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(cursor));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Chuyển từ khóa thành truy vấn BOOLEAN MODE: mỗi từ khớp theo tiền tố,
+     * các toán tử của người dùng (+ - " ( ) ...) bị loại bỏ
+     */
+    private static String toBooleanQuery(String keyword) {
+        StringBuilder query = new StringBuilder();
+        for (String term : keyword.split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append(term).append('*');
+            }
+        }
+        return query.toString();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     /**
      * Kiểm tra khóa học có tồn tại không
      */
@@ -282,87 +459,109 @@ public class CourseService {
     }
 
     /**
-     * Tăng số lượng sinh viên hiện tại
+     * Lấy thống kê khóa học; null nếu không đọc được từ database
      */
-    public boolean incrementCurrentStudents(int courseId) {
-        if (courseId <= 0) {
-            return false;
-        }
-
+    public CourseStatistics getCourseStatistics(String academicYear, int semester) {
         try {
-            Course course = courseDAO.findById(courseId);
-            if (course == null || course.getCurrentStudents() >= course.getMaxStudents()) {
-                return false;
-            }
-
-            return courseDAO.updateCurrentStudents(courseId, course.getCurrentStudents() + 1);
+            Map<Course.CourseStatus, CourseDAO.StatusSummary> summary =
+                courseDAO.summarizeByStatus(academicYear, semester);
+            
+            CourseStatistics stats = new CourseStatistics();
+            stats.setTotalCourses(summary.values().stream().mapToInt(CourseDAO.StatusSummary::getCourseCount).sum());
+            stats.setPlanningCourses(countCourses(summary, Course.CourseStatus.PLANNING));
+            stats.setOngoingCourses(countCourses(summary, Course.CourseStatus.ONGOING));
+            stats.setCompletedCourses(countCourses(summary, Course.CourseStatus.COMPLETED));
+            stats.setCancelledCourses(countCourses(summary, Course.CourseStatus.CANCELLED));
+            stats.setTotalEnrollments(summary.values().stream().mapToInt(CourseDAO.StatusSummary::getCurrentStudents).sum());
+            
+            return stats;
         } catch (Exception e) {
-            LOGGER.severe("Error incrementing current students: " + e.getMessage());
-            return false;
+            LOGGER.severe("Error getting course statistics: " + e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Giảm số lượng sinh viên hiện tại
+     * Xóa cache danh mục khóa học. Được gọi sau mọi thao tác ghi khóa học;
+     * danh sách chứa mọi khóa học nên xóa toàn bộ thay vì từng phần tử.
+     * Phiên bản SQL cũng được đọc lại (admin xóa cache sau khi sửa thẳng DB).
      */
-    public boolean decrementCurrentStudents(int courseId) {
-        if (courseId <= 0) {
-            return false;
-        }
+    public static void flushCache() {
+        COURSE_LISTS.invalidateAll();
+        COURSES_BY_ID.invalidateAll();
+        DATA_VERSIONS.invalidateAll();
+        CATALOGUE_GENERATION.incrementAndGet();
+    }
 
-        try {
-            Course course = courseDAO.findById(courseId);
-            if (course == null || course.getCurrentStudents() <= 0) {
-                return false;
+    /**
+     * Ghi số chỗ đã commit vào các khóa học đang có trong cache, thay vì xóa
+     * cả danh mục sau mỗi lô đăng ký. Object trong cache có thể đang được
+     * phiên khác đọc hoặc serialize nên không sửa tại chỗ: thay bằng bản sao
+     * đã đổi số chỗ, danh mục được dựng lại từ bản sao. Nếu cache đã đổi trong
+     * lúc đó (thao tác ghi khác, hết hạn) thì xóa khóa để lần sau nạp lại.
+     * replace/invalidate đều tăng generation, tránh lần nạp đang chạy từ trước
+     * commit ghi số cũ vào cache.
+     *
+     * @param seatCounts course_id -> current_students đã commit
+     */
+    public static void applySeatCounts(Map<Integer, Integer> seatCounts) {
+        if (seatCounts.isEmpty()) {
+            return;
+        }
+        seatCounts.forEach((courseId, currentStudents) -> {
+            Course cached = COURSES_BY_ID.peek(courseId);
+            if (cached == null || !COURSES_BY_ID.replace(courseId, cached, withSeats(cached, currentStudents))) {
+                COURSES_BY_ID.invalidate(courseId);
             }
+        });
+        List<Course> catalogue = COURSE_LISTS.peek(ALL_COURSES_KEY);
+        if (catalogue == null || !COURSE_LISTS.replace(ALL_COURSES_KEY, catalogue, withSeats(catalogue, seatCounts))) {
+            COURSE_LISTS.invalidate(ALL_COURSES_KEY);
+        }
+        CATALOGUE_GENERATION.incrementAndGet();
+    }
 
-            return courseDAO.updateCurrentStudents(courseId, course.getCurrentStudents() - 1);
-        } catch (Exception e) {
-            LOGGER.severe("Error decrementing current students: " + e.getMessage());
-            return false;
+    private static Course withSeats(Course course, int currentStudents) {
+        Course copy = new Course(course);
+        copy.setCurrentStudents(currentStudents);
+        return copy;
+    }
+
+    private static List<Course> withSeats(List<Course> catalogue, Map<Integer, Integer> seatCounts) {
+        List<Course> patched = new ArrayList<>(catalogue.size());
+        for (Course course : catalogue) {
+            Integer currentStudents = seatCounts.get(course.getCourseId());
+            patched.add(currentStudents != null ? withSeats(course, currentStudents) : course);
         }
+        return List.copyOf(patched);
     }
 
     /**
-     * Lấy thống kê khóa học
+     * Sau thao tác ghi khóa học: xóa cache và snapshot thống kê khóa học
      */
-    public CourseStatistics getCourseStatistics(String academicYear, int semester) {
-        try {
-            List<Course> courses = courseDAO.findByAcademicYearAndSemester(academicYear, semester);
-            
-            CourseStatistics stats = new CourseStatistics();
-            stats.setTotalCourses(courses.size());
-            
-            long planningCount = courses.stream()
-                .filter(c -> c.getCourseStatus() == Course.CourseStatus.PLANNING)
-                .count();
-            stats.setPlanningCourses((int) planningCount);
-            
-            long ongoingCount = courses.stream()
-                .filter(c -> c.getCourseStatus() == Course.CourseStatus.ONGOING)
-                .count();
-            stats.setOngoingCourses((int) ongoingCount);
-            
-            long completedCount = courses.stream()
-                .filter(c -> c.getCourseStatus() == Course.CourseStatus.COMPLETED)
-                .count();
-            stats.setCompletedCourses((int) completedCount);
-            
-            long cancelledCount = courses.stream()
-                .filter(c -> c.getCourseStatus() == Course.CourseStatus.CANCELLED)
-                .count();
-            stats.setCancelledCourses((int) cancelledCount);
-            
-            int totalEnrollments = courses.stream()
-                .mapToInt(Course::getCurrentStudents)
-                .sum();
-            stats.setTotalEnrollments(totalEnrollments);
-            
-            return stats;
-        } catch (Exception e) {
-            LOGGER.severe("Error getting course statistics: " + e.getMessage());
-            return new CourseStatistics();
-        }
+    private static void onCatalogueChanged() {
+        flushCache();
+        StatisticsService.getInstance().invalidateCourseStatistics();
+    }
+
+    /**
+     * Thống kê cache khóa học theo ID
+     */
+    public static LruCache.CacheStatistics getCourseCacheStatistics() {
+        return COURSES_BY_ID.getStatistics();
+    }
+
+    /**
+     * Thống kê cache danh sách khóa học
+     */
+    public static LruCache.CacheStatistics getCourseListCacheStatistics() {
+        return COURSE_LISTS.getStatistics();
+    }
+
+    private static int countCourses(Map<Course.CourseStatus, CourseDAO.StatusSummary> summary,
+                                    Course.CourseStatus status) {
+        CourseDAO.StatusSummary entry = summary.get(status);
+        return entry != null ? entry.getCourseCount() : 0;
     }
 
     /**
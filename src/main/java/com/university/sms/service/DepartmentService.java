@@ -0,0 +1,32 @@
+package com.university.sms.service;
+
+import com.university.sms.dao.DepartmentDAO;
+import com.university.sms.model.Department;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Service xử lý các thao tác liên quan đến khoa
+ */
+public class DepartmentService {
+    private static final Logger LOGGER = Logger.getLogger(DepartmentService.class.getName());
+
+    private DepartmentDAO departmentDAO;
+
+    public DepartmentService() {
+        this.departmentDAO = new DepartmentDAO();
+    }
+
+    /**
+     * Lấy tất cả khoa
+     */
+    public List<Department> getAllDepartments() {
+        try {
+            return departmentDAO.findAll();
+        } catch (Exception e) {
+            LOGGER.severe("Error getting all departments: " + e.getMessage());
+            return List.of();
+        }
+    }
+}
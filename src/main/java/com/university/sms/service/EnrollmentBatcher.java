@@ -0,0 +1,167 @@
+package com.university.sms.service;
+
+import com.university.sms.common.Constants;
+import com.university.sms.dao.EnrollmentDAO;
+import com.university.sms.dao.EnrollmentDAO.EnrollResult;
+import com.university.sms.dao.EnrollmentDAO.EnrollmentOperation;
+import com.university.sms.model.Course;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Gom các yêu cầu đăng ký/hủy đăng ký đến gần nhau thành một transaction.
+ *
+ * Một thread duy nhất lấy yêu cầu từ hàng đợi: yêu cầu đầu tiên mở một cửa sổ
+ * BATCH_WINDOW_MILLIS, mọi yêu cầu đến trong cửa sổ (tối đa MAX_BATCH_SIZE)
+ * được ghi bằng EnrollmentDAO.processBatch với một lần commit. Lúc mở đăng ký,
+ * chi phí commit được chia cho cả lô thay vì trả cho từng yêu cầu.
+ */
+public class EnrollmentBatcher {
+    private static final Logger LOGGER = Logger.getLogger(EnrollmentBatcher.class.getName());
+
+    private static final long BATCH_WINDOW_MILLIS = 5;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int QUEUE_CAPACITY = 20000;
+
+    private static final EnrollmentBatcher INSTANCE = new EnrollmentBatcher(new EnrollmentDAO());
+
+    private final EnrollmentDAO enrollmentDAO;
+    private final CourseService courseService = new CourseService();
+    private final BlockingQueue<PendingOperation> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread worker;
+
+    private static class PendingOperation {
+        final EnrollmentOperation operation;
+        final CompletableFuture<EnrollResult> result = new CompletableFuture<>();
+
+        PendingOperation(EnrollmentOperation operation) {
+            this.operation = operation;
+        }
+    }
+
+    private EnrollmentBatcher(EnrollmentDAO enrollmentDAO) {
+        this.enrollmentDAO = enrollmentDAO;
+        this.worker = new Thread(this::runLoop, "EnrollmentBatcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public static EnrollmentBatcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Đưa thao tác vào hàng đợi; hàng đợi đầy thì trả về BUSY ngay
+     */
+    public CompletableFuture<EnrollResult> submit(EnrollmentOperation operation) {
+        PendingOperation pending = new PendingOperation(operation);
+        if (!queue.offer(pending)) {
+            pending.result.complete(EnrollResult.BUSY);
+        }
+        return pending.result;
+    }
+
+    private void runLoop() {
+        List<PendingOperation> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_WINDOW_MILLIS);
+                while (batch.size() < MAX_BATCH_SIZE) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingOperation next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Error in enrollment batcher", e);
+                for (PendingOperation pending : batch) {
+                    pending.result.complete(EnrollResult.ERROR);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<PendingOperation> batch) {
+        List<EnrollmentOperation> operations = new ArrayList<>(batch.size());
+        for (PendingOperation pending : batch) {
+            operations.add(pending.operation);
+        }
+
+        EnrollmentDAO.BatchResult batchResult = enrollmentDAO.processBatch(operations);
+        EnrollResult[] results = batchResult.getResults();
+
+        // Khóa học -> thay đổi số chỗ của cả lô
+        Map<Integer, Integer> seatDeltas = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == EnrollResult.ENROLLED || results[i] == EnrollResult.DROPPED) {
+                EnrollmentOperation operation = operations.get(i);
+                seatDeltas.merge(operation.getCourseId(), results[i] == EnrollResult.ENROLLED ? 1 : -1, Integer::sum);
+                publishEnrollmentChange(operation, results[i]);
+            }
+        }
+        // Chỉ số chỗ của các khóa học trong lô đổi: cập nhật chúng trong cache
+        Map<Integer, Integer> seatCounts = batchResult.getSeatCounts();
+        CourseService.applySeatCounts(seatCounts);
+        seatDeltas.forEach((courseId, delta) -> {
+            Integer currentStudents = seatCounts.get(courseId);
+            if (currentStudents != null) {
+                onSeatsChanged(courseId, delta, currentStudents);
+            }
+        });
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(results[i]);
+        }
+        LOGGER.fine("Processed enrollment batch of " + batch.size());
+    }
+
+    /**
+     * Cập nhật snapshot số đăng ký của học kỳ chứa khóa học và phát số chỗ mới.
+     * Số chỗ phát đi là current_students đã commit của lô (không cộng delta
+     * vào bản đọc từ cache). Mỗi khóa học chỉ phát một lần cho cả lô.
+     */
+    private void onSeatsChanged(int courseId, int delta, int currentStudents) {
+        Course course = courseService.getCourseById(courseId);
+        if (course == null) {
+            return;
+        }
+        if (delta != 0) {
+            StatisticsService.getInstance().onEnrollmentChanged(course.getAcademicYear(), course.getSemester(), delta);
+        }
+        NotificationHub.getInstance().publish(
+            NotificationHub.topic(Constants.TOPIC_COURSE_SEATS, courseId),
+            Map.of(Constants.KEY_COURSE_ID, courseId,
+                   Constants.KEY_CURRENT_STUDENTS, currentStudents,
+                   Constants.KEY_MAX_STUDENTS, course.getMaxStudents()));
+    }
+
+    /**
+     * Báo cho sinh viên (và người theo dõi điểm của sinh viên) danh sách học phần đã đổi
+     */
+    private void publishEnrollmentChange(EnrollmentOperation operation, EnrollResult result) {
+        NotificationHub.getInstance().publish(
+            NotificationHub.topic(Constants.TOPIC_STUDENT_GRADES, operation.getStudentId()),
+            Map.of(Constants.KEY_STUDENT_ID, operation.getStudentId(),
+                   Constants.KEY_COURSE_ID, operation.getCourseId(),
+                   Constants.KEY_CHANGE, result.name()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.university.sms.service;
+
+import com.university.sms.dao.EnrollmentDAO.EnrollResult;
+import com.university.sms.dao.EnrollmentDAO.EnrollmentOperation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Service xử lý đăng ký và hủy đăng ký học phần.
+ * Các thao tác đi qua EnrollmentBatcher để được ghi theo lô.
+ */
+public class EnrollmentService {
+    private static final Logger LOGGER = Logger.getLogger(EnrollmentService.class.getName());
+
+    private static final long RESULT_TIMEOUT_SECONDS = 30;
+
+    private EnrollmentBatcher batcher;
+
+    public EnrollmentService() {
+        this.batcher = EnrollmentBatcher.getInstance();
+    }
+
+    /**
+     * Đăng ký học phần; kiểm tra chỗ trống và ghi đăng ký trong một transaction
+     */
+    public EnrollResult enroll(int studentId, int courseId) {
+        if (studentId <= 0 || courseId <= 0) {
+            LOGGER.warning("Cannot enroll: Invalid student or course ID");
+            return EnrollResult.ERROR;
+        }
+
+        return await(new EnrollmentOperation(EnrollmentOperation.Type.ENROLL, studentId, courseId));
+    }
+
+    /**
+     * Hủy đăng ký học phần
+     */
+    public EnrollResult drop(int studentId, int courseId) {
+        if (studentId <= 0 || courseId <= 0) {
+            LOGGER.warning("Cannot drop enrollment: Invalid student or course ID");
+            return EnrollResult.ERROR;
+        }
+
+        return await(new EnrollmentOperation(EnrollmentOperation.Type.DROP, studentId, courseId));
+    }
+
+    private EnrollResult await(EnrollmentOperation operation) {
+        try {
+            return batcher.submit(operation).get(RESULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return EnrollResult.ERROR;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error waiting for enrollment result", e);
+            return EnrollResult.ERROR;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.university.sms.service;
+
+import com.university.sms.dao.UserDAO;
+import com.university.sms.dao.UserDAO.LoginRecord;
+import com.university.sms.util.DatabaseConnection;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ghi login_history bất đồng bộ theo lô, để đăng nhập không phải chờ INSERT.
+ *
+ * Thread đăng nhập chỉ thêm LoginRecord vào hàng đợi lock-free có giới hạn.
+ * Một thread nền ghi khi hàng đợi đủ flushSize bản ghi hoặc sau mỗi
+ * flushIntervalMillis, mỗi lô là một transaction (UserDAO.logLoginBatch).
+ * Hàng đợi đầy thì theo OverflowPolicy: DROP bỏ bản ghi mới, BLOCK chờ tối đa
+ * blockTimeoutMillis rồi mới bỏ. shutdown() ghi nốt các bản ghi còn lại.
+ *
+ * Cấu hình trong database.properties (audit.login.*).
+ */
+public class LoginAuditWriter {
+    private static final Logger LOGGER = Logger.getLogger(LoginAuditWriter.class.getName());
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Xử lý khi hàng đợi đầy
+     */
+    public enum OverflowPolicy {
+        /** Bỏ bản ghi mới ngay (đăng nhập không bao giờ chờ) */
+        DROP,
+        /** Chờ hàng đợi vơi tối đa blockTimeoutMillis, quá thời gian thì bỏ */
+        BLOCK
+    }
+
+    /**
+     * Cấu hình của writer
+     */
+    public static class Config {
+        private int queueCapacity = 10000;
+        private int flushSize = 200;
+        private long flushIntervalMillis = 1000;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+        private long blockTimeoutMillis = 50;
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+        public int getFlushSize() { return flushSize; }
+        public void setFlushSize(int flushSize) { this.flushSize = flushSize; }
+
+        public long getFlushIntervalMillis() { return flushIntervalMillis; }
+        public void setFlushIntervalMillis(long flushIntervalMillis) { this.flushIntervalMillis = flushIntervalMillis; }
+
+        public OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) { this.overflowPolicy = overflowPolicy; }
+
+        public long getBlockTimeoutMillis() { return blockTimeoutMillis; }
+        public void setBlockTimeoutMillis(long blockTimeoutMillis) { this.blockTimeoutMillis = blockTimeoutMillis; }
+
+        static Config fromSettings() {
+            Config config = new Config();
+            config.setQueueCapacity(Integer.parseInt(DatabaseConnection.getSetting("audit.login.queue.capacity", "10000")));
+            config.setFlushSize(Integer.parseInt(DatabaseConnection.getSetting("audit.login.flush.size", "200")));
+            config.setFlushIntervalMillis(Long.parseLong(DatabaseConnection.getSetting("audit.login.flush.interval", "1000")));
+            config.setOverflowPolicy(OverflowPolicy.valueOf(
+                DatabaseConnection.getSetting("audit.login.overflow.policy", "DROP").trim().toUpperCase()));
+            config.setBlockTimeoutMillis(Long.parseLong(DatabaseConnection.getSetting("audit.login.block.timeout", "50")));
+            return config;
+        }
+    }
+
+    private static final LoginAuditWriter INSTANCE = new LoginAuditWriter(new UserDAO(), Config.fromSettings());
+
+    private final UserDAO userDAO;
+    private final Config config;
+    private final Queue<LoginRecord> queue = new ConcurrentLinkedQueue<>();
+    // Số bản ghi trong queue (ConcurrentLinkedQueue.size() là O(n))
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private LoginAuditWriter(UserDAO userDAO, Config config) {
+        this.userDAO = userDAO;
+        this.config = config;
+        this.worker = new Thread(this::runLoop, "LoginAuditWriter");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public static LoginAuditWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Đưa một bản ghi vào hàng đợi; trả về false nếu bản ghi bị bỏ
+     */
+    public boolean submit(LoginRecord record) {
+        if (!running) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (!reserveSlot()) {
+            if (dropped.incrementAndGet() % 1000 == 1) {
+                LOGGER.warning("Login audit queue full, dropping records (dropped so far: " + dropped.get() + ")");
+            }
+            return false;
+        }
+
+        queue.add(record);
+        if (queued.get() >= config.getFlushSize()) {
+            LockSupport.unpark(worker);
+        }
+        return true;
+    }
+
+    private boolean reserveSlot() {
+        if (tryReserve()) {
+            return true;
+        }
+        if (config.getOverflowPolicy() == OverflowPolicy.DROP) {
+            return false;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getBlockTimeoutMillis());
+        LockSupport.unpark(worker);
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            if (tryReserve()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryReserve() {
+        while (true) {
+            int current = queued.get();
+            if (current >= config.getQueueCapacity()) {
+                return false;
+            }
+            if (queued.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void runLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMillis());
+        while (running) {
+            if (queued.get() < config.getFlushSize()) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            flush();
+        }
+        // Ghi nốt phần còn lại khi dừng
+        flush();
+    }
+
+    /**
+     * Ghi mọi bản ghi đang chờ theo từng lô flushSize
+     */
+    private void flush() {
+        List<LoginRecord> batch = new ArrayList<>(config.getFlushSize());
+        while (true) {
+            LoginRecord record;
+            while (batch.size() < config.getFlushSize() && (record = queue.poll()) != null) {
+                queued.decrementAndGet();
+                batch.add(record);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                userDAO.logLoginBatch(batch);
+                written.addAndGet(batch.size());
+                batches.incrementAndGet();
+            } catch (SQLException | RuntimeException e) {
+                // Log đăng nhập không quan trọng bằng việc giữ writer chạy: bỏ lô lỗi
+                failed.addAndGet(batch.size());
+                LOGGER.log(Level.SEVERE, "Error writing login history batch of " + batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Dừng nhận bản ghi mới và chờ ghi hết hàng đợi
+     */
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (queued.get() > 0) {
+            LOGGER.warning("Login audit writer stopped with " + queued.get() + " unwritten records");
+        } else {
+            LOGGER.info("Login audit writer flushed (" + written.get() + " records written)");
+        }
+    }
+
+    /**
+     * Thống kê của writer, dạng chuỗi cho màn hình quản trị
+     */
+    public String getMetrics() {
+        return String.format("queued %d, written %d in %d batches, dropped %d, failed %d",
+            queued.get(), written.get(), batches.get(), dropped.get(), failed.get());
+    }
+}
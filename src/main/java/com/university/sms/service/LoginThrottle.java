@@ -0,0 +1,110 @@
+package com.university.sms.service;
+
+import com.university.sms.util.DatabaseConnection;
+import com.university.sms.util.SlidingWindowLimiter;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Giới hạn số lần đăng nhập sai theo username và theo địa chỉ IP, hoàn toàn
+ * trong bộ nhớ.
+ *
+ * Mỗi lần LOGIN tốn một truy vấn users, một lần bcrypt và một bản ghi
+ * login_history; lần thử bị chặn được trả lỗi trước tất cả các việc đó, nên
+ * dò mật khẩu hàng loạt hay script lỗi gửi LOGIN liên tục không đè lên DB.
+ * Giới hạn chặt chỉ tính lần sai: người dùng đăng nhập đúng (kể cả nhiều
+ * người sau cùng một NAT) không bị chặn vì người khác gõ sai. Giới hạn theo IP
+ * chặn một máy thử nhiều tài khoản, giới hạn theo username chặn nhiều máy
+ * cùng thử một tài khoản. Thêm một giới hạn rộng theo username tính mọi lần
+ * thử, kể cả lần đúng: script lặp LOGIN với mật khẩu đúng cũng không thể tốn
+ * bcrypt và DB không giới hạn.
+ *
+ * Cấu hình trong database.properties (auth.throttle.*).
+ */
+public class LoginThrottle {
+    private static final Logger LOGGER = Logger.getLogger(LoginThrottle.class.getName());
+
+    private static final LoginThrottle INSTANCE = new LoginThrottle();
+
+    private final SlidingWindowLimiter byAddress;
+    private final SlidingWindowLimiter byUsername;
+    private final SlidingWindowLimiter attemptsByUsername;
+
+    private LoginThrottle() {
+        int slots = Integer.parseInt(DatabaseConnection.getSetting("auth.throttle.slots", "65536"));
+        this.byAddress = new SlidingWindowLimiter(
+            Integer.parseInt(DatabaseConnection.getSetting("auth.throttle.ip.limit", "30")),
+            Long.parseLong(DatabaseConnection.getSetting("auth.throttle.ip.window", "60000")), slots);
+        this.byUsername = new SlidingWindowLimiter(
+            Integer.parseInt(DatabaseConnection.getSetting("auth.throttle.user.limit", "10")),
+            Long.parseLong(DatabaseConnection.getSetting("auth.throttle.user.window", "60000")), slots);
+        this.attemptsByUsername = new SlidingWindowLimiter(
+            Integer.parseInt(DatabaseConnection.getSetting("auth.throttle.user.attempts.limit", "60")),
+            Long.parseLong(DatabaseConnection.getSetting("auth.throttle.user.attempts.window", "60000")), slots);
+    }
+
+    public static LoginThrottle getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Kiểm tra trước khi xác thực và ghi nhận lần thử nếu được phép; false nếu
+     * IP hoặc username đã đăng nhập sai quá nhiều lần, hoặc username đã thử
+     * quá nhiều lần (đúng hay sai) trong cửa sổ. Lần bị chặn không được tính.
+     *
+     * @param remoteAddress địa chỉ kết nối dạng "/host:port"
+     */
+    public boolean tryAttempt(String remoteAddress, String username) {
+        if (!byAddress.allows(host(remoteAddress))) {
+            LOGGER.fine("Login throttled for address " + remoteAddress);
+            return false;
+        }
+        String key = normalize(username);
+        if (!byUsername.allows(key)) {
+            LOGGER.fine("Login throttled for username " + username);
+            return false;
+        }
+        if (!attemptsByUsername.allows(key)) {
+            LOGGER.fine("Login attempts throttled for username " + username);
+            return false;
+        }
+        attemptsByUsername.record(key);
+        return true;
+    }
+
+    /**
+     * Ghi nhận một lần đăng nhập sai
+     */
+    public void recordFailure(String remoteAddress, String username) {
+        byAddress.record(host(remoteAddress));
+        byUsername.record(normalize(username));
+    }
+
+    private static String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Bỏ cổng và dấu "/" đầu của địa chỉ socket, để mọi kết nối từ một máy
+     * dùng chung bộ đếm
+     */
+    private static String host(String remoteAddress) {
+        if (remoteAddress == null) {
+            return "";
+        }
+        int start = remoteAddress.startsWith("/") ? 1 : remoteAddress.indexOf('/') + 1;
+        int end = remoteAddress.lastIndexOf(':');
+        return end > start ? remoteAddress.substring(start, end) : remoteAddress.substring(start);
+    }
+
+    /**
+     * Số lần đăng nhập sai và số lần thử bị chặn, dạng chuỗi cho màn hình quản trị
+     */
+    public String getMetrics() {
+        return String.format("allowed %d, failures %d, rejected by address %d, rejected by username %d, "
+            + "rejected by attempt rate %d",
+            attemptsByUsername.getRecordedCount(), byUsername.getRecordedCount(), byAddress.getRejectedCount(),
+            byUsername.getRejectedCount(), attemptsByUsername.getRejectedCount());
+    }
+}
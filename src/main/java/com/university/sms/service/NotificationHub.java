@@ -0,0 +1,163 @@
+package com.university.sms.service;
+
+import com.university.sms.common.Constants;
+import com.university.sms.common.Message;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Kênh publish/subscribe cho thay đổi dữ liệu (số chỗ khóa học, sinh viên của
+ * khoa, điểm của sinh viên).
+ *
+ * Service gọi publish() sau khi ghi thành công; hub tạo một NOTIFICATION và
+ * trao cho mọi subscriber của topic cụ thể ("course.seats:12") và của loại
+ * topic ("course.seats"). Subscriber (mỗi kết nối một hàng đợi riêng) chỉ
+ * nhận message vào hàng đợi rồi trả về ngay, nên publish không bao giờ chờ
+ * client đọc chậm; việc ghi ra socket chạy ở thread của subscriber.
+ */
+public class NotificationHub {
+    private static final Logger LOGGER = Logger.getLogger(NotificationHub.class.getName());
+
+    private static final NotificationHub INSTANCE = new NotificationHub();
+
+    /**
+     * Nơi nhận notification của một kết nối. deliver() không được block.
+     */
+    public interface Subscriber {
+        /**
+         * @param coalesceKey notification sau có cùng key thay thế notification
+         *                    trước nếu notification trước chưa được gửi
+         */
+        void deliver(String coalesceKey, Message notification);
+    }
+
+    // Topic -> các subscriber của topic
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    // Mọi kết nối, nhận broadcast
+    private final Set<Subscriber> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong broadcastSequence = new AtomicLong();
+
+    private NotificationHub() {
+    }
+
+    public static NotificationHub getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Topic cụ thể của một đối tượng, ví dụ topic(TOPIC_COURSE_SEATS, 12) = "course.seats:12"
+     */
+    public static String topic(String type, int id) {
+        return type + Constants.TOPIC_SEPARATOR + id;
+    }
+
+    /**
+     * Loại của topic ("course.seats:12" -> "course.seats")
+     */
+    public static String topicType(String topic) {
+        int separator = topic.indexOf(Constants.TOPIC_SEPARATOR);
+        return separator < 0 ? topic : topic.substring(0, separator);
+    }
+
+    public void register(Subscriber subscriber) {
+        connections.add(subscriber);
+    }
+
+    /**
+     * Bỏ kết nối và mọi topic nó đã đăng ký
+     */
+    public void unregister(Subscriber subscriber, Set<String> topics) {
+        connections.remove(subscriber);
+        for (String topic : topics) {
+            unsubscribe(topic, subscriber);
+        }
+    }
+
+    public void subscribe(String topic, Subscriber subscriber) {
+        // compute (không phải computeIfAbsent + add) để không chen giữa lúc unsubscribe bỏ set rỗng
+        subscribers.compute(topic, (k, set) -> {
+            Set<Subscriber> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(subscriber);
+            return target;
+        });
+    }
+
+    public void unsubscribe(String topic, Subscriber subscriber) {
+        subscribers.computeIfPresent(topic, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Phát thay đổi của topic cụ thể cho các subscriber
+     *
+     * @param data nội dung đi kèm (KEY_TOPIC được thêm tự động)
+     */
+    public void publish(String topic, Map<String, Object> data) {
+        Set<Subscriber> exact = subscribers.get(topic);
+        String type = topicType(topic);
+        Set<Subscriber> byType = type.equals(topic) ? null : subscribers.get(type);
+        if ((exact == null || exact.isEmpty()) && (byType == null || byType.isEmpty())) {
+            return;
+        }
+
+        Message notification = Message.createNotification(Constants.ACTION_ENTITY_CHANGED, null);
+        notification.addData(Constants.KEY_TOPIC, topic);
+        data.forEach(notification::addData);
+        published.incrementAndGet();
+
+        if (exact != null) {
+            for (Subscriber subscriber : exact) {
+                subscriber.deliver(topic, notification);
+                delivered.incrementAndGet();
+            }
+        }
+        if (byType != null) {
+            for (Subscriber subscriber : byType) {
+                // Kết nối đăng ký cả loại lẫn topic cụ thể chỉ nhận một bản
+                if (exact == null || !exact.contains(subscriber)) {
+                    subscriber.deliver(topic, notification);
+                    delivered.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gửi thông báo văn bản tới mọi kết nối (không gộp)
+     */
+    public int broadcast(String text) {
+        Message notification = Message.createNotification(Constants.ACTION_BROADCAST, text);
+        String key = Constants.ACTION_BROADCAST + Constants.TOPIC_SEPARATOR + broadcastSequence.incrementAndGet();
+        int count = 0;
+        for (Subscriber subscriber : connections) {
+            subscriber.deliver(key, notification);
+            count++;
+        }
+        delivered.addAndGet(count);
+        LOGGER.fine("Broadcast delivered to " + count + " connections");
+        return count;
+    }
+
+    /**
+     * Số topic đang có subscriber
+     */
+    public int getTopicCount() {
+        return subscribers.size();
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+}
@@ -0,0 +1,227 @@
+package com.university.sms.service;
+
+import com.university.sms.util.DatabaseConnection;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Băm và kiểm tra mật khẩu bằng bcrypt trên một thread pool riêng.
+ *
+ * bcrypt tốn CPU có chủ đích; chạy trên thread xử lý yêu cầu thì lúc cả khóa
+ * đăng nhập cùng lúc, các yêu cầu đọc thông thường sẽ thiếu CPU. Pool chỉ
+ * dùng khoảng nửa số core, hàng đợi có giới hạn: hàng đợi đầy thì từ chối ngay
+ * (BUSY), chờ quá timeout thì bỏ. Nhờ vậy số core dành cho bcrypt có trần.
+ *
+ * Thread gọi verify/hash bị block trong lúc chờ kết quả, nên số thread được
+ * chờ cùng lúc cũng có trần (auth.hash.max.waiters, mặc định bằng số core,
+ * tức nhiều nhất nửa số worker xử lý yêu cầu): lúc cả khóa đăng nhập cùng
+ * lúc, phần worker còn lại vẫn phục vụ yêu cầu khác thay vì cùng nằm chờ
+ * bcrypt; thread vượt trần nhận BUSY ngay.
+ *
+ * Mật khẩu cũ lưu plain text vẫn được kiểm tra (so sánh thời gian hằng) để
+ * AuthenticationService nâng cấp lên bcrypt sau lần đăng nhập thành công.
+ *
+ * Cấu hình trong database.properties (auth.*).
+ */
+public class PasswordHasher {
+    private static final Logger LOGGER = Logger.getLogger(PasswordHasher.class.getName());
+
+    private static final PasswordHasher INSTANCE = new PasswordHasher(
+        Integer.parseInt(DatabaseConnection.getSetting("auth.bcrypt.cost", "10")),
+        Integer.parseInt(DatabaseConnection.getSetting("auth.hash.threads",
+            String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / 2)))),
+        Integer.parseInt(DatabaseConnection.getSetting("auth.hash.queue.capacity", "64")),
+        Integer.parseInt(DatabaseConnection.getSetting("auth.hash.max.waiters",
+            String.valueOf(Math.max(2, Runtime.getRuntime().availableProcessors())))),
+        Long.parseLong(DatabaseConnection.getSetting("auth.hash.timeout", "5000")));
+
+    /**
+     * Kết quả kiểm tra mật khẩu
+     */
+    public enum Verification {
+        MATCH,
+        MISMATCH,
+        /** Pool bận (hàng đợi đầy hoặc quá timeout), chưa kiểm tra được */
+        BUSY
+    }
+
+    private final int cost;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final int maxWaiters;
+    private final Semaphore waiters;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    PasswordHasher(int cost, int threads, int queueCapacity, int maxWaiters, long timeoutMillis) {
+        this.cost = cost;
+        this.timeoutMillis = timeoutMillis;
+        this.maxWaiters = maxWaiters;
+        this.waiters = new Semaphore(maxWaiters);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                Thread thread = new Thread(r, "PasswordHasher-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                // Ưu tiên thấp hơn thread xử lý yêu cầu đọc
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
+        LOGGER.info("Password hasher: " + threads + " threads, queue " + queueCapacity + ", "
+                    + maxWaiters + " waiting callers, bcrypt cost " + cost);
+    }
+
+    public static PasswordHasher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Giá trị lưu trong cột password là bcrypt hash (không phải plain text cũ)
+     */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.length() == 60
+            && (stored.startsWith("$2a$") || stored.startsWith("$2b$") || stored.startsWith("$2y$"));
+    }
+
+    /**
+     * Kiểm tra mật khẩu với giá trị đã lưu (bcrypt hoặc plain text cũ)
+     */
+    public Verification verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return Verification.MISMATCH;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                                         stored.getBytes(StandardCharsets.UTF_8))
+                ? Verification.MATCH : Verification.MISMATCH;
+        }
+
+        Boolean match = run(() -> BCrypt.checkpw(password, stored));
+        if (match == null) {
+            return Verification.BUSY;
+        }
+        return match ? Verification.MATCH : Verification.MISMATCH;
+    }
+
+    /**
+     * Băm mật khẩu; null nếu pool bận
+     */
+    public String hash(String password) {
+        return run(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    /**
+     * Băm mật khẩu không chờ (dùng để nâng cấp mật khẩu cũ); future hoàn thành
+     * bằng null nếu pool bận
+     */
+    public CompletableFuture<String> hashAsync(String password) {
+        Callable<String> task = timed(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Chạy task trên pool và chờ tối đa timeoutMillis; null nếu bị từ chối/quá hạn
+     * hoặc đã đủ số thread đang chờ
+     */
+    private <T> T run(Callable<T> task) {
+        if (!waiters.tryAcquire()) {
+            rejected.incrementAndGet();
+            return null;
+        }
+        try {
+            return await(task);
+        } finally {
+            waiters.release();
+        }
+    }
+
+    private <T> T await(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(timed(task));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return null;
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Còn trong hàng đợi thì không chạy nữa
+            future.cancel(false);
+            timedOut.incrementAndGet();
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.WARNING, "Password hashing failed", e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Bọc task để đo thời gian chờ trong hàng đợi và thời gian băm
+     */
+    private <T> Callable<T> timed(Callable<T> task) {
+        long submitted = System.nanoTime();
+        return () -> {
+            long started = System.nanoTime();
+            long wait = started - submitted;
+            totalWaitNanos.addAndGet(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+            try {
+                return task.call();
+            } finally {
+                totalHashNanos.addAndGet(System.nanoTime() - started);
+                completed.incrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Độ sâu hàng đợi và độ trễ, dạng chuỗi cho màn hình quản trị
+     */
+    public String getMetrics() {
+        long count = completed.get();
+        return String.format("queue %d, active %d, waiting callers %d/%d, completed %d, avg wait %.1f ms (max %.1f ms), "
+                             + "avg hash %.1f ms, rejected %d, timed out %d",
+            executor.getQueue().size(), executor.getActiveCount(), maxWaiters - waiters.availablePermits(), maxWaiters, count,
+            count == 0 ? 0.0 : totalWaitNanos.get() / 1e6 / count, maxWaitNanos.get() / 1e6,
+            count == 0 ? 0.0 : totalHashNanos.get() / 1e6 / count, rejected.get(), timedOut.get());
+    }
+}
@@ -0,0 +1,132 @@
+package com.university.sms.service;
+
+import com.university.sms.common.Constants;
+import com.university.sms.model.User;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Phiên đăng nhập phía server, tách khỏi kết nối TCP.
+ *
+ * Đăng nhập thành công nhận một token ngẫu nhiên (không chứa thông tin gì);
+ * khi mất kết nối, client kết nối lại và gửi RESUME_SESSION kèm token để lấy
+ * lại người dùng đã xác thực mà không truy vấn bảng users hay ghi
+ * login_history. Phiên hết hạn sau DEFAULT_SESSION_TIMEOUT không dùng (mỗi
+ * yêu cầu trên kết nối gia hạn phiên) và bị hủy khi đăng xuất, đổi mật khẩu
+ * hoặc khóa tài khoản.
+ */
+public class SessionStore {
+    private static final Logger LOGGER = Logger.getLogger(SessionStore.class.getName());
+
+    private static final int TOKEN_BYTES = 32;
+    private static final long SWEEP_INTERVAL_MILLIS = 60000;
+
+    private static final SessionStore INSTANCE = new SessionStore(Constants.DEFAULT_SESSION_TIMEOUT);
+
+    private final long idleTimeoutMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    private static class Session {
+        final User user;
+        volatile long lastAccess;
+
+        Session(User user) {
+            this.user = user;
+            this.lastAccess = System.currentTimeMillis();
+        }
+    }
+
+    private SessionStore(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "SessionStore-Sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleWithFixedDelay(this::removeExpired, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS,
+                                            TimeUnit.MILLISECONDS);
+    }
+
+    public static SessionStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Tạo phiên cho người dùng vừa đăng nhập, trả về token
+     */
+    public String create(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user));
+        return token;
+    }
+
+    /**
+     * Người dùng của phiên còn hạn (và gia hạn phiên), null nếu token không
+     * hợp lệ hoặc đã hết hạn
+     */
+    public User resume(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - session.lastAccess > idleTimeoutMillis) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastAccess = now;
+        return session.user;
+    }
+
+    /**
+     * Gia hạn phiên khi kết nối đang dùng nó nhận yêu cầu
+     */
+    public void touch(String token) {
+        Session session = sessions.get(token);
+        if (session != null) {
+            session.lastAccess = System.currentTimeMillis();
+        }
+    }
+
+    public void invalidate(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * Hủy mọi phiên của người dùng, trừ phiên keepToken (có thể null)
+     */
+    public void invalidateUser(int userId, String keepToken) {
+        sessions.entrySet().removeIf(entry ->
+            entry.getValue().user.getUserId() == userId && !entry.getKey().equals(keepToken));
+    }
+
+    private void removeExpired() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        int before = sessions.size();
+        sessions.values().removeIf(session -> session.lastAccess < cutoff);
+        int removed = before - sessions.size();
+        if (removed > 0) {
+            LOGGER.fine("Removed " + removed + " expired sessions");
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+}
@@ -0,0 +1,424 @@
+package com.university.sms.service;
+
+import com.university.sms.model.Student;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Giữ snapshot thống kê trong bộ nhớ cho dashboard quản trị.
+ *
+ * StudentStatistics theo khoa và CourseStatistics theo (năm học, học kỳ) được
+ * tính bằng truy vấn GROUP BY ở lần đọc đầu tiên, sau đó đọc O(1) từ bộ nhớ.
+ * Đổi trạng thái sinh viên và đăng ký/hủy đăng ký cập nhật snapshot tăng dần;
+ * các thao tác ghi hiếm (thêm/sửa sinh viên, sửa khóa học) chỉ xóa snapshot
+ * để lần đọc sau tính lại. Định kỳ mọi snapshot được tính lại từ MySQL để
+ * phát hiện và sửa sai lệch (thao tác ghi ngoài server, cập nhật bị bỏ lỡ).
+ *
+ * Lần đọc MySQL bị lỗi không tạo snapshot (không lưu một bộ số 0 thay cho dữ
+ * liệu thật); lần tính lại định kỳ bị lỗi giữ snapshot cũ, và độ cũ của nó
+ * hiện trong chỉ số maxStaleness.
+ *
+ * Mỗi snapshot là một đối tượng không bị sửa sau khi đưa vào map; cập nhật
+ * tạo bản mới trong ConcurrentHashMap.compute nên các cập nhật cùng khóa được
+ * tuần tự hóa với nhau. Truy vấn MySQL không chạy trong compute (sẽ giữ khóa
+ * của map suốt thời gian truy vấn): kết quả được đưa vào sau, kèm kiểm tra
+ * không có cập nhật nào xảy ra trong lúc truy vấn (xem SnapshotMap).
+ */
+public class StatisticsService {
+    private static final Logger LOGGER = Logger.getLogger(StatisticsService.class.getName());
+
+    private static final long FULL_REFRESH_INTERVAL_MINUTES = 5;
+
+    private static final StatisticsService INSTANCE = new StatisticsService();
+
+    private final StudentService studentService = new StudentService();
+    private final CourseService courseService = new CourseService();
+
+    private final SnapshotMap<Integer, StudentService.StudentStatistics> departmentSnapshots = new SnapshotMap<>();
+    private final SnapshotMap<String, CourseService.CourseStatistics> semesterSnapshots = new SnapshotMap<>();
+
+    private final AtomicLong driftCorrections = new AtomicLong();
+    private final AtomicLong incrementalUpdates = new AtomicLong();
+    private volatile long lastFullRefreshMillis;
+
+    private final ScheduledExecutorService refresher;
+
+    /**
+     * Snapshot kèm thời điểm được đối chiếu với MySQL gần nhất
+     */
+    private static class Snapshot<T> {
+        final T statistics;
+        final long verifiedAtMillis;
+
+        Snapshot(T statistics, long verifiedAtMillis) {
+            this.statistics = statistics;
+            this.verifiedAtMillis = verifiedAtMillis;
+        }
+    }
+
+    /**
+     * Snapshot theo khóa. Mỗi khóa có bộ đếm thay đổi, tăng ở mọi cập nhật tăng
+     * dần (kể cả khi chưa có snapshot); epoch tăng khi xóa toàn bộ. Kết quả
+     * truy vấn chỉ được đưa vào map nếu cả hai chưa đổi từ lúc bắt đầu truy
+     * vấn; nếu đã đổi thì giữ snapshot hiện tại (lần tính lại sau sẽ sửa),
+     * tránh ghi đè một cập nhật tăng dần bằng số liệu đọc trước nó.
+     */
+    static class SnapshotMap<K, T> {
+        private final Map<K, Snapshot<T>> snapshots = new ConcurrentHashMap<>();
+        private final Map<K, Long> changes = new ConcurrentHashMap<>();
+        private final AtomicLong epoch = new AtomicLong();
+
+        /**
+         * Snapshot hiện tại, nạp bằng loader nếu chưa có; null nếu loader lỗi.
+         * Nếu có thay đổi trong lúc nạp, kết quả vẫn trả về nhưng không được lưu.
+         */
+        T get(K key, Function<K, T> loader) {
+            Snapshot<T> snapshot = snapshots.get(key);
+            if (snapshot != null) {
+                return snapshot.statistics;
+            }
+            long startEpoch = epoch.get();
+            long startChanges = changesOf(key);
+            T fresh = loader.apply(key);
+            if (fresh == null) {
+                return null;
+            }
+            Snapshot<T> loaded = new Snapshot<>(fresh, System.currentTimeMillis());
+            Snapshot<T> current = snapshots.compute(key, (k, existing) -> {
+                if (existing != null) {
+                    return existing;
+                }
+                return unchanged(k, startEpoch, startChanges) ? loaded : null;
+            });
+            return current != null ? current.statistics : fresh;
+        }
+
+        /**
+         * Áp dụng cập nhật tăng dần nếu đã có snapshot; change trả về bản mới
+         */
+        void update(K key, UnaryOperator<T> change) {
+            changes.merge(key, 1L, Long::sum);
+            snapshots.computeIfPresent(key, (k, snapshot) ->
+                new Snapshot<>(change.apply(snapshot.statistics), snapshot.verifiedAtMillis));
+        }
+
+        /**
+         * Tính lại một snapshot đang có
+         *
+         * @return true nếu số liệu mới khác snapshot đang có (sai lệch)
+         */
+        boolean refresh(K key, Function<K, T> loader, BiPredicate<T, T> same) {
+            long startEpoch = epoch.get();
+            long startChanges = changesOf(key);
+            T fresh = loader.apply(key);
+            if (fresh == null) {
+                return false;
+            }
+            boolean[] drift = new boolean[1];
+            snapshots.computeIfPresent(key, (k, snapshot) -> {
+                if (!unchanged(k, startEpoch, startChanges)) {
+                    return snapshot;
+                }
+                drift[0] = !same.test(snapshot.statistics, fresh);
+                return new Snapshot<>(fresh, System.currentTimeMillis());
+            });
+            return drift[0];
+        }
+
+        void clear() {
+            epoch.incrementAndGet();
+            snapshots.clear();
+        }
+
+        Set<K> keys() {
+            return snapshots.keySet();
+        }
+
+        Collection<Snapshot<T>> values() {
+            return snapshots.values();
+        }
+
+        int size() {
+            return snapshots.size();
+        }
+
+        private long changesOf(K key) {
+            return changes.getOrDefault(key, 0L);
+        }
+
+        private boolean unchanged(K key, long startEpoch, long startChanges) {
+            return epoch.get() == startEpoch && changesOf(key) == startChanges;
+        }
+    }
+
+    private StatisticsService() {
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "StatisticsRefresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshAll, FULL_REFRESH_INTERVAL_MINUTES,
+                                         FULL_REFRESH_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public static StatisticsService getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== Đọc ====================
+
+    /**
+     * Thống kê sinh viên của một khoa; null nếu chưa có snapshot và không đọc
+     * được từ MySQL
+     */
+    public StudentService.StudentStatistics getStudentStatistics(int departmentId) {
+        StudentService.StudentStatistics stats = departmentSnapshots.get(departmentId,
+            studentService::getStudentStatistics);
+        return stats != null ? copyOf(stats) : null;
+    }
+
+    /**
+     * Thống kê khóa học của một học kỳ; null nếu chưa có snapshot và không
+     * đọc được từ MySQL
+     */
+    public CourseService.CourseStatistics getCourseStatistics(String academicYear, int semester) {
+        CourseService.CourseStatistics stats = semesterSnapshots.get(semesterKey(academicYear, semester),
+            this::loadCourseStatistics);
+        return stats != null ? copyOf(stats) : null;
+    }
+
+    private CourseService.CourseStatistics loadCourseStatistics(String semesterKey) {
+        int separator = semesterKey.lastIndexOf('#');
+        return courseService.getCourseStatistics(semesterKey.substring(0, separator),
+                                                 Integer.parseInt(semesterKey.substring(separator + 1)));
+    }
+
+    // ==================== Cập nhật tăng dần ====================
+
+    /**
+     * Sinh viên mới được thêm vào khoa
+     */
+    public void onStudentAdded(int departmentId, Student.StudentStatus status) {
+        updateDepartment(departmentId, stats -> {
+            stats.setTotalStudents(stats.getTotalStudents() + 1);
+            adjustStatus(stats, status, 1);
+        });
+    }
+
+    /**
+     * Sinh viên đổi trạng thái
+     */
+    public void onStudentStatusChanged(int departmentId, Student.StudentStatus oldStatus,
+                                       Student.StudentStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        updateDepartment(departmentId, stats -> {
+            adjustStatus(stats, oldStatus, -1);
+            adjustStatus(stats, newStatus, 1);
+        });
+    }
+
+    /**
+     * Số đăng ký đang hiệu lực của một học kỳ thay đổi delta
+     */
+    public void onEnrollmentChanged(String academicYear, int semester, int delta) {
+        semesterSnapshots.update(semesterKey(academicYear, semester), current -> {
+            CourseService.CourseStatistics stats = copyOf(current);
+            stats.setTotalEnrollments(stats.getTotalEnrollments() + delta);
+            incrementalUpdates.incrementAndGet();
+            return stats;
+        });
+    }
+
+    /**
+     * Dữ liệu sinh viên thay đổi theo cách không cập nhật tăng dần được
+     * (ví dụ đổi khoa): tính lại ở lần đọc sau
+     */
+    public void invalidateStudentStatistics() {
+        departmentSnapshots.clear();
+    }
+
+    /**
+     * Danh mục khóa học thay đổi (thêm/sửa/xóa/đổi trạng thái): tính lại ở lần đọc sau
+     */
+    public void invalidateCourseStatistics() {
+        semesterSnapshots.clear();
+    }
+
+    private void updateDepartment(int departmentId, Consumer<StudentService.StudentStatistics> change) {
+        departmentSnapshots.update(departmentId, current -> {
+            StudentService.StudentStatistics stats = copyOf(current);
+            change.accept(stats);
+            incrementalUpdates.incrementAndGet();
+            return stats;
+        });
+    }
+
+    private static void adjustStatus(StudentService.StudentStatistics stats, Student.StudentStatus status, int delta) {
+        if (status == null) {
+            return;
+        }
+        switch (status) {
+            case ACTIVE:
+                stats.setActiveStudents(stats.getActiveStudents() + delta);
+                break;
+            case GRADUATED:
+                stats.setGraduatedStudents(stats.getGraduatedStudents() + delta);
+                break;
+            case SUSPENDED:
+                stats.setSuspendedStudents(stats.getSuspendedStudents() + delta);
+                break;
+            case DROPPED:
+                stats.setDroppedStudents(stats.getDroppedStudents() + delta);
+                break;
+        }
+    }
+
+    // ==================== Tính lại định kỳ ====================
+
+    /**
+     * Tính lại mọi snapshot từ MySQL, ghi nhận các snapshot bị sai lệch
+     */
+    public void refreshAll() {
+        try {
+            for (Integer departmentId : departmentSnapshots.keys()) {
+                if (departmentSnapshots.refresh(departmentId, studentService::getStudentStatistics,
+                                                StatisticsService::sameStudentStatistics)) {
+                    driftCorrections.incrementAndGet();
+                    LOGGER.warning("Student statistics drift corrected for department " + departmentId);
+                }
+            }
+
+            for (String key : semesterSnapshots.keys()) {
+                if (semesterSnapshots.refresh(key, this::loadCourseStatistics,
+                                              StatisticsService::sameCourseStatistics)) {
+                    driftCorrections.incrementAndGet();
+                    LOGGER.warning("Course statistics drift corrected for semester " + key);
+                }
+            }
+
+            lastFullRefreshMillis = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Error refreshing statistics snapshots", e);
+        }
+    }
+
+    private static String semesterKey(String academicYear, int semester) {
+        return academicYear + "#" + semester;
+    }
+
+    // ==================== Chỉ số ====================
+
+    public SnapshotMetrics getMetrics() {
+        long now = System.currentTimeMillis();
+        long oldest = now;
+        for (Snapshot<?> snapshot : departmentSnapshots.values()) {
+            oldest = Math.min(oldest, snapshot.verifiedAtMillis);
+        }
+        for (Snapshot<?> snapshot : semesterSnapshots.values()) {
+            oldest = Math.min(oldest, snapshot.verifiedAtMillis);
+        }
+
+        SnapshotMetrics metrics = new SnapshotMetrics();
+        metrics.setDepartmentSnapshots(departmentSnapshots.size());
+        metrics.setSemesterSnapshots(semesterSnapshots.size());
+        metrics.setMaxStalenessMillis(now - oldest);
+        metrics.setIncrementalUpdates(incrementalUpdates.get());
+        metrics.setDriftCorrections(driftCorrections.get());
+        metrics.setLastFullRefreshMillis(lastFullRefreshMillis);
+        return metrics;
+    }
+
+    /**
+     * Chỉ số của snapshot thống kê. maxStalenessMillis là thời gian từ lần
+     * đối chiếu với MySQL của snapshot cũ nhất.
+     */
+    public static class SnapshotMetrics {
+        private int departmentSnapshots;
+        private int semesterSnapshots;
+        private long maxStalenessMillis;
+        private long incrementalUpdates;
+        private long driftCorrections;
+        private long lastFullRefreshMillis;
+
+        // Getters and setters
+        public int getDepartmentSnapshots() { return departmentSnapshots; }
+        public void setDepartmentSnapshots(int departmentSnapshots) { this.departmentSnapshots = departmentSnapshots; }
+
+        public int getSemesterSnapshots() { return semesterSnapshots; }
+        public void setSemesterSnapshots(int semesterSnapshots) { this.semesterSnapshots = semesterSnapshots; }
+
+        public long getMaxStalenessMillis() { return maxStalenessMillis; }
+        public void setMaxStalenessMillis(long maxStalenessMillis) { this.maxStalenessMillis = maxStalenessMillis; }
+
+        public long getIncrementalUpdates() { return incrementalUpdates; }
+        public void setIncrementalUpdates(long incrementalUpdates) { this.incrementalUpdates = incrementalUpdates; }
+
+        public long getDriftCorrections() { return driftCorrections; }
+        public void setDriftCorrections(long driftCorrections) { this.driftCorrections = driftCorrections; }
+
+        public long getLastFullRefreshMillis() { return lastFullRefreshMillis; }
+        public void setLastFullRefreshMillis(long lastFullRefreshMillis) { this.lastFullRefreshMillis = lastFullRefreshMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("departments=%d, semesters=%d, maxStaleness=%ds, incremental=%d, drift=%d",
+                    departmentSnapshots, semesterSnapshots, maxStalenessMillis / 1000,
+                    incrementalUpdates, driftCorrections);
+        }
+    }
+
+    // ==================== Sao chép / so sánh ====================
+
+    private static StudentService.StudentStatistics copyOf(StudentService.StudentStatistics source) {
+        StudentService.StudentStatistics copy = new StudentService.StudentStatistics();
+        copy.setTotalStudents(source.getTotalStudents());
+        copy.setActiveStudents(source.getActiveStudents());
+        copy.setGraduatedStudents(source.getGraduatedStudents());
+        copy.setSuspendedStudents(source.getSuspendedStudents());
+        copy.setDroppedStudents(source.getDroppedStudents());
+        return copy;
+    }
+
+    private static CourseService.CourseStatistics copyOf(CourseService.CourseStatistics source) {
+        CourseService.CourseStatistics copy = new CourseService.CourseStatistics();
+        copy.setTotalCourses(source.getTotalCourses());
+        copy.setPlanningCourses(source.getPlanningCourses());
+        copy.setOngoingCourses(source.getOngoingCourses());
+        copy.setCompletedCourses(source.getCompletedCourses());
+        copy.setCancelledCourses(source.getCancelledCourses());
+        copy.setTotalEnrollments(source.getTotalEnrollments());
+        return copy;
+    }
+
+    private static boolean sameStudentStatistics(StudentService.StudentStatistics a, StudentService.StudentStatistics b) {
+        return a.getTotalStudents() == b.getTotalStudents()
+            && a.getActiveStudents() == b.getActiveStudents()
+            && a.getGraduatedStudents() == b.getGraduatedStudents()
+            && a.getSuspendedStudents() == b.getSuspendedStudents()
+            && a.getDroppedStudents() == b.getDroppedStudents();
+    }
+
+    private static boolean sameCourseStatistics(CourseService.CourseStatistics a, CourseService.CourseStatistics b) {
+        return a.getTotalCourses() == b.getTotalCourses()
+            && a.getPlanningCourses() == b.getPlanningCourses()
+            && a.getOngoingCourses() == b.getOngoingCourses()
+            && a.getCompletedCourses() == b.getCompletedCourses()
+            && a.getCancelledCourses() == b.getCancelledCourses()
+            && a.getTotalEnrollments() == b.getTotalEnrollments();
+    }
+}
@@ -0,0 +1,310 @@
+package com.university.sms.service;
+
+import com.university.sms.common.SearchText;
+import com.university.sms.dao.StudentDAO;
+import com.university.sms.model.Student;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Chỉ mục tìm kiếm sinh viên trong bộ nhớ theo trigram.
+ *
+ * Mỗi sinh viên được lưu dưới dạng mã sinh viên, họ tên và email đã chuẩn hóa
+ * (chữ thường, bỏ dấu tiếng Việt, đ -> d). Mỗi trigram trỏ tới danh sách
+ * student ID chứa nó. Truy vấn từ 3 ký tự trở lên chọn danh sách ngắn nhất
+ * trong các trigram của từ khóa rồi kiểm tra lại từng ứng viên bằng contains,
+ * nên kết quả giống LIKE '%từ khóa%' nhưng không phân biệt dấu. Truy vấn ngắn
+ * hơn quét toàn bộ tài liệu (vẫn trong bộ nhớ).
+ *
+ * Chỉ mục được nạp khi server khởi động và cập nhật khi sinh viên được thêm,
+ * sửa hoặc đổi trạng thái. Khi chưa nạp xong, StudentService dùng truy vấn LIKE.
+ */
+public class StudentSearchIndex {
+    private static final Logger LOGGER = Logger.getLogger(StudentSearchIndex.class.getName());
+
+    private static final int GRAM_SIZE = 3;
+    private static final int BUILD_CHUNK_SIZE = 1000;
+
+    private static final StudentSearchIndex INSTANCE = new StudentSearchIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Được bảo vệ bởi lock
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final Map<String, IntList> postings = new HashMap<>();
+    private volatile boolean ready;
+
+    /**
+     * Nội dung đã chuẩn hóa của một sinh viên
+     */
+    private static class Document {
+        final int studentId;
+        final String code;
+        final String name;
+        final String email;
+
+        Document(Student student) {
+            this.studentId = student.getStudentId();
+            this.code = SearchText.normalize(student.getStudentCode());
+            this.name = SearchText.normalize(student.getFullName());
+            this.email = SearchText.normalize(student.getEmail());
+        }
+
+        String[] fields() {
+            return new String[] { code, name, email };
+        }
+    }
+
+    /**
+     * Danh sách int tăng dần kích thước, tránh boxing Integer cho mỗi posting
+     */
+    private static class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private StudentSearchIndex() {
+    }
+
+    public static StudentSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Nạp lại toàn bộ chỉ mục từ bảng students
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Integer, Document> newDocuments = new HashMap<>();
+        Map<String, IntList> newPostings = new HashMap<>();
+
+        try {
+            new StudentDAO().streamAll(BUILD_CHUNK_SIZE, chunk -> {
+                for (Student student : chunk) {
+                    Document document = new Document(student);
+                    newDocuments.put(document.studentId, document);
+                    addPostings(newPostings, document);
+                }
+                return true;
+            });
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error building student search index", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            documents.putAll(newDocuments);
+            postings.clear();
+            postings.putAll(newPostings);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Student search index built: " + newDocuments.size() + " students, "
+                    + newPostings.size() + " trigrams in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Thêm mới hoặc cập nhật một sinh viên trong chỉ mục
+     */
+    public void index(Student student) {
+        if (student == null || student.getStudentId() <= 0) {
+            return;
+        }
+        Document document = new Document(student);
+
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.put(document.studentId, document);
+            if (previous != null) {
+                removePostings(previous);
+            }
+            addPostings(postings, document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Xóa một sinh viên khỏi chỉ mục
+     */
+    public void remove(int studentId) {
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.remove(studentId);
+            if (previous != null) {
+                removePostings(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm sinh viên theo từ khóa, trả về tối đa limit student ID theo thứ tự
+     * phù hợp giảm dần (khớp mã > đầu họ tên/từ trong tên > chứa trong tên > email)
+     */
+    public List<Integer> search(String keyword, int limit) {
+        String query = SearchText.normalize(keyword);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (query.length() < GRAM_SIZE) {
+                for (Document document : documents.values()) {
+                    addIfMatches(matches, document, query);
+                }
+            } else {
+                IntList candidates = smallestPosting(query);
+                if (candidates != null) {
+                    for (int i = 0; i < candidates.size; i++) {
+                        addIfMatches(matches, documents.get(candidates.values[i]), query);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort((a, b) -> a.score != b.score ? Integer.compare(b.score, a.score) : a.code.compareTo(b.code));
+        List<Integer> result = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            result.add(matches.get(i).studentId);
+        }
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static class Match {
+        final int studentId;
+        final String code;
+        final int score;
+
+        Match(int studentId, String code, int score) {
+            this.studentId = studentId;
+            this.code = code;
+            this.score = score;
+        }
+    }
+
+    private IntList smallestPosting(String query) {
+        IntList smallest = null;
+        for (int i = 0; i + GRAM_SIZE <= query.length(); i++) {
+            IntList posting = postings.get(query.substring(i, i + GRAM_SIZE));
+            if (posting == null) {
+                // Một trigram không có trong chỉ mục thì không sinh viên nào khớp
+                return null;
+            }
+            if (smallest == null || posting.size < smallest.size) {
+                smallest = posting;
+            }
+        }
+        return smallest;
+    }
+
+    private static void addIfMatches(List<Match> matches, Document document, String query) {
+        int score = score(document, query);
+        if (score > 0) {
+            matches.add(new Match(document.studentId, document.code, score));
+        }
+    }
+
+    private static int score(Document document, String query) {
+        if (document.code.equals(query)) {
+            return 100;
+        }
+        if (document.code.startsWith(query)) {
+            return 80;
+        }
+        int namePosition = document.name.indexOf(query);
+        if (namePosition == 0) {
+            return 60;
+        }
+        if (namePosition > 0 && document.name.charAt(namePosition - 1) == ' ') {
+            return 50;
+        }
+        if (document.code.contains(query)) {
+            return 40;
+        }
+        if (namePosition > 0) {
+            return 30;
+        }
+        if (document.email.contains(query)) {
+            return document.email.startsWith(query) ? 20 : 10;
+        }
+        return 0;
+    }
+
+    private static void addPostings(Map<String, IntList> target, Document document) {
+        for (String gram : grams(document)) {
+            target.computeIfAbsent(gram, k -> new IntList()).add(document.studentId);
+        }
+    }
+
+    private void removePostings(Document document) {
+        for (String gram : grams(document)) {
+            IntList posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(document.studentId);
+                if (posting.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Các trigram khác nhau của một tài liệu (mỗi trigram chỉ ghi một lần)
+     */
+    private static Set<String> grams(Document document) {
+        Set<String> grams = new HashSet<>();
+        for (String field : document.fields()) {
+            for (int i = 0; i + GRAM_SIZE <= field.length(); i++) {
+                grams.add(field.substring(i, i + GRAM_SIZE));
+            }
+        }
+        return grams;
+    }
+}
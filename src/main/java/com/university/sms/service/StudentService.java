@@ -1,10 +1,18 @@
 package com.university.sms.service;
 
+import com.university.sms.common.Constants;
+import com.university.sms.dao.Page;
 import com.university.sms.dao.StudentDAO;
 import com.university.sms.model.Student;
+import com.university.sms.util.DatabaseConnection;
+import com.university.sms.util.LruCache;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 /**
@@ -13,6 +21,16 @@ import java.util.logging.Logger;
 public class StudentService {
     private static final Logger LOGGER = Logger.getLogger(StudentService.class.getName());
     
+    // Mỗi lượt xuất giữ một connection tới khi client đọc hết, kể cả khi chờ client đọc chậm
+    private static final Semaphore EXPORT_PERMITS = new Semaphore(
+        Integer.parseInt(DatabaseConnection.getSetting("app.export.max.concurrent", "2")));
+    
+    // Phiên bản dữ liệu (ETag) được cache ngắn hạn thay vì truy vấn ở mỗi lần
+    // đọc; thao tác ghi qua server xóa ngay, TTL cho thay đổi sửa thẳng DB
+    private static final String DATA_VERSION_KEY = "students";
+    private static final LruCache<String, String> DATA_VERSIONS = new LruCache<>(1,
+        Long.parseLong(DatabaseConnection.getSetting("app.student.version.ttl", "2000")));
+    
     private StudentDAO studentDAO;
 
     public StudentService() {
@@ -49,6 +67,12 @@ public class StudentService {
             boolean success = studentDAO.addStudent(student);
             if (success) {
                 LOGGER.info("Student added successfully: " + student.getStudentCode());
+                invalidateDataVersion();
+                // Sinh viên mới mặc định ở trạng thái active (giá trị mặc định của cột)
+                Student.StudentStatus status = student.getStudentStatus() != null
+                    ? student.getStudentStatus() : Student.StudentStatus.ACTIVE;
+                StatisticsService.getInstance().onStudentAdded(student.getDepartmentId(), status);
+                reindex(student.getStudentId(), "ADDED");
             }
             return success;
         } catch (Exception e) {
@@ -144,6 +168,96 @@ public class StudentService {
         return studentDAO.findAll();
     }
 
+    /**
+     * Lấy một trang sinh viên sau mã sinh viên cursor (null = trang đầu)
+     */
+    public Page<Student> getStudentsPage(String cursor, int pageSize) {
+        return studentDAO.findPage(cursor, clampPageSize(pageSize));
+    }
+
+    /**
+     * Lấy cửa sổ sinh viên [offset, offset + limit) đã sắp xếp và lọc ở server.
+     * sortField là tên StudentDAO.SortField; không hợp lệ thì sắp theo mã sinh viên.
+     */
+    public List<Student> getStudentsWindow(int offset, int limit, String sortField, boolean ascending,
+                                           Student.StudentStatus status) {
+        try {
+            return studentDAO.findWindow(Math.max(0, offset), clampPageSize(limit),
+                                         parseSortField(sortField), ascending, status);
+        } catch (Exception e) {
+            LOGGER.severe("Error getting student window: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Phiên bản hiện tại của dữ liệu sinh viên (null = không xác định được)
+     */
+    public String getDataVersion() {
+        try {
+            return DATA_VERSIONS.get(DATA_VERSION_KEY, key -> studentDAO.getDataVersion());
+        } catch (Exception e) {
+            LOGGER.severe("Error getting student data version: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Gọi sau mọi thao tác ghi sinh viên hoặc họ tên/email người dùng
+     */
+    public static void invalidateDataVersion() {
+        DATA_VERSIONS.invalidate(DATA_VERSION_KEY);
+    }
+
+    /**
+     * Đếm sinh viên theo trạng thái (null = tất cả)
+     */
+    public int countStudents(Student.StudentStatus status) {
+        try {
+            return studentDAO.countStudents(status);
+        } catch (Exception e) {
+            LOGGER.severe("Error counting students: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static StudentDAO.SortField parseSortField(String sortField) {
+        if (sortField != null) {
+            try {
+                return StudentDAO.SortField.valueOf(sortField);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Unknown student sort field: " + sortField);
+            }
+        }
+        return StudentDAO.SortField.STUDENT_CODE;
+    }
+
+    /**
+     * Giao toàn bộ sinh viên cho consumer theo từng khối (xem StudentDAO.streamAll).
+     * Số lượt xuất đồng thời bị giới hạn để client đọc chậm không chiếm hết
+     * connection pool.
+     *
+     * @return số sinh viên đã giao, -1 nếu đã đủ số lượt xuất đồng thời
+     */
+    public int exportStudents(int chunkSize, Predicate<List<Student>> chunkConsumer) throws SQLException {
+        if (!EXPORT_PERMITS.tryAcquire()) {
+            LOGGER.warning("Export rejected: too many exports in progress");
+            return -1;
+        }
+        try {
+            return studentDAO.streamAll(clampPageSize(chunkSize), chunkConsumer);
+        } finally {
+            EXPORT_PERMITS.release();
+        }
+    }
+
+    private static int clampPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            return Constants.DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(pageSize, Constants.MAX_PAGE_SIZE);
+    }
+
     /**
      * Tìm kiếm sinh viên theo từ khóa
      */
@@ -154,6 +268,10 @@ public class StudentService {
         }
 
         try {
+            StudentSearchIndex index = StudentSearchIndex.getInstance();
+            if (index.isReady()) {
+                return studentDAO.findByIds(index.search(keyword, Constants.MAX_PAGE_SIZE));
+            }
             return studentDAO.searchStudents(keyword.trim());
         } catch (Exception e) {
             LOGGER.severe("Error searching students: " + e.getMessage());
@@ -174,6 +292,10 @@ public class StudentService {
             boolean success = studentDAO.updateStudent(student);
             if (success) {
                 LOGGER.info("Student updated successfully: " + student.getStudentCode());
+                invalidateDataVersion();
+                // Có thể đổi khoa hoặc trạng thái: để snapshot thống kê tính lại
+                StatisticsService.getInstance().invalidateStudentStatistics();
+                reindex(student.getStudentId(), "UPDATED");
             }
             return success;
         } catch (Exception e) {
@@ -192,9 +314,16 @@ public class StudentService {
         }
 
         try {
+            Student before = studentDAO.findById(studentId);
             boolean success = studentDAO.updateStudentStatus(studentId, status);
             if (success) {
                 LOGGER.info("Student status updated successfully: " + studentId + " -> " + status);
+                invalidateDataVersion();
+                if (before != null) {
+                    StatisticsService.getInstance().onStudentStatusChanged(before.getDepartmentId(),
+                                                                           before.getStudentStatus(), status);
+                }
+                reindex(studentId, "STATUS_CHANGED");
             }
             return success;
         } catch (Exception e) {
@@ -203,6 +332,20 @@ public class StudentService {
         }
     }
 
+    /**
+     * Nạp lại sinh viên (kèm họ tên, email từ bảng users) vào chỉ mục tìm kiếm
+     * và báo cho các client theo dõi sinh viên của khoa
+     */
+    private void reindex(int studentId, String change) {
+        Student student = studentDAO.findById(studentId);
+        if (student != null) {
+            StudentSearchIndex.getInstance().index(student);
+            NotificationHub.getInstance().publish(
+                NotificationHub.topic(Constants.TOPIC_DEPARTMENT_STUDENTS, student.getDepartmentId()),
+                Map.of(Constants.KEY_STUDENT_ID, studentId, Constants.KEY_CHANGE, change));
+        }
+    }
+
     /**
      * Cập nhật GPA và tổng tín chỉ
      */
@@ -217,6 +360,10 @@ public class StudentService {
             boolean success = studentDAO.updateGpaAndCredits(studentId, gpa, totalCredits);
             if (success) {
                 LOGGER.info("Student GPA and credits updated successfully: " + studentId);
+                invalidateDataVersion();
+                NotificationHub.getInstance().publish(
+                    NotificationHub.topic(Constants.TOPIC_STUDENT_GRADES, studentId),
+                    Map.of(Constants.KEY_STUDENT_ID, studentId, Constants.KEY_CHANGE, "GPA_UPDATED"));
             }
             return success;
         } catch (Exception e) {
@@ -246,6 +393,10 @@ public class StudentService {
             
             if (success) {
                 LOGGER.info("Student transferred successfully: " + studentId + " -> Class " + newClassId);
+                invalidateDataVersion();
+                NotificationHub.getInstance().publish(
+                    NotificationHub.topic(Constants.TOPIC_DEPARTMENT_STUDENTS, student.getDepartmentId()),
+                    Map.of(Constants.KEY_STUDENT_ID, studentId, Constants.KEY_CHANGE, "TRANSFERRED"));
             }
             return success;
         } catch (Exception e) {
@@ -285,39 +436,23 @@ public class StudentService {
     }
 
     /**
-     * Lấy thống kê sinh viên theo khoa
+     * Lấy thống kê sinh viên theo khoa; null nếu không đọc được từ database
      */
     public StudentStatistics getStudentStatistics(int departmentId) {
         try {
-            List<Student> students = studentDAO.findByDepartmentId(departmentId);
+            Map<Student.StudentStatus, Integer> counts = studentDAO.countByStatus(departmentId);
             
             StudentStatistics stats = new StudentStatistics();
-            stats.setTotalStudents(students.size());
-            
-            long activeCount = students.stream()
-                .filter(s -> s.getStudentStatus() == Student.StudentStatus.ACTIVE)
-                .count();
-            stats.setActiveStudents((int) activeCount);
-            
-            long graduatedCount = students.stream()
-                .filter(s -> s.getStudentStatus() == Student.StudentStatus.GRADUATED)
-                .count();
-            stats.setGraduatedStudents((int) graduatedCount);
-            
-            long suspendedCount = students.stream()
-                .filter(s -> s.getStudentStatus() == Student.StudentStatus.SUSPENDED)
-                .count();
-            stats.setSuspendedStudents((int) suspendedCount);
-            
-            long droppedCount = students.stream()
-                .filter(s -> s.getStudentStatus() == Student.StudentStatus.DROPPED)
-                .count();
-            stats.setDroppedStudents((int) droppedCount);
+            stats.setTotalStudents(counts.values().stream().mapToInt(Integer::intValue).sum());
+            stats.setActiveStudents(counts.getOrDefault(Student.StudentStatus.ACTIVE, 0));
+            stats.setGraduatedStudents(counts.getOrDefault(Student.StudentStatus.GRADUATED, 0));
+            stats.setSuspendedStudents(counts.getOrDefault(Student.StudentStatus.SUSPENDED, 0));
+            stats.setDroppedStudents(counts.getOrDefault(Student.StudentStatus.DROPPED, 0));
             
             return stats;
         } catch (Exception e) {
             LOGGER.severe("Error getting student statistics: " + e.getMessage());
-            return new StudentStatistics();
+            return null;
         }
     }
 
@@ -0,0 +1,601 @@
+package com.university.sms.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Connection pool cho JDBC.
+ *
+ * Giữ sẵn một số kết nối MySQL để các DAO không phải bắt tay TCP và xác thực
+ * lại cho mỗi truy vấn. Connection trả về cho caller là một proxy: gọi close()
+ * sẽ trả kết nối về pool thay vì đóng kết nối vật lý.
+ */
+public class ConnectionPool {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    // Kết nối vừa được trả về trong khoảng này thì không cần kiểm tra lại khi mượn
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutNanos;
+    private final boolean validateOnBorrow;
+    private final int validationTimeoutSeconds;
+    private final long idleTimeoutNanos;
+    private final long maxLifetimeNanos;
+
+    // Lock công bằng để các thread chờ được phục vụ theo thứ tự.
+    // Không dùng synchronized để không ghim carrier thread của virtual thread.
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition connectionAvailable = lock.newCondition();
+    private final Deque<PooledConnection> idleConnections = new ArrayDeque<>();
+    private int totalConnections;
+    private int activeConnections;
+    private int waitingThreads;
+    private boolean closed;
+
+    private final ScheduledExecutorService housekeeper;
+
+    // Statistics
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong acquireTimeNanos = new AtomicLong();
+    private final AtomicLong maxAcquireTimeNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+
+    public ConnectionPool(String url, String username, String password, PoolConfig config) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = Math.max(1, config.getMaxSize());
+        this.minSize = Math.max(0, Math.min(config.getMinSize(), this.maxSize));
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getAcquireTimeoutMillis());
+        this.validateOnBorrow = config.isValidateOnBorrow();
+        this.validationTimeoutSeconds = Math.max(1, config.getValidationTimeoutSeconds());
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+        this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxLifetimeMillis());
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ConnectionPool-Housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000, config.getHousekeepingIntervalMillis());
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, interval, TimeUnit.MILLISECONDS);
+
+        LOGGER.info("Connection pool created (min=" + minSize + ", max=" + maxSize + ")");
+    }
+
+    /**
+     * Mượn một kết nối từ pool, chờ tối đa acquire timeout nếu pool đã đầy
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + acquireTimeoutNanos;
+
+        while (true) {
+            PooledConnection pooled = takeIdleOrReserveSlot(deadline);
+
+            if (pooled == null) {
+                // Đã giữ chỗ cho một kết nối mới
+                try {
+                    pooled = createPhysicalConnection();
+                } catch (SQLException e) {
+                    releaseSlot();
+                    throw e;
+                }
+            } else if (!isUsable(pooled)) {
+                destroy(pooled, true);
+                continue;
+            }
+
+            recordAcquire(System.nanoTime() - start);
+            return pooled.lease();
+        }
+    }
+
+    /**
+     * Lấy kết nối rảnh hoặc giữ chỗ để tạo kết nối mới (trả về null)
+     */
+    private PooledConnection takeIdleOrReserveSlot(long deadline) throws SQLException {
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+
+                PooledConnection pooled = idleConnections.pollFirst();
+                if (pooled != null) {
+                    activeConnections++;
+                    return pooled;
+                }
+
+                if (totalConnections < maxSize) {
+                    totalConnections++;
+                    activeConnections++;
+                    return null;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    timeoutCount.incrementAndGet();
+                    throw new SQLTimeoutException("Timed out waiting for a database connection after " +
+                            TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + "ms (active=" +
+                            activeConnections + ", max=" + maxSize + ")");
+                }
+
+                waitingThreads++;
+                try {
+                    connectionAvailable.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection", e);
+                } finally {
+                    waitingThreads--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            totalConnections--;
+            activeConnections--;
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PooledConnection createPhysicalConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    /**
+     * Kiểm tra kết nối trước khi giao cho caller
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.nanoTime();
+        if (maxLifetimeNanos > 0 && now - pooled.createdAt > maxLifetimeNanos) {
+            return false;
+        }
+        if (!validateOnBorrow || now - pooled.lastReturnedAt < VALIDATION_BYPASS_NANOS) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Connection validation failed", e);
+            return false;
+        }
+    }
+
+    /**
+     * Trả kết nối về pool (được gọi khi caller đóng proxy)
+     */
+    private void release(PooledConnection pooled) {
+        boolean reusable = resetState(pooled);
+        if (reusable && maxLifetimeNanos > 0 && System.nanoTime() - pooled.createdAt > maxLifetimeNanos) {
+            reusable = false;
+        }
+
+        if (!reusable) {
+            destroy(pooled, true);
+            return;
+        }
+
+        lock.lock();
+        try {
+            activeConnections--;
+            if (closed) {
+                totalConnections--;
+            } else {
+                pooled.lastReturnedAt = System.nanoTime();
+                idleConnections.offerFirst(pooled);
+                connectionAvailable.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(pooled);
+    }
+
+    /**
+     * Đưa kết nối về trạng thái mặc định trước khi cho mượn lại
+     */
+    private boolean resetState(PooledConnection pooled) {
+        try {
+            Connection physical = pooled.physical;
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error resetting pooled connection, discarding it", e);
+            return false;
+        }
+    }
+
+    /**
+     * Hủy kết nối đang được mượn (active) hoặc đã lấy khỏi danh sách rảnh
+     */
+    private void destroy(PooledConnection pooled, boolean wasActive) {
+        lock.lock();
+        try {
+            totalConnections--;
+            if (wasActive) {
+                activeConnections--;
+            }
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(pooled);
+    }
+
+    private void closeQuietly(PooledConnection pooled) {
+        destroyedCount.incrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Error closing physical connection", e);
+        }
+    }
+
+    /**
+     * Dọn kết nối rảnh quá lâu / quá tuổi và bù đủ số kết nối tối thiểu
+     */
+    private void housekeep() {
+        try {
+            long now = System.nanoTime();
+            List<PooledConnection> expired = new ArrayList<>();
+
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                Iterator<PooledConnection> it = idleConnections.descendingIterator();
+                while (it.hasNext()) {
+                    PooledConnection pooled = it.next();
+                    boolean tooOld = maxLifetimeNanos > 0 && now - pooled.createdAt > maxLifetimeNanos;
+                    boolean idleTooLong = idleTimeoutNanos > 0 && now - pooled.lastReturnedAt > idleTimeoutNanos
+                            && totalConnections - expired.size() > minSize;
+                    if (tooOld || idleTooLong) {
+                        it.remove();
+                        expired.add(pooled);
+                    }
+                }
+                totalConnections -= expired.size();
+            } finally {
+                lock.unlock();
+            }
+
+            for (PooledConnection pooled : expired) {
+                closeQuietly(pooled);
+            }
+
+            fillToMinimum();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    private void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || totalConnections >= minSize) {
+                    return;
+                }
+                totalConnections++;
+            } finally {
+                lock.unlock();
+            }
+
+            PooledConnection pooled;
+            try {
+                pooled = createPhysicalConnection();
+            } catch (SQLException e) {
+                lock.lock();
+                try {
+                    totalConnections--;
+                } finally {
+                    lock.unlock();
+                }
+                LOGGER.log(Level.WARNING, "Could not pre-create pooled connection", e);
+                return;
+            }
+
+            lock.lock();
+            try {
+                if (closed) {
+                    totalConnections--;
+                } else {
+                    idleConnections.offerLast(pooled);
+                    connectionAvailable.signal();
+                    pooled = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (pooled != null) {
+                closeQuietly(pooled);
+                return;
+            }
+        }
+    }
+
+    private void recordAcquire(long elapsedNanos) {
+        acquiredCount.incrementAndGet();
+        acquireTimeNanos.addAndGet(elapsedNanos);
+        maxAcquireTimeNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    /**
+     * Đóng pool và toàn bộ kết nối rảnh. Kết nối đang mượn sẽ bị đóng khi được trả về.
+     */
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idleConnections);
+            idleConnections.clear();
+            totalConnections -= toClose.size();
+            connectionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        housekeeper.shutdownNow();
+        toClose.forEach(this::closeQuietly);
+        LOGGER.info("Connection pool closed");
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lấy thống kê pool
+     */
+    public PoolStatistics getStatistics() {
+        PoolStatistics stats = new PoolStatistics();
+        lock.lock();
+        try {
+            stats.setTotalConnections(totalConnections);
+            stats.setActiveConnections(activeConnections);
+            stats.setIdleConnections(idleConnections.size());
+            stats.setWaitingThreads(waitingThreads);
+        } finally {
+            lock.unlock();
+        }
+        stats.setMinSize(minSize);
+        stats.setMaxSize(maxSize);
+
+        long acquired = acquiredCount.get();
+        stats.setAcquiredCount(acquired);
+        stats.setAverageAcquireMillis(acquired == 0 ? 0 : acquireTimeNanos.get() / 1_000_000.0 / acquired);
+        stats.setMaxAcquireMillis(maxAcquireTimeNanos.get() / 1_000_000.0);
+        stats.setTimeoutCount(timeoutCount.get());
+        stats.setCreatedCount(createdCount.get());
+        stats.setDestroyedCount(destroyedCount.get());
+        return stats;
+    }
+
+    /**
+     * Kết nối vật lý kèm thông tin vòng đời
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final long createdAt;
+        private long lastReturnedAt;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.createdAt = System.nanoTime();
+            this.lastReturnedAt = this.createdAt;
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Proxy cho một lần mượn: close() trả kết nối về pool, gọi sau khi đóng sẽ lỗi
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private volatile boolean returned;
+
+        LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Cấu hình pool
+     */
+    public static class PoolConfig {
+        private int minSize = 2;
+        private int maxSize = 10;
+        private long acquireTimeoutMillis = 30000;
+        private boolean validateOnBorrow = true;
+        private int validationTimeoutSeconds = 5;
+        private long idleTimeoutMillis = 600000;
+        private long maxLifetimeMillis = 1800000;
+        private long housekeepingIntervalMillis = 30000;
+
+        // Getters and setters
+        public int getMinSize() { return minSize; }
+        public void setMinSize(int minSize) { this.minSize = minSize; }
+
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+        public long getAcquireTimeoutMillis() { return acquireTimeoutMillis; }
+        public void setAcquireTimeoutMillis(long acquireTimeoutMillis) { this.acquireTimeoutMillis = acquireTimeoutMillis; }
+
+        public boolean isValidateOnBorrow() { return validateOnBorrow; }
+        public void setValidateOnBorrow(boolean validateOnBorrow) { this.validateOnBorrow = validateOnBorrow; }
+
+        public int getValidationTimeoutSeconds() { return validationTimeoutSeconds; }
+        public void setValidationTimeoutSeconds(int validationTimeoutSeconds) { this.validationTimeoutSeconds = validationTimeoutSeconds; }
+
+        public long getIdleTimeoutMillis() { return idleTimeoutMillis; }
+        public void setIdleTimeoutMillis(long idleTimeoutMillis) { this.idleTimeoutMillis = idleTimeoutMillis; }
+
+        public long getMaxLifetimeMillis() { return maxLifetimeMillis; }
+        public void setMaxLifetimeMillis(long maxLifetimeMillis) { this.maxLifetimeMillis = maxLifetimeMillis; }
+
+        public long getHousekeepingIntervalMillis() { return housekeepingIntervalMillis; }
+        public void setHousekeepingIntervalMillis(long housekeepingIntervalMillis) { this.housekeepingIntervalMillis = housekeepingIntervalMillis; }
+    }
+
+    /**
+     * Thống kê pool
+     */
+    public static class PoolStatistics {
+        private int totalConnections;
+        private int activeConnections;
+        private int idleConnections;
+        private int waitingThreads;
+        private int minSize;
+        private int maxSize;
+        private long acquiredCount;
+        private double averageAcquireMillis;
+        private double maxAcquireMillis;
+        private long timeoutCount;
+        private long createdCount;
+        private long destroyedCount;
+
+        // Getters and setters
+        public int getTotalConnections() { return totalConnections; }
+        public void setTotalConnections(int totalConnections) { this.totalConnections = totalConnections; }
+
+        public int getActiveConnections() { return activeConnections; }
+        public void setActiveConnections(int activeConnections) { this.activeConnections = activeConnections; }
+
+        public int getIdleConnections() { return idleConnections; }
+        public void setIdleConnections(int idleConnections) { this.idleConnections = idleConnections; }
+
+        public int getWaitingThreads() { return waitingThreads; }
+        public void setWaitingThreads(int waitingThreads) { this.waitingThreads = waitingThreads; }
+
+        public int getMinSize() { return minSize; }
+        public void setMinSize(int minSize) { this.minSize = minSize; }
+
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+        public long getAcquiredCount() { return acquiredCount; }
+        public void setAcquiredCount(long acquiredCount) { this.acquiredCount = acquiredCount; }
+
+        public double getAverageAcquireMillis() { return averageAcquireMillis; }
+        public void setAverageAcquireMillis(double averageAcquireMillis) { this.averageAcquireMillis = averageAcquireMillis; }
+
+        public double getMaxAcquireMillis() { return maxAcquireMillis; }
+        public void setMaxAcquireMillis(double maxAcquireMillis) { this.maxAcquireMillis = maxAcquireMillis; }
+
+        public long getTimeoutCount() { return timeoutCount; }
+        public void setTimeoutCount(long timeoutCount) { this.timeoutCount = timeoutCount; }
+
+        public long getCreatedCount() { return createdCount; }
+        public void setCreatedCount(long createdCount) { this.createdCount = createdCount; }
+
+        public long getDestroyedCount() { return destroyedCount; }
+        public void setDestroyedCount(long destroyedCount) { this.destroyedCount = destroyedCount; }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d, idle=%d, waiting=%d, total=%d/%d, acquired=%d, " +
+                            "avgAcquire=%.2fms, maxAcquire=%.2fms, timeouts=%d",
+                    activeConnections, idleConnections, waitingThreads, totalConnections, maxSize,
+                    acquiredCount, averageAcquireMillis, maxAcquireMillis, timeoutCount);
+        }
+    }
+}
@@ -3,14 +3,14 @@ package com.university.sms.util;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Utility class để quản lý kết nối database
+ * Utility class để quản lý kết nối database.
+ * Kết nối được lấy từ {@link ConnectionPool}; đóng Connection sẽ trả nó về pool.
  */
 public class DatabaseConnection {
     private static final Logger LOGGER = Logger.getLogger(DatabaseConnection.class.getName());
@@ -20,6 +20,9 @@ public class DatabaseConnection {
     private static String DB_PASSWORD;
     private static String DB_DRIVER;
     
+    private static ConnectionPool pool;
+    private static Properties settings = new Properties();
+    
     static {
         loadDatabaseConfig();
     }
@@ -38,6 +41,7 @@ public class DatabaseConnection {
             }
             
             props.load(input);
+            settings = props;
             
             DB_URL = props.getProperty("db.url");
             DB_USERNAME = props.getProperty("db.username");
@@ -47,6 +51,8 @@ public class DatabaseConnection {
             // Load MySQL driver
             Class.forName(DB_DRIVER);
             
+            pool = new ConnectionPool(DB_URL, DB_USERNAME, DB_PASSWORD, loadPoolConfig(props));
+            
             LOGGER.info("Database configuration loaded successfully");
             
         } catch (IOException | ClassNotFoundException e) {
@@ -56,15 +62,36 @@ public class DatabaseConnection {
     }
     
     /**
-     * Tạo kết nối mới đến database
-     * @return Connection object
+     * Đọc cấu hình connection pool
+     */
+    private static ConnectionPool.PoolConfig loadPoolConfig(Properties props) {
+        ConnectionPool.PoolConfig config = new ConnectionPool.PoolConfig();
+        config.setMaxSize(Integer.parseInt(props.getProperty("db.connection.pool.size", "10")));
+        config.setMinSize(Integer.parseInt(props.getProperty("db.connection.pool.min.size", "2")));
+        config.setAcquireTimeoutMillis(Long.parseLong(props.getProperty("db.connection.timeout", "30000")));
+        config.setValidateOnBorrow(Boolean.parseBoolean(props.getProperty("db.connection.pool.validate.on.borrow", "true")));
+        config.setValidationTimeoutSeconds(Integer.parseInt(props.getProperty("db.connection.pool.validation.timeout", "5")));
+        config.setIdleTimeoutMillis(Long.parseLong(props.getProperty("db.connection.pool.idle.timeout", "600000")));
+        config.setMaxLifetimeMillis(Long.parseLong(props.getProperty("db.connection.pool.max.lifetime", "1800000")));
+        config.setHousekeepingIntervalMillis(Long.parseLong(props.getProperty("db.connection.pool.housekeeping.interval", "30000")));
+        return config;
+    }
+    
+    /**
+     * Đọc một giá trị cấu hình khác trong database.properties
+     */
+    public static String getSetting(String key, String defaultValue) {
+        return settings.getProperty(key, defaultValue);
+    }
+    
+    /**
+     * Lấy kết nối từ connection pool
+     * @return Connection object (close() trả kết nối về pool)
      * @throws SQLException if connection fails
      */
     public static Connection getConnection() throws SQLException {
         try {
-            Connection conn = DriverManager.getConnection(DB_URL, DB_USERNAME, DB_PASSWORD);
-            // LOGGER.info("Database connection established successfully"); // Removed spam log
-            return conn;
+            return pool.getConnection();
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Failed to connect to database", e);
             throw e;
@@ -72,7 +99,7 @@ public class DatabaseConnection {
     }
     
     /**
-     * Đóng kết nối database
+     * Đóng kết nối database (trả về pool)
      * @param connection Connection to close
      */
     public static void closeConnection(Connection connection) {
@@ -106,5 +133,22 @@ public class DatabaseConnection {
         LOGGER.info("Database URL: " + DB_URL);
         LOGGER.info("Database Username: " + DB_USERNAME);
         LOGGER.info("Database Driver: " + DB_DRIVER);
+        LOGGER.info("Connection Pool: " + pool.getStatistics());
+    }
+    
+    /**
+     * Lấy thống kê connection pool
+     */
+    public static ConnectionPool.PoolStatistics getPoolStatistics() {
+        return pool.getStatistics();
+    }
+    
+    /**
+     * Đóng connection pool khi dừng server
+     */
+    public static void shutdown() {
+        if (pool != null) {
+            pool.close();
+        }
     }
 }
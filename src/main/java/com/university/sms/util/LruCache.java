@@ -0,0 +1,207 @@
+package com.university.sms.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Cache read-through giới hạn theo số phần tử (LRU) và thời gian sống (TTL).
+ *
+ * Loader chạy ngoài lock nên hai thread có thể cùng nạp một khóa; kết quả
+ * giống nhau nên chỉ tốn thêm một truy vấn. invalidateAll() tăng generation:
+ * giá trị được nạp trước thời điểm invalidate sẽ không được lưu vào cache,
+ * tránh ghi đè dữ liệu cũ sau một thao tác ghi.
+ */
+public class LruCache<K, V> {
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Được bảo vệ bởi lock; thứ tự truy cập (access-order) để loại phần tử ít dùng nhất
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    private static class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public LruCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Lấy giá trị từ cache, nạp bằng loader nếu chưa có hoặc đã hết hạn.
+     * Giá trị null không được lưu.
+     */
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > System.currentTimeMillis()) {
+                    hitCount++;
+                    return entry.value;
+                }
+                entries.remove(key);
+                evictionCount++;
+            }
+            missCount++;
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        V value = loader.apply(key);
+        if (value == null) {
+            return null;
+        }
+
+        lock.lock();
+        try {
+            if (loadGeneration == generation) {
+                entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+                evictOverflow();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return value;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Giá trị đang có trong cache mà không nạp và không tính hit/miss;
+     * null nếu chưa có hoặc đã hết hạn
+     */
+    public V peek(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            return entry != null && entry.expiresAt > System.currentTimeMillis() ? entry.value : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Thay giá trị của khóa nếu cache vẫn đang giữ đúng expected (so sánh
+     * tham chiếu); hạn TTL giữ nguyên. Như invalidate, tăng generation để lần
+     * nạp đang chạy từ trước không ghi đè giá trị mới.
+     *
+     * @return false nếu khóa đã bị xóa, hết hạn hoặc đã được thay bởi giá trị khác
+     */
+    public boolean replace(K key, V expected, V value) {
+        lock.lock();
+        try {
+            generation++;
+            Entry<V> entry = entries.get(key);
+            if (entry == null || entry.value != expected || entry.expiresAt <= System.currentTimeMillis()) {
+                return false;
+            }
+            entries.put(key, new Entry<>(value, entry.expiresAt));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Xóa một khóa khỏi cache
+     */
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            generation++;
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Xóa toàn bộ cache
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation++;
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        lock.lock();
+        try {
+            CacheStatistics stats = new CacheStatistics();
+            stats.setSize(entries.size());
+            stats.setMaxSize(maxSize);
+            stats.setHitCount(hitCount);
+            stats.setMissCount(missCount);
+            stats.setEvictionCount(evictionCount);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Thống kê cache
+     */
+    public static class CacheStatistics {
+        private int size;
+        private int maxSize;
+        private long hitCount;
+        private long missCount;
+        private long evictionCount;
+
+        // Getters and setters
+        public int getSize() { return size; }
+        public void setSize(int size) { this.size = size; }
+
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+        public long getHitCount() { return hitCount; }
+        public void setHitCount(long hitCount) { this.hitCount = hitCount; }
+
+        public long getMissCount() { return missCount; }
+        public void setMissCount(long missCount) { this.missCount = missCount; }
+
+        public long getEvictionCount() { return evictionCount; }
+        public void setEvictionCount(long evictionCount) { this.evictionCount = evictionCount; }
+
+        public double getHitRatio() {
+            long total = hitCount + missCount;
+            return total == 0 ? 0.0 : (double) hitCount / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRatio=%.1f%%",
+                    size, maxSize, hitCount, missCount, evictionCount, getHitRatio() * 100);
+        }
+    }
+}
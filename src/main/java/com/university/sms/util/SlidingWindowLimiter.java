@@ -0,0 +1,169 @@
+package com.university.sms.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Giới hạn số lần thực hiện theo khóa trong một cửa sổ thời gian trượt, bộ nhớ
+ * cố định bất kể có bao nhiêu khóa.
+ *
+ * Cửa sổ trượt được xấp xỉ bằng hai cửa sổ cố định liên tiếp: số lần ước tính
+ * = số lần cửa sổ trước * phần cửa sổ trước còn nằm trong khoảng trượt + số
+ * lần cửa sổ hiện tại. Khóa được băm vào ROWS hàng bộ đếm (kiểu count-min):
+ * khóa trùng ô chỉ có thể làm ước tính cao hơn, không bao giờ thấp hơn, và lấy
+ * giá trị nhỏ nhất giữa các hàng giảm chặn nhầm do trùng ô.
+ *
+ * Mỗi ô là một long (chỉ số cửa sổ, số lần cửa sổ trước, số lần cửa sổ hiện
+ * tại) cập nhật bằng CAS, không khóa. Kiểm tra (allows) và ghi nhận (record)
+ * tách riêng để nơi gọi chỉ tính những lần cần tính (ví dụ đăng nhập sai);
+ * hai bước không nguyên tử với nhau nên khi nhiều thread cùng lúc có thể vượt
+ * giới hạn vài lần.
+ *
+ * Chặn nhầm xảy ra khi cả ROWS ô của một khóa đều bị các khóa khác đẩy lên
+ * gần giới hạn: với n lần ghi nhận trong cửa sổ, mỗi ô nhận trung bình
+ * n / slots lần từ khóa khác, nên slots cần lớn hơn nhiều so với n.
+ */
+public class SlidingWindowLimiter {
+    private static final int ROWS = 2;
+
+    private static final int WINDOW_BITS = 16;
+    private static final int COUNT_BITS = 24;
+    private static final long WINDOW_MASK = (1L << WINDOW_BITS) - 1;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final int limit;
+    private final long windowMillis;
+    private final int slotMask;
+    private final AtomicLongArray cells;
+
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong recorded = new AtomicLong();
+
+    /**
+     * @param limit        số lần tối đa trong một cửa sổ
+     * @param windowMillis độ dài cửa sổ
+     * @param slots        số ô mỗi hàng (làm tròn lên lũy thừa của 2)
+     */
+    public SlidingWindowLimiter(int limit, long windowMillis, int slots) {
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.slotMask = size - 1;
+        this.cells = new AtomicLongArray(ROWS * size);
+    }
+
+    /**
+     * Kiểm tra khóa còn trong giới hạn không, không ghi nhận gì
+     *
+     * @return false nếu khóa đã dùng hết giới hạn trong cửa sổ trượt
+     */
+    public boolean allows(String key) {
+        return allows(key, System.currentTimeMillis());
+    }
+
+    boolean allows(String key, long now) {
+        if (estimate(key, now) >= limit) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        allowed.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Ghi nhận một lần thực hiện của khóa
+     */
+    public void record(String key) {
+        record(key, System.currentTimeMillis());
+    }
+
+    void record(String key, long now) {
+        long window = now / windowMillis;
+        int hash = key.hashCode();
+        for (int row = 0; row < ROWS; row++) {
+            int index = index(hash, row);
+            while (true) {
+                long current = cells.get(index);
+                long rolled = roll(current, window);
+                long count = Math.min(currentCount(rolled) + 1, COUNT_MASK);
+                long updated = pack(window, previousCount(rolled), count);
+                if (cells.compareAndSet(index, current, updated)) {
+                    break;
+                }
+            }
+        }
+        recorded.incrementAndGet();
+    }
+
+    /**
+     * Số lần ước tính của khóa trong cửa sổ trượt kết thúc tại now
+     */
+    double estimate(String key, long now) {
+        long window = now / windowMillis;
+        double previousWeight = 1.0 - (double) (now % windowMillis) / windowMillis;
+
+        int hash = key.hashCode();
+        double estimate = Double.MAX_VALUE;
+        for (int row = 0; row < ROWS; row++) {
+            long cell = roll(cells.get(index(hash, row)), window);
+            estimate = Math.min(estimate, previousCount(cell) * previousWeight + currentCount(cell));
+        }
+        return estimate;
+    }
+
+    private int index(int hash, int row) {
+        return row * (slotMask + 1) + (mix(hash, row) & slotMask);
+    }
+
+    /**
+     * Đưa ô về cửa sổ hiện tại: cửa sổ kế trước trở thành "trước", cũ hơn thì bỏ
+     */
+    private static long roll(long cell, long window) {
+        long cellWindow = cell >>> (2 * COUNT_BITS);
+        if (cellWindow == (window & WINDOW_MASK)) {
+            return cell;
+        }
+        if (cellWindow == ((window - 1) & WINDOW_MASK)) {
+            return pack(window, currentCount(cell), 0);
+        }
+        return pack(window, 0, 0);
+    }
+
+    private static long pack(long window, long previous, long current) {
+        return ((window & WINDOW_MASK) << (2 * COUNT_BITS)) | (previous << COUNT_BITS) | current;
+    }
+
+    private static long previousCount(long cell) {
+        return (cell >>> COUNT_BITS) & COUNT_MASK;
+    }
+
+    private static long currentCount(long cell) {
+        return cell & COUNT_MASK;
+    }
+
+    /**
+     * Hàm băm riêng cho mỗi hàng (finalizer của MurmurHash3)
+     */
+    private static int mix(int hash, int row) {
+        int h = hash ^ (row * 0x9E3779B9);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    public long getAllowedCount() {
+        return allowed.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getRecordedCount() {
+        return recorded.get();
+    }
+}
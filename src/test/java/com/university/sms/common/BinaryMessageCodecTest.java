@@ -0,0 +1,507 @@
+package com.university.sms.common;
+
+import com.university.sms.model.Course;
+import com.university.sms.model.Department;
+import com.university.sms.model.Enrollment;
+import com.university.sms.model.Student;
+import com.university.sms.model.Subject;
+import com.university.sms.model.User;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Round-trip của BinaryMessageCodec cho mọi schema và bảng action/key cố định
+ */
+public class BinaryMessageCodecTest {
+    private static final Timestamp CREATED = Timestamp.valueOf("2024-09-05 08:30:15.123456789");
+    private static final Timestamp UPDATED = Timestamp.valueOf("2024-10-01 17:45:00.5");
+
+    // Tag giá trị trên dây (giống BinaryMessageCodec)
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_DECIMAL = 6;
+    private static final byte TAG_DATE = 7;
+    private static final byte TAG_TIMESTAMP = 8;
+    private static final byte TAG_LIST = 9;
+    private static final byte TAG_MAP = 10;
+    private static final byte TAG_SERIALIZED = 127;
+
+    private final BinaryMessageCodec codec = new BinaryMessageCodec();
+
+    @Test
+    public void headerRoundTrips() throws Exception {
+        Message message = new Message(Message.MessageType.RESPONSE_CHUNK, Constants.ACTION_EXPORT_STUDENTS,
+            true, "Đang xuất dữ liệu");
+        message.setRequestId(Long.MAX_VALUE);
+
+        Message decoded = roundTrip(message);
+
+        assertEquals(Message.MessageType.RESPONSE_CHUNK, decoded.getType());
+        assertEquals(Long.MAX_VALUE, decoded.getRequestId());
+        assertEquals(Constants.ACTION_EXPORT_STUDENTS, decoded.getAction());
+        assertTrue(decoded.isSuccess());
+        assertEquals("Đang xuất dữ liệu", decoded.getMessage());
+        assertEquals(message.getTimestamp(), decoded.getTimestamp());
+        assertTrue(decoded.getData().isEmpty());
+    }
+
+    @Test
+    public void nullHeaderFieldsRoundTrip() throws Exception {
+        Message message = new Message();
+        Message decoded = roundTrip(message);
+
+        assertNull(decoded.getType());
+        assertNull(decoded.getAction());
+        assertNull(decoded.getMessage());
+        assertEquals(0, decoded.getRequestId());
+    }
+
+    @Test
+    public void primitivesRoundTrip() throws Exception {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("string", "Nguyễn Văn Ánh");
+        values.put("empty", "");
+        values.put("null", null);
+        values.put("int", Integer.MIN_VALUE);
+        values.put("negative", -1);
+        values.put("long", Long.MAX_VALUE);
+        values.put("boolean", Boolean.TRUE);
+        values.put("double", 3.75);
+        values.put("decimal", new BigDecimal("-1234567890.0100"));
+        values.put("date", Date.valueOf("1969-12-31"));
+        values.put("timestamp", CREATED);
+
+        Message decoded = roundTrip(messageWith(values));
+
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue(), decoded.getData().get(entry.getKey()));
+        }
+        // BigDecimal.equals so sánh cả scale
+        assertEquals(4, ((BigDecimal) decoded.getData().get("decimal")).scale());
+        assertEquals(CREATED.getNanos(), ((Timestamp) decoded.getData().get("timestamp")).getNanos());
+    }
+
+    @Test
+    public void listsAndMapsRoundTrip() throws Exception {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("total", 120);
+        statistics.put("byStatus", new LinkedHashMap<>(Map.of("ACTIVE", 100)));
+        statistics.put("average", new BigDecimal("3.25"));
+        List<Object> mixed = new ArrayList<>(Arrays.asList("a", 1, null, List.of(2L, false)));
+
+        Message message = new Message(Message.MessageType.RESPONSE, Constants.ACTION_GET_DEPARTMENT_REPORT);
+        message.getData().put(Constants.KEY_STATISTICS, statistics);
+        message.getData().put("mixed", mixed);
+        Message decoded = roundTrip(message);
+
+        assertEquals(statistics, decoded.getData().get(Constants.KEY_STATISTICS));
+        assertEquals(new ArrayList<>(statistics.keySet()),
+            new ArrayList<>(((Map<?, ?>) decoded.getData().get(Constants.KEY_STATISTICS)).keySet()));
+        assertEquals(mixed, decoded.getData().get("mixed"));
+    }
+
+    @Test
+    public void unknownTypesFallBackToSerialization() throws Exception {
+        UUID id = UUID.randomUUID();
+        Map<Integer, String> intKeys = new LinkedHashMap<>(Map.of(1, "một"));
+
+        Message decoded = roundTrip(messageWith(Map.of("uuid", id, "intKeys", intKeys)));
+
+        assertEquals(id, decoded.getData().get("uuid"));
+        assertEquals(intKeys, decoded.getData().get("intKeys"));
+    }
+
+    @Test
+    public void userRoundTrips() throws Exception {
+        User user = new User("gv.tran", "$2a$12$hash", "tran@uni.edu.vn", "Trần Thị Bình", User.UserRole.TEACHER);
+        user.setUserId(42);
+        user.setPhone("0901234567");
+        user.setAddress("12 Lê Lợi, Huế");
+        user.setCreatedAt(CREATED);
+        user.setUpdatedAt(UPDATED);
+        user.setActive(true);
+
+        assertModelRoundTrips(user);
+    }
+
+    @Test
+    public void studentRoundTrips() throws Exception {
+        Student student = new Student();
+        student.setStudentId(1001);
+        student.setUserId(2002);
+        student.setStudentCode("SV2024001");
+        student.setClassId(7);
+        student.setDepartmentId(3);
+        student.setAdmissionYear(2024);
+        student.setStudentStatus(Student.StudentStatus.DROPPED);
+        student.setGpa(new BigDecimal("3.45"));
+        student.setTotalCredits(96);
+        student.setBirthDate(Date.valueOf("2005-02-28"));
+        student.setGender(Student.Gender.OTHER);
+        student.setCitizenId("079205001234");
+        student.setEmergencyContact("Lê Văn Cường");
+        student.setEmergencyPhone("0912345678");
+        student.setCreatedAt(CREATED);
+        student.setFullName("Phạm Ngọc Yến");
+        student.setEmail("yen@uni.edu.vn");
+        student.setPhone("0987654321");
+        student.setAddress("Quận 1, TP. Hồ Chí Minh");
+
+        assertModelRoundTrips(student);
+    }
+
+    @Test
+    public void studentWithNullOptionalsRoundTrips() throws Exception {
+        Student student = new Student();
+        student.setStudentId(1);
+        student.setStudentCode("SV1");
+        student.setClassId(null);
+        student.setGpa(null);
+        student.setBirthDate(null);
+        student.setStudentStatus(null);
+        student.setGender(null);
+        student.setCreatedAt(null);
+
+        Student decoded = (Student) roundTripValue(student);
+        assertFieldsEqual(student, decoded);
+        assertNull(decoded.getClassId());
+        assertNull(decoded.getGpa());
+    }
+
+    @Test
+    public void courseRoundTrips() throws Exception {
+        Course course = new Course("CS101-01", 5, 9, "2024-2025", 2);
+        course.setCourseId(77);
+        course.setClassId(4);
+        course.setScheduleDay("Thứ Hai");
+        course.setScheduleTime("07:30-09:30");
+        course.setRoom("A2.301");
+        course.setMaxStudents(60);
+        course.setCurrentStudents(58);
+        course.setCourseStatus(Course.CourseStatus.CANCELLED);
+        course.setStartDate(Date.valueOf("2025-01-06"));
+        course.setEndDate(Date.valueOf("2025-05-30"));
+        course.setCreatedAt(CREATED);
+        course.setSubjectName("Nhập môn lập trình");
+        course.setSubjectCode("CS101");
+        course.setCredits(3);
+        course.setTeacherName("Trần Thị Bình");
+        course.setClassName("CNTT-K24A");
+
+        assertModelRoundTrips(course);
+    }
+
+    @Test
+    public void enrollmentRoundTrips() throws Exception {
+        Enrollment enrollment = new Enrollment(1001, 77);
+        enrollment.setEnrollmentId(555);
+        enrollment.setEnrollmentDate(UPDATED);
+        enrollment.setEnrollmentStatus(Enrollment.EnrollmentStatus.FAILED);
+        enrollment.setFinalGrade(new BigDecimal("3.75"));
+        enrollment.setLetterGrade("F");
+        enrollment.setGradePoints(new BigDecimal("0.00"));
+        enrollment.setAttendanceRate(new BigDecimal("62.50"));
+        enrollment.setStudentCode("SV2024001");
+        enrollment.setStudentName("Phạm Ngọc Yến");
+        enrollment.setCourseCode("CS101-01");
+        enrollment.setSubjectName("Nhập môn lập trình");
+        enrollment.setCredits(3);
+
+        assertModelRoundTrips(enrollment);
+    }
+
+    @Test
+    public void departmentRoundTrips() throws Exception {
+        Department department = new Department("CNTT", "Công nghệ thông tin", "Khoa CNTT");
+        department.setDepartmentId(3);
+        department.setHeadTeacherId(9);
+        department.setCreatedAt(CREATED);
+        department.setHeadTeacherName("Trần Thị Bình");
+
+        assertModelRoundTrips(department);
+    }
+
+    @Test
+    public void subjectRoundTrips() throws Exception {
+        Subject subject = new Subject("CS201", "Cấu trúc dữ liệu", 4, 3);
+        subject.setSubjectId(12);
+        subject.setPrerequisiteSubjectId(5);
+        subject.setDescription("Danh sách, cây, đồ thị");
+        subject.setRequired(true);
+        subject.setCreatedAt(CREATED);
+        subject.setDepartmentName("Công nghệ thông tin");
+        subject.setPrerequisiteSubjectName("Nhập môn lập trình");
+
+        assertModelRoundTrips(subject);
+    }
+
+    @Test
+    public void modelListsRoundTrip() throws Exception {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Student student = new Student();
+            student.setStudentId(i + 1);
+            student.setStudentCode("SV" + i);
+            student.setFullName("Sinh viên " + i);
+            students.add(student);
+        }
+
+        Message message = new Message(Message.MessageType.RESPONSE, Constants.ACTION_GET_ALL_STUDENTS);
+        message.getData().put(Constants.KEY_STUDENTS, students);
+        List<?> decoded = (List<?>) roundTrip(message).getData().get(Constants.KEY_STUDENTS);
+
+        assertEquals(students.size(), decoded.size());
+        for (int i = 0; i < students.size(); i++) {
+            assertFieldsEqual(students.get(i), decoded.get(i));
+        }
+    }
+
+    // ==================== Bảng action/key ====================
+
+    /**
+     * Mọi ACTION_* và KEY_* trong Constants đều phải có trong bảng, nếu không
+     * sẽ bị ghi nguyên chuỗi mỗi lần gửi
+     */
+    @Test
+    public void everyConstantIsInterned() throws Exception {
+        for (Field field : Constants.class.getFields()) {
+            boolean action = field.getName().startsWith("ACTION_");
+            if (!action && !field.getName().startsWith("KEY_")) {
+                continue;
+            }
+            String value = (String) field.get(null);
+            Message message = new Message(Message.MessageType.REQUEST, action ? value : null);
+            if (!action) {
+                message.getData().put(value, null);
+            }
+            byte[] encoded = codec.encode(message);
+
+            assertFalse(field.getName() + " is not interned", contains(encoded, value.getBytes(StandardCharsets.UTF_8)));
+            assertEquals(field.getName(), message.getAction(), codec.decode(encoded).getAction());
+            assertEquals(field.getName(), message.getData().keySet(), codec.decode(encoded).getData().keySet());
+        }
+    }
+
+    @Test
+    public void unknownActionAndKeyAreWrittenLiterally() throws Exception {
+        Message message = new Message(Message.MessageType.REQUEST, "PLUGIN_ACTION");
+        message.getData().put("pluginKey", 1);
+
+        Message decoded = roundTrip(message);
+
+        assertEquals("PLUGIN_ACTION", decoded.getAction());
+        assertEquals(1, decoded.getData().get("pluginKey"));
+    }
+
+    /**
+     * Mã đã phát hành không được đổi: bảng chỉ được thêm vào cuối. Các payload
+     * dưới đây được dựng tay theo mã số, như client cũ gửi lên.
+     */
+    @Test
+    public void publishedActionCodesAreStable() throws Exception {
+        assertEquals(Constants.ACTION_LOGIN, decodeCodes(0, 0).getAction());
+        assertEquals(Constants.ACTION_GET_ALL_STUDENTS, decodeCodes(6, 0).getAction());
+        assertEquals(Constants.ACTION_GET_LOGIN_HISTORY, decodeCodes(45, 0).getAction());
+        assertEquals("ERROR", decodeCodes(46, 0).getAction());
+        assertEquals(Constants.ACTION_GET_STUDENTS_PAGE, decodeCodes(47, 0).getAction());
+        assertEquals(Constants.ACTION_CANCEL_REQUEST, decodeCodes(53, 0).getAction());
+        assertEquals(Constants.ACTION_RESUME_SESSION, decodeCodes(60, 0).getAction());
+    }
+
+    @Test
+    public void publishedKeyCodesAreStable() throws Exception {
+        assertTrue(decodeCodes(0, 0).getData().containsKey(Constants.KEY_USER));
+        assertTrue(decodeCodes(0, 20).getData().containsKey(Constants.KEY_STUDENTS));
+        assertTrue(decodeCodes(0, 30).getData().containsKey(Constants.KEY_CURSOR));
+        assertTrue(decodeCodes(0, 41).getData().containsKey(Constants.KEY_ETAG));
+        assertTrue(decodeCodes(0, 48).getData().containsKey(Constants.KEY_SESSION_TOKEN));
+        assertTrue(decodeCodes(0, 49).getData().containsKey(Constants.KEY_RETRY_AFTER));
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void actionCodeBeyondTableIsRejected() throws Exception {
+        decodeCodes(61, 0);
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void keyCodeBeyondTableIsRejected() throws Exception {
+        decodeCodes(0, 50);
+    }
+
+    @Test
+    public void negativeCodesAreRejected() throws Exception {
+        assertCorrupt(payload(-1, 2, 1, 2, TAG_NULL));
+        assertCorrupt(payload(1, -1, 1, 2, TAG_NULL));
+        assertCorrupt(payload(1, 2, 1, -1, TAG_NULL));
+    }
+
+    /**
+     * Độ dài âm từng gây NegativeArraySizeException thay vì lỗi định dạng
+     */
+    @Test
+    public void negativeLengthsAreRejected() throws Exception {
+        assertCorrupt(payload(1, 2, -1, 2, TAG_NULL));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_STRING}, varInt(-5))));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_LIST}, varInt(-1))));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_MAP}, varInt(-1))));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_SERIALIZED}, varInt(-1))));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_DECIMAL, 0}, varInt(-1))));
+    }
+
+    /**
+     * Frame vài byte khai báo độ dài gần Integer.MAX_VALUE phải bị từ chối
+     * trước khi cấp phát, không được gây OutOfMemoryError
+     */
+    @Test
+    public void lengthsBeyondPayloadAreRejected() throws Exception {
+        assertCorrupt(payload(1, 2, Integer.MAX_VALUE, 2, TAG_NULL));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_STRING}, varInt(Integer.MAX_VALUE))));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_STRING}, varInt(Integer.MIN_VALUE))));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_LIST}, varInt(Integer.MAX_VALUE))));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_MAP}, varInt(Integer.MAX_VALUE))));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_SERIALIZED}, varInt(Integer.MAX_VALUE))));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_DECIMAL, 0}, varInt(Integer.MAX_VALUE))));
+        // Ba phần tử nhưng chỉ còn hai byte
+        assertCorrupt(payload(1, 2, 1, 2, TAG_LIST, (byte) 3, TAG_NULL, TAG_NULL));
+    }
+
+    @Test
+    public void invalidValuesAreRejected() throws Exception {
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_TIMESTAMP, 0}, varInt(-1))));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_TIMESTAMP, 0}, varInt(1_000_000_000))));
+        assertCorrupt(payload(1, 2, 1, 2, concat(new byte[] {TAG_DATE}, varLong(-2))));
+        assertCorrupt(payload(1, 2, 1, 2, TAG_DECIMAL, (byte) 0, (byte) 0));
+        assertCorrupt(payload(1, 2, 1, 2, (byte) 99));
+    }
+
+    // ==================== Tiện ích ====================
+
+    private Message roundTrip(Message message) throws Exception {
+        return codec.decode(codec.encode(message));
+    }
+
+    private Object roundTripValue(Object value) throws Exception {
+        Message message = new Message(Message.MessageType.RESPONSE, Constants.ACTION_GET_STUDENT_INFO);
+        message.getData().put("value", value);
+        return roundTrip(message).getData().get("value");
+    }
+
+    private static Message messageWith(Map<String, Object> values) {
+        Message message = new Message(Message.MessageType.RESPONSE, Constants.ACTION_GET_SYSTEM_CONFIG);
+        message.getData().putAll(values);
+        return message;
+    }
+
+    /**
+     * Model đầy đủ mọi field (không field tham chiếu nào null) phải giải mã ra
+     * đúng từng field; field mới thêm vào model mà quên ghi vào schema sẽ lệch
+     */
+    private void assertModelRoundTrips(Object model) throws Exception {
+        for (Field field : instanceFields(model.getClass())) {
+            assertNotNull(field.getName() + " should be populated", field.get(model));
+        }
+        Object decoded = roundTripValue(model);
+        assertEquals(model.getClass(), decoded.getClass());
+        assertFieldsEqual(model, decoded);
+    }
+
+    private static void assertFieldsEqual(Object expected, Object actual) throws Exception {
+        for (Field field : instanceFields(expected.getClass())) {
+            assertEquals(field.getName(), field.get(expected), field.get(actual));
+        }
+    }
+
+    private static List<Field> instanceFields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Payload REQUEST với action và một key theo mã trong bảng (n + 2), giá trị null
+     */
+    private Message decodeCodes(int actionCode, int keyCode) throws Exception {
+        return codec.decode(payload(1, actionCode + 2, 1, keyCode + 2, TAG_NULL));
+    }
+
+    /**
+     * Payload dựng tay theo định dạng của codec, các mã là giá trị ghi trên
+     * dây: type = ordinal + 1, action/key = chỉ số trong bảng + 2
+     */
+    private static byte[] payload(int typeCode, int actionCode, int entries, int keyCode, byte... value) {
+        return concat(varInt(typeCode),
+            new byte[] {0},                   // requestId
+            varInt(actionCode),
+            new byte[] {0, 0},                // success, message = null
+            new byte[8],                      // timestamp
+            varInt(entries),
+            varInt(keyCode),
+            value);
+    }
+
+    private void assertCorrupt(byte[] payload) throws Exception {
+        try {
+            codec.decode(payload);
+            fail("Expected StreamCorruptedException");
+        } catch (StreamCorruptedException expected) {
+            // đúng
+        }
+    }
+
+    private static byte[] varInt(int value) {
+        return varLong(value & 0xFFFFFFFFL);
+    }
+
+    private static byte[] varLong(long value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean contains(byte[] haystack, byte[] needle) {
+        for (int i = 0; i + needle.length <= haystack.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(haystack, i, i + needle.length), needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
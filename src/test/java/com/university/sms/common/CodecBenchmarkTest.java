@@ -0,0 +1,108 @@
+package com.university.sms.common;
+
+import com.university.sms.model.Student;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * So sánh kích thước và thời gian encode/decode phản hồi GET_ALL_STUDENTS
+ * giữa Java serialization và codec binary.
+ *
+ * Chỉ chạy khi bật: mvn test -Dtest=CodecBenchmarkTest -Dbenchmark=true
+ * (số sinh viên: -Dbenchmark.students, mặc định 5000). Không cần database.
+ */
+public class CodecBenchmarkTest {
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 5000);
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Benchmark disabled (-Dbenchmark=true)", Boolean.getBoolean("benchmark"));
+    }
+
+    @Test
+    public void binaryIsSmallerAndCheaperThanJavaSerialization() throws Exception {
+        Message response = Message.createSuccessResponse(Constants.ACTION_GET_ALL_STUDENTS, "OK");
+        response.addData(Constants.KEY_STUDENTS, students(STUDENTS));
+
+        Result java = measure(WireProtocol.JAVA_CODEC, response);
+        Result binary = measure(WireProtocol.BINARY_CODEC, response);
+
+        System.out.println("Codec benchmark, GET_ALL_STUDENTS with " + STUDENTS + " students");
+        System.out.println("  " + java);
+        System.out.println("  " + binary);
+
+        assertTrue(binary.bytes < java.bytes);
+    }
+
+    private static Result measure(MessageCodec codec, Message message) throws Exception {
+        byte[] payload = null;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            payload = codec.encode(message);
+            codec.decode(payload);
+        }
+
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            payload = codec.encode(message);
+            encodeNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            codec.decode(payload);
+            decodeNanos += System.nanoTime() - start;
+        }
+        return new Result(codec.getName(), payload.length, encodeNanos / ROUNDS / 1000, decodeNanos / ROUNDS / 1000);
+    }
+
+    private static List<Student> students(int count) {
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Student student = new Student(10_000 + i, String.format("SV%06d", i), 1 + i % 8, 2020 + i % 5);
+            student.setStudentId(i + 1);
+            student.setClassId(i % 3 == 0 ? null : 1 + i % 40);
+            student.setStudentStatus(Student.StudentStatus.values()[i % Student.StudentStatus.values().length]);
+            student.setGpa(BigDecimal.valueOf(200 + i % 200, 2));
+            student.setTotalCredits(i % 150);
+            student.setBirthDate(Date.valueOf("2003-01-01"));
+            student.setGender(i % 2 == 0 ? Student.Gender.MALE : Student.Gender.FEMALE);
+            student.setCreatedAt(new Timestamp(1_700_000_000_000L + i * 1000L));
+            student.setFullName("Nguyễn Văn Sinh Viên " + i);
+            student.setEmail("sv" + i + "@university.edu.vn");
+            student.setPhone(String.format("09%08d", i));
+            student.setAddress("Số " + i + " Đường Lê Lợi, Quận 1, TP. Hồ Chí Minh");
+            students.add(student);
+        }
+        return students;
+    }
+
+    private static final class Result {
+        private final String codec;
+        private final int bytes;
+        private final long encodeMicros;
+        private final long decodeMicros;
+
+        Result(String codec, int bytes, long encodeMicros, long decodeMicros) {
+            this.codec = codec;
+            this.bytes = bytes;
+            this.encodeMicros = encodeMicros;
+            this.decodeMicros = decodeMicros;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-6s %9d bytes, encode %7d us, decode %7d us", codec, bytes, encodeMicros, decodeMicros);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.university.sms.common;
+
+import com.university.sms.model.Student;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Soak test của giao thức ObjectOutputStream: một phiên gửi liên tục phản hồi
+ * GET_ALL_STUDENTS qua socket loopback, heap được đo sau GC theo từng đoạn.
+ * Với ResetPolicy.DEFAULT heap phải giữ phẳng; chạy thêm một lượt không reset
+ * (ít vòng hơn) để so sánh.
+ *
+ * Chỉ chạy khi bật: mvn test -Dtest=ObjectStreamSoakBenchmarkTest -Dbenchmark=true
+ * (-Dbenchmark.rounds, mặc định 100000; -Dbenchmark.students mỗi phản hồi,
+ * mặc định 20). Không cần database.
+ */
+public class ObjectStreamSoakBenchmarkTest {
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 100_000);
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 20);
+    private static final int SAMPLES = 10;
+    private static final long MAX_GROWTH_BYTES = 16L * 1024 * 1024;
+
+    private static final ObjectMessageStream.ResetPolicy NEVER_RESET =
+        new ObjectMessageStream.ResetPolicy(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Benchmark disabled (-Dbenchmark=true)", Boolean.getBoolean("benchmark"));
+    }
+
+    @Test
+    public void heapStaysFlatWithResetPolicy() throws Exception {
+        long[] withoutReset = soak(NEVER_RESET, ROUNDS / 10);
+        long[] withReset = soak(ObjectMessageStream.ResetPolicy.DEFAULT, ROUNDS);
+
+        System.out.println("Object stream soak, " + STUDENTS + " students per response (heap after GC, KB)");
+        System.out.println("  no reset, " + ROUNDS / 10 + " rounds: " + kilobytes(withoutReset));
+        System.out.println("  DEFAULT,  " + ROUNDS + " rounds: " + kilobytes(withReset));
+
+        // So với mẫu đầu tiên (đã qua khởi động), heap không tăng theo số vòng
+        long growth = withReset[SAMPLES - 1] - withReset[0];
+        assertTrue("heap grew by " + growth + " bytes", growth < MAX_GROWTH_BYTES);
+    }
+
+    /**
+     * Chạy số vòng yêu cầu/phản hồi đã cho; trả về heap đã dùng sau GC tại
+     * cuối mỗi đoạn
+     */
+    private static long[] soak(ObjectMessageStream.ResetPolicy policy, int rounds) throws Exception {
+        long[] heap = new long[SAMPLES];
+        try (ServerSocket listener = new ServerSocket(0)) {
+            Thread server = new Thread(() -> serve(listener, policy), "SoakServer");
+            server.start();
+
+            try (Socket socket = new Socket("localhost", listener.getLocalPort())) {
+                socket.setTcpNoDelay(true);
+                ObjectMessageStream client = new ObjectMessageStream(socket.getInputStream(),
+                    socket.getOutputStream(), ObjectMessageStream.ResetPolicy.DEFAULT);
+                for (int i = 1; i <= rounds; i++) {
+                    client.writeMessage(Message.createRequest(Constants.ACTION_GET_ALL_STUDENTS));
+                    client.readMessage();
+                    if (i % (rounds / SAMPLES) == 0 && i / (rounds / SAMPLES) <= SAMPLES) {
+                        heap[i / (rounds / SAMPLES) - 1] = usedHeapAfterGc();
+                    }
+                }
+            }
+            server.join(10_000);
+        }
+        return heap;
+    }
+
+    private static void serve(ServerSocket listener, ObjectMessageStream.ResetPolicy policy) {
+        try (Socket socket = listener.accept()) {
+            socket.setTcpNoDelay(true);
+            ObjectMessageStream stream = new ObjectMessageStream(socket.getInputStream(), socket.getOutputStream(), policy);
+            while (true) {
+                Message request = stream.readMessage();
+                // Mỗi lần một danh sách mới như khi đọc lại từ DAO
+                Message response = Message.createSuccessResponse(request.getAction(), "OK");
+                response.addData(Constants.KEY_STUDENTS, students());
+                stream.writeMessage(response);
+            }
+        } catch (EOFException e) {
+            // Client đóng kết nối
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Student> students() {
+        List<Student> students = new ArrayList<>(STUDENTS);
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student(i, String.format("SV%06d", i), 1, 2024);
+            student.setStudentStatus(Student.StudentStatus.ACTIVE);
+            student.setFullName("Sinh Viên " + i);
+            student.setEmail("sv" + i + "@university.edu.vn");
+            students.add(student);
+        }
+        return students;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static String kilobytes(long[] samples) {
+        StringBuilder text = new StringBuilder();
+        for (long sample : samples) {
+            text.append(sample / 1024).append(' ');
+        }
+        return text.toString().trim();
+    }
+}
@@ -0,0 +1,120 @@
+package com.university.sms.dao;
+
+import com.university.sms.model.Student;
+import com.university.sms.util.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dữ liệu sinh viên lớn cho các benchmark: tài khoản "bench-NNNNNN" cùng một
+ * khoa, họ tên tiếng Việt có dấu, trạng thái xoay vòng. Dữ liệu cũ cùng tiền
+ * tố được xóa trước khi tạo.
+ */
+public final class BenchmarkStudents {
+    public static final String PREFIX = "bench-";
+
+    private static final int ROWS_PER_INSERT = 1000;
+    private static final String[] FAMILY_NAMES = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng"};
+    private static final String[] MIDDLE_NAMES = {"Văn", "Thị", "Hữu", "Minh", "Thanh", "Quốc", "Ngọc", "Đức"};
+    private static final String[] GIVEN_NAMES = {"An", "Bình", "Cường", "Dũng", "Giang", "Hà", "Hùng", "Khánh", "Linh",
+        "Long", "Mai", "Nam", "Nhung", "Phúc", "Quang", "Sơn", "Thảo", "Trang", "Tuấn", "Yến"};
+
+    private BenchmarkStudents() {
+    }
+
+    /**
+     * Tạo count sinh viên thuộc khoa có mã nhỏ nhất
+     *
+     * @return department_id của khoa chứa các sinh viên
+     */
+    public static int seed(int count) throws SQLException {
+        cleanUp();
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            int departmentId;
+            try (ResultSet rs = stmt.executeQuery("SELECT MIN(department_id) FROM departments")) {
+                rs.next();
+                departmentId = rs.getInt(1);
+            }
+
+            conn.setAutoCommit(false);
+            for (int from = 0; from < count; from += ROWS_PER_INSERT) {
+                int to = Math.min(count, from + ROWS_PER_INSERT);
+                StringBuilder sql = new StringBuilder(
+                    "INSERT INTO users (username, password, email, full_name, role) VALUES ");
+                for (int i = from; i < to; i++) {
+                    sql.append(i > from ? ",(?, 'x', ?, ?, 'student')" : "(?, 'x', ?, ?, 'student')");
+                }
+                try (PreparedStatement insert = conn.prepareStatement(sql.toString())) {
+                    int index = 1;
+                    for (int i = from; i < to; i++) {
+                        insert.setString(index++, code(i));
+                        insert.setString(index++, code(i) + "@bench.local");
+                        insert.setString(index++, fullName(i));
+                    }
+                    insert.executeUpdate();
+                }
+            }
+
+            // Mã sinh viên = username; trạng thái xoay vòng theo user_id
+            Student.StudentStatus[] statuses = Student.StudentStatus.values();
+            StringBuilder status = new StringBuilder("CASE MOD(user_id, ").append(statuses.length).append(')');
+            for (int i = 0; i < statuses.length; i++) {
+                status.append(" WHEN ").append(i).append(" THEN '").append(statuses[i].name().toLowerCase()).append('\'');
+            }
+            status.append(" END");
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO students (user_id, student_code, department_id, admission_year, student_status) " +
+                    "SELECT user_id, username, ?, 2099, " + status + " FROM users WHERE username LIKE ?")) {
+                insert.setInt(1, departmentId);
+                insert.setString(2, PREFIX + "%");
+                insert.executeUpdate();
+            }
+            conn.commit();
+            return departmentId;
+        }
+    }
+
+    public static void cleanUp() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM users WHERE username LIKE ?")) {
+            // students bị xóa theo ON DELETE CASCADE
+            stmt.setString(1, PREFIX + "%");
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * student_id của các sinh viên đã tạo, theo mã sinh viên
+     */
+    public static List<Integer> studentIds() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT student_id FROM students WHERE student_code LIKE ? ORDER BY student_code")) {
+            stmt.setString(1, PREFIX + "%");
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    public static String code(int i) {
+        return String.format("%s%06d", PREFIX, i);
+    }
+
+    public static String fullName(int i) {
+        return FAMILY_NAMES[i % FAMILY_NAMES.length] + " "
+            + MIDDLE_NAMES[i / FAMILY_NAMES.length % MIDDLE_NAMES.length] + " "
+            + GIVEN_NAMES[i / (FAMILY_NAMES.length * MIDDLE_NAMES.length) % GIVEN_NAMES.length];
+    }
+}
@@ -0,0 +1,90 @@
+package com.university.sms.dao;
+
+import com.university.sms.common.Constants;
+import com.university.sms.util.DatabaseConnection;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bộ nhớ server khi xuất toàn bộ sinh viên: findAll giữ cả danh sách, còn
+ * streamAll chỉ giữ một khối. Heap đang dùng (sau GC) được đo trong lúc đọc
+ * ở hai cỡ bảng; với streamAll nó không tăng theo số sinh viên.
+ *
+ * Chỉ chạy khi bật: mvn test -Dtest=StudentExportBenchmarkTest -Dbenchmark=true
+ * (-Dbenchmark.students là cỡ lớn, mặc định 50000; cỡ nhỏ bằng 1/5). Cần
+ * database; dữ liệu "bench-" được tạo và xóa trong test.
+ */
+public class StudentExportBenchmarkTest {
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 50_000);
+    private static final int SAMPLES = 5;
+
+    private final StudentDAO dao = new StudentDAO();
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Benchmark disabled (-Dbenchmark=true)", Boolean.getBoolean("benchmark"));
+        Assume.assumeTrue("Database not available", DatabaseConnection.testConnection());
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (Boolean.getBoolean("benchmark") && DatabaseConnection.testConnection()) {
+            BenchmarkStudents.cleanUp();
+        }
+    }
+
+    @Test
+    public void streamingMemoryDoesNotGrowWithTableSize() throws SQLException {
+        System.out.println("Export benchmark (live heap while reading, KB)");
+        long[] small = measure(STUDENTS / 5);
+        long[] large = measure(STUDENTS);
+
+        // Bảng lớn gấp 5 lần: findAll tăng theo, streamAll gần như không đổi
+        assertTrue(large[0] > 2 * small[0]);
+        assertTrue(large[1] < small[1] + 4 * 1024 * 1024);
+    }
+
+    /**
+     * @return {heap của findAll, heap lớn nhất của streamAll}, tính bằng byte
+     */
+    private long[] measure(int students) throws SQLException {
+        BenchmarkStudents.seed(students);
+
+        long baseline = usedHeapAfterGc();
+        List<?> all = dao.findAll();
+        long findAll = usedHeapAfterGc() - baseline;
+        int total = all.size();
+        all = null;
+
+        long streamBaseline = usedHeapAfterGc();
+        long[] streaming = new long[1];
+        int[] rows = new int[1];
+        int sampleEvery = Math.max(Constants.DEFAULT_CHUNK_SIZE, total / SAMPLES);
+        dao.streamAll(Constants.DEFAULT_CHUNK_SIZE, chunk -> {
+            rows[0] += chunk.size();
+            if (rows[0] % sampleEvery < chunk.size()) {
+                streaming[0] = Math.max(streaming[0], usedHeapAfterGc() - streamBaseline);
+            }
+            return true;
+        });
+
+        System.out.println(String.format("  %6d students: findAll %8d, streamAll %8d",
+            total, findAll / 1024, streaming[0] / 1024));
+        return new long[] {findAll, streaming[0]};
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,70 @@
+package com.university.sms.dao;
+
+import com.university.sms.util.DatabaseConnection;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * So sánh độ trễ trang đầu (keyset pagination) với lấy toàn bộ danh sách sinh
+ * viên như GET_ALL_STUDENTS.
+ *
+ * Chỉ chạy khi bật: mvn test -Dtest=StudentPageBenchmarkTest -Dbenchmark=true
+ * (-Dbenchmark.students, mặc định 50000). Cần database; dữ liệu "bench-" được
+ * tạo và xóa trong test.
+ */
+public class StudentPageBenchmarkTest {
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 50_000);
+    private static final int PAGE_SIZE = 100;
+
+    private final StudentDAO dao = new StudentDAO();
+
+    @Before
+    public void setUp() throws SQLException {
+        Assume.assumeTrue("Benchmark disabled (-Dbenchmark=true)", Boolean.getBoolean("benchmark"));
+        Assume.assumeTrue("Database not available", DatabaseConnection.testConnection());
+        BenchmarkStudents.seed(STUDENTS);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (Boolean.getBoolean("benchmark") && DatabaseConnection.testConnection()) {
+            BenchmarkStudents.cleanUp();
+        }
+    }
+
+    @Test
+    public void firstPageIsFasterThanFullFetch() {
+        long full = medianMillis(5, () -> dao.findAll().size());
+        long firstPage = medianMillis(50, () -> dao.findPage(null, PAGE_SIZE).getItems().size());
+        long deepPage = medianMillis(50,
+            () -> dao.findPage(BenchmarkStudents.code(STUDENTS / 2), PAGE_SIZE).getItems().size());
+
+        System.out.println("Student list benchmark, " + STUDENTS + " seeded students (median)");
+        System.out.println("  findAll:                    " + full + " ms");
+        System.out.println("  findPage first " + PAGE_SIZE + ":        " + firstPage + " ms");
+        System.out.println("  findPage " + PAGE_SIZE + " after middle:  " + deepPage + " ms");
+
+        assertTrue(firstPage < full);
+    }
+
+    private static long medianMillis(int runs, IntSupplier query) {
+        // Lượt đầu để nạp cache của MySQL và JIT
+        query.getAsInt();
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            query.getAsInt();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[runs / 2] / 1_000_000;
+    }
+}
@@ -0,0 +1,85 @@
+package com.university.sms.dao;
+
+import com.university.sms.model.Student;
+import com.university.sms.util.DatabaseConnection;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Thống kê sinh viên của một khoa: GROUP BY trong SQL (countByStatus) so với
+ * nạp mọi sinh viên của khoa rồi đếm trong Java như trước.
+ *
+ * Chỉ chạy khi bật: mvn test -Dtest=StudentStatisticsBenchmarkTest -Dbenchmark=true
+ * (-Dbenchmark.students, mặc định 50000). Cần database; dữ liệu "bench-" được
+ * tạo và xóa trong test.
+ */
+public class StudentStatisticsBenchmarkTest {
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 50_000);
+    private static final int RUNS = 10;
+
+    private final StudentDAO dao = new StudentDAO();
+    private int departmentId;
+
+    @Before
+    public void setUp() throws SQLException {
+        Assume.assumeTrue("Benchmark disabled (-Dbenchmark=true)", Boolean.getBoolean("benchmark"));
+        Assume.assumeTrue("Database not available", DatabaseConnection.testConnection());
+        departmentId = BenchmarkStudents.seed(STUDENTS);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (Boolean.getBoolean("benchmark") && DatabaseConnection.testConnection()) {
+            BenchmarkStudents.cleanUp();
+        }
+    }
+
+    @Test
+    public void groupByIsFasterThanLoadingTheDepartment() throws SQLException {
+        Map<Student.StudentStatus, Integer> grouped = dao.countByStatus(departmentId);
+        assertEquals(countInJava(), grouped);
+
+        long[] sql = new long[RUNS];
+        long[] java = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            dao.countByStatus(departmentId);
+            sql[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            countInJava();
+            java[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(sql);
+        Arrays.sort(java);
+
+        System.out.println("Student statistics benchmark, department with " + STUDENTS + " seeded students (median)");
+        System.out.println("  countByStatus (GROUP BY):     " + sql[RUNS / 2] / 1000 + " us");
+        System.out.println("  findByDepartmentId + count:   " + java[RUNS / 2] / 1000 + " us");
+
+        assertTrue(sql[RUNS / 2] < java[RUNS / 2]);
+    }
+
+    /**
+     * Cách tính cũ: nạp cả khoa qua truy vấn 3 join rồi đếm theo trạng thái
+     */
+    private Map<Student.StudentStatus, Integer> countInJava() {
+        List<Student> students = dao.findByDepartmentId(departmentId);
+        Map<Student.StudentStatus, Integer> counts = new EnumMap<>(Student.StudentStatus.class);
+        for (Student.StudentStatus status : Student.StudentStatus.values()) {
+            counts.put(status, (int) students.stream().filter(s -> s.getStudentStatus() == status).count());
+        }
+        return counts;
+    }
+}
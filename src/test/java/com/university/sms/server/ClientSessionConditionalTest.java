@@ -0,0 +1,164 @@
+package com.university.sms.server;
+
+import com.university.sms.common.Constants;
+import com.university.sms.common.Message;
+import com.university.sms.model.Student;
+import com.university.sms.service.CourseService;
+import com.university.sms.service.StudentService;
+import com.university.sms.util.DatabaseConnection;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ETag không được thay cho quyền đọc: sinh viên gửi lại ETag hợp lệ cho danh
+ * sách sinh viên vẫn nhận UNAUTHORIZED chứ không phải NOT_MODIFIED.
+ *
+ * Cần database trong database.properties (đã chạy database_setup.sql); không
+ * kết nối được thì test được bỏ qua.
+ */
+public class ClientSessionConditionalTest {
+    private static final String USERNAME = "etag-test-student";
+    private static final String PASSWORD = "etag-test-password";
+    private static final ClientSession.ChunkSink NO_CHUNKS = chunk -> true;
+
+    private ClientSession session;
+    private int userId;
+
+    @Before
+    public void setUp() throws SQLException {
+        Assume.assumeTrue("Database not available", DatabaseConnection.testConnection());
+        cleanUp();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO users (username, password, email, full_name, role) VALUES (?, ?, ?, 'ETag Test', 'student')",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, USERNAME);
+                stmt.setString(2, PASSWORD);
+                stmt.setString(3, USERNAME + "@test.local");
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    keys.next();
+                    userId = keys.getInt(1);
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO students (user_id, student_code, department_id, admission_year) " +
+                    "SELECT ?, ?, MIN(department_id), 2099 FROM departments")) {
+                stmt.setInt(1, userId);
+                stmt.setString(2, USERNAME);
+                stmt.executeUpdate();
+            }
+        }
+
+        session = new ClientSession("/127.0.0.1:50000");
+        Message login = Message.createRequest(Constants.ACTION_LOGIN);
+        login.addData(Constants.KEY_USERNAME, USERNAME);
+        login.addData(Constants.KEY_PASSWORD, PASSWORD);
+        Assume.assumeTrue("Login failed", session.processRequest(login, NO_CHUNKS).isSuccess());
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (session != null) {
+            session.close();
+        }
+        if (DatabaseConnection.testConnection()) {
+            cleanUp();
+        }
+    }
+
+    @Test
+    public void studentWithValidETagIsStillUnauthorizedForStudentList() {
+        Message own = session.processRequest(Message.createRequest(Constants.ACTION_GET_STUDENT_INFO), NO_CHUNKS);
+        assertTrue(own.isSuccess());
+        String etag = own.getData(Constants.KEY_ETAG, String.class);
+        assertNotNull("migration database_migration_updated_at.sql not applied", etag);
+
+        for (String action : new String[] {Constants.ACTION_GET_ALL_STUDENTS, Constants.ACTION_GET_STUDENTS_WINDOW}) {
+            Message request = Message.createRequest(action);
+            request.addData(Constants.KEY_IF_NONE_MATCH, etag);
+            Message response = session.processRequest(request, NO_CHUNKS);
+
+            assertFalse(action, response.isSuccess());
+            assertEquals(action, Constants.MSG_UNAUTHORIZED, response.getMessage());
+            assertNull(action, response.getData(Constants.KEY_NOT_MODIFIED));
+        }
+    }
+
+    @Test
+    public void studentWithValidETagGetsNotModifiedForOwnInfo() {
+        Message own = session.processRequest(Message.createRequest(Constants.ACTION_GET_STUDENT_INFO), NO_CHUNKS);
+        String etag = own.getData(Constants.KEY_ETAG, String.class);
+        Assume.assumeNotNull(etag);
+
+        Message request = Message.createRequest(Constants.ACTION_GET_STUDENT_INFO);
+        request.addData(Constants.KEY_IF_NONE_MATCH, etag);
+        Message response = session.processRequest(request, NO_CHUNKS);
+
+        assertTrue(response.isSuccess());
+        assertEquals(Boolean.TRUE, response.getData(Constants.KEY_NOT_MODIFIED, Boolean.class));
+    }
+
+    /**
+     * Phiên bản được giữ trong bộ nhớ nhưng thao tác ghi qua server phải đổi
+     * ETag ngay, không chờ hết TTL
+     */
+    @Test
+    public void writesThroughServerChangeETagImmediately() {
+        String studentETag = etag(Constants.ACTION_GET_STUDENT_INFO);
+        String courseETag = etag(Constants.ACTION_GET_ALL_COURSES);
+        Assume.assumeNotNull(studentETag, courseETag);
+        assertEquals(studentETag, etag(Constants.ACTION_GET_STUDENT_INFO));
+        assertEquals(courseETag, etag(Constants.ACTION_GET_ALL_COURSES));
+
+        StudentService students = new StudentService();
+        int studentId = students.getStudentByUserId(userId).getStudentId();
+        assertTrue(students.updateStudentStatus(studentId, Student.StudentStatus.SUSPENDED));
+        assertNotEquals(studentETag, revalidate(Constants.ACTION_GET_STUDENT_INFO, studentETag));
+
+        CourseService.applySeatCounts(Map.of(Integer.MAX_VALUE, 0));
+        assertNotEquals(courseETag, revalidate(Constants.ACTION_GET_ALL_COURSES, courseETag));
+    }
+
+    private String etag(String action) {
+        return session.processRequest(Message.createRequest(action), NO_CHUNKS).getData(Constants.KEY_ETAG, String.class);
+    }
+
+    /**
+     * Gửi lại ETag cũ: phải nhận dữ liệu đầy đủ kèm ETag mới
+     */
+    private String revalidate(String action, String etag) {
+        Message request = Message.createRequest(action);
+        request.addData(Constants.KEY_IF_NONE_MATCH, etag);
+        Message response = session.processRequest(request, NO_CHUNKS);
+        assertTrue(action, response.isSuccess());
+        assertNull(action, response.getData(Constants.KEY_NOT_MODIFIED));
+        return response.getData(Constants.KEY_ETAG, String.class);
+    }
+
+    private static void cleanUp() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM users WHERE username = ?")) {
+            // students bị xóa theo ON DELETE CASCADE
+            stmt.setString(1, USERNAME);
+            stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.university.sms.server;
+
+import com.university.sms.server.AdmissionController.Priority;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Thứ tự lấy việc của PriorityWorkerPool
+ */
+public class PriorityWorkerPoolTest {
+    private PriorityWorkerPool pool;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        pool = new PriorityWorkerPool(1, 100, Executors.defaultThreadFactory());
+        // Giữ worker duy nhất bận để các việc sau nằm trong hàng đợi
+        release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void highPriorityRunsBeforeEarlierLowAndNormal() throws InterruptedException {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 3; i++) {
+            String name = "low" + i;
+            pool.execute(new PriorityWorkerPool.PrioritizedTask(Priority.LOW, () -> order.add(name)));
+        }
+        pool.execute(new PriorityWorkerPool.PrioritizedTask(Priority.NORMAL, () -> order.add("normal0")));
+        pool.execute(() -> order.add("plain"));
+        pool.execute(new PriorityWorkerPool.PrioritizedTask(Priority.HIGH, () -> order.add("high0")));
+        pool.execute(new PriorityWorkerPool.PrioritizedTask(Priority.HIGH, () -> order.add("high1")));
+
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("high0", "high1", "normal0", "plain", "low0", "low1", "low2"), order);
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFull() {
+        for (int i = 0; i < 100; i++) {
+            pool.execute(new PriorityWorkerPool.PrioritizedTask(Priority.LOW, () -> { }));
+        }
+        try {
+            pool.execute(new PriorityWorkerPool.PrioritizedTask(Priority.HIGH, () -> { }));
+            fail("queue full");
+        } catch (RejectedExecutionException expected) {
+            // RequestPipeline trả lời "server bận"
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.university.sms.server;
+
+import com.university.sms.common.Constants;
+import com.university.sms.common.Message;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lập lịch của RequestPipeline: giới hạn yêu cầu song song, rào chắn, hủy và
+ * từ chối khi quá tải. Worker pool được thay bằng executor chỉ ghi lại việc,
+ * test tự chạy từng việc theo thứ tự mong muốn.
+ */
+public class RequestPipelineTest {
+    private static final int MAX_IN_FLIGHT = 8;
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final List<Message> responses = new ArrayList<>();
+    private final List<Long> processed = new ArrayList<>();
+    private RecordingSession session;
+
+    /**
+     * Phiên trả lời ngay, không cần database
+     */
+    private class RecordingSession extends ClientSession {
+        RuntimeException failure;
+
+        RecordingSession() {
+            super("test");
+        }
+
+        @Override
+        public Message processRequest(Message request, ChunkSink chunkSink) {
+            processed.add(request.getRequestId());
+            if (failure != null) {
+                throw failure;
+            }
+            Message response = Message.createSuccessResponse(request.getAction(), "ok");
+            response.setRequestId(request.getRequestId());
+            return response;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        session = new RecordingSession();
+    }
+
+    @Test
+    public void independentRequestsRunInParallelUpToLimit() {
+        RequestPipeline pipeline = pipeline(tasks::add, 64);
+        for (long id = 1; id <= MAX_IN_FLIGHT + 2; id++) {
+            pipeline.submit(request(Constants.ACTION_GET_COURSES, id));
+        }
+        assertEquals(MAX_IN_FLIGHT, tasks.size());
+
+        // Một yêu cầu xong thì yêu cầu chờ kế tiếp được đưa lên pool
+        run(0);
+        assertEquals(MAX_IN_FLIGHT + 1, tasks.size());
+        run(1);
+        assertEquals(MAX_IN_FLIGHT + 2, tasks.size());
+    }
+
+    @Test
+    public void responsesMayCompleteOutOfOrder() {
+        RequestPipeline pipeline = pipeline(tasks::add, 64);
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 1));
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 2));
+
+        run(1);
+        run(0);
+
+        assertEquals(List.of(2L, 1L), responseIds());
+    }
+
+    @Test
+    public void barrierWaitsForEarlierRequestsAndBlocksLaterOnes() {
+        RequestPipeline pipeline = pipeline(tasks::add, 64);
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 1));
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 2));
+        pipeline.submit(request(Constants.ACTION_LOGIN, 3));
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 4));
+        assertEquals(2, tasks.size());
+
+        run(0);
+        assertEquals(2, tasks.size());
+        run(1);
+        // Mọi yêu cầu trước đã xong: rào chắn chạy một mình
+        assertEquals(3, tasks.size());
+
+        run(2);
+        assertEquals(4, tasks.size());
+        run(3);
+        assertEquals(List.of(1L, 2L, 3L, 4L), processed);
+    }
+
+    @Test
+    public void sessionActionsAndUntaggedRequestsAreBarriers() {
+        for (String action : new String[] {Constants.ACTION_LOGIN, Constants.ACTION_RESUME_SESSION,
+                Constants.ACTION_LOGOUT, Constants.ACTION_CHANGE_PASSWORD}) {
+            tasks.clear();
+            RequestPipeline pipeline = pipeline(tasks::add, 64);
+            pipeline.submit(request(action, 1));
+            pipeline.submit(request(Constants.ACTION_GET_COURSES, 2));
+            assertEquals(action, 1, tasks.size());
+            run(0);
+        }
+
+        // Client cũ không gửi requestId: mọi yêu cầu chạy tuần tự
+        tasks.clear();
+        RequestPipeline pipeline = pipeline(tasks::add, 64);
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 0));
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 0));
+        assertEquals(1, tasks.size());
+        run(0);
+        assertEquals(2, tasks.size());
+    }
+
+    @Test
+    public void cancelRemovesWaitingRequest() {
+        RequestPipeline pipeline = pipeline(tasks::add, 64);
+        for (long id = 1; id <= MAX_IN_FLIGHT + 1; id++) {
+            pipeline.submit(request(Constants.ACTION_GET_COURSES, id));
+        }
+
+        pipeline.submit(cancel(MAX_IN_FLIGHT + 1));
+
+        assertEquals(1, responses.size());
+        assertCancelled(responses.get(0), MAX_IN_FLIGHT + 1);
+        // Chỗ trống sau đó không được dùng cho yêu cầu đã hủy
+        run(0);
+        assertEquals(MAX_IN_FLIGHT, tasks.size());
+        assertFalse(processed.contains((long) MAX_IN_FLIGHT + 1));
+    }
+
+    @Test
+    public void cancelReplacesResultOfRunningRequest() {
+        RequestPipeline pipeline = pipeline(tasks::add, 64);
+        pipeline.submit(request(Constants.ACTION_GET_ALL_STUDENTS, 1));
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 2));
+
+        pipeline.submit(cancel(1));
+        assertTrue(responses.isEmpty());
+        run(0);
+        run(1);
+
+        assertCancelled(responses.get(0), 1);
+        assertTrue(responses.get(1).isSuccess());
+    }
+
+    @Test
+    public void cancelOfUnknownOrFinishedRequestIsIgnored() {
+        RequestPipeline pipeline = pipeline(tasks::add, 64);
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 1));
+        run(0);
+
+        pipeline.submit(cancel(1));
+        pipeline.submit(cancel(99));
+        pipeline.submit(Message.createRequest(Constants.ACTION_CANCEL_REQUEST));
+
+        assertEquals(1, responses.size());
+        assertTrue(responses.get(0).isSuccess());
+        // Hủy không chiếm chỗ và không có phản hồi riêng
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 2));
+        assertEquals(2, tasks.size());
+    }
+
+    @Test
+    public void overloadedServerRejectsImmediately() {
+        // Giới hạn 1: yêu cầu thứ hai bị từ chối chứ không xếp hàng
+        RequestPipeline pipeline = pipeline(tasks::add, 1);
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 1));
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 2));
+
+        assertEquals(1, tasks.size());
+        assertBusy(responses.get(0), 2);
+
+        // Xong yêu cầu đầu thì chỗ được trả lại
+        run(0);
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 3));
+        assertEquals(2, tasks.size());
+    }
+
+    @Test
+    public void fullWorkerPoolRejectsAndReleasesAdmission() {
+        AdmissionController admission = new AdmissionController(new AdmissionController.Config());
+        Executor full = task -> {
+            throw new RejectedExecutionException("full");
+        };
+        RequestPipeline pipeline = new RequestPipeline(session, full, admission, responses::add, chunk -> true);
+
+        pipeline.submit(request(Constants.ACTION_GET_COURSES, 1));
+        pipeline.submit(request(Constants.ACTION_LOGIN, 2));
+
+        assertBusy(responses.get(0), 1);
+        assertBusy(responses.get(1), 2);
+        assertEquals(0, admission.getActiveRequests());
+    }
+
+    @Test
+    public void failedProcessingAnswersAndFreesSlot() {
+        RequestPipeline pipeline = pipeline(tasks::add, 64);
+        for (long id = 1; id <= MAX_IN_FLIGHT + 1; id++) {
+            pipeline.submit(request(Constants.ACTION_GET_COURSES, id));
+        }
+
+        session.failure = new IllegalStateException("boom");
+        run(0);
+
+        assertEquals(1, responses.size());
+        assertFalse(responses.get(0).isSuccess());
+        assertEquals(Constants.MSG_SERVER_ERROR, responses.get(0).getMessage());
+        assertEquals(1, responses.get(0).getRequestId());
+        assertEquals(MAX_IN_FLIGHT + 1, tasks.size());
+    }
+
+    private RequestPipeline pipeline(Executor executor, int maxRequests) {
+        AdmissionController.Config config = new AdmissionController.Config();
+        config.setMaxRequests(maxRequests);
+        return new RequestPipeline(session, executor, new AdmissionController(config), responses::add, chunk -> true);
+    }
+
+    private void run(int task) {
+        tasks.get(task).run();
+    }
+
+    private List<Long> responseIds() {
+        List<Long> ids = new ArrayList<>();
+        for (Message response : responses) {
+            ids.add(response.getRequestId());
+        }
+        return ids;
+    }
+
+    private static Message request(String action, long requestId) {
+        Message request = Message.createRequest(action);
+        request.setRequestId(requestId);
+        return request;
+    }
+
+    private static Message cancel(long targetRequestId) {
+        Message request = Message.createRequest(Constants.ACTION_CANCEL_REQUEST);
+        request.addData(Constants.KEY_TARGET_REQUEST_ID, targetRequestId);
+        return request;
+    }
+
+    private static void assertCancelled(Message response, long requestId) {
+        assertFalse(response.isSuccess());
+        assertEquals(Constants.MSG_REQUEST_CANCELLED, response.getMessage());
+        assertEquals(requestId, response.getRequestId());
+    }
+
+    private static void assertBusy(Message response, long requestId) {
+        assertFalse(response.isSuccess());
+        assertEquals(Constants.MSG_SERVER_BUSY, response.getMessage());
+        assertEquals(requestId, response.getRequestId());
+        assertNotNull(response.getData().get(Constants.KEY_RETRY_AFTER));
+    }
+}
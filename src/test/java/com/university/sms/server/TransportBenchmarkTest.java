@@ -0,0 +1,164 @@
+package com.university.sms.server;
+
+import com.university.sms.common.Constants;
+import com.university.sms.common.Message;
+import com.university.sms.common.MessageStream;
+import com.university.sms.common.WireProtocol;
+import com.university.sms.util.DatabaseConnection;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * So sánh chế độ BLOCKING và NIO khi có nhiều client cùng giữ kết nối: số
+ * kết nối được phục vụ, số thread của server và độ trễ một yêu cầu.
+ *
+ * Chỉ chạy khi bật, mỗi lần một chế độ (server.stop() đóng connection pool
+ * nên không chạy chung với test khác):
+ *   mvn test -Dtest=TransportBenchmarkTest -Dbenchmark=true -Dbenchmark.transport=BLOCKING
+ *   mvn test -Dtest=TransportBenchmarkTest -Dbenchmark=true -Dbenchmark.transport=NIO
+ * Số kết nối: -Dbenchmark.connections (mặc định 1000). Cần database vì server
+ * kiểm tra kết nối và nạp chỉ mục tìm kiếm khi khởi động.
+ */
+public class TransportBenchmarkTest {
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.connections", 1000);
+    private static final String TRANSPORT = System.getProperty("benchmark.transport", "NIO");
+    // Dưới giới hạn yêu cầu LOW của AdmissionController: "bận" chỉ do giới hạn phiên
+    private static final int CLIENT_THREADS = 16;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Benchmark disabled (-Dbenchmark=true)", Boolean.getBoolean("benchmark"));
+        Assume.assumeTrue("Database not available", DatabaseConnection.testConnection());
+        Logger.getLogger("com.university.sms").setLevel(Level.WARNING);
+    }
+
+    @Test
+    public void heldConnections() throws Exception {
+        StudentManagementServer.TransportMode mode = StudentManagementServer.TransportMode.valueOf(TRANSPORT);
+        Result result = run(mode);
+
+        System.out.println("Transport benchmark, " + CONNECTIONS + " connections: " + result);
+
+        if (mode == StudentManagementServer.TransportMode.NIO) {
+            assertEquals(CONNECTIONS, result.served);
+        }
+    }
+
+    private static Result run(StudentManagementServer.TransportMode mode) throws Exception {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        StudentManagementServer server = new StudentManagementServer(port, mode);
+        Thread serverThread = new Thread(server::start, "BenchmarkServer");
+        serverThread.start();
+        while (!server.isRunning()) {
+            Thread.sleep(10);
+        }
+
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        List<Socket> sockets = new ArrayList<>();
+        List<MessageStream> streams = new ArrayList<>();
+        Result result = new Result(mode);
+        try {
+            for (int i = 0; i < CONNECTIONS; i++) {
+                Socket socket = new Socket("localhost", port);
+                sockets.add(socket);
+                try {
+                    streams.add(WireProtocol.openClientStream(socket.getInputStream(), socket.getOutputStream(),
+                        WireProtocol.Protocol.FRAMED, WireProtocol.BINARY_CODEC));
+                } catch (IOException e) {
+                    // Server đóng kết nối vượt giới hạn ngay khi accept
+                    result.refused++;
+                }
+            }
+            // Chờ server tạo xong thread cho các phiên vừa nhận
+            Thread.sleep(500);
+            result.serverThreads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+
+            // Mỗi kết nối gửi một yêu cầu (chưa đăng nhập nên server trả UNAUTHORIZED)
+            long[] latencies = new long[streams.size()];
+            AtomicInteger busy = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < streams.size(); i++) {
+                    int index = i;
+                    futures.add(clients.submit(() -> {
+                        MessageStream stream = streams.get(index);
+                        long start = System.nanoTime();
+                        try {
+                            stream.writeMessage(Message.createRequest(Constants.ACTION_GET_COURSES));
+                            Message response = stream.readMessage();
+                            if (Constants.MSG_SERVER_BUSY.equals(response.getMessage())) {
+                                busy.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                        latencies[index] = System.nanoTime() - start;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                clients.shutdownNow();
+            }
+
+            result.busy = busy.get();
+            result.refused += failed.get();
+            result.served = streams.size() - busy.get() - failed.get();
+            Arrays.sort(latencies);
+            if (latencies.length > 0) {
+                result.p50Micros = latencies[latencies.length / 2] / 1000;
+                result.p99Micros = latencies[latencies.length * 99 / 100] / 1000;
+            }
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+            server.stop();
+            serverThread.join(10_000);
+        }
+        return result;
+    }
+
+    private static final class Result {
+        private final StudentManagementServer.TransportMode mode;
+        private int served;
+        private int busy;
+        private int refused;
+        private int serverThreads;
+        private long p50Micros;
+        private long p99Micros;
+
+        Result(StudentManagementServer.TransportMode mode) {
+            this.mode = mode;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s served %5d, busy %5d, refused %5d, server threads +%4d, p50 %6d us, p99 %6d us",
+                mode, served, busy, refused, serverThreads, p50Micros, p99Micros);
+        }
+    }
+}
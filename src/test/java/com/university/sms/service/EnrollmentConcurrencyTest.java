@@ -0,0 +1,212 @@
+package com.university.sms.service;
+
+import com.university.sms.dao.EnrollmentDAO.EnrollResult;
+import com.university.sms.model.Course;
+import com.university.sms.util.DatabaseConnection;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+/**
+ * Kiểm tra không đăng ký vượt số chỗ khi nhiều sinh viên cùng đăng ký một học
+ * phần, qua đúng đường xử lý thật: EnrollmentService -> EnrollmentBatcher ->
+ * EnrollmentDAO.processBatch.
+ *
+ * Cần database trong database.properties (đã chạy database_setup.sql); không
+ * kết nối được thì test được bỏ qua. Dữ liệu test được tạo và xóa trong test.
+ */
+public class EnrollmentConcurrencyTest {
+    private static final int SEATS = 50;
+    private static final int STUDENTS = 1000;
+    private static final int THREADS = 200;
+    private static final String PREFIX = "stress-";
+
+    private int courseId;
+    private final List<Integer> studentIds = new ArrayList<>();
+
+    @Before
+    public void setUp() throws SQLException {
+        Assume.assumeTrue("Database not available", DatabaseConnection.testConnection());
+        cleanUp();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            int departmentId = firstId(conn, "SELECT MIN(department_id) FROM departments");
+            int subjectId = firstId(conn, "SELECT MIN(subject_id) FROM subjects");
+            int teacherId = firstId(conn, "SELECT MIN(user_id) FROM users WHERE role = 'teacher'");
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO courses (course_code, subject_id, teacher_id, academic_year, semester, "
+                    + "max_students, current_students, course_status) VALUES (?, ?, ?, '2099-2100', 1, ?, 0, 'ongoing')",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, PREFIX + "course");
+                stmt.setInt(2, subjectId);
+                stmt.setInt(3, teacherId);
+                stmt.setInt(4, SEATS);
+                stmt.executeUpdate();
+                courseId = generatedId(stmt);
+            }
+
+            try (PreparedStatement user = conn.prepareStatement(
+                     "INSERT INTO users (username, password, email, full_name, role) VALUES (?, 'x', ?, ?, 'student')",
+                     Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement student = conn.prepareStatement(
+                     "INSERT INTO students (user_id, student_code, department_id, admission_year) VALUES (?, ?, ?, 2099)",
+                     Statement.RETURN_GENERATED_KEYS)) {
+                for (int i = 0; i < STUDENTS; i++) {
+                    user.setString(1, PREFIX + i);
+                    user.setString(2, PREFIX + i + "@test.local");
+                    user.setString(3, "Stress " + i);
+                    user.executeUpdate();
+
+                    student.setInt(1, generatedId(user));
+                    student.setString(2, PREFIX + i);
+                    student.setInt(3, departmentId);
+                    student.executeUpdate();
+                    studentIds.add(generatedId(student));
+                }
+            }
+            conn.commit();
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (DatabaseConnection.testConnection()) {
+            cleanUp();
+        }
+    }
+
+    @Test
+    public void concurrentEnrollmentsNeverExceedSeats() throws Exception {
+        EnrollmentService service = new EnrollmentService();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<EnrollResult>> futures = new ArrayList<>();
+        try {
+            for (int studentId : studentIds) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return service.enroll(studentId, courseId);
+                }));
+            }
+            start.countDown();
+
+            Map<EnrollResult, Integer> counts = new EnumMap<>(EnrollResult.class);
+            for (Future<EnrollResult> future : futures) {
+                counts.merge(future.get(), 1, Integer::sum);
+            }
+
+            assertEquals(counts.toString(), SEATS, counts.getOrDefault(EnrollResult.ENROLLED, 0).intValue());
+            assertEquals(counts.toString(), STUDENTS - SEATS, counts.getOrDefault(EnrollResult.COURSE_FULL, 0).intValue());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            assertEquals(SEATS, firstId(conn, "SELECT current_students FROM courses WHERE course_id = " + courseId));
+            assertEquals(SEATS, firstId(conn, "SELECT COUNT(*) FROM enrollments WHERE course_id = " + courseId
+                                              + " AND enrollment_status = 'enrolled'"));
+        }
+    }
+
+    /**
+     * Hủy rồi đăng ký lại cùng học phần: bản ghi 'dropped' được kích hoạt lại
+     * (unique_enrollment không cho thêm dòng mới); bản ghi đã kết thúc thì không
+     */
+    @Test
+    public void droppedEnrollmentCanBeEnrolledAgain() throws Exception {
+        EnrollmentService service = new EnrollmentService();
+        int studentId = studentIds.get(0);
+
+        assertEquals(EnrollResult.ENROLLED, service.enroll(studentId, courseId));
+        assertEquals(EnrollResult.ALREADY_ENROLLED, service.enroll(studentId, courseId));
+        assertEquals(EnrollResult.DROPPED, service.drop(studentId, courseId));
+        assertEquals(EnrollResult.NOT_ENROLLED, service.drop(studentId, courseId));
+        assertEquals(EnrollResult.ENROLLED, service.enroll(studentId, courseId));
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            assertEquals(1, firstId(conn, "SELECT current_students FROM courses WHERE course_id = " + courseId));
+            assertEquals(1, firstId(conn, "SELECT COUNT(*) FROM enrollments WHERE course_id = " + courseId
+                                          + " AND enrollment_status = 'enrolled'"));
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("UPDATE enrollments SET enrollment_status = 'completed' WHERE course_id = "
+                                   + courseId);
+            }
+        }
+        assertEquals(EnrollResult.ALREADY_ENROLLED, service.enroll(studentId, courseId));
+    }
+
+    /**
+     * Số chỗ mới được đưa vào cache bằng bản sao: object đã trả cho người gọi
+     * trước đó (có thể đang được serialize) không bị sửa
+     */
+    @Test
+    public void seatCountsReplaceCachedCoursesWithCopies() {
+        CourseService courses = new CourseService();
+        CourseService.flushCache();
+        Course before = courses.getCourseById(courseId);
+        List<Course> catalogueBefore = courses.getAllCourses();
+
+        assertEquals(EnrollResult.ENROLLED, new EnrollmentService().enroll(studentIds.get(0), courseId));
+
+        Course after = courses.getCourseById(courseId);
+        assertEquals(0, before.getCurrentStudents());
+        assertEquals(1, after.getCurrentStudents());
+        assertNotSame(before, after);
+        assertEquals(0, find(catalogueBefore, courseId).getCurrentStudents());
+        assertEquals(1, find(courses.getAllCourses(), courseId).getCurrentStudents());
+    }
+
+    private static Course find(List<Course> courses, int courseId) {
+        for (Course course : courses) {
+            if (course.getCourseId() == courseId) {
+                return course;
+            }
+        }
+        throw new AssertionError("Course " + courseId + " not in catalogue");
+    }
+
+    private static void cleanUp() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            // enrollments và students bị xóa theo ON DELETE CASCADE
+            stmt.executeUpdate("DELETE FROM courses WHERE course_code = '" + PREFIX + "course'");
+            stmt.executeUpdate("DELETE FROM users WHERE username LIKE '" + PREFIX + "%'");
+        }
+    }
+
+    private static int firstId(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static int generatedId(PreparedStatement stmt) throws SQLException {
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            keys.next();
+            return keys.getInt(1);
+        }
+    }
+}
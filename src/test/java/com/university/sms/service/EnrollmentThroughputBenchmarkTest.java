@@ -0,0 +1,139 @@
+package com.university.sms.service;
+
+import com.university.sms.dao.BenchmarkStudents;
+import com.university.sms.dao.EnrollmentDAO.EnrollResult;
+import com.university.sms.util.DatabaseConnection;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Thông lượng đăng ký học phần lúc mở đăng ký: nhiều thread cùng gọi
+ * EnrollmentService.enroll (đường batch thật) cho nhiều học phần.
+ *
+ * Chỉ chạy khi bật: mvn test -Dtest=EnrollmentThroughputBenchmarkTest -Dbenchmark=true
+ * (-Dbenchmark.students, mặc định 5000; -Dbenchmark.threads, mặc định 200).
+ * Mỗi sinh viên đăng ký COURSES học phần. Cần database; dữ liệu "bench-"
+ * được tạo và xóa trong test.
+ */
+public class EnrollmentThroughputBenchmarkTest {
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 5000);
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 200);
+    private static final int COURSES = 5;
+    private static final String COURSE_PREFIX = BenchmarkStudents.PREFIX + "course-";
+
+    private final List<Integer> courseIds = new ArrayList<>();
+    private List<Integer> studentIds;
+
+    @Before
+    public void setUp() throws SQLException {
+        Assume.assumeTrue("Benchmark disabled (-Dbenchmark=true)", Boolean.getBoolean("benchmark"));
+        Assume.assumeTrue("Database not available", DatabaseConnection.testConnection());
+        cleanUp();
+        BenchmarkStudents.seed(STUDENTS);
+        studentIds = BenchmarkStudents.studentIds();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "INSERT INTO courses (course_code, subject_id, teacher_id, academic_year, semester, max_students, " +
+                 "current_students, course_status) SELECT ?, MIN(subject_id), " +
+                 "(SELECT MIN(user_id) FROM users WHERE role = 'teacher'), '2099-2100', 1, ?, 0, 'ongoing' FROM subjects",
+                 Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < COURSES; i++) {
+                stmt.setString(1, COURSE_PREFIX + i);
+                stmt.setInt(2, STUDENTS);
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    keys.next();
+                    courseIds.add(keys.getInt(1));
+                }
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (Boolean.getBoolean("benchmark") && DatabaseConnection.testConnection()) {
+            cleanUp();
+        }
+    }
+
+    @Test
+    public void enrollmentsPerSecond() throws Exception {
+        EnrollmentService service = new EnrollmentService();
+        int total = studentIds.size() * COURSES;
+        long[] latencies = new long[total];
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<EnrollResult>> futures = new ArrayList<>(total);
+        long elapsed;
+        Map<EnrollResult, Integer> counts = new EnumMap<>(EnrollResult.class);
+        try {
+            int index = 0;
+            for (int courseId : courseIds) {
+                for (int studentId : studentIds) {
+                    int slot = index++;
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        long begin = System.nanoTime();
+                        EnrollResult result = service.enroll(studentId, courseId);
+                        latencies[slot] = System.nanoTime() - begin;
+                        return result;
+                    }));
+                }
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<EnrollResult> future : futures) {
+                counts.merge(future.get(), 1, Integer::sum);
+            }
+            elapsed = System.nanoTime() - begin;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Arrays.sort(latencies);
+        System.out.println(String.format("Enrollment benchmark, %d enrollments from %d threads: %.0f/s, "
+                + "p50 %d ms, p99 %d ms, %s", total, THREADS, total * 1e9 / elapsed,
+            latencies[total / 2] / 1_000_000, latencies[total * 99 / 100] / 1_000_000, counts));
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT COUNT(*) FROM enrollments e JOIN courses c ON e.course_id = c.course_id " +
+                 "WHERE c.course_code LIKE ? AND e.enrollment_status = 'enrolled'")) {
+            stmt.setString(1, COURSE_PREFIX + "%");
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                assertEquals(counts.getOrDefault(EnrollResult.ENROLLED, 0).intValue(), rs.getInt(1));
+            }
+        }
+    }
+
+    private static void cleanUp() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM courses WHERE course_code LIKE ?")) {
+            // enrollments bị xóa theo ON DELETE CASCADE
+            stmt.setString(1, COURSE_PREFIX + "%");
+            stmt.executeUpdate();
+        }
+        BenchmarkStudents.cleanUp();
+    }
+}
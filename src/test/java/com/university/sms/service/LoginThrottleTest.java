@@ -0,0 +1,41 @@
+package com.university.sms.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hai giới hạn theo username của LoginThrottle với cấu hình mặc định trong
+ * database.properties: 10 lần sai và 60 lần thử mỗi phút. LoginThrottle là
+ * singleton nên mỗi test dùng username và địa chỉ riêng.
+ */
+public class LoginThrottleTest {
+    private static final int FAILURE_LIMIT = 10;
+    private static final int ATTEMPT_LIMIT = 60;
+
+    private final LoginThrottle throttle = LoginThrottle.getInstance();
+
+    @Test
+    public void successfulLoginsAreLimitedByAttemptRate() {
+        for (int i = 0; i < ATTEMPT_LIMIT; i++) {
+            // Mỗi lần từ một máy khác để giới hạn theo IP không can thiệp
+            assertTrue("attempt " + i, throttle.tryAttempt("/10.24.0." + i + ":5000", "throttle-valid"));
+        }
+
+        assertFalse(throttle.tryAttempt("/10.24.1.1:5000", "throttle-valid"));
+        // Không phân biệt hoa thường và khoảng trắng
+        assertFalse(throttle.tryAttempt("/10.24.1.2:5000", " Throttle-Valid "));
+        assertTrue(throttle.tryAttempt("/10.24.1.3:5000", "throttle-other"));
+    }
+
+    @Test
+    public void failuresAreLimitedStrictly() {
+        for (int i = 0; i < FAILURE_LIMIT; i++) {
+            assertTrue("attempt " + i, throttle.tryAttempt("/10.25.0." + i + ":5000", "throttle-guess"));
+            throttle.recordFailure("/10.25.0." + i + ":5000", "throttle-guess");
+        }
+
+        assertFalse(throttle.tryAttempt("/10.25.1.1:5000", "throttle-guess"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.university.sms.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Giới hạn số thread chờ kết quả băm của PasswordHasher
+ */
+public class PasswordHasherTest {
+
+    @Test
+    public void callersBeyondWaiterLimitGetBusyImmediately() throws Exception {
+        int callers = 10;
+        int maxWaiters = 2;
+        // Một thread băm, hàng đợi rộng: chỉ giới hạn thread chờ mới chặn được người gọi
+        PasswordHasher hasher = new PasswordHasher(12, 1, 64, maxWaiters, 30_000);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> busyMillis = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                busyMillis.add(pool.submit(() -> {
+                    start.await();
+                    long begin = System.nanoTime();
+                    String hash = hasher.hash("secret");
+                    return hash == null ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin) : -1L;
+                }));
+            }
+            start.countDown();
+
+            int hashed = 0;
+            for (Future<Long> future : busyMillis) {
+                long millis = future.get(60, TimeUnit.SECONDS);
+                if (millis < 0) {
+                    hashed++;
+                } else {
+                    assertTrue("busy reply took " + millis + " ms", millis < 100);
+                }
+            }
+            assertTrue("hashed " + hashed, hashed >= 1 && hashed <= maxWaiters);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void verifiesBcryptAndLegacyPasswords() {
+        PasswordHasher hasher = new PasswordHasher(4, 1, 4, 2, 30_000);
+        String hash = hasher.hash("secret");
+
+        assertTrue(PasswordHasher.isHashed(hash));
+        assertEquals(PasswordHasher.Verification.MATCH, hasher.verify("secret", hash));
+        assertEquals(PasswordHasher.Verification.MISMATCH, hasher.verify("wrong", hash));
+        assertEquals(PasswordHasher.Verification.MATCH, hasher.verify("legacy", "legacy"));
+        assertEquals(PasswordHasher.Verification.MISMATCH, hasher.verify("wrong", "legacy"));
+    }
+}
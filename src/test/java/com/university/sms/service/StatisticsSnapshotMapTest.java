@@ -0,0 +1,106 @@
+package com.university.sms.service;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Đưa kết quả truy vấn vào StatisticsService.SnapshotMap: truy vấn chạy ngoài
+ * map và kết quả bị bỏ nếu có cập nhật tăng dần hoặc invalidate trong lúc chạy.
+ * "Truy vấn" là loader trả về số cố định, cập nhật là cộng thêm.
+ */
+public class StatisticsSnapshotMapTest {
+    private final StatisticsService.SnapshotMap<String, Integer> snapshots = new StatisticsService.SnapshotMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Integer load(String key) {
+        loads.incrementAndGet();
+        return 10;
+    }
+
+    @Test
+    public void loadsOnceThenUpdatesIncrementally() {
+        assertEquals(10, snapshots.get("a", this::load).intValue());
+        snapshots.update("a", value -> value + 1);
+
+        assertEquals(11, snapshots.get("a", this::load).intValue());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void failedLoadIsNotStored() {
+        assertNull(snapshots.get("a", key -> null));
+        assertEquals(0, snapshots.size());
+    }
+
+    @Test
+    public void updateDuringLoadBlocksStaleStore() {
+        Integer value = snapshots.get("a", key -> {
+            snapshots.update(key, current -> current + 1);
+            return 10;
+        });
+
+        // Người gọi vẫn nhận kết quả nhưng nó không được lưu
+        assertEquals(10, value.intValue());
+        assertEquals(0, snapshots.size());
+        assertEquals(10, snapshots.get("a", this::load).intValue());
+        assertEquals(1, snapshots.size());
+    }
+
+    @Test
+    public void clearDuringLoadBlocksStaleStore() {
+        snapshots.get("a", key -> {
+            snapshots.clear();
+            return 10;
+        });
+
+        assertEquals(0, snapshots.size());
+    }
+
+    @Test
+    public void updateOfOtherKeyDoesNotBlockStore() {
+        snapshots.get("a", key -> {
+            snapshots.update("b", current -> current + 1);
+            return 10;
+        });
+
+        assertEquals(1, snapshots.size());
+    }
+
+    @Test
+    public void refreshReplacesSnapshotAndReportsDrift() {
+        snapshots.get("a", this::load);
+
+        assertFalse(snapshots.refresh("a", key -> 10, Integer::equals));
+        assertTrue(snapshots.refresh("a", key -> 12, Integer::equals));
+        assertEquals(12, snapshots.get("a", this::load).intValue());
+    }
+
+    @Test
+    public void updateDuringRefreshKeepsUpdatedSnapshot() {
+        snapshots.get("a", this::load);
+
+        boolean drift = snapshots.refresh("a", key -> {
+            snapshots.update(key, current -> current + 1);
+            return 10;
+        }, Integer::equals);
+
+        assertFalse(drift);
+        assertEquals(11, snapshots.get("a", this::load).intValue());
+    }
+
+    @Test
+    public void refreshDoesNotRecreateClearedSnapshot() {
+        snapshots.get("a", this::load);
+        snapshots.clear();
+
+        snapshots.refresh("a", key -> 12, Integer::equals);
+
+        assertEquals(0, snapshots.size());
+    }
+}
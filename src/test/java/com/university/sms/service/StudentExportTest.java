@@ -0,0 +1,86 @@
+package com.university.sms.service;
+
+import com.university.sms.common.Constants;
+import com.university.sms.util.DatabaseConnection;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Xuất danh sách sinh viên qua ResultSet streaming và giới hạn số lượt xuất
+ * đồng thời (app.export.max.concurrent).
+ *
+ * Cần database trong database.properties có ít nhất một sinh viên; không kết
+ * nối được thì test được bỏ qua.
+ */
+public class StudentExportTest {
+    private StudentService service;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Database not available", DatabaseConnection.testConnection());
+        service = new StudentService();
+        Assume.assumeTrue("No students", service.countStudents(null) > 0);
+    }
+
+    @Test
+    public void streamsEveryStudentInChunks() throws Exception {
+        List<Integer> chunkSizes = new ArrayList<>();
+        int total = service.exportStudents(1, chunk -> chunkSizes.add(chunk.size()));
+
+        assertEquals(service.countStudents(null), total);
+        assertEquals(total, chunkSizes.size());
+    }
+
+    @Test
+    public void stopsWhenConsumerReturnsFalse() throws Exception {
+        assertEquals(1, service.exportStudents(1, chunk -> false));
+    }
+
+    @Test
+    public void rejectsExportsBeyondConcurrencyLimit() throws Exception {
+        int limit = Integer.parseInt(DatabaseConnection.getSetting("app.export.max.concurrent", "2"));
+        ExecutorService pool = Executors.newFixedThreadPool(limit);
+        CountDownLatch started = new CountDownLatch(limit);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Các lượt xuất bị chặn trong consumer như khi client đọc chậm
+            List<Future<Integer>> running = new ArrayList<>();
+            for (int i = 0; i < limit; i++) {
+                running.add(pool.submit(() -> service.exportStudents(Constants.DEFAULT_CHUNK_SIZE, chunk -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                    return true;
+                })));
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            assertEquals(-1, service.exportStudents(Constants.DEFAULT_CHUNK_SIZE, chunk -> true));
+
+            release.countDown();
+            for (Future<Integer> future : running) {
+                assertTrue(future.get(10, TimeUnit.SECONDS) > 0);
+            }
+            assertTrue(service.exportStudents(Constants.DEFAULT_CHUNK_SIZE, chunk -> true) > 0);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+}
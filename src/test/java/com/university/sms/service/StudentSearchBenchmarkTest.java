@@ -0,0 +1,83 @@
+package com.university.sms.service;
+
+import com.university.sms.common.Constants;
+import com.university.sms.dao.BenchmarkStudents;
+import com.university.sms.dao.StudentDAO;
+import com.university.sms.util.DatabaseConnection;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tìm kiếm sinh viên: chỉ mục trigram trong bộ nhớ so với truy vấn LIKE có
+ * wildcard đầu chuỗi của StudentDAO.searchStudents.
+ *
+ * Chỉ chạy khi bật: mvn test -Dtest=StudentSearchBenchmarkTest -Dbenchmark=true
+ * (-Dbenchmark.students, mặc định 100000). Cần database; dữ liệu "bench-"
+ * được tạo và xóa trong test.
+ */
+public class StudentSearchBenchmarkTest {
+    private static final int STUDENTS = Integer.getInteger("benchmark.students", 100_000);
+    private static final int RUNS = 21;
+
+    // Mã cụ thể, tên có dấu, tên không dấu (khớp nhiều), từ ngắn, email
+    private static final String[] QUERIES = {"bench-012345", "Phạm Minh Khánh", "pham minh khanh", "Yến", "@bench.local"};
+
+    private final StudentSearchIndex index = StudentSearchIndex.getInstance();
+    private final StudentDAO dao = new StudentDAO();
+
+    @Before
+    public void setUp() throws SQLException {
+        Assume.assumeTrue("Benchmark disabled (-Dbenchmark=true)", Boolean.getBoolean("benchmark"));
+        Assume.assumeTrue("Database not available", DatabaseConnection.testConnection());
+        BenchmarkStudents.seed(STUDENTS);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (Boolean.getBoolean("benchmark") && DatabaseConnection.testConnection()) {
+            BenchmarkStudents.cleanUp();
+            index.rebuild();
+        }
+    }
+
+    @Test
+    public void indexIsFasterThanLike() {
+        long start = System.nanoTime();
+        index.rebuild();
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("Student search benchmark, " + index.size() + " students indexed in " + buildMillis
+            + " ms (median, limit " + Constants.MAX_PAGE_SIZE + ")");
+        for (String query : QUERIES) {
+            int hits = index.search(query, Constants.MAX_PAGE_SIZE).size();
+            long indexMicros = medianMicros(() -> index.search(query, Constants.MAX_PAGE_SIZE));
+            long likeMicros = medianMicros(() -> dao.searchStudents(query));
+            System.out.println(String.format("  %-18s %4d hits: index %7d us, LIKE %8d us",
+                "\"" + query + "\"", hits, indexMicros, likeMicros));
+
+            assertFalse(query, hits == 0);
+            assertTrue(query, indexMicros < likeMicros);
+        }
+    }
+
+    private static long medianMicros(Supplier<?> search) {
+        search.get();
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            search.get();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2] / 1000;
+    }
+}
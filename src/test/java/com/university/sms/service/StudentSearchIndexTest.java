@@ -0,0 +1,145 @@
+package com.university.sms.service;
+
+import com.university.sms.model.Student;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bỏ dấu, xếp hạng và cập nhật của StudentSearchIndex. Chỉ mục là singleton
+ * có thể đã được nạp từ database bởi test khác, nên test dùng ID riêng và chỉ
+ * xét kết quả thuộc các ID đó.
+ */
+public class StudentSearchIndexTest {
+    private static final int BASE_ID = 2_000_000_000;
+
+    private final StudentSearchIndex index = StudentSearchIndex.getInstance();
+    private final List<Integer> ids = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (int id : ids) {
+            index.remove(id);
+        }
+    }
+
+    @Test
+    public void matchesWithoutAccentsOrCase() {
+        int id = add("SV9001", "Nguyễn Thị Đào", "dao.nguyen@test.local");
+
+        assertEquals(List.of(id), search("nguyen thi dao"));
+        assertEquals(List.of(id), search("NGUYỄN THỊ ĐÀO"));
+        assertEquals(List.of(id), search("Đào"));
+        assertEquals(List.of(id), search("dao"));
+        assertEquals(List.of(id), search("  nguyen   thi  "));
+    }
+
+    @Test
+    public void decomposedInputMatchesPrecomposedName() {
+        // "Hòa" gõ bằng dấu tổ hợp (o + U+0300)
+        int id = add("SV9002", "Lê Thị Hòa", "hoa.le@test.local");
+
+        assertEquals(List.of(id), search("Ho\u0300a"));
+    }
+
+    @Test
+    public void ranksCodeThenNameThenEmail() {
+        int exactCode = add("HOA", "Trần Văn Bình", "a1@test.local");
+        int codePrefix = add("HOA01", "Trần Văn Bình", "a2@test.local");
+        int nameStart = add("SV9103", "Hoa Thị Mai", "a3@test.local");
+        int wordStart = add("SV9104", "Lê Hòa", "a4@test.local");
+        int codeContains = add("SVHOA9", "Trần Văn Bình", "a5@test.local");
+        int nameContains = add("SV9106", "Lê Thoại", "a6@test.local");
+        int emailStart = add("SV9107", "Trần Văn Bình", "hoa.b@test.local");
+        int emailContains = add("SV9108", "Trần Văn Bình", "b.hoa@test.local");
+        add("SV9109", "Trần Văn Bình", "a9@test.local");
+
+        assertEquals(List.of(exactCode, codePrefix, nameStart, wordStart, codeContains, nameContains,
+            emailStart, emailContains), search("hoa"));
+    }
+
+    @Test
+    public void tiesAreOrderedByCode() {
+        int second = add("SV9202", "Phan Minh Khánh", "k2@test.local");
+        int first = add("SV9201", "Phan Minh Khôi", "k1@test.local");
+
+        assertEquals(List.of(first, second), search("phan minh kh"));
+    }
+
+    @Test
+    public void shortQueriesScanAllDocuments() {
+        int id = add("SV9301", "Vũ Thị Yến", "y@test.local");
+
+        assertTrue(search("vu").contains(id));
+        assertTrue(search("y").contains(id));
+    }
+
+    @Test
+    public void unknownTrigramMatchesNothing() {
+        add("SV9401", "Đặng Quốc Sơn", "son@test.local");
+
+        assertEquals(List.of(), search("dang quoc sxn"));
+        assertEquals(List.of(), index.search("   ", 10));
+    }
+
+    @Test
+    public void limitKeepsBestMatches() {
+        for (int i = 0; i < 5; i++) {
+            add("SV95" + i, "Huỳnh Ngọc Lan", "lan" + i + "@test.local");
+        }
+
+        assertEquals(5, search("huynh ngoc lan").size());
+        List<Integer> all = index.search("huynh ngoc lan", Integer.MAX_VALUE);
+        assertEquals(all.subList(0, 2), index.search("huynh ngoc lan", 2));
+    }
+
+    @Test
+    public void reindexReplacesOldText() {
+        int id = add("SV9601", "Hoàng Văn Nam", "nam@test.local");
+
+        Student renamed = student(id, "SV9601", "Hoàng Văn Phúc", "nam@test.local");
+        index.index(renamed);
+
+        assertEquals(List.of(), search("hoang van nam"));
+        assertEquals(List.of(id), search("hoang van phuc"));
+    }
+
+    @Test
+    public void removedStudentsAreNotFound() {
+        int id = add("SV9701", "Võ Thanh Tuấn", "tuan@test.local");
+
+        index.remove(id);
+
+        assertEquals(List.of(), search("vo thanh tuan"));
+    }
+
+    private int add(String code, String fullName, String email) {
+        int id = BASE_ID + ids.size();
+        ids.add(id);
+        index.index(student(id, code, fullName, email));
+        return id;
+    }
+
+    private static Student student(int id, String code, String fullName, String email) {
+        Student student = new Student();
+        student.setStudentId(id);
+        student.setStudentCode(code);
+        student.setFullName(fullName);
+        student.setEmail(email);
+        return student;
+    }
+
+    /**
+     * Kết quả tìm kiếm, chỉ giữ các sinh viên do test thêm vào
+     */
+    private List<Integer> search(String keyword) {
+        List<Integer> result = new ArrayList<>(index.search(keyword, Integer.MAX_VALUE));
+        result.retainAll(ids);
+        return result;
+    }
+}
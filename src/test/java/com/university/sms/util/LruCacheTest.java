@@ -0,0 +1,192 @@
+package com.university.sms.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Read-through, LRU, TTL và generation của LruCache
+ */
+public class LruCacheTest {
+    private static final long HOUR = 3_600_000;
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, String> loader = key -> {
+        loads.incrementAndGet();
+        return key.toUpperCase();
+    };
+
+    @Test
+    public void loadsOnceThenHits() {
+        LruCache<String, String> cache = new LruCache<>(10, HOUR);
+
+        assertEquals("A", cache.get("a", loader));
+        assertEquals("A", cache.get("a", loader));
+        assertEquals("A", cache.peek("a"));
+
+        assertEquals(1, loads.get());
+        LruCache.CacheStatistics stats = cache.getStatistics();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    public void nullIsNotCached() {
+        LruCache<String, String> cache = new LruCache<>(10, HOUR);
+        Function<String, String> missing = key -> {
+            loads.incrementAndGet();
+            return null;
+        };
+
+        assertNull(cache.get("a", missing));
+        assertNull(cache.get("a", missing));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getStatistics().getSize());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        LruCache<String, String> cache = new LruCache<>(2, HOUR);
+        cache.get("a", loader);
+        cache.get("b", loader);
+        // Truy cập a để b thành phần tử ít dùng nhất
+        cache.get("a", loader);
+        cache.get("c", loader);
+
+        assertEquals("A", cache.peek("a"));
+        assertNull(cache.peek("b"));
+        assertEquals("C", cache.peek("c"));
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+    }
+
+    @Test
+    public void peekDoesNotLoadOrCount() {
+        LruCache<String, String> cache = new LruCache<>(2, HOUR);
+        assertNull(cache.peek("a"));
+        cache.get("a", loader);
+        cache.get("b", loader);
+        // peek không nạp và không tính vào hit/miss
+        cache.peek("a");
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getStatistics().getHitCount());
+        assertEquals(2, cache.getStatistics().getMissCount());
+    }
+
+    @Test
+    public void expiredEntriesAreReloaded() {
+        // TTL 0: phần tử hết hạn ngay khi được lưu
+        LruCache<String, String> cache = new LruCache<>(10, 0);
+        cache.get("a", loader);
+
+        assertNull(cache.peek("a"));
+        assertEquals("A", cache.get("a", loader));
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+    }
+
+    @Test
+    public void replaceSwapsOnlyExpectedValue() {
+        LruCache<String, String> cache = new LruCache<>(10, HOUR);
+        String cached = cache.get("a", loader);
+
+        assertFalse(cache.replace("a", "other", "X"));
+        assertEquals("A", cache.peek("a"));
+        assertTrue(cache.replace("a", cached, "B"));
+        assertEquals("B", cache.peek("a"));
+        // Khóa không có trong cache thì không được thêm
+        assertFalse(cache.replace("b", null, "B"));
+        assertNull(cache.peek("b"));
+    }
+
+    @Test
+    public void replaceDuringLoadBlocksStaleStore() {
+        LruCache<String, String> cache = new LruCache<>(10, HOUR);
+        String cached = cache.get("a", loader);
+
+        cache.get("b", key -> {
+            cache.replace("a", cached, "B");
+            return "stale";
+        });
+
+        assertEquals("B", cache.peek("a"));
+        assertNull(cache.peek("b"));
+    }
+
+    @Test
+    public void invalidateRemovesKey() {
+        LruCache<String, String> cache = new LruCache<>(10, HOUR);
+        cache.get("a", loader);
+        cache.get("b", loader);
+
+        cache.invalidate("a");
+
+        assertNull(cache.peek("a"));
+        assertEquals("B", cache.peek("b"));
+        cache.get("a", loader);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void invalidateAllClears() {
+        LruCache<String, String> cache = new LruCache<>(10, HOUR);
+        cache.get("a", loader);
+        cache.get("b", loader);
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.getStatistics().getSize());
+        assertNull(cache.peek("a"));
+    }
+
+    /**
+     * Một thao tác ghi xảy ra trong lúc đang nạp: giá trị nạp được vẫn trả về
+     * cho người gọi nhưng không được lưu, lần sau phải nạp lại
+     */
+    @Test
+    public void invalidateDuringLoadBlocksStaleStore() {
+        LruCache<String, String> cache = new LruCache<>(10, HOUR);
+
+        String value = cache.get("a", key -> {
+            loads.incrementAndGet();
+            cache.invalidate(key);
+            return "stale";
+        });
+
+        assertEquals("stale", value);
+        assertNull(cache.peek("a"));
+        assertEquals("A", cache.get("a", loader));
+        assertEquals("A", cache.peek("a"));
+    }
+
+    @Test
+    public void invalidateAllDuringLoadBlocksStaleStore() {
+        LruCache<String, String> cache = new LruCache<>(10, HOUR);
+
+        cache.get("a", key -> {
+            cache.invalidateAll();
+            return "stale";
+        });
+
+        assertNull(cache.peek("a"));
+        assertEquals(0, cache.getStatistics().getSize());
+    }
+
+    @Test
+    public void loadsStartedAfterInvalidateAreStored() {
+        LruCache<String, String> cache = new LruCache<>(10, HOUR);
+        cache.invalidate("a");
+        cache.invalidateAll();
+
+        cache.get("a", loader);
+
+        assertEquals("A", cache.peek("a"));
+    }
+}
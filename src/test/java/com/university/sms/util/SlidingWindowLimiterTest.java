@@ -0,0 +1,129 @@
+package com.university.sms.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Giới hạn theo cửa sổ trượt, chuyển cửa sổ và mức chặn nhầm do trùng ô của SlidingWindowLimiter
+ */
+public class SlidingWindowLimiterTest {
+    private static final long WINDOW = 60_000;
+    // Đầu một cửa sổ, để các lần ghi nhận trong test không vắt qua hai cửa sổ
+    private static final long START = 1_000 * WINDOW;
+
+    @Test
+    public void checkingDoesNotCount() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(3, WINDOW, 1024);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.allows("alice", START));
+        }
+        assertEquals(0, limiter.getRecordedCount());
+    }
+
+    @Test
+    public void rejectsOnceLimitIsRecorded() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(3, WINDOW, 1024);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.allows("alice", START));
+            limiter.record("alice", START);
+        }
+        assertFalse(limiter.allows("alice", START));
+        assertTrue(limiter.allows("bob", START));
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    /**
+     * Sang cửa sổ mới, số lần của cửa sổ trước giảm tuyến tính theo phần của
+     * nó còn nằm trong khoảng trượt
+     */
+    @Test
+    public void previousWindowDecaysAsItSlidesOut() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(100, WINDOW, 1024);
+        for (int i = 0; i < 10; i++) {
+            limiter.record("alice", START);
+        }
+
+        assertEquals(10.0, limiter.estimate("alice", START + WINDOW - 1), 0.0);
+        assertEquals(10.0, limiter.estimate("alice", START + WINDOW), 1e-9);
+        assertEquals(7.5, limiter.estimate("alice", START + WINDOW + WINDOW / 4), 1e-9);
+        assertEquals(5.0, limiter.estimate("alice", START + WINDOW + WINDOW / 2), 1e-9);
+        assertEquals(0.0, limiter.estimate("alice", START + 2 * WINDOW), 0.0);
+    }
+
+    @Test
+    public void rejectionLiftsAsWindowSlides() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(3, WINDOW, 1024);
+        // Ghi nhận ở cuối cửa sổ: vẫn bị tính đủ ngay sau khi sang cửa sổ mới
+        for (int i = 0; i < 6; i++) {
+            limiter.record("alice", START + WINDOW - 1);
+        }
+
+        assertFalse(limiter.allows("alice", START + WINDOW));
+        // 6 * (1 - 1/2) = 3, vẫn chạm giới hạn
+        assertFalse(limiter.allows("alice", START + WINDOW + WINDOW / 2));
+        // 6 * (1 - 2/3) = 2 < 3
+        assertTrue(limiter.allows("alice", START + WINDOW + 2 * WINDOW / 3));
+    }
+
+    @Test
+    public void recordingInNewWindowKeepsPreviousCount() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(100, WINDOW, 1024);
+        for (int i = 0; i < 4; i++) {
+            limiter.record("alice", START);
+        }
+        long now = START + WINDOW + WINDOW / 4;
+        limiter.record("alice", now);
+        limiter.record("alice", now);
+
+        assertEquals(4 * 0.75 + 2, limiter.estimate("alice", now), 1e-9);
+        // Thêm một cửa sổ nữa: 4 lần cũ bị bỏ, 2 lần vừa rồi thành cửa sổ trước
+        assertEquals(2.0, limiter.estimate("alice", START + 2 * WINDOW), 1e-9);
+    }
+
+    @Test
+    public void countsOlderThanPreviousWindowAreDropped() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(3, WINDOW, 1024);
+        for (int i = 0; i < 5; i++) {
+            limiter.record("alice", START);
+        }
+        assertFalse(limiter.allows("alice", START));
+
+        long later = START + 3 * WINDOW;
+        assertEquals(0.0, limiter.estimate("alice", later), 0.0);
+        limiter.record("alice", later);
+        assertEquals(1.0, limiter.estimate("alice", later), 0.0);
+        assertTrue(limiter.allows("alice", later));
+    }
+
+    /**
+     * Lúc cao điểm đầu học kỳ: 20000 lần đăng nhập sai của các tài khoản khác
+     * nhau trong một cửa sổ. Với cấu hình mặc định (65536 ô) không tài khoản
+     * nào bị chặn trước khi tự sai được nửa giới hạn.
+     */
+    @Test
+    public void distinctKeysAtPeakVolumeRarelyCollide() {
+        int limit = 10;
+        int noiseKeys = 20_000;
+        int probes = 10_000;
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(limit, WINDOW, 65536);
+        for (int i = 0; i < noiseKeys; i++) {
+            limiter.record("student" + i, START);
+        }
+
+        int inflated = 0;
+        double worst = 0;
+        for (int i = 0; i < probes; i++) {
+            double noise = limiter.estimate("probe" + i, START);
+            worst = Math.max(worst, noise);
+            if (noise >= 1) {
+                inflated++;
+            }
+        }
+
+        assertTrue("worst collision count " + worst, worst < limit / 2.0);
+        assertTrue("keys with inflated counts: " + inflated, inflated < probes / 10);
+    }
+}